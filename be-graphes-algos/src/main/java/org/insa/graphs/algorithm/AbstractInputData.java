@@ -45,6 +45,13 @@ public abstract class AbstractInputData {
         return graph;
     }
 
+    /**
+     * @return Arc inspector associated with this input.
+     */
+    public ArcInspector getArcInspector() {
+        return arcInspector;
+    }
+
     /**
      * Retrieve the cost associated with the given arc according to the underlying
      * arc inspector.
@@ -98,4 +105,17 @@ public abstract class AbstractInputData {
         return this.arcInspector.isAllowed(arc);
     }
 
+    /**
+     * Retrieve the compiled costs and permissions of the arcs of the graph for the
+     * filter corresponding to this input. The table is computed on the first call
+     * and cached on the graph.
+     * 
+     * @return Cost table of the arc inspector of this input for its graph.
+     * 
+     * @see ArcCostTable
+     */
+    public ArcCostTable getCostTable() {
+        return ArcCostTable.of(graph, arcInspector);
+    }
+
 }
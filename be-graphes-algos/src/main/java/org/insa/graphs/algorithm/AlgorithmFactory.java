@@ -7,10 +7,25 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.insa.graphs.algorithm.distancematrix.BucketDistanceMatrixAlgorithm;
+import org.insa.graphs.algorithm.distancematrix.DistanceMatrixAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ALTAlgorithm;
 import org.insa.graphs.algorithm.shortestpath.AStarAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ArcFlagsAlgorithm;
 import org.insa.graphs.algorithm.shortestpath.BellmanFordAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.BidirectionalAStarAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.BidirectionalDijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.CRPAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ContractionHierarchyAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.DeltaSteppingAlgorithm;
 import org.insa.graphs.algorithm.shortestpath.DijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.HubLabelAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ReachAStarAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ReachDijkstraAlgorithm;
 import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeAlgorithm;
+import org.insa.graphs.algorithm.strongconnectivity.StronglyConnectedComponentsAlgorithm;
+import org.insa.graphs.algorithm.weakconnectivity.UnionFindWeaklyConnectedComponentsAlgorithm;
 import org.insa.graphs.algorithm.weakconnectivity.WeaklyConnectedComponentsAlgorithm;
 
 /**
@@ -24,14 +39,43 @@ public class AlgorithmFactory {
     private final static Map<Class<? extends AbstractAlgorithm<?>>, Map<String, Class<? extends AbstractAlgorithm<?>>>> ALGORITHMS = new IdentityHashMap<>();
 
     static {
-        // Register weakly-connected components algorithm:
+        // Register weakly-connected components algorithms:
         registerAlgorithm(WeaklyConnectedComponentsAlgorithm.class, "WCC basic",
                 WeaklyConnectedComponentsAlgorithm.class);
+        registerAlgorithm(WeaklyConnectedComponentsAlgorithm.class, "WCC union-find",
+                UnionFindWeaklyConnectedComponentsAlgorithm.class);
+
+        // Register strongly-connected components algorithm:
+        registerAlgorithm(StronglyConnectedComponentsAlgorithm.class, "SCC Tarjan",
+                StronglyConnectedComponentsAlgorithm.class);
 
         // Register shortest path algorithm:
         registerAlgorithm(ShortestPathAlgorithm.class, "Bellman-Ford", BellmanFordAlgorithm.class);
         registerAlgorithm(ShortestPathAlgorithm.class, "Dijkstra", DijkstraAlgorithm.class);
         registerAlgorithm(ShortestPathAlgorithm.class, "A*", AStarAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Bidirectional Dijkstra",
+                BidirectionalDijkstraAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Bidirectional A*",
+                BidirectionalAStarAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "ALT", ALTAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Arc flags", ArcFlagsAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Reach Dijkstra",
+                ReachDijkstraAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Reach A*", ReachAStarAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Contraction Hierarchies",
+                ContractionHierarchyAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "CRP", CRPAlgorithm.class);
+        registerAlgorithm(ShortestPathAlgorithm.class, "Hub labels", HubLabelAlgorithm.class);
+
+        // Register shortest-path tree algorithms:
+        registerAlgorithm(ShortestPathTreeAlgorithm.class, "Dijkstra",
+                ShortestPathTreeAlgorithm.class);
+        registerAlgorithm(ShortestPathTreeAlgorithm.class, "Delta-stepping",
+                DeltaSteppingAlgorithm.class);
+
+        // Register distance matrix algorithm:
+        registerAlgorithm(DistanceMatrixAlgorithm.class, "Buckets",
+                BucketDistanceMatrixAlgorithm.class);
 
         // Register your algorithms here:
         // registerAlgorithm(CarPoolingAlgorithm.class, "My Awesome Algorithm",
@@ -0,0 +1,195 @@
+package org.insa.graphs.algorithm;
+
+import java.util.List;
+
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+
+/**
+ * <p>
+ * Compiled form of an {@link ArcInspector} for a given graph: the cost of every
+ * arc and whether it is allowed, stored in arrays indexed by the arcs of the
+ * {@link CompactGraph}.
+ * </p>
+ *
+ * <p>
+ * Tables are cached on the graph for each inspector (see
+ * {@link #of(Graph, ArcInspector)}), so algorithms can use them instead of
+ * calling the inspector for each arc they relax. A table is dropped once its
+ * inspector is no longer reachable, so inspectors created for a single query do
+ * not keep their tables for the lifetime of the graph:
+ * </p>
+ *
+ * <pre>
+ * ArcCostTable costs = data.getCostTable();
+ * for (int arc = graph.getFirstArc(v); arc &lt; graph.getFirstArc(v + 1); ++arc) {
+ *     if (costs.isAllowed(arc)) {
+ *         float cost = costs.getCost(arc);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Costs are stored as floats, the type of the labels of the searches, so the
+ * costs returned by the inspector are rounded to the nearest float.
+ * </p>
+ *
+ * <p>
+ * Inspectors are compiled without creating an arc object per arc: they are
+ * given a single arc that reads the arrays of the compact graph and is moved
+ * from one arc to the next, so they must not keep the arcs they inspect.
+ * </p>
+ *
+ */
+public final class ArcCostTable {
+
+    // Cost of each arc, infinite for arcs that are not allowed.
+    private final float[] costs;
+
+    // Allowed arcs (one bit per arc).
+    private final long[] allowed;
+
+    // Number of allowed arcs.
+    private final int nbAllowed;
+
+    /**
+     * Arc reading the arrays of a compact graph at a given index, which can be
+     * changed so that the same object is used for all the arcs.
+     */
+    private static final class ArcCursor extends Arc {
+
+        // Compact graph containing the arc.
+        private final CompactGraph graph;
+
+        // Index of the current arc in the graph.
+        private int index;
+
+        ArcCursor(CompactGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Node getOrigin() {
+            return graph.getNode(graph.getArcOrigin(index));
+        }
+
+        @Override
+        public Node getDestination() {
+            return graph.getNode(graph.getArcDestination(index));
+        }
+
+        @Override
+        public float getLength() {
+            return graph.getArcLength(index);
+        }
+
+        @Override
+        public RoadInformation getRoadInformation() {
+            return graph.getRoadInformation(index);
+        }
+
+        @Override
+        public List<Point> getPoints() {
+            return graph.getArc(index).getPoints();
+        }
+
+    }
+
+    /**
+     * Compile the given inspector for the given graph.
+     *
+     * @param graph Graph whose arcs are inspected.
+     * @param inspector Inspector to compile.
+     */
+    private ArcCostTable(Graph graph, ArcInspector inspector) {
+        CompactGraph compact = graph.getCompactGraph();
+        final int nbArcs = compact.getArcCount();
+
+        // If the permission only depends on the road information, it is evaluated
+        // once per road information (on the first arc having it).
+        byte[] descriptorAllowed = null;
+        if (inspector.dependsOnlyOnRoadInformation()) {
+            descriptorAllowed = new byte[compact.getDescriptorCount()];
+        }
+
+        this.costs = new float[nbArcs];
+        this.allowed = new long[(nbArcs + 63) / 64];
+        int nbAllowed = 0;
+        ArcCursor object = new ArcCursor(compact);
+        for (int arc = 0; arc < nbArcs; ++arc) {
+            object.index = arc;
+            boolean isAllowed;
+            if (descriptorAllowed != null) {
+                int descriptor = compact.getArcDescriptor(arc);
+                if (descriptorAllowed[descriptor] == 0) {
+                    descriptorAllowed[descriptor] = (byte) (inspector.isAllowed(object) ? 1 : -1);
+                }
+                isAllowed = descriptorAllowed[descriptor] > 0;
+            }
+            else {
+                isAllowed = inspector.isAllowed(object);
+            }
+            if (isAllowed) {
+                this.allowed[arc >>> 6] |= 1L << arc;
+                this.costs[arc] = (float) inspector.getCost(object);
+                nbAllowed++;
+            }
+            else {
+                this.costs[arc] = Float.POSITIVE_INFINITY;
+            }
+        }
+        this.nbAllowed = nbAllowed;
+    }
+
+    /**
+     * Retrieve the table of the given inspector for the given graph, compiling it
+     * on the first call.
+     *
+     * @param graph Graph whose arcs are inspected.
+     * @param inspector Inspector to compile.
+     *
+     * @return Table of the given inspector for the given graph.
+     */
+    public static ArcCostTable of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, ArcCostTable.class,
+                (g) -> new ArcCostTable(g, inspector));
+    }
+
+    /**
+     * @return Number of arcs in this table.
+     */
+    public int size() {
+        return costs.length;
+    }
+
+    /**
+     * @return Number of allowed arcs in this table.
+     */
+    public int getAllowedCount() {
+        return nbAllowed;
+    }
+
+    /**
+     * @param arc Index of an arc in the compact graph.
+     *
+     * @return true if the given arc is allowed.
+     */
+    public boolean isAllowed(int arc) {
+        return (allowed[arc >>> 6] & (1L << arc)) != 0;
+    }
+
+    /**
+     * @param arc Index of an arc in the compact graph.
+     *
+     * @return Cost of the given arc, or {@link Float#POSITIVE_INFINITY} if the arc
+     *         is not allowed.
+     */
+    public float getCost(int arc) {
+        return costs[arc];
+    }
+
+}
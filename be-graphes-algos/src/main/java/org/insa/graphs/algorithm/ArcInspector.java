@@ -40,4 +40,15 @@ public interface ArcInspector {
      */
     public Mode getMode();
 
+    /**
+     * Indicate if {@link #isAllowed(Arc)} only depends on the road information of
+     * the arc, in which case it only needs to be evaluated once per road
+     * information when compiling this inspector (see {@link ArcCostTable}).
+     * 
+     * @return true if the permission only depends on the road information.
+     */
+    public default boolean dependsOnlyOnRoadInformation() {
+        return false;
+    }
+
 }
@@ -5,6 +5,7 @@ import java.util.EnumSet;
 import java.util.List;
 
 import org.insa.graphs.algorithm.AbstractInputData.Mode;
+import org.insa.graphs.model.AccessRestrictions;
 import org.insa.graphs.model.Arc;
 //import org.insa.graphs.model.GraphStatistics;
 import org.insa.graphs.model.AccessRestrictions.AccessMode;
@@ -12,10 +13,31 @@ import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
 
 public class ArcInspectorFactory {
 
+    // Restrictions of roads that are not closed to a mode.
+    private static final EnumSet<AccessRestriction> NOT_CLOSED = EnumSet
+            .complementOf(EnumSet.of(AccessRestriction.FORBIDDEN, AccessRestriction.PRIVATE));
+
+    // Masks of roads open for cars and for pedestrians, compiled once.
+    private static final long MOTORCAR_MASK = AccessRestrictions
+            .getMask(EnumSet.of(AccessMode.MOTORCAR), NOT_CLOSED);
+    private static final long FOOT_MASK = AccessRestrictions.getMask(EnumSet.of(AccessMode.FOOT),
+            NOT_CLOSED);
+
+    // Filters of this factory, created once so that their compiled cost tables can
+    // be cached on graphs.
+    private static final List<ArcInspector> FILTERS = createFilters();
+
     /**
      * @return List of all arc filters in this factory.
      */
     public static List<ArcInspector> getAllFilters() {
+        return new ArrayList<>(FILTERS);
+    }
+
+    /**
+     * @return New list containing all the filters of this factory.
+     */
+    private static List<ArcInspector> createFilters() {
         List<ArcInspector> filters = new ArrayList<>();
 
         // Common filters:
@@ -39,6 +61,11 @@ public class ArcInspectorFactory {
             }
             */
 
+            @Override
+            public boolean dependsOnlyOnRoadInformation() {
+                return true;
+            }
+
             @Override
             public Mode getMode() {
                 return Mode.LENGTH;
@@ -55,8 +82,7 @@ public class ArcInspectorFactory {
             @Override
             public boolean isAllowed(Arc arc) {
                 return arc.getRoadInformation().getAccessRestrictions()
-                        .isAllowedForAny(AccessMode.MOTORCAR, EnumSet.complementOf(EnumSet
-                                .of(AccessRestriction.FORBIDDEN, AccessRestriction.PRIVATE)));
+                        .isAllowedForAny(MOTORCAR_MASK);
             }
 
             @Override
@@ -71,6 +97,11 @@ public class ArcInspectorFactory {
             }
             */
 
+            @Override
+            public boolean dependsOnlyOnRoadInformation() {
+                return true;
+            }
+
             @Override
             public Mode getMode() {
                 return Mode.LENGTH;
@@ -102,6 +133,11 @@ public class ArcInspectorFactory {
             }
             */
 
+            @Override
+            public boolean dependsOnlyOnRoadInformation() {
+                return true;
+            }
+
             @Override
             public Mode getMode() {
                 return Mode.TIME;
@@ -117,8 +153,7 @@ public class ArcInspectorFactory {
             @Override
             public boolean isAllowed(Arc arc) {
                 return arc.getRoadInformation().getAccessRestrictions()
-                        .isAllowedForAny(AccessMode.MOTORCAR, EnumSet.complementOf(EnumSet
-                                .of(AccessRestriction.FORBIDDEN, AccessRestriction.PRIVATE)));
+                        .isAllowedForAny(MOTORCAR_MASK);
             }
 
             @Override
@@ -133,6 +168,11 @@ public class ArcInspectorFactory {
             }
             */
             
+            @Override
+            public boolean dependsOnlyOnRoadInformation() {
+                return true;
+            }
+
             @Override
             public Mode getMode() {
                 return Mode.TIME;
@@ -152,8 +192,7 @@ public class ArcInspectorFactory {
             @Override
             public boolean isAllowed(Arc arc) {
                 return arc.getRoadInformation().getAccessRestrictions()
-                        .isAllowedForAny(AccessMode.FOOT, EnumSet.complementOf(EnumSet
-                                .of(AccessRestriction.FORBIDDEN, AccessRestriction.PRIVATE)));
+                        .isAllowedForAny(FOOT_MASK);
             }
 
             @Override
@@ -174,6 +213,11 @@ public class ArcInspectorFactory {
             }
             */
             
+            @Override
+            public boolean dependsOnlyOnRoadInformation() {
+                return true;
+            }
+
             @Override
             public Mode getMode() {
                 return Mode.TIME;
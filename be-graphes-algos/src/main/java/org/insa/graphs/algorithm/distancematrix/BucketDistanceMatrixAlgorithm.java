@@ -0,0 +1,240 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.shortestpath.ContractionHierarchy;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.Node;
+
+/**
+ * <p>
+ * Distance matrix computed with buckets on the {@link ContractionHierarchy} of
+ * the graph.
+ * </p>
+ *
+ * <p>
+ * A shortest path goes up the hierarchy to its highest-ranked node then down,
+ * so its cost is the minimum, over the nodes <i>v</i> settled by both the
+ * forward upward search from the origin and the backward upward search from
+ * the destination, of the sum of their distances to <i>v</i>. The algorithm
+ * first runs one backward search per destination, and stores each settled node
+ * with its distance in the bucket of the node. It then runs one forward search
+ * per origin, and scans the buckets of the nodes it settles to fill the row of
+ * the origin. Both phases are run in parallel on a pool.
+ * </p>
+ *
+ * <p>
+ * Searches stop at the radius of the input data, and pairs whose distance goes
+ * beyond it are reported as unreachable.
+ * </p>
+ *
+ */
+public class BucketDistanceMatrixAlgorithm extends DistanceMatrixAlgorithm {
+
+    // Minimum number of searches run by a single task.
+    private static final int MIN_SEARCHES_PER_TASK = 4;
+
+    // Pool on which the searches are run.
+    private final ForkJoinPool pool;
+
+    /**
+     * Upward search of a thread.
+     */
+    private static class UpwardSearch {
+
+        // Distances (infinite if not reached).
+        final float[] distances;
+
+        // Reached nodes, and settled nodes in order.
+        final int[] touched, settled;
+        int nbTouched = 0, nbSettled = 0;
+
+        // Queue of the search.
+        final IntFloatHeap queue;
+
+        UpwardSearch(int nbNodes) {
+            distances = new float[nbNodes];
+            Arrays.fill(distances, Float.POSITIVE_INFINITY);
+            touched = new int[nbNodes];
+            settled = new int[nbNodes];
+            queue = new IntFloatHeap(nbNodes);
+        }
+
+        /**
+         * Run an upward search from the given node, forward on the upward edges or
+         * backward on the downward edges, settling nodes up to the given radius.
+         */
+        void run(ContractionHierarchy hierarchy, int source, boolean forward, float radius) {
+            for (int i = 0; i < nbTouched; ++i) {
+                distances[touched[i]] = Float.POSITIVE_INFINITY;
+            }
+            nbTouched = 0;
+            nbSettled = 0;
+            queue.clear();
+
+            distances[source] = 0;
+            touched[nbTouched++] = source;
+            queue.insert(source, 0);
+            while (!queue.isEmpty() && queue.findMinKey() <= radius) {
+                int node = queue.deleteMin();
+                settled[nbSettled++] = node;
+
+                int first, last;
+                if (forward) {
+                    first = hierarchy.getFirstUpwardEdge(node);
+                    last = hierarchy.getFirstUpwardEdge(node + 1);
+                }
+                else {
+                    first = hierarchy.getFirstDownwardEdge(node);
+                    last = hierarchy.getFirstDownwardEdge(node + 1);
+                }
+                for (int edge = first; edge < last; ++edge) {
+                    int successor = forward ? hierarchy.getEdgeDestination(edge)
+                            : hierarchy.getEdgeOrigin(edge);
+                    float distance = distances[node] + hierarchy.getEdgeCost(edge);
+                    if (distance < distances[successor]) {
+                        if (distances[successor] == Float.POSITIVE_INFINITY) {
+                            touched[nbTouched++] = successor;
+                        }
+                        distances[successor] = distance;
+                        queue.insertOrDecreaseKey(successor, distance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a new algorithm running its searches on the common pool.
+     *
+     * @param data Input data for this algorithm.
+     */
+    public BucketDistanceMatrixAlgorithm(DistanceMatrixData data) {
+        this(data, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new algorithm running its searches on the given pool.
+     *
+     * @param data Input data for this algorithm.
+     * @param pool Pool on which the searches are run.
+     */
+    public BucketDistanceMatrixAlgorithm(DistanceMatrixData data, ForkJoinPool pool) {
+        super(data);
+        this.pool = pool;
+    }
+
+    /**
+     * Split the indices [0, count) between tasks run on the pool, and wait for
+     * them.
+     */
+    private void runInParallel(int count, IntConsumer action) {
+        int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                (count + MIN_SEARCHES_PER_TASK - 1) / MIN_SEARCHES_PER_TASK));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) count * task / nbTasks);
+            final int to = (int) ((long) count * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> {
+                for (int i = from; i < to; ++i) {
+                    action.accept(i);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+    }
+
+    @Override
+    protected DistanceMatrixSolution doRun() {
+        final DistanceMatrixData data = getInputData();
+        final ContractionHierarchy hierarchy = ContractionHierarchy.of(data.getGraph(),
+                data.getArcInspector());
+        final int nbNodes = hierarchy.size();
+        final List<Node> origins = data.getOrigins(), destinations = data.getDestinations();
+        final int nbOrigins = origins.size(), nbDestinations = destinations.size();
+        final float radius = data.getRadius();
+
+        final ThreadLocal<UpwardSearch> searches = ThreadLocal
+                .withInitial(() -> new UpwardSearch(nbNodes));
+
+        // Backward searches: nodes settled from each destination, and their
+        // distances.
+        final int[][] settledNodes = new int[nbDestinations][];
+        final float[][] settledDistances = new float[nbDestinations][];
+        runInParallel(nbDestinations, (destination) -> {
+            UpwardSearch search = searches.get();
+            search.run(hierarchy, destinations.get(destination).getId(), false, radius);
+            settledNodes[destination] = Arrays.copyOf(search.settled, search.nbSettled);
+            settledDistances[destination] = new float[search.nbSettled];
+            for (int i = 0; i < search.nbSettled; ++i) {
+                settledDistances[destination][i] = search.distances[search.settled[i]];
+            }
+        });
+
+        // Bucket of node v is [firstEntry[v], firstEntry[v + 1]), each entry being a
+        // destination and its distance from v.
+        final int[] firstEntry = new int[nbNodes + 1];
+        for (int[] nodes: settledNodes) {
+            for (int node: nodes) {
+                firstEntry[node + 1] += 1;
+            }
+        }
+        for (int node = 0; node < nbNodes; ++node) {
+            firstEntry[node + 1] += firstEntry[node];
+        }
+        final int nbEntries = firstEntry[nbNodes];
+        final int[] entryDestinations = new int[nbEntries];
+        final float[] entryDistances = new float[nbEntries];
+        int[] nextEntry = Arrays.copyOf(firstEntry, nbNodes);
+        for (int destination = 0; destination < nbDestinations; ++destination) {
+            for (int i = 0; i < settledNodes[destination].length; ++i) {
+                int entry = nextEntry[settledNodes[destination][i]]++;
+                entryDestinations[entry] = destination;
+                entryDistances[entry] = settledDistances[destination][i];
+            }
+            settledNodes[destination] = null;
+            settledDistances[destination] = null;
+        }
+
+        notifyBucketsFilled(nbEntries);
+
+        // Forward searches: each one fills the row of its origin.
+        final float[] distances = new float[nbOrigins * nbDestinations];
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        runInParallel(nbOrigins, (origin) -> {
+            UpwardSearch search = searches.get();
+            search.run(hierarchy, origins.get(origin).getId(), true, radius);
+            final int row = origin * nbDestinations;
+            for (int i = 0; i < search.nbSettled; ++i) {
+                int node = search.settled[i];
+                float distance = search.distances[node];
+                for (int entry = firstEntry[node]; entry < firstEntry[node + 1]; ++entry) {
+                    int cell = row + entryDestinations[entry];
+                    if (distance + entryDistances[entry] < distances[cell]) {
+                        distances[cell] = distance + entryDistances[entry];
+                    }
+                }
+            }
+            for (int cell = row; cell < row + nbDestinations; ++cell) {
+                if (distances[cell] > radius) {
+                    distances[cell] = Float.POSITIVE_INFINITY;
+                }
+            }
+        });
+
+        for (Node origin: origins) {
+            notifyRowComputed(origin);
+        }
+
+        return new DistanceMatrixSolution(data, Status.OPTIMAL, distances);
+    }
+
+}
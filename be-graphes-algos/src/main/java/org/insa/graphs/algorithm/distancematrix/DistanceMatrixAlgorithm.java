@@ -0,0 +1,47 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import org.insa.graphs.algorithm.AbstractAlgorithm;
+import org.insa.graphs.model.Node;
+
+public abstract class DistanceMatrixAlgorithm extends AbstractAlgorithm<DistanceMatrixObserver> {
+
+    protected DistanceMatrixAlgorithm(DistanceMatrixData data) {
+        super(data);
+    }
+
+    @Override
+    public DistanceMatrixSolution run() {
+        return (DistanceMatrixSolution) super.run();
+    }
+
+    @Override
+    protected abstract DistanceMatrixSolution doRun();
+
+    @Override
+    public DistanceMatrixData getInputData() {
+        return (DistanceMatrixData) super.getInputData();
+    }
+
+    /**
+     * Notify all observers that the backward searches are done.
+     *
+     * @param nbEntries Number of entries stored in the buckets of the nodes.
+     */
+    public void notifyBucketsFilled(int nbEntries) {
+        for (DistanceMatrixObserver obs: getObservers()) {
+            obs.notifyBucketsFilled(nbEntries);
+        }
+    }
+
+    /**
+     * Notify all observers that the row of the given origin has been computed.
+     *
+     * @param origin Origin of the row.
+     */
+    public void notifyRowComputed(Node origin) {
+        for (DistanceMatrixObserver obs: getObservers()) {
+            obs.notifyRowComputed(origin);
+        }
+    }
+
+}
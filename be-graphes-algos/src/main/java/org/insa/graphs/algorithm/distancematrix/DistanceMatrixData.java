@@ -0,0 +1,80 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+
+public class DistanceMatrixData extends AbstractInputData {
+
+    // Origins (rows) and destinations (columns) of the matrix.
+    private final List<Node> origins, destinations;
+
+    // Cost beyond which pairs are considered unreachable.
+    private final float radius;
+
+    /**
+     * Create a new input data for a distance matrix without radius.
+     *
+     * @param graph Graph in which the distances should be computed.
+     * @param origins Origins of the matrix, one per row.
+     * @param destinations Destinations of the matrix, one per column.
+     * @param arcInspector Filter for arcs (used to compute costs).
+     */
+    public DistanceMatrixData(Graph graph, List<Node> origins, List<Node> destinations,
+            ArcInspector arcInspector) {
+        this(graph, origins, destinations, arcInspector, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Create a new input data for a distance matrix.
+     *
+     * @param graph Graph in which the distances should be computed.
+     * @param origins Origins of the matrix, one per row.
+     * @param destinations Destinations of the matrix, one per column.
+     * @param arcInspector Filter for arcs (used to compute costs).
+     * @param radius Cost beyond which pairs are considered unreachable, searches
+     *        do not go further.
+     */
+    public DistanceMatrixData(Graph graph, List<Node> origins, List<Node> destinations,
+            ArcInspector arcInspector, float radius) {
+        super(graph, arcInspector);
+        this.origins = Collections.unmodifiableList(origins);
+        this.destinations = Collections.unmodifiableList(destinations);
+        this.radius = radius;
+    }
+
+    /**
+     * @return Origins of the matrix, one per row.
+     */
+    public List<Node> getOrigins() {
+        return origins;
+    }
+
+    /**
+     * @return Destinations of the matrix, one per column.
+     */
+    public List<Node> getDestinations() {
+        return destinations;
+    }
+
+    /**
+     * @return Cost beyond which pairs are considered unreachable (infinite if
+     *         none).
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    @Override
+    public String toString() {
+        return "Distance matrix from " + origins.size() + " origins to " + destinations.size()
+                + " destinations"
+                + (Float.isInfinite(radius) ? "" : " within " + radius) + " ["
+                + this.arcInspector.toString().toLowerCase() + "]";
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import org.insa.graphs.model.Node;
+
+public interface DistanceMatrixObserver {
+
+    /**
+     * Notify that the backward searches from all the destinations are done.
+     *
+     * @param nbEntries Number of entries stored in the buckets of the nodes.
+     */
+    public void notifyBucketsFilled(int nbEntries);
+
+    /**
+     * Notify that the row of the given origin has been computed.
+     *
+     * @param origin Origin of the row.
+     */
+    public void notifyRowComputed(Node origin);
+
+}
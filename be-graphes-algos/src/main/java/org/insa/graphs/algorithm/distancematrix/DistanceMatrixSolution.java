@@ -0,0 +1,100 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import org.insa.graphs.algorithm.AbstractSolution;
+import org.insa.graphs.algorithm.shortestpath.ContractionHierarchyAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.model.Path;
+
+public class DistanceMatrixSolution extends AbstractSolution {
+
+    // Distances, row by row (infinite for unreachable pairs).
+    private final float[] distances;
+
+    /**
+     * Create a new distance matrix solution.
+     *
+     * @param data Original input data for this solution.
+     * @param status Status of the solution.
+     * @param distances Distances from each origin to each destination, row by row.
+     */
+    protected DistanceMatrixSolution(DistanceMatrixData data, Status status,
+            float[] distances) {
+        super(data, status);
+        this.distances = distances;
+    }
+
+    @Override
+    public DistanceMatrixData getInputData() {
+        return (DistanceMatrixData) super.getInputData();
+    }
+
+    /**
+     * @return Number of rows (origins) of the matrix.
+     */
+    public int getRowCount() {
+        return getInputData().getOrigins().size();
+    }
+
+    /**
+     * @return Number of columns (destinations) of the matrix.
+     */
+    public int getColumnCount() {
+        return getInputData().getDestinations().size();
+    }
+
+    /**
+     * @param origin Index of an origin in the input data.
+     * @param destination Index of a destination in the input data.
+     *
+     * @return Cost of the shortest path from the origin to the destination, or
+     *         infinity if the destination cannot be reached (within the radius).
+     */
+    public float getDistance(int origin, int destination) {
+        return distances[origin * getColumnCount() + destination];
+    }
+
+    /**
+     * @return Distances from each origin to each destination, row by row. The
+     *         array is not copied and should not be modified.
+     */
+    public float[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Reconstruct the shortest path from the given origin to the given
+     * destination. The matrix does not store paths, so this runs a
+     * {@link ContractionHierarchyAlgorithm} query on the hierarchy already used to
+     * compute the matrix.
+     *
+     * @param origin Index of an origin in the input data.
+     * @param destination Index of a destination in the input data.
+     *
+     * @return Shortest path from the origin to the destination, or null if the
+     *         destination cannot be reached (within the radius).
+     */
+    public Path getPath(int origin, int destination) {
+        if (Float.isInfinite(getDistance(origin, destination))) {
+            return null;
+        }
+        DistanceMatrixData data = getInputData();
+        return new ContractionHierarchyAlgorithm(
+                new ShortestPathData(data.getGraph(), data.getOrigins().get(origin),
+                        data.getDestinations().get(destination), data.getArcInspector()))
+                                .run().getPath();
+    }
+
+    @Override
+    public String toString() {
+        int nbUnreachable = 0;
+        for (float distance: distances) {
+            if (Float.isInfinite(distance)) {
+                nbUnreachable += 1;
+            }
+        }
+        return "Computed a " + getRowCount() + "x" + getColumnCount() + " distance matrix ("
+                + nbUnreachable + " unreachable pairs) in " + getSolvingTime().getSeconds()
+                + " seconds.";
+    }
+
+}
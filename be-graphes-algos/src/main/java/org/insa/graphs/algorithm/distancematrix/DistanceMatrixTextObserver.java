@@ -0,0 +1,31 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import java.io.PrintStream;
+
+import org.insa.graphs.model.Node;
+
+public class DistanceMatrixTextObserver implements DistanceMatrixObserver {
+
+    // Number of rows computed so far.
+    private int nbRows = 0;
+
+    // Output stream
+    PrintStream stream;
+
+    public DistanceMatrixTextObserver(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void notifyBucketsFilled(int nbEntries) {
+        stream.println("Buckets filled with " + nbEntries + " entries.");
+    }
+
+    @Override
+    public void notifyRowComputed(Node origin) {
+        nbRows += 1;
+        stream.println("Row #" + nbRows + " from node #" + origin.getId() + " computed.");
+        stream.flush();
+    }
+
+}
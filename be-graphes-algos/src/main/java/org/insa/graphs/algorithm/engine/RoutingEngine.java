@@ -0,0 +1,266 @@
+package org.insa.graphs.algorithm.engine;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.insa.graphs.algorithm.shortestpath.SearchWorkspace;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathSolution;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Service running shortest-path queries on a shared graph with a thread pool.
+ * </p>
+ *
+ * <p>
+ * Each query creates a new instance of the algorithm of the engine, since
+ * algorithms are single-use, but the arrays of the searches come from the
+ * {@link SearchWorkspace} pool of the thread running it, and the data derived
+ * from the graph (costs, preprocessing) is cached on the graph and shared by
+ * all the threads. Queries can be submitted one by one or by batches, whose
+ * results are available as futures or as an iterator in order of completion.
+ * </p>
+ *
+ */
+public final class RoutingEngine implements AutoCloseable {
+
+    // Graph of the queries.
+    private final Graph graph;
+
+    // Constructor of the algorithm of the queries.
+    private final Constructor<? extends ShortestPathAlgorithm> constructor;
+
+    // Executor running the queries, and whether it should be shut down with the
+    // engine.
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Create a new engine running its queries on a new pool of the given number of
+     * threads.
+     *
+     * @param graph Graph of the queries.
+     * @param algorithm Class of the algorithm of the queries, with a constructor
+     *        taking a {@link ShortestPathData}.
+     * @param nbThreads Number of threads of the pool.
+     *
+     * @throws IllegalArgumentException if the algorithm has no such constructor.
+     */
+    public RoutingEngine(Graph graph, Class<? extends ShortestPathAlgorithm> algorithm,
+            int nbThreads) {
+        this(graph, algorithm, Executors.newFixedThreadPool(nbThreads, createThreadFactory()),
+                true);
+    }
+
+    /**
+     * Create a new engine running its queries on the given executor, which is not
+     * shut down by {@link #close()}.
+     *
+     * @param graph Graph of the queries.
+     * @param algorithm Class of the algorithm of the queries, with a constructor
+     *        taking a {@link ShortestPathData}.
+     * @param executor Executor running the queries.
+     *
+     * @throws IllegalArgumentException if the algorithm has no such constructor.
+     */
+    public RoutingEngine(Graph graph, Class<? extends ShortestPathAlgorithm> algorithm,
+            ExecutorService executor) {
+        this(graph, algorithm, executor, false);
+    }
+
+    private RoutingEngine(Graph graph, Class<? extends ShortestPathAlgorithm> algorithm,
+            ExecutorService executor, boolean ownsExecutor) {
+        this.graph = graph;
+        try {
+            this.constructor = algorithm.getConstructor(ShortestPathData.class);
+        }
+        catch (NoSuchMethodException e) {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+            throw new IllegalArgumentException(
+                    algorithm.getSimpleName() + " cannot be created from a ShortestPathData.",
+                    e);
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * @return Factory of daemon threads named after the engine.
+     */
+    private static ThreadFactory createThreadFactory() {
+        final AtomicInteger nbThreads = new AtomicInteger();
+        return (runnable) -> {
+            Thread thread = new Thread(runnable,
+                    "routing-engine-" + nbThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return Graph of the queries of this engine.
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Run a single query, in the current thread.
+     *
+     * @param data Input of the query, on the graph of this engine.
+     *
+     * @return Solution of the query.
+     *
+     * @throws IllegalArgumentException if the query is not on the graph of this
+     *         engine.
+     */
+    public ShortestPathSolution solve(ShortestPathData data) {
+        if (data.getGraph() != graph) {
+            throw new IllegalArgumentException("Query on another graph than the engine's.");
+        }
+        try {
+            return constructor.newInstance(data).run();
+        }
+        catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Submit a query to the pool of this engine.
+     *
+     * @param data Input of the query, on the graph of this engine.
+     *
+     * @return Future solution of the query.
+     *
+     * @throws IllegalArgumentException if the query is not on the graph of this
+     *         engine.
+     */
+    public Future<ShortestPathSolution> submit(ShortestPathData data) {
+        if (data.getGraph() != graph) {
+            throw new IllegalArgumentException("Query on another graph than the engine's.");
+        }
+        return executor.submit(() -> solve(data));
+    }
+
+    /**
+     * Submit a batch of queries to the pool of this engine.
+     *
+     * @param batch Inputs of the queries, on the graph of this engine.
+     *
+     * @return Future solutions of the queries, in the order of the batch.
+     *
+     * @throws IllegalArgumentException if a query is not on the graph of this
+     *         engine (no query is submitted in this case).
+     */
+    public List<Future<ShortestPathSolution>> submitAll(Collection<ShortestPathData> batch) {
+        checkBatch(batch);
+        List<Future<ShortestPathSolution>> futures = new ArrayList<>(batch.size());
+        for (ShortestPathData data: batch) {
+            futures.add(executor.submit(() -> solve(data)));
+        }
+        return futures;
+    }
+
+    /**
+     * Submit a batch of queries to the pool of this engine, and iterate over their
+     * solutions as they complete. The input of each solution is available through
+     * {@link ShortestPathSolution#getInputData()}.
+     *
+     * @param batch Inputs of the queries, on the graph of this engine.
+     *
+     * @return Iterator over the solutions, in order of completion. Its methods
+     *         block until the next solution is available, and throw an
+     *         {@link IllegalStateException} if a query has failed or the current
+     *         thread has been interrupted.
+     *
+     * @throws IllegalArgumentException if a query is not on the graph of this
+     *         engine (no query is submitted in this case).
+     */
+    public Iterator<ShortestPathSolution> stream(Collection<ShortestPathData> batch) {
+        checkBatch(batch);
+        final CompletionService<ShortestPathSolution> completion = new ExecutorCompletionService<>(
+                executor);
+        for (ShortestPathData data: batch) {
+            completion.submit(() -> solve(data));
+        }
+        final int nbQueries = batch.size();
+        return new Iterator<ShortestPathSolution>() {
+
+            // Number of solutions returned so far.
+            private int nbReturned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return nbReturned < nbQueries;
+            }
+
+            @Override
+            public ShortestPathSolution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    ShortestPathSolution solution = completion.take().get();
+                    nbReturned += 1;
+                    return solution;
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                catch (ExecutionException e) {
+                    nbReturned += 1;
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        };
+    }
+
+    /**
+     * Check that all the queries of the given batch are on the graph of this
+     * engine.
+     */
+    private void checkBatch(Collection<ShortestPathData> batch) {
+        for (ShortestPathData data: batch) {
+            if (data.getGraph() != graph) {
+                throw new IllegalArgumentException("Query on another graph than the engine's.");
+            }
+        }
+    }
+
+    /**
+     * Shut down the pool of this engine if it has created it. Queries already
+     * submitted are still run.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+}
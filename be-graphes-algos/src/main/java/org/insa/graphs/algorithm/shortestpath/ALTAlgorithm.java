@@ -0,0 +1,53 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * ALT algorithm (A*, landmarks and triangle inequality): a
+ * {@link BidirectionalAStarAlgorithm} whose lower bounds also use the distances
+ * from and to the landmarks of a {@link LandmarkTable}.
+ * </p>
+ *
+ * <p>
+ * The table of the graph and inspector of the query is retrieved with
+ * {@link LandmarkTable#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)}:
+ * tables loaded from a file beforehand are used directly, otherwise a table is
+ * computed on the first query and kept for the next ones.
+ * </p>
+ *
+ */
+public class ALTAlgorithm extends BidirectionalAStarAlgorithm {
+
+    // Landmarks of the current search.
+    private LandmarkTable landmarks;
+
+    // Origin and destination of the current search.
+    private int origin, destination;
+
+    public ALTAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    @Override
+    protected void initialize(CompactGraph graph, int origin, int destination) {
+        super.initialize(graph, origin, destination);
+        ShortestPathData data = getInputData();
+        this.landmarks = LandmarkTable.of(data.getGraph(), data.getArcInspector());
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    @Override
+    protected double getLowerBoundToDestination(int node) {
+        return Math.max(landmarks.getLowerBound(node, destination),
+                super.getLowerBoundToDestination(node));
+    }
+
+    @Override
+    protected double getLowerBoundFromOrigin(int node) {
+        return Math.max(landmarks.getLowerBound(origin, node),
+                super.getLowerBoundFromOrigin(node));
+    }
+
+}
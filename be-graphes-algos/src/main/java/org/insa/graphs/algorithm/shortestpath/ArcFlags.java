@@ -0,0 +1,279 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+
+/**
+ * <p>
+ * Arc flags of a graph for a given arc inspector: the nodes are split into
+ * regions, and the flag of an arc for a region is set if the arc is on a
+ * shortest path towards a node of the region. A query towards a node only needs
+ * the arcs flagged for the region of this node (see {@link ArcFlagsAlgorithm}).
+ * </p>
+ *
+ * <p>
+ * Regions are the cells of a single-level {@link MultilevelPartition}, i.e. a
+ * recursive bisection of the nodes along their coordinates. Flags are computed
+ * by {@link #compute(Graph, ArcInspector, int, ForkJoinPool)}: an arc is flagged
+ * for a region if both its extremities are in the region, or if it belongs to
+ * the backward shortest-path tree of an entry of the region.
+ * </p>
+ *
+ * <p>
+ * Flags are stored as a bit matrix with one row per region, so a query only
+ * reads the row of its destination. The file starts with a header (magic
+ * number, version, id of the map, name of the inspector, number of nodes, of
+ * arcs and of regions), followed by the region of each node and the rows of
+ * the matrix as big-endian longs (bit <i>a % 64</i> of long <i>a / 64</i> of a
+ * row is the flag of arc <i>a</i>). It is memory-mapped when it is loaded back.
+ * </p>
+ *
+ */
+public final class ArcFlags {
+
+    // Default number of regions.
+    public static final int DEFAULT_REGION_COUNT = 64;
+
+    // Magic number and version of arc flags files.
+    private static final int MAGIC_NUMBER = 0x41524346;
+    private static final int VERSION = 1;
+
+    // Id of the map and name of the inspector of these flags.
+    private final String mapId, inspectorName;
+
+    // Number of nodes, of arcs and of regions.
+    private final int nbNodes, nbArcs, nbRegions;
+
+    // Region of each node.
+    private final IntBuffer regions;
+
+    // Rows of the bit matrix, each row being (nbArcs + 63) / 64 longs.
+    private final LongBuffer flags;
+
+    /**
+     * Create new arc flags.
+     */
+    ArcFlags(String mapId, String inspectorName, int nbNodes, int nbArcs, int nbRegions,
+            IntBuffer regions, LongBuffer flags) {
+        this.mapId = mapId;
+        this.inspectorName = inspectorName;
+        this.nbNodes = nbNodes;
+        this.nbArcs = nbArcs;
+        this.nbRegions = nbRegions;
+        this.regions = regions;
+        this.flags = flags;
+    }
+
+    /**
+     * @return Number of longs of a row of the matrix for the given number of arcs.
+     */
+    static int getRowLength(int nbArcs) {
+        return (nbArcs + 63) >>> 6;
+    }
+
+    /**
+     * Compute the arc flags of the given graph for the given inspector.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param nbRegions Number of regions (the actual number of regions can be
+     *        slightly different, see {@link #getRegionCount()}).
+     * @param pool Pool on which the backward searches are run.
+     *
+     * @return New arc flags.
+     */
+    public static ArcFlags compute(Graph graph, ArcInspector inspector, int nbRegions,
+            ForkJoinPool pool) {
+        int cellSize = Math.max(1, (graph.size() + nbRegions - 1) / nbRegions);
+        MultilevelPartition partition = MultilevelPartition.compute(graph,
+                new int[] { cellSize });
+        return new ArcFlagsPreprocessing(graph, inspector, partition, pool).run();
+    }
+
+    /**
+     * Retrieve the arc flags of the given inspector for the given graph. If no
+     * flags have been loaded for them (see {@link #load(Graph, ArcInspector, File)}),
+     * they are computed with the default number of regions on the common pool,
+     * and cached on the graph.
+     *
+     * @param graph Graph whose flags should be retrieved.
+     * @param inspector Inspector of the flags.
+     *
+     * @return Arc flags of the given inspector for the given graph.
+     */
+    public static ArcFlags of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, ArcFlags.class,
+                (g) -> compute(g, inspector, DEFAULT_REGION_COUNT, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Load the arc flags of the given inspector for the given graph from the given
+     * file, and cache them on the graph so that {@link #of(Graph, ArcInspector)}
+     * returns them. If flags are already cached, they are returned instead.
+     *
+     * @param graph Graph of the flags.
+     * @param inspector Inspector of the flags.
+     * @param file File to load the flags from.
+     *
+     * @return Arc flags of the given inspector for the given graph.
+     *
+     * @throws IOException if the file cannot be read, or does not correspond to
+     *         the given graph and inspector.
+     */
+    public static ArcFlags load(Graph graph, ArcInspector inspector, File file)
+            throws IOException {
+        ArcFlags flags = read(file);
+        if (!flags.mapId.equals(graph.getMapId()) || flags.size() != graph.size()
+                || flags.getArcCount() != graph.getCompactGraph().getArcCount()) {
+            throw new BadFormatException(
+                    "Arc flags file " + file + " does not match map " + graph.getMapId() + ".");
+        }
+        if (!flags.inspectorName.equals(inspector.toString())) {
+            throw new BadFormatException(
+                    "Arc flags file " + file + " does not match filter " + inspector + ".");
+        }
+        return graph.getCachedData(inspector, ArcFlags.class, (g) -> flags);
+    }
+
+    /**
+     * @param graphFile File of a graph.
+     * @param inspector An inspector.
+     *
+     * @return Default file of the arc flags of the given graph for the given
+     *         inspector, in the same folder as the graph.
+     */
+    public static File getDefaultFile(File graphFile, ArcInspector inspector) {
+        return PreprocessingFiles.getDefaultFile(graphFile, inspector, "arcflags");
+    }
+
+    /**
+     * Read arc flags from the given file. The file is memory-mapped.
+     *
+     * @param file File to read.
+     *
+     * @return The arc flags in the file.
+     *
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static ArcFlags read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+            PreprocessingFiles.checkHeader(buffer, MAGIC_NUMBER, VERSION);
+            String mapId = PreprocessingFiles.readUTF(buffer);
+            String inspectorName = PreprocessingFiles.readUTF(buffer);
+            int nbNodes = buffer.getInt(), nbArcs = buffer.getInt(), nbRegions = buffer.getInt();
+            if (nbNodes < 0 || nbArcs < 0 || nbRegions < 0 || buffer.remaining() != 4L * nbNodes
+                    + 8L * nbRegions * getRowLength(nbArcs)) {
+                throw new BadFormatException("Truncated arc flags file.");
+            }
+            IntBuffer regions = buffer.slice().asIntBuffer();
+            regions.limit(nbNodes);
+            buffer.position(buffer.position() + 4 * nbNodes);
+            return new ArcFlags(mapId, inspectorName, nbNodes, nbArcs, nbRegions,
+                    regions.slice(), buffer.slice().asLongBuffer());
+        }
+        catch (BufferUnderflowException e) {
+            throw new BadFormatException("Truncated arc flags file.");
+        }
+    }
+
+    /**
+     * Write these flags to the given file.
+     *
+     * @param file File to write.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC_NUMBER);
+        header.writeInt(VERSION);
+        header.writeUTF(mapId);
+        header.writeUTF(inspectorName);
+        header.writeInt(nbNodes);
+        header.writeInt(nbArcs);
+        header.writeInt(nbRegions);
+        header.close();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (int node = 0; node < nbNodes; ++node) {
+                if (buffer.remaining() < 4) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putInt(regions.get(node));
+            }
+            for (int i = 0; i < flags.limit(); ++i) {
+                if (buffer.remaining() < 8) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putLong(flags.get(i));
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return Number of nodes of the graph of these flags.
+     */
+    public int size() {
+        return nbNodes;
+    }
+
+    /**
+     * @return Number of arcs of the graph of these flags.
+     */
+    public int getArcCount() {
+        return nbArcs;
+    }
+
+    /**
+     * @return Number of regions.
+     */
+    public int getRegionCount() {
+        return nbRegions;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Region of the node.
+     */
+    public int getRegion(int node) {
+        return regions.get(node);
+    }
+
+    /**
+     * @param arc Index of an arc in the compact graph.
+     * @param region A region.
+     *
+     * @return true if the arc is on a shortest path towards a node of the region.
+     */
+    public boolean isFlagged(int arc, int region) {
+        return (flags.get(region * getRowLength(nbArcs) + (arc >>> 6)) & (1L << arc)) != 0;
+    }
+
+}
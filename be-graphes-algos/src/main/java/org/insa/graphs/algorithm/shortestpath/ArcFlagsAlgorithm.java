@@ -0,0 +1,32 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+/**
+ * Dijkstra's algorithm restricted to the arcs flagged for the region of the
+ * destination in the {@link ArcFlags} of the graph, retrieved with
+ * {@link ArcFlags#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)}.
+ *
+ */
+public class ArcFlagsAlgorithm extends DijkstraAlgorithm {
+
+    // Flags of the current query and region of its destination.
+    private ArcFlags flags;
+    private int region;
+
+    public ArcFlagsAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    @Override
+    protected boolean isArcUsable(int arc) {
+        return flags.isFlagged(arc, region);
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        final ShortestPathData data = getInputData();
+        flags = ArcFlags.of(data.getGraph(), data.getArcInspector());
+        region = flags.getRegion(data.getDestination().getId());
+        return super.doRun();
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Computation of {@link ArcFlags}.
+ * </p>
+ *
+ * <p>
+ * The entries of all the regions are split between tasks run on the pool. Each
+ * task runs a backward search from each of its entries on the whole graph, and
+ * flags the arcs of the shortest-path tree in a local row, which is merged in
+ * the row of the region of the entry when the task moves to another region.
+ * </p>
+ *
+ */
+final class ArcFlagsPreprocessing {
+
+    // Minimum number of entries processed by a single task.
+    private static final int MIN_ENTRIES_PER_TASK = 4;
+
+    // Graph to preprocess, its inspector and the costs of its arcs.
+    private final Graph graph;
+    private final CompactGraph compact;
+    private final ArcInspector inspector;
+    private final ArcCostTable costs;
+
+    // Regions of the flags (cells of level 0).
+    private final MultilevelPartition partition;
+
+    // Pool on which the searches are run.
+    private final ForkJoinPool pool;
+
+    // Number of longs of a row, and rows of each region.
+    private final int rowLength;
+    private final long[][] rows;
+
+    /**
+     * Backward search of a thread.
+     */
+    private class BackwardSearch {
+
+        // Distances (infinite if not reached) and predecessor arcs.
+        final float[] distances;
+        final int[] predecessorArcs;
+
+        // Reached nodes.
+        final int[] touched;
+        int nbTouched = 0;
+
+        // Queue of the search.
+        final IntFloatHeap queue;
+
+        BackwardSearch() {
+            distances = new float[compact.size()];
+            Arrays.fill(distances, Float.POSITIVE_INFINITY);
+            predecessorArcs = new int[compact.size()];
+            touched = new int[compact.size()];
+            queue = new IntFloatHeap(compact.size());
+        }
+
+        /**
+         * Run a backward search from the given node, and flag the arcs of its
+         * shortest-path tree in the given row.
+         */
+        void run(int source, long[] row) {
+            for (int i = 0; i < nbTouched; ++i) {
+                distances[touched[i]] = Float.POSITIVE_INFINITY;
+            }
+            nbTouched = 0;
+            queue.clear();
+
+            distances[source] = 0;
+            predecessorArcs[source] = -1;
+            touched[nbTouched++] = source;
+            queue.insert(source, 0);
+            while (!queue.isEmpty()) {
+                int node = queue.deleteMin();
+                for (int position = compact.getFirstInArc(node);
+                        position < compact.getFirstInArc(node + 1); ++position) {
+                    int arc = compact.getInArc(position);
+                    if (!costs.isAllowed(arc)) {
+                        continue;
+                    }
+                    int predecessor = compact.getArcOrigin(arc);
+                    float distance = distances[node] + costs.getCost(arc);
+                    if (distance < distances[predecessor]) {
+                        if (distances[predecessor] == Float.POSITIVE_INFINITY) {
+                            touched[nbTouched++] = predecessor;
+                        }
+                        distances[predecessor] = distance;
+                        predecessorArcs[predecessor] = arc;
+                        queue.insertOrDecreaseKey(predecessor, distance);
+                    }
+                }
+            }
+
+            for (int i = 1; i < nbTouched; ++i) {
+                int arc = predecessorArcs[touched[i]];
+                row[arc >>> 6] |= 1L << arc;
+            }
+        }
+    }
+
+    /**
+     * Create a new preprocessing.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param partition Partition whose cells of level 0 are the regions.
+     * @param pool Pool on which the searches are run.
+     */
+    ArcFlagsPreprocessing(Graph graph, ArcInspector inspector, MultilevelPartition partition,
+            ForkJoinPool pool) {
+        this.graph = graph;
+        this.compact = graph.getCompactGraph();
+        this.inspector = inspector;
+        this.costs = ArcCostTable.of(graph, inspector);
+        this.partition = partition;
+        this.pool = pool;
+        this.rowLength = ArcFlags.getRowLength(compact.getArcCount());
+        this.rows = new long[partition.getCellCount(0)][rowLength];
+    }
+
+    /**
+     * OR the given local row into the row of the given region.
+     */
+    private void merge(int region, long[] local) {
+        synchronized (rows[region]) {
+            for (int i = 0; i < rowLength; ++i) {
+                rows[region][i] |= local[i];
+            }
+        }
+        Arrays.fill(local, 0);
+    }
+
+    /**
+     * Compute the flags.
+     *
+     * @return The arc flags.
+     */
+    ArcFlags run() {
+        final int nbRegions = partition.getCellCount(0);
+
+        // Arcs inside a region are flagged for it.
+        for (int arc = 0; arc < compact.getArcCount(); ++arc) {
+            int region = partition.getCell(0, compact.getArcOrigin(arc));
+            if (costs.isAllowed(arc)
+                    && partition.getCell(0, compact.getArcDestination(arc)) == region) {
+                rows[region][arc >>> 6] |= 1L << arc;
+            }
+        }
+
+        // Entries of all the regions, by region.
+        int nbEntries = 0;
+        for (int region = 0; region < nbRegions; ++region) {
+            nbEntries += partition.getEntryCount(0, region);
+        }
+        final int[] entries = new int[nbEntries];
+        for (int region = 0, i = 0; region < nbRegions; ++region) {
+            for (int entry = 0; entry < partition.getEntryCount(0, region); ++entry) {
+                entries[i++] = partition.getEntry(0, region, entry);
+            }
+        }
+
+        final ThreadLocal<BackwardSearch> searches = ThreadLocal
+                .withInitial(BackwardSearch::new);
+        int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                (nbEntries + MIN_ENTRIES_PER_TASK - 1) / MIN_ENTRIES_PER_TASK));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) nbEntries * task / nbTasks);
+            final int to = (int) ((long) nbEntries * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> {
+                BackwardSearch search = searches.get();
+                long[] local = new long[rowLength];
+                int region = -1;
+                for (int i = from; i < to; ++i) {
+                    int entryRegion = partition.getCell(0, entries[i]);
+                    if (region != -1 && entryRegion != region) {
+                        merge(region, local);
+                    }
+                    region = entryRegion;
+                    search.run(entries[i], local);
+                }
+                if (region != -1) {
+                    merge(region, local);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+
+        int[] regions = new int[compact.size()];
+        for (int node = 0; node < regions.length; ++node) {
+            regions[node] = partition.getCell(0, node);
+        }
+        long[] flags = new long[nbRegions * rowLength];
+        for (int region = 0; region < nbRegions; ++region) {
+            System.arraycopy(rows[region], 0, flags, region * rowLength, rowLength);
+        }
+        return new ArcFlags(graph.getMapId(), inspector.toString(), compact.size(),
+                compact.getArcCount(), nbRegions, IntBuffer.wrap(regions),
+                LongBuffer.wrap(flags));
+    }
+
+}
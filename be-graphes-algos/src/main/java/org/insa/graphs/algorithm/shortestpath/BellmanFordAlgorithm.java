@@ -1,14 +1,13 @@
 package org.insa.graphs.algorithm.shortestpath;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 
 import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
 import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
 import org.insa.graphs.model.Graph;
-import org.insa.graphs.model.Node;
-import org.insa.graphs.model.Path;
 
 public class BellmanFordAlgorithm extends ShortestPathAlgorithm {
 
@@ -19,59 +18,62 @@ public class BellmanFordAlgorithm extends ShortestPathAlgorithm {
     @Override
     protected ShortestPathSolution doRun() {
 
-        // Retrieve the graph.
+        // Retrieve the graph (compact representation).
         ShortestPathData data = getInputData();
         Graph graph = data.getGraph();
+        CompactGraph compactGraph = graph.getCompactGraph();
 
-        final int nbNodes = graph.size();
+        final int nbNodes = compactGraph.size();
+        final int nbArcs = compactGraph.getArcCount();
 
-        // Initialize array of distances.
-        double[] distances = new double[nbNodes];
-        Arrays.fill(distances, Double.POSITIVE_INFINITY);
-        distances[data.getOrigin().getId()] = 0;
+        // Distances and predecessors (index of arcs, -1 if none) are kept in a
+        // workspace of the thread, so they do not have to be allocated.
+        SearchWorkspace workspace = SearchWorkspace.acquire(nbNodes);
+        workspace.setLabel(data.getOrigin().getId(), 0, -1);
 
         // Notify observers about the first event (origin processed).
         notifyOriginProcessed(data.getOrigin());
 
-        // Initialize array of predecessors.
-        Arc[] predecessorArcs = new Arc[nbNodes];
+        // Allowed arcs and their weights are compiled once for the filter (infinite
+        // weights for arcs that are not allowed).
+        ArcCostTable weights = data.getCostTable();
 
         // Actual algorithm, we will assume the graph does not contain negative
-        // cycle...
+        // cycle... Arcs are processed in order of origin, as in the object graph.
         boolean found = false;
         for (int i = 0; !found && i < nbNodes; ++i) {
             found = true;
-            for (Node node: graph.getNodes()) {
-                for (Arc arc: node.getSuccessors()) {
-
-                    // Small test to check allowed roads...
-                    if (!data.isAllowed(arc)) {
-                        continue;
-                    }
-
-                    // Retrieve weight of the arc.
-                    double w = data.getCost(arc);
-                    double oldDistance = distances[arc.getDestination().getId()];
-                    double newDistance = distances[node.getId()] + w;
-
-                    if (Double.isInfinite(oldDistance) && Double.isFinite(newDistance)) {
-                        notifyNodeReached(arc.getDestination());
-                    }
-
-                    // Check if new distances would be better, if so update...
-                    if (newDistance < oldDistance) {
-                        found = false;
-                        distances[arc.getDestination().getId()] = distances[node.getId()] + w;
-                        predecessorArcs[arc.getDestination().getId()] = arc;
-                    }
+            for (int arc = 0; arc < nbArcs; ++arc) {
+
+                // Small test to check allowed roads...
+                if (!weights.isAllowed(arc)) {
+                    continue;
+                }
+                float w = weights.getCost(arc);
+
+                int origin = compactGraph.getArcOrigin(arc);
+                int destination = compactGraph.getArcDestination(arc);
+                float oldDistance = workspace.getDistance(destination);
+                float newDistance = workspace.getDistance(origin) + w;
+
+                if (Float.isInfinite(oldDistance) && Float.isFinite(newDistance)) {
+                    notifyNodeReached(compactGraph.getNode(destination));
+                }
+
+                // Check if new distances would be better, if so update...
+                if (newDistance < oldDistance) {
+                    found = false;
+                    workspace.setLabel(destination, newDistance, arc);
                 }
             }
         }
 
         ShortestPathSolution solution = null;
 
-        // Destination has no predecessor, the solution is infeasible...
-        if (predecessorArcs[data.getDestination().getId()] == null) {
+        // Destination has no predecessor and is not the origin, the solution is
+        // infeasible...
+        if (data.getDestination() != data.getOrigin()
+                && workspace.getParent(data.getDestination().getId()) == -1) {
             solution = new ShortestPathSolution(data, Status.INFEASIBLE);
         }
         else {
@@ -81,19 +83,20 @@ public class BellmanFordAlgorithm extends ShortestPathAlgorithm {
 
             // Create the path from the array of predecessors...
             ArrayList<Arc> arcs = new ArrayList<>();
-            Arc arc = predecessorArcs[data.getDestination().getId()];
-            while (arc != null) {
-                arcs.add(arc);
-                arc = predecessorArcs[arc.getOrigin().getId()];
+            int arc = workspace.getParent(data.getDestination().getId());
+            while (arc != -1) {
+                arcs.add(compactGraph.getArc(arc));
+                arc = workspace.getParent(compactGraph.getArcOrigin(arc));
             }
 
             // Reverse the path...
             Collections.reverse(arcs);
 
             // Create the final solution.
-            solution = new ShortestPathSolution(data, Status.OPTIMAL, new Path(graph, arcs));
+            solution = new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
         }
 
+        workspace.release();
         return solution;
     }
 
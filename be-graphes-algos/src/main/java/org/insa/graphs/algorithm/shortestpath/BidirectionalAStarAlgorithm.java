@@ -0,0 +1,151 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import org.insa.graphs.algorithm.AbstractInputData.Mode;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.GraphStatistics;
+import org.insa.graphs.model.Point;
+
+/**
+ * <p>
+ * Bidirectional A*: a {@link BidirectionalDijkstraAlgorithm} whose keys are
+ * shifted by average potentials.
+ * </p>
+ *
+ * <p>
+ * With <i>πt(v)</i> a lower bound of the cost from <i>v</i> to the destination
+ * and <i>πs(v)</i> a lower bound of the cost from the origin to <i>v</i>, the
+ * forward search uses the potential <i>pf(v) = (πt(v) - πs(v)) / 2</i> and the
+ * backward search <i>pb(v) = -pf(v)</i>. Both searches then work on the same
+ * reduced costs, which are non-negative since both bounds are consistent, so
+ * the stopping criterion of the bidirectional Dijkstra remains valid.
+ * </p>
+ *
+ * <p>
+ * Bounds are the distance as the crow flies in {@link Mode#LENGTH}, and the
+ * time needed to travel this distance at the maximum speed of the graph in
+ * {@link Mode#TIME}.
+ * </p>
+ *
+ */
+public class BidirectionalAStarAlgorithm extends BidirectionalDijkstraAlgorithm {
+
+    // Position of the origin and of the destination.
+    private Point origin, destination;
+
+    // Lower bound of the cost of a meter.
+    private double costPerMeter;
+
+    // Forward potential of each node, computed on first use and kept as the
+    // distance of the node in a workspace (not reached if not computed).
+    private SearchWorkspace potentials;
+
+    // Graph of the current search.
+    private CompactGraph graph;
+
+    public BidirectionalAStarAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    /**
+     * @return Maximum speed of the arcs of the given graph, in kilometers per hour.
+     */
+    private static int getMaximumSpeed(Graph graph) {
+        GraphStatistics statistics = graph.getGraphInformation();
+        if (statistics != null && statistics.getMaximumSpeed() > 0) {
+            return statistics.getMaximumSpeed();
+        }
+        CompactGraph compact = graph.getCompactGraph();
+        int maximumSpeed = 0;
+        for (int descriptor = 0; descriptor < compact.getDescriptorCount(); ++descriptor) {
+            maximumSpeed = Math.max(compact.getDescriptor(descriptor).getMaximumSpeed(),
+                    maximumSpeed);
+        }
+        return maximumSpeed;
+    }
+
+    /**
+     * @param data Input data of a search.
+     *
+     * @return Lower bound of the cost of a meter for the mode of the data: 1 in
+     *         {@link Mode#LENGTH}, the time needed at the maximum speed of the graph
+     *         in {@link Mode#TIME} (0 if the maximum speed is not known).
+     */
+    static double getCostPerMeter(ShortestPathData data) {
+        if (data.getMode() == Mode.LENGTH) {
+            return 1;
+        }
+        int maximumSpeed = getMaximumSpeed(data.getGraph());
+        return maximumSpeed > 0 ? 3.6 / maximumSpeed : 0;
+    }
+
+    @Override
+    protected void initialize(CompactGraph graph, int origin, int destination) {
+        this.graph = graph;
+        this.origin = new Point(graph.getLongitude(origin), graph.getLatitude(origin));
+        this.destination = new Point(graph.getLongitude(destination),
+                graph.getLatitude(destination));
+        // Without a known maximum speed, the bounds are 0 (plain Dijkstra).
+        this.costPerMeter = getCostPerMeter(getInputData());
+        this.potentials = SearchWorkspace.acquire(graph.size());
+    }
+
+    /**
+     * Lower bound of the cost from the given node to the destination. Sub-classes
+     * can use other bounds, as long as they are consistent.
+     *
+     * @param node ID of a node.
+     *
+     * @return Lower bound of the cost from the node to the destination.
+     */
+    protected double getLowerBoundToDestination(int node) {
+        Point point = new Point(graph.getLongitude(node), graph.getLatitude(node));
+        return Point.distance(point, destination) * costPerMeter;
+    }
+
+    /**
+     * Lower bound of the cost from the origin to the given node. Sub-classes can
+     * use other bounds, as long as they are consistent.
+     *
+     * @param node ID of a node.
+     *
+     * @return Lower bound of the cost from the origin to the node.
+     */
+    protected double getLowerBoundFromOrigin(int node) {
+        Point point = new Point(graph.getLongitude(node), graph.getLatitude(node));
+        return Point.distance(origin, point) * costPerMeter;
+    }
+
+    /**
+     * @return Forward potential of the given node.
+     */
+    private float getPotential(int node) {
+        if (potentials.isReached(node)) {
+            return potentials.getDistance(node);
+        }
+        float potential = (float) ((getLowerBoundToDestination(node)
+                - getLowerBoundFromOrigin(node)) / 2);
+        potentials.setLabel(node, potential, -1);
+        return potential;
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        try {
+            return super.doRun();
+        }
+        finally {
+            if (potentials != null) {
+                potentials.release();
+                potentials = null;
+            }
+        }
+    }
+
+    @Override
+    protected float getKey(int direction, int node, float distance) {
+        return direction == FORWARD ? distance + getPotential(node)
+                : distance - getPotential(node);
+    }
+
+}
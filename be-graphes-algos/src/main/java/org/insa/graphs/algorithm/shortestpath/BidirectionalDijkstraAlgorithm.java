@@ -0,0 +1,192 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Bidirectional version of Dijkstra's algorithm: a forward search from the
+ * origin on the outgoing arcs and a backward search from the destination on the
+ * incoming arcs (reverse index of the {@link CompactGraph}) are run
+ * alternately, each time advancing the search whose next node is the closest.
+ * </p>
+ *
+ * <p>
+ * The best path found so far is updated each time an arc reaches a node already
+ * reached by the other search, and the algorithm stops as soon as the sum of
+ * the minimum keys of both queues is not smaller than the cost of this path.
+ * Both searches keep their labels and {@link IntFloatHeap} in a pooled
+ * {@link SearchWorkspace}, whatever the queue type of the algorithm.
+ * </p>
+ *
+ */
+public class BidirectionalDijkstraAlgorithm extends ShortestPathAlgorithm {
+
+    // Index of the forward and backward searches in the arrays below.
+    protected static final int FORWARD = 0, BACKWARD = 1;
+
+    public BidirectionalDijkstraAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    /**
+     * Key of the given node in the queue of the given search, i.e. its distance from
+     * the origin (or to the destination) for Dijkstra. Sub-classes can add a
+     * potential to obtain a bidirectional A*.
+     *
+     * @param direction Direction of the search ({@link #FORWARD} or
+     *        {@link #BACKWARD}).
+     * @param node ID of the node.
+     * @param distance Distance of the node in the given search.
+     *
+     * @return Key of the node in the queue.
+     */
+    protected float getKey(int direction, int node, float distance) {
+        return distance;
+    }
+
+    /**
+     * Called before the searches start, to let sub-classes initialize the data
+     * they need to compute keys.
+     *
+     * @param graph Graph of the searches.
+     * @param origin ID of the origin.
+     * @param destination ID of the destination.
+     */
+    protected void initialize(CompactGraph graph, int origin, int destination) {
+    }
+
+    /**
+     * Check if the searches can stop.
+     *
+     * @param minForwardKey Smallest key in the forward queue.
+     * @param minBackwardKey Smallest key in the backward queue.
+     * @param bestCost Cost of the best path found so far.
+     *
+     * @return true if no better path than the best one can be found.
+     */
+    protected boolean canStop(float minForwardKey, float minBackwardKey, float bestCost) {
+        return minForwardKey + minBackwardKey >= bestCost;
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        final ShortestPathData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable costs = data.getCostTable();
+        final int nbNodes = graph.size();
+
+        final int origin = data.getOrigin().getId();
+        final int destination = data.getDestination().getId();
+
+        initialize(graph, origin, destination);
+
+        // Distances, predecessor arcs (-1 if none) and queues of both searches.
+        final SearchWorkspace[] workspaces = new SearchWorkspace[] {
+                SearchWorkspace.acquire(nbNodes), SearchWorkspace.acquire(nbNodes) };
+        try {
+            workspaces[FORWARD].setLabel(origin, 0, -1);
+            workspaces[BACKWARD].setLabel(destination, 0, -1);
+            workspaces[FORWARD].getQueue().insert(origin, getKey(FORWARD, origin, 0));
+            workspaces[BACKWARD].getQueue().insert(destination,
+                    getKey(BACKWARD, destination, 0));
+
+            notifyOriginProcessed(data.getOrigin());
+
+            // Best path found so far: cost and node where both searches meet.
+            float bestCost = origin == destination ? 0 : Float.POSITIVE_INFINITY;
+            int meetingNode = origin == destination ? origin : -1;
+
+            final IntFloatHeap forwardQueue = workspaces[FORWARD].getQueue();
+            final IntFloatHeap backwardQueue = workspaces[BACKWARD].getQueue();
+            while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+                float minForwardKey = forwardQueue.findMinKey();
+                float minBackwardKey = backwardQueue.findMinKey();
+                if (canStop(minForwardKey, minBackwardKey, bestCost)) {
+                    break;
+                }
+
+                // Advance the search whose next node is the closest.
+                final int direction = minForwardKey <= minBackwardKey ? FORWARD : BACKWARD;
+                final SearchWorkspace workspace = workspaces[direction];
+                final SearchWorkspace other = workspaces[1 - direction];
+                final IntFloatHeap queue = workspace.getQueue();
+
+                int node = queue.deleteMin();
+                workspace.settle(node);
+                notifyNodeMarked(graph.getNode(node));
+
+                int first, last;
+                if (direction == FORWARD) {
+                    first = graph.getFirstArc(node);
+                    last = graph.getFirstArc(node + 1);
+                }
+                else {
+                    first = graph.getFirstInArc(node);
+                    last = graph.getFirstInArc(node + 1);
+                }
+                for (int position = first; position < last; ++position) {
+                    int arc = direction == FORWARD ? position : graph.getInArc(position);
+                    if (!costs.isAllowed(arc)) {
+                        continue;
+                    }
+                    int successor = direction == FORWARD ? graph.getArcDestination(arc)
+                            : graph.getArcOrigin(arc);
+
+                    // Nodes already marked by this search are not in the queue anymore.
+                    if (workspace.isSettled(successor)) {
+                        continue;
+                    }
+
+                    float newDistance = workspace.getDistance(node) + costs.getCost(arc);
+                    if (newDistance < workspace.getDistance(successor)) {
+                        if (!workspace.isReached(successor)) {
+                            notifyNodeReached(graph.getNode(successor));
+                        }
+                        workspace.setLabel(successor, newDistance, arc);
+                        queue.insertOrDecreaseKey(successor,
+                                getKey(direction, successor, newDistance));
+
+                        // Check if this is a better path between origin and destination.
+                        if (newDistance + other.getDistance(successor) < bestCost) {
+                            bestCost = newDistance + other.getDistance(successor);
+                            meetingNode = successor;
+                        }
+                    }
+                }
+            }
+
+            // Destination not reached by any search.
+            if (meetingNode == -1) {
+                return new ShortestPathSolution(data, Status.INFEASIBLE);
+            }
+
+            notifyDestinationReached(data.getDestination());
+
+            // Arcs from the origin to the meeting node, then to the destination.
+            ArrayList<Arc> arcs = new ArrayList<>();
+            for (int arc = workspaces[FORWARD].getParent(meetingNode); arc != -1;
+                    arc = workspaces[FORWARD].getParent(graph.getArcOrigin(arc))) {
+                arcs.add(graph.getArc(arc));
+            }
+            Collections.reverse(arcs);
+            for (int arc = workspaces[BACKWARD].getParent(meetingNode); arc != -1;
+                    arc = workspaces[BACKWARD].getParent(graph.getArcDestination(arc))) {
+                arcs.add(graph.getArc(arc));
+            }
+
+            return new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
+        }
+        finally {
+            workspaces[FORWARD].release();
+            workspaces[BACKWARD].release();
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Customizable route planning: Dijkstra's algorithm on the overlay graph of a
+ * {@link MultilevelPartition}, with the weights of the {@link OverlayMetric} of
+ * the inspector.
+ * </p>
+ *
+ * <p>
+ * The level of a node is the highest level at which its cell contains neither
+ * the origin nor the destination (-1 if there is none). A node of level -1 uses
+ * the arcs of the graph. A node of level <i>l</i> uses the weights from its
+ * cell of level <i>l</i> if it is an entry of the cell, and the boundary arcs
+ * of level <i>l</i> if it is an exit. Weights of the path are then unpacked
+ * into arcs by searching their cells.
+ * </p>
+ *
+ * <p>
+ * The metric is retrieved with
+ * {@link OverlayMetric#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)},
+ * so the first query for an inspector customizes it.
+ * </p>
+ *
+ */
+public class CRPAlgorithm extends ShortestPathAlgorithm {
+
+    public CRPAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    /**
+     * @return Level of the given node for a query between the given nodes.
+     */
+    private static int getQueryLevel(MultilevelPartition partition, int node, int origin,
+            int destination) {
+        for (int level = partition.getLevelCount() - 1; level >= 0; --level) {
+            int cell = partition.getCell(level, node);
+            if (cell != partition.getCell(level, origin)
+                    && cell != partition.getCell(level, destination)) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Parent of a node reached from the given node through a weight.
+     */
+    private static int toOverlayParent(int predecessor) {
+        return -predecessor - 2;
+    }
+
+    /**
+     * @return Predecessor of a node whose parent is the given overlay parent.
+     */
+    private static int fromOverlayParent(int parent) {
+        return -parent - 2;
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        final ShortestPathData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable costs = data.getCostTable();
+        final OverlayMetric metric = OverlayMetric.of(data.getGraph(), data.getArcInspector());
+        final MultilevelPartition partition = metric.getPartition();
+        final int nbNodes = graph.size();
+
+        final int origin = data.getOrigin().getId();
+        final int destination = data.getDestination().getId();
+
+        // Distance and parent of each node: the arc from its predecessor, or
+        // toOverlayParent(predecessor) if it has been reached through a weight.
+        final SearchWorkspace workspace = SearchWorkspace.acquire(nbNodes);
+        try {
+            final IntFloatHeap queue = workspace.getQueue();
+            workspace.setLabel(origin, 0, -1);
+            queue.insert(origin, 0);
+
+            notifyOriginProcessed(data.getOrigin());
+
+            while (!queue.isEmpty()) {
+                int node = queue.deleteMin();
+                notifyNodeMarked(graph.getNode(node));
+                if (node == destination) {
+                    break;
+                }
+                final float distance = workspace.getDistance(node);
+
+                int level = getQueryLevel(partition, node, origin, destination);
+                if (level >= 0) {
+                    int cell = partition.getCell(level, node);
+                    int entry = partition.getEntryIndex(level, node);
+                    for (int exit = 0; entry >= 0 && exit < partition.getExitCount(level, cell);
+                            ++exit) {
+                        int successor = partition.getExit(level, cell, exit);
+                        float newDistance = distance
+                                + metric.getWeight(level, cell, entry, exit);
+                        if (newDistance < workspace.getDistance(successor)) {
+                            if (!workspace.isReached(successor)) {
+                                notifyNodeReached(graph.getNode(successor));
+                            }
+                            workspace.setLabel(successor, newDistance, toOverlayParent(node));
+                            queue.insertOrDecreaseKey(successor, newDistance);
+                        }
+                    }
+                    if (partition.getExitIndex(level, node) < 0) {
+                        continue;
+                    }
+                }
+
+                // Arcs of the graph, only the boundary ones above level -1.
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                        ++arc) {
+                    int successor = graph.getArcDestination(arc);
+                    if (!costs.isAllowed(arc) || (level >= 0 && partition.getCell(level,
+                            successor) == partition.getCell(level, node))) {
+                        continue;
+                    }
+                    float newDistance = distance + costs.getCost(arc);
+                    if (newDistance < workspace.getDistance(successor)) {
+                        if (!workspace.isReached(successor)) {
+                            notifyNodeReached(graph.getNode(successor));
+                        }
+                        workspace.setLabel(successor, newDistance, arc);
+                        queue.insertOrDecreaseKey(successor, newDistance);
+                    }
+                }
+            }
+
+            // Destination not reached.
+            if (!workspace.isReached(destination)) {
+                return new ShortestPathSolution(data, Status.INFEASIBLE);
+            }
+
+            notifyDestinationReached(data.getDestination());
+
+            // Nodes of the overlay path, collected from the destination to the origin.
+            ArrayList<Integer> nodes = new ArrayList<>();
+            for (int node = destination; node != origin;) {
+                nodes.add(node);
+                int parent = workspace.getParent(node);
+                node = parent >= 0 ? graph.getArcOrigin(parent) : fromOverlayParent(parent);
+            }
+            nodes.add(origin);
+            Collections.reverse(nodes);
+
+            ArrayList<Arc> arcs = new ArrayList<>();
+            for (int i = 1; i < nodes.size(); ++i) {
+                int node = nodes.get(i), predecessor = nodes.get(i - 1);
+                int parent = workspace.getParent(node);
+                if (parent >= 0) {
+                    arcs.add(graph.getArc(parent));
+                }
+                else {
+                    int level = getQueryLevel(partition, predecessor, origin, destination);
+                    metric.getSearch(graph, costs).unpack(level,
+                            partition.getCell(level, predecessor), predecessor, node,
+                            (arc) -> arcs.add(graph.getArc(arc)));
+                }
+            }
+
+            return new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
+        }
+        finally {
+            workspace.release();
+        }
+    }
+
+}
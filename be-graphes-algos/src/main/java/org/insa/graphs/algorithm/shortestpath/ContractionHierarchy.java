@@ -0,0 +1,378 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+
+/**
+ * <p>
+ * Contraction hierarchy of a graph for a given arc inspector.
+ * </p>
+ *
+ * <p>
+ * Nodes are ranked by the order in which they have been contracted, and the
+ * hierarchy contains the allowed arcs of the graph plus the shortcuts added
+ * during the contraction, called edges. Each edge is stored once, with its
+ * lowest-ranked extremity:
+ * </p>
+ * <ul>
+ * <li>the upward edges of a node <i>v</i> go from <i>v</i> to a node of higher
+ * rank, they are used by forward searches;</li>
+ * <li>the downward edges of a node <i>v</i> go from a node of higher rank to
+ * <i>v</i>, they are used (backward) by backward searches.</li>
+ * </ul>
+ * <p>
+ * A shortcut replaces the two edges <i>(u, v)</i> and <i>(v, w)</i> through the
+ * contracted node <i>v</i>, so it can be unpacked recursively into arcs of the
+ * graph (see {@link #unpack(int, IntConsumer)}).
+ * </p>
+ *
+ * <p>
+ * Hierarchies are computed by {@link #compute(Graph, ArcInspector, ForkJoinPool)}
+ * and can be saved to a binary file next to the graph file. The file starts
+ * with a header (magic number, version, id of the map, name of the inspector,
+ * number of nodes, of upward and of downward edges), followed by the ranks,
+ * the index of the first upward and downward edge of each node, and the
+ * origin, destination, cost, arc and children of each edge.
+ * </p>
+ *
+ */
+public final class ContractionHierarchy {
+
+    // Magic number and version of hierarchy files.
+    private static final int MAGIC_NUMBER = 0x43484752;
+    private static final int VERSION = 1;
+
+    // Id of the map and name of the inspector of this hierarchy.
+    private final String mapId, inspectorName;
+
+    // Rank of each node.
+    private final int[] ranks;
+
+    // Upward edges of node v are [firstUpward[v], firstUpward[v + 1]), downward
+    // edges [firstDownward[v], firstDownward[v + 1]).
+    private final int[] firstUpward, firstDownward;
+
+    // Extremities and cost of each edge.
+    private final int[] origins, destinations;
+    private final float[] costs;
+
+    // Arc of each edge, or -1 for shortcuts, and edges replaced by shortcuts (-1
+    // for arcs).
+    private final int[] arcs, firstChildren, secondChildren;
+
+    /**
+     * Create a new hierarchy.
+     */
+    ContractionHierarchy(String mapId, String inspectorName, int[] ranks, int[] firstUpward,
+            int[] firstDownward, int[] origins, int[] destinations, float[] costs, int[] arcs,
+            int[] firstChildren, int[] secondChildren) {
+        this.mapId = mapId;
+        this.inspectorName = inspectorName;
+        this.ranks = ranks;
+        this.firstUpward = firstUpward;
+        this.firstDownward = firstDownward;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.costs = costs;
+        this.arcs = arcs;
+        this.firstChildren = firstChildren;
+        this.secondChildren = secondChildren;
+    }
+
+    /**
+     * Compute the contraction hierarchy of the given graph for the given inspector.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param pool Pool on which the nodes are contracted.
+     *
+     * @return A new contraction hierarchy.
+     */
+    public static ContractionHierarchy compute(Graph graph, ArcInspector inspector,
+            ForkJoinPool pool) {
+        return new ContractionPreprocessing(graph, inspector, pool).run();
+    }
+
+    /**
+     * Retrieve the contraction hierarchy of the given inspector for the given graph.
+     * If no hierarchy has been loaded for them (see
+     * {@link #load(Graph, ArcInspector, File)}), it is computed on the common pool,
+     * and cached on the graph.
+     *
+     * @param graph Graph whose hierarchy should be retrieved.
+     * @param inspector Inspector of the hierarchy.
+     *
+     * @return Contraction hierarchy of the given inspector for the given graph.
+     */
+    public static ContractionHierarchy of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, ContractionHierarchy.class,
+                (g) -> compute(g, inspector, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Load the contraction hierarchy of the given inspector for the given graph
+     * from the given file, and cache it on the graph so that
+     * {@link #of(Graph, ArcInspector)} returns it. If a hierarchy is already
+     * cached, it is returned instead.
+     *
+     * @param graph Graph of the hierarchy.
+     * @param inspector Inspector of the hierarchy.
+     * @param file File to load the hierarchy from.
+     *
+     * @return Contraction hierarchy of the given inspector for the given graph.
+     *
+     * @throws IOException if the file cannot be read, or does not correspond to
+     *         the given graph and inspector.
+     */
+    public static ContractionHierarchy load(Graph graph, ArcInspector inspector, File file)
+            throws IOException {
+        ContractionHierarchy hierarchy = read(file);
+        if (!hierarchy.mapId.equals(graph.getMapId()) || hierarchy.size() != graph.size()) {
+            throw new BadFormatException("Hierarchy file " + file + " does not match map "
+                    + graph.getMapId() + ".");
+        }
+        if (!hierarchy.inspectorName.equals(inspector.toString())) {
+            throw new BadFormatException("Hierarchy file " + file + " does not match filter "
+                    + inspector + ".");
+        }
+        return graph.getCachedData(inspector, ContractionHierarchy.class,
+                (g) -> hierarchy);
+    }
+
+    /**
+     * @param graphFile File of a graph.
+     * @param inspector An inspector.
+     *
+     * @return Default file of the contraction hierarchy of the given graph for the
+     *         given inspector, in the same folder as the graph.
+     */
+    public static File getDefaultFile(File graphFile, ArcInspector inspector) {
+        return PreprocessingFiles.getDefaultFile(graphFile, inspector, "ch");
+    }
+
+    /**
+     * Read a contraction hierarchy from the given file.
+     *
+     * @param file File to read.
+     *
+     * @return The contraction hierarchy in the file.
+     *
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static ContractionHierarchy read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            PreprocessingFiles.checkHeader(buffer, MAGIC_NUMBER, VERSION);
+            String mapId = PreprocessingFiles.readUTF(buffer);
+            String inspectorName = PreprocessingFiles.readUTF(buffer);
+            int nbNodes = buffer.getInt(), nbUpward = buffer.getInt(),
+                    nbDownward = buffer.getInt();
+            // Sizes are computed on longs so that large counts cannot overflow into
+            // the size of the file.
+            if (nbNodes < 0 || nbUpward < 0 || nbDownward < 0 || buffer.remaining() != 4L
+                    * (3L * nbNodes + 2 + 6L * ((long) nbUpward + nbDownward))) {
+                throw new BadFormatException("Truncated hierarchy file.");
+            }
+            int nbEdges = nbUpward + nbDownward;
+            int[] ranks = readInts(buffer, nbNodes);
+            int[] firstUpward = readInts(buffer, nbNodes + 1);
+            int[] firstDownward = readInts(buffer, nbNodes + 1);
+            int[] origins = readInts(buffer, nbEdges);
+            int[] destinations = readInts(buffer, nbEdges);
+            float[] costs = new float[nbEdges];
+            buffer.asFloatBuffer().get(costs);
+            buffer.position(buffer.position() + 4 * nbEdges);
+            int[] arcs = readInts(buffer, nbEdges);
+            int[] firstChildren = readInts(buffer, nbEdges);
+            int[] secondChildren = readInts(buffer, nbEdges);
+            if (firstUpward[nbNodes] != nbUpward || firstDownward[nbNodes] != nbEdges) {
+                throw new BadFormatException("Malformed hierarchy file.");
+            }
+            return new ContractionHierarchy(mapId, inspectorName, ranks, firstUpward,
+                    firstDownward, origins, destinations, costs, arcs, firstChildren,
+                    secondChildren);
+        }
+        catch (BufferUnderflowException e) {
+            throw new BadFormatException("Truncated hierarchy file.");
+        }
+    }
+
+    /**
+     * Read the given number of integers from the given buffer.
+     */
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    /**
+     * Write this hierarchy to the given file.
+     *
+     * @param file File to write.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            dos.writeInt(MAGIC_NUMBER);
+            dos.writeInt(VERSION);
+            dos.writeUTF(mapId);
+            dos.writeUTF(inspectorName);
+            dos.writeInt(size());
+            dos.writeInt(firstUpward[size()]);
+            dos.writeInt(getEdgeCount() - firstUpward[size()]);
+            for (int[] values: new int[][] { ranks, firstUpward, firstDownward, origins,
+                    destinations }) {
+                for (int value: values) {
+                    dos.writeInt(value);
+                }
+            }
+            for (float cost: costs) {
+                dos.writeFloat(cost);
+            }
+            for (int[] values: new int[][] { arcs, firstChildren, secondChildren }) {
+                for (int value: values) {
+                    dos.writeInt(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of nodes of the hierarchy.
+     */
+    public int size() {
+        return ranks.length;
+    }
+
+    /**
+     * @return Number of edges (arcs and shortcuts) of the hierarchy.
+     */
+    public int getEdgeCount() {
+        return costs.length;
+    }
+
+    /**
+     * @return Number of shortcuts of the hierarchy.
+     */
+    public int getShortcutCount() {
+        int nbShortcuts = 0;
+        for (int arc: arcs) {
+            if (arc == -1) {
+                ++nbShortcuts;
+            }
+        }
+        return nbShortcuts;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Rank of the node (position in the contraction order).
+     */
+    public int getRank(int node) {
+        return ranks[node];
+    }
+
+    /**
+     * @param node ID of a node, or {@link #size()}.
+     *
+     * @return Index of the first upward edge of the node. The upward edges of the
+     *         node end (exclusive) at {@code getFirstUpwardEdge(node + 1)}.
+     */
+    public int getFirstUpwardEdge(int node) {
+        return firstUpward[node];
+    }
+
+    /**
+     * @param node ID of a node, or {@link #size()}.
+     *
+     * @return Index of the first downward edge of the node. The downward edges of
+     *         the node end (exclusive) at {@code getFirstDownwardEdge(node + 1)}.
+     */
+    public int getFirstDownwardEdge(int node) {
+        return firstDownward[node];
+    }
+
+    /**
+     * @param edge Index of an edge.
+     *
+     * @return ID of the origin of the edge.
+     */
+    public int getEdgeOrigin(int edge) {
+        return origins[edge];
+    }
+
+    /**
+     * @param edge Index of an edge.
+     *
+     * @return ID of the destination of the edge.
+     */
+    public int getEdgeDestination(int edge) {
+        return destinations[edge];
+    }
+
+    /**
+     * @param edge Index of an edge.
+     *
+     * @return Cost of the edge.
+     */
+    public float getEdgeCost(int edge) {
+        return costs[edge];
+    }
+
+    /**
+     * @param edge Index of an edge.
+     *
+     * @return Index of the arc of the edge in the compact graph, or -1 if the edge
+     *         is a shortcut.
+     */
+    public int getEdgeArc(int edge) {
+        return arcs[edge];
+    }
+
+    /**
+     * Unpack the given edge into arcs of the compact graph.
+     *
+     * @param edge Index of an edge.
+     * @param action Action called on the index of each arc, from the origin to the
+     *        destination of the edge.
+     */
+    public void unpack(int edge, IntConsumer action) {
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = edge;
+        while (size > 0) {
+            int current = stack[--size];
+            if (arcs[current] != -1) {
+                action.accept(arcs[current]);
+            }
+            else {
+                if (size + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[size++] = secondChildren[current];
+                stack[size++] = firstChildren[current];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Shortest-path queries on the {@link ContractionHierarchy} of the graph: a
+ * forward search from the origin on the upward edges and a backward search from
+ * the destination on the downward edges, both only going to nodes of higher
+ * rank.
+ * </p>
+ *
+ * <p>
+ * The shortest path goes up to its highest-ranked node then down, so it is
+ * found when both searches meet. Unlike the bidirectional Dijkstra, the first
+ * meeting is not always the best one: each search only stops when its minimum
+ * key is not smaller than the cost of the best path found so far. The edges of
+ * the path are then unpacked into arcs of the graph.
+ * </p>
+ *
+ * <p>
+ * The hierarchy is retrieved with
+ * {@link ContractionHierarchy#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)},
+ * so the first query on a graph computes it, unless it has been loaded before.
+ * </p>
+ *
+ */
+public class ContractionHierarchyAlgorithm extends ShortestPathAlgorithm {
+
+    // Index of the forward and backward searches in the arrays below.
+    private static final int FORWARD = 0, BACKWARD = 1;
+
+    public ContractionHierarchyAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        final ShortestPathData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ContractionHierarchy hierarchy = ContractionHierarchy.of(data.getGraph(),
+                data.getArcInspector());
+        final int nbNodes = graph.size();
+
+        final int origin = data.getOrigin().getId();
+        final int destination = data.getDestination().getId();
+
+        // Distances, predecessor edges (-1 if none) and queues of both searches.
+        final SearchWorkspace[] workspaces = new SearchWorkspace[] {
+                SearchWorkspace.acquire(nbNodes), SearchWorkspace.acquire(nbNodes) };
+        try {
+            workspaces[FORWARD].setLabel(origin, 0, -1);
+            workspaces[BACKWARD].setLabel(destination, 0, -1);
+            workspaces[FORWARD].getQueue().insert(origin, 0);
+            workspaces[BACKWARD].getQueue().insert(destination, 0);
+
+            notifyOriginProcessed(data.getOrigin());
+
+            // Best path found so far: cost and node where both searches meet.
+            float bestCost = origin == destination ? 0 : Float.POSITIVE_INFINITY;
+            int meetingNode = origin == destination ? origin : -1;
+
+            final IntFloatHeap forwardQueue = workspaces[FORWARD].getQueue();
+            final IntFloatHeap backwardQueue = workspaces[BACKWARD].getQueue();
+            while (true) {
+                // A search is over when its queue cannot lead to a better path.
+                boolean forward = !forwardQueue.isEmpty() && forwardQueue.findMinKey() < bestCost;
+                boolean backward = !backwardQueue.isEmpty()
+                        && backwardQueue.findMinKey() < bestCost;
+                if (!forward && !backward) {
+                    break;
+                }
+
+                // Advance the search whose next node is the closest.
+                final int direction = forward
+                        && (!backward || forwardQueue.findMinKey() <= backwardQueue.findMinKey())
+                                ? FORWARD
+                                : BACKWARD;
+                final SearchWorkspace workspace = workspaces[direction];
+                final SearchWorkspace other = workspaces[1 - direction];
+                final IntFloatHeap queue = workspace.getQueue();
+
+                int node = queue.deleteMin();
+                notifyNodeMarked(graph.getNode(node));
+
+                int first, last;
+                if (direction == FORWARD) {
+                    first = hierarchy.getFirstUpwardEdge(node);
+                    last = hierarchy.getFirstUpwardEdge(node + 1);
+                }
+                else {
+                    first = hierarchy.getFirstDownwardEdge(node);
+                    last = hierarchy.getFirstDownwardEdge(node + 1);
+                }
+                for (int edge = first; edge < last; ++edge) {
+                    int successor = direction == FORWARD ? hierarchy.getEdgeDestination(edge)
+                            : hierarchy.getEdgeOrigin(edge);
+                    float newDistance = workspace.getDistance(node) + hierarchy.getEdgeCost(edge);
+                    if (newDistance < workspace.getDistance(successor)) {
+                        if (!workspace.isReached(successor)) {
+                            notifyNodeReached(graph.getNode(successor));
+                        }
+                        workspace.setLabel(successor, newDistance, edge);
+                        queue.insertOrDecreaseKey(successor, newDistance);
+
+                        // Check if this is a better path between origin and destination.
+                        if (newDistance + other.getDistance(successor) < bestCost) {
+                            bestCost = newDistance + other.getDistance(successor);
+                            meetingNode = successor;
+                        }
+                    }
+                }
+            }
+
+            // Destination not reached.
+            if (meetingNode == -1) {
+                return new ShortestPathSolution(data, Status.INFEASIBLE);
+            }
+
+            notifyDestinationReached(data.getDestination());
+
+            // Edges from the origin to the meeting node (collected backward), then to
+            // the destination.
+            ArrayList<Integer> edges = new ArrayList<>();
+            for (int edge = workspaces[FORWARD].getParent(meetingNode); edge != -1;
+                    edge = workspaces[FORWARD].getParent(hierarchy.getEdgeOrigin(edge))) {
+                edges.add(edge);
+            }
+            Collections.reverse(edges);
+            for (int edge = workspaces[BACKWARD].getParent(meetingNode); edge != -1;
+                    edge = workspaces[BACKWARD].getParent(hierarchy.getEdgeDestination(edge))) {
+                edges.add(edge);
+            }
+
+            ArrayList<Arc> arcs = new ArrayList<>();
+            for (int edge: edges) {
+                hierarchy.unpack(edge, (arc) -> arcs.add(graph.getArc(arc)));
+            }
+
+            return new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
+        }
+        finally {
+            workspaces[FORWARD].release();
+            workspaces[BACKWARD].release();
+        }
+    }
+
+}
@@ -0,0 +1,564 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Computation of a {@link ContractionHierarchy}.
+ * </p>
+ *
+ * <p>
+ * The priority of a node is its edge difference (number of shortcuts its
+ * contraction would add minus the number of its edges) plus its number of
+ * contracted neighbors. Nodes are contracted by rounds: each round contracts, in
+ * parallel, an independent set of nodes whose priority is smaller than the
+ * priority of all their neighbors. Priorities are then updated lazily: only the
+ * neighbors of the contracted nodes are re-evaluated, also in parallel.
+ * </p>
+ *
+ * <p>
+ * Witness searches ignore all the nodes of the current round, so the shortcuts
+ * computed concurrently for two nodes of the same round never rely on each
+ * other. Searches are limited to a fixed number of settled nodes: a witness
+ * that is not found only adds an unnecessary shortcut.
+ * </p>
+ *
+ */
+final class ContractionPreprocessing {
+
+    // Maximum number of nodes settled by a witness search.
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+
+    // Minimum number of nodes processed by a single task.
+    private static final int MIN_NODES_PER_TASK = 64;
+
+    // States of the nodes.
+    private static final byte REMAINING = 0, SELECTED = 1, CONTRACTED = 2;
+
+    // Graph to preprocess and its inspector.
+    private final Graph graph;
+    private final ArcInspector inspector;
+    private final int nbNodes;
+
+    // Pool on which nodes are contracted.
+    private final ForkJoinPool pool;
+
+    // Edges: extremities, cost, arc (-1 for shortcuts) and children (-1 for arcs).
+    private int nbEdges = 0;
+    private int[] origins, destinations, arcs, firstChildren, secondChildren;
+    private float[] costs;
+
+    // Outgoing and incoming edges of each node, edges towards contracted nodes are
+    // removed after each round.
+    private final int[][] outEdges, inEdges;
+    private final int[] nbOutEdges, nbInEdges;
+
+    // State, priority and number of contracted neighbors of each node.
+    private final byte[] states;
+    private final int[] priorities;
+    private final int[] nbContractedNeighbors;
+
+    // Rank of each node, and its upward and downward edges once contracted.
+    private final int[] ranks;
+    private final int[][] upward, downward;
+
+    // Witness search of each thread.
+    private final ThreadLocal<WitnessSearch> witnessSearches;
+
+    /**
+     * Search from the origin of the in-edges of a node, used to check if a path
+     * avoiding the node exists.
+     */
+    private class WitnessSearch {
+
+        // Distances (infinite if not reached) and reached nodes.
+        final float[] distances;
+        final int[] touched;
+        int nbTouched = 0;
+
+        // Queue of the search.
+        final IntFloatHeap queue;
+
+        WitnessSearch() {
+            distances = new float[nbNodes];
+            Arrays.fill(distances, Float.POSITIVE_INFINITY);
+            touched = new int[nbNodes];
+            queue = new IntFloatHeap(nbNodes);
+        }
+
+        /**
+         * Compute the distances from the given source, without going through the
+         * given node and the nodes selected in the current round, up to the given
+         * cost.
+         */
+        void run(int source, int excluded, float maxCost) {
+            for (int i = 0; i < nbTouched; ++i) {
+                distances[touched[i]] = Float.POSITIVE_INFINITY;
+            }
+            nbTouched = 0;
+            queue.clear();
+
+            distances[source] = 0;
+            touched[nbTouched++] = source;
+            queue.insert(source, 0);
+            int nbSettled = 0;
+            while (!queue.isEmpty() && queue.findMinKey() <= maxCost
+                    && nbSettled++ < WITNESS_SETTLED_LIMIT) {
+                int node = queue.deleteMin();
+                final int[] edges = outEdges[node];
+                for (int i = 0; i < nbOutEdges[node]; ++i) {
+                    int edge = edges[i], successor = destinations[edge];
+                    if (successor == excluded || states[successor] != REMAINING) {
+                        continue;
+                    }
+                    float distance = distances[node] + costs[edge];
+                    if (distance < distances[successor]) {
+                        if (distances[successor] == Float.POSITIVE_INFINITY) {
+                            touched[nbTouched++] = successor;
+                        }
+                        distances[successor] = distance;
+                        queue.insertOrDecreaseKey(successor, distance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shortcuts found by a task: extremities, cost and replaced edges.
+     */
+    private static class Shortcuts {
+        int size = 0;
+        int[] values = new int[64];
+        float[] costs = new float[16];
+
+        void add(int origin, int destination, float cost, int first, int second) {
+            if (size == costs.length) {
+                values = Arrays.copyOf(values, 8 * size);
+                costs = Arrays.copyOf(costs, 2 * size);
+            }
+            values[4 * size] = origin;
+            values[4 * size + 1] = destination;
+            values[4 * size + 2] = first;
+            values[4 * size + 3] = second;
+            costs[size++] = cost;
+        }
+    }
+
+    /**
+     * Create a new preprocessing of the given graph.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param pool Pool on which nodes are contracted.
+     */
+    ContractionPreprocessing(Graph graph, ArcInspector inspector, ForkJoinPool pool) {
+        this.graph = graph;
+        this.inspector = inspector;
+        this.pool = pool;
+        this.nbNodes = graph.size();
+
+        this.outEdges = new int[nbNodes][];
+        this.inEdges = new int[nbNodes][];
+        this.nbOutEdges = new int[nbNodes];
+        this.nbInEdges = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            outEdges[node] = new int[4];
+            inEdges[node] = new int[4];
+        }
+        this.states = new byte[nbNodes];
+        this.priorities = new int[nbNodes];
+        this.nbContractedNeighbors = new int[nbNodes];
+        this.ranks = new int[nbNodes];
+        this.upward = new int[nbNodes][];
+        this.downward = new int[nbNodes][];
+        this.witnessSearches = ThreadLocal.withInitial(WitnessSearch::new);
+
+        // Allowed arcs are the initial edges.
+        CompactGraph compact = graph.getCompactGraph();
+        ArcCostTable table = ArcCostTable.of(graph, inspector);
+        int capacity = Math.max(16, 2 * table.getAllowedCount());
+        this.origins = new int[capacity];
+        this.destinations = new int[capacity];
+        this.arcs = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.secondChildren = new int[capacity];
+        this.costs = new float[capacity];
+        for (int arc = 0; arc < compact.getArcCount(); ++arc) {
+            int origin = compact.getArcOrigin(arc), destination = compact.getArcDestination(arc);
+            if (table.isAllowed(arc) && origin != destination) {
+                addEdge(origin, destination, table.getCost(arc), arc, -1, -1);
+            }
+        }
+    }
+
+    /**
+     * Add an edge to the graph being contracted.
+     */
+    private void addEdge(int origin, int destination, float cost, int arc, int first,
+            int second) {
+        if (nbEdges == costs.length) {
+            int capacity = 2 * nbEdges;
+            origins = Arrays.copyOf(origins, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            arcs = Arrays.copyOf(arcs, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            secondChildren = Arrays.copyOf(secondChildren, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+        int edge = nbEdges++;
+        origins[edge] = origin;
+        destinations[edge] = destination;
+        costs[edge] = cost;
+        arcs[edge] = arc;
+        firstChildren[edge] = first;
+        secondChildren[edge] = second;
+
+        if (nbOutEdges[origin] == outEdges[origin].length) {
+            outEdges[origin] = Arrays.copyOf(outEdges[origin], 2 * nbOutEdges[origin]);
+        }
+        outEdges[origin][nbOutEdges[origin]++] = edge;
+        if (nbInEdges[destination] == inEdges[destination].length) {
+            inEdges[destination] = Arrays.copyOf(inEdges[destination],
+                    2 * nbInEdges[destination]);
+        }
+        inEdges[destination][nbInEdges[destination]++] = edge;
+    }
+
+    /**
+     * @return true if the edge at the given index of the given list can be ignored
+     *         because another edge of the list with the same extremity is cheaper.
+     */
+    private boolean isDominated(int[] edges, int count, int index, int[] extremities) {
+        int edge = edges[index];
+        for (int i = 0; i < count; ++i) {
+            int other = edges[i];
+            if (i != index && extremities[other] == extremities[edge]
+                    && (costs[other] < costs[edge] || (costs[other] == costs[edge] && i < index))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the shortcuts needed to contract the given node.
+     *
+     * @param node Node to contract.
+     * @param shortcuts Shortcuts to complete, or null to only count them.
+     *
+     * @return Number of shortcuts needed.
+     */
+    private int contract(int node, Shortcuts shortcuts) {
+        WitnessSearch witness = witnessSearches.get();
+        final int[] in = inEdges[node], out = outEdges[node];
+        final int nbIn = nbInEdges[node], nbOut = nbOutEdges[node];
+        int nbShortcuts = 0;
+        for (int i = 0; i < nbIn; ++i) {
+            int inEdge = in[i], origin = origins[inEdge];
+            if (states[origin] != REMAINING || isDominated(in, nbIn, i, origins)) {
+                continue;
+            }
+
+            // Cost of the longest path through the node.
+            float maxCost = Float.NEGATIVE_INFINITY;
+            for (int j = 0; j < nbOut; ++j) {
+                int destination = destinations[out[j]];
+                if (destination != origin && states[destination] == REMAINING) {
+                    maxCost = Math.max(costs[inEdge] + costs[out[j]], maxCost);
+                }
+            }
+            if (maxCost == Float.NEGATIVE_INFINITY) {
+                continue;
+            }
+
+            witness.run(origin, node, maxCost);
+            for (int j = 0; j < nbOut; ++j) {
+                int outEdge = out[j], destination = destinations[outEdge];
+                if (destination == origin || states[destination] != REMAINING
+                        || isDominated(out, nbOut, j, destinations)) {
+                    continue;
+                }
+                float cost = costs[inEdge] + costs[outEdge];
+                if (witness.distances[destination] > cost) {
+                    ++nbShortcuts;
+                    if (shortcuts != null) {
+                        shortcuts.add(origin, destination, cost, inEdge, outEdge);
+                    }
+                }
+            }
+        }
+        return nbShortcuts;
+    }
+
+    /**
+     * @return Priority of the given node (lower is contracted first).
+     */
+    private int computePriority(int node) {
+        int degree = 0;
+        for (int i = 0; i < nbOutEdges[node]; ++i) {
+            degree += states[destinations[outEdges[node][i]]] == REMAINING ? 1 : 0;
+        }
+        for (int i = 0; i < nbInEdges[node]; ++i) {
+            degree += states[origins[inEdges[node][i]]] == REMAINING ? 1 : 0;
+        }
+        return contract(node, null) - degree + nbContractedNeighbors[node];
+    }
+
+    /**
+     * @return true if the priority of the given node is smaller than the priority
+     *         of all its remaining neighbors.
+     */
+    private boolean isLocalMinimum(int node) {
+        for (int i = 0; i < nbOutEdges[node]; ++i) {
+            if (isBefore(destinations[outEdges[node][i]], node)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < nbInEdges[node]; ++i) {
+            if (isBefore(origins[inEdges[node][i]], node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the first node is remaining and should be contracted before
+     *         the second one.
+     */
+    private boolean isBefore(int first, int second) {
+        return states[first] == REMAINING && (priorities[first] < priorities[second]
+                || (priorities[first] == priorities[second] && first < second));
+    }
+
+    /**
+     * Run the given action on each of the first count nodes of the given array, on
+     * the pool.
+     *
+     * @return Results of the tasks, in order.
+     */
+    private <T> List<T> forEachChunk(int[] nodes, int count, ChunkAction<T> action) {
+        int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                (count + MIN_NODES_PER_TASK - 1) / MIN_NODES_PER_TASK));
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) count * task / nbTasks);
+            final int to = (int) ((long) count * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> action.run(nodes, from, to)));
+        }
+        List<T> results = new ArrayList<>(nbTasks);
+        for (ForkJoinTask<T> task: tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Action run on a range of nodes.
+     */
+    private interface ChunkAction<T> {
+        T run(int[] nodes, int from, int to);
+    }
+
+    /**
+     * Compute the priority of the first count nodes of the given array.
+     */
+    private void updatePriorities(int[] nodes, int count) {
+        forEachChunk(nodes, count, (array, from, to) -> {
+            for (int i = from; i < to; ++i) {
+                priorities[array[i]] = computePriority(array[i]);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Remove the edges towards contracted nodes from the lists of the given node.
+     */
+    private void pruneEdges(int node) {
+        int count = 0;
+        for (int i = 0; i < nbOutEdges[node]; ++i) {
+            int edge = outEdges[node][i];
+            if (states[destinations[edge]] != CONTRACTED) {
+                outEdges[node][count++] = edge;
+            }
+        }
+        nbOutEdges[node] = count;
+        count = 0;
+        for (int i = 0; i < nbInEdges[node]; ++i) {
+            int edge = inEdges[node][i];
+            if (states[origins[edge]] != CONTRACTED) {
+                inEdges[node][count++] = edge;
+            }
+        }
+        nbInEdges[node] = count;
+    }
+
+    /**
+     * @return Edges of the given list whose extremity is remaining.
+     */
+    private int[] getRemainingEdges(int[] edges, int count, int[] extremities) {
+        int[] remaining = new int[count];
+        int nbRemaining = 0;
+        for (int i = 0; i < count; ++i) {
+            if (states[extremities[edges[i]]] == REMAINING) {
+                remaining[nbRemaining++] = edges[i];
+            }
+        }
+        return Arrays.copyOf(remaining, nbRemaining);
+    }
+
+    /**
+     * Contract all the nodes of the graph.
+     *
+     * @return The contraction hierarchy.
+     */
+    ContractionHierarchy run() {
+        int[] remaining = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            remaining[node] = node;
+        }
+        int nbRemaining = nbNodes;
+        updatePriorities(remaining, nbRemaining);
+
+        int[] dirty = new int[nbNodes];
+        boolean[] isDirty = new boolean[nbNodes];
+        int rank = 0;
+        while (nbRemaining > 0) {
+            // Select an independent set of nodes with locally minimal priorities.
+            List<int[]> selections = forEachChunk(remaining, nbRemaining, (array, from, to) -> {
+                int[] selected = new int[to - from];
+                int count = 0;
+                for (int i = from; i < to; ++i) {
+                    if (isLocalMinimum(array[i])) {
+                        selected[count++] = array[i];
+                    }
+                }
+                return Arrays.copyOf(selected, count);
+            });
+            int[] selected = selections.stream().flatMapToInt(Arrays::stream).toArray();
+            for (int node: selected) {
+                states[node] = SELECTED;
+            }
+
+            // Find the shortcuts of the selected nodes.
+            List<Shortcuts> shortcuts = forEachChunk(selected, selected.length,
+                    (array, from, to) -> {
+                        Shortcuts found = new Shortcuts();
+                        for (int i = from; i < to; ++i) {
+                            contract(array[i], found);
+                        }
+                        return found;
+                    });
+
+            // Contract the selected nodes, their neighbors are all remaining.
+            int nbDirty = 0;
+            for (int node: selected) {
+                ranks[node] = rank++;
+                upward[node] = getRemainingEdges(outEdges[node], nbOutEdges[node],
+                        destinations);
+                downward[node] = getRemainingEdges(inEdges[node], nbInEdges[node], origins);
+                for (int[] edges: new int[][] { upward[node], downward[node] }) {
+                    for (int edge: edges) {
+                        int neighbor = origins[edge] == node ? destinations[edge]
+                                : origins[edge];
+                        nbContractedNeighbors[neighbor]++;
+                        if (!isDirty[neighbor]) {
+                            isDirty[neighbor] = true;
+                            dirty[nbDirty++] = neighbor;
+                        }
+                    }
+                }
+            }
+            for (int node: selected) {
+                states[node] = CONTRACTED;
+            }
+            for (Shortcuts found: shortcuts) {
+                for (int i = 0; i < found.size; ++i) {
+                    addEdge(found.values[4 * i], found.values[4 * i + 1], found.costs[i], -1,
+                            found.values[4 * i + 2], found.values[4 * i + 3]);
+                }
+            }
+
+            // Update the neighbors of the contracted nodes.
+            for (int i = 0; i < nbDirty; ++i) {
+                pruneEdges(dirty[i]);
+                isDirty[dirty[i]] = false;
+            }
+            updatePriorities(dirty, nbDirty);
+
+            int count = 0;
+            for (int i = 0; i < nbRemaining; ++i) {
+                if (states[remaining[i]] == REMAINING) {
+                    remaining[count++] = remaining[i];
+                }
+            }
+            nbRemaining = count;
+        }
+
+        return createHierarchy();
+    }
+
+    /**
+     * Create the hierarchy from the edges of the contracted nodes: upward edges are
+     * stored first, grouped by origin, then downward edges, grouped by
+     * destination.
+     */
+    private ContractionHierarchy createHierarchy() {
+        int[] newEdges = new int[nbEdges];
+        Arrays.fill(newEdges, -1);
+        int[] firstUpward = new int[nbNodes + 1], firstDownward = new int[nbNodes + 1];
+        int edge = 0;
+        for (int node = 0; node < nbNodes; ++node) {
+            firstUpward[node] = edge;
+            for (int oldEdge: upward[node]) {
+                newEdges[oldEdge] = edge++;
+            }
+        }
+        firstUpward[nbNodes] = edge;
+        for (int node = 0; node < nbNodes; ++node) {
+            firstDownward[node] = edge;
+            for (int oldEdge: downward[node]) {
+                newEdges[oldEdge] = edge++;
+            }
+        }
+        firstDownward[nbNodes] = edge;
+
+        final int nbHierarchyEdges = edge;
+        int[] newOrigins = new int[nbHierarchyEdges], newDestinations = new int[nbHierarchyEdges],
+                newArcs = new int[nbHierarchyEdges], newFirstChildren = new int[nbHierarchyEdges],
+                newSecondChildren = new int[nbHierarchyEdges];
+        float[] newCosts = new float[nbHierarchyEdges];
+        for (int oldEdge = 0; oldEdge < nbEdges; ++oldEdge) {
+            int newEdge = newEdges[oldEdge];
+            if (newEdge == -1) {
+                continue;
+            }
+            newOrigins[newEdge] = origins[oldEdge];
+            newDestinations[newEdge] = destinations[oldEdge];
+            newCosts[newEdge] = costs[oldEdge];
+            newArcs[newEdge] = arcs[oldEdge];
+            newFirstChildren[newEdge] = arcs[oldEdge] == -1 ? newEdges[firstChildren[oldEdge]]
+                    : -1;
+            newSecondChildren[newEdge] = arcs[oldEdge] == -1
+                    ? newEdges[secondChildren[oldEdge]]
+                    : -1;
+        }
+
+        return new ContractionHierarchy(graph.getMapId(), inspector.toString(), ranks,
+                firstUpward, firstDownward, newOrigins, newDestinations, newCosts, newArcs,
+                newFirstChildren, newSecondChildren);
+    }
+
+}
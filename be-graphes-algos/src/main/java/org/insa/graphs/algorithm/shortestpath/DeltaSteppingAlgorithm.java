@@ -0,0 +1,390 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Parallel shortest-path tree computed with the delta-stepping algorithm of
+ * Meyer and Sanders.
+ * </p>
+ *
+ * <p>
+ * Reached nodes are kept in buckets of width <i>delta</i> according to their
+ * distance, and the buckets are processed in increasing order. Arcs are split
+ * into light arcs (cost below <i>delta</i>), which can put nodes back into the
+ * current bucket, and heavy arcs, which cannot. The light arcs of the current
+ * bucket are relaxed until it stays empty, then the heavy arcs of all the nodes
+ * it contained are relaxed once, their distances being final. Each of these
+ * relaxation phases is run in parallel on a pool, the distance and predecessor
+ * arc of each node being packed in a single long updated by compare-and-set.
+ * </p>
+ *
+ * <p>
+ * A small <i>delta</i> gives few useless relaxations but many phases with little
+ * parallelism (Dijkstra being the limit), a large one the opposite
+ * (Bellman-Ford being the limit). By default, it is the average cost of the
+ * allowed arcs. Distances are the same as the ones of
+ * {@link ShortestPathTreeAlgorithm}, predecessor arcs may differ between
+ * shortest paths of equal cost.
+ * </p>
+ *
+ */
+public class DeltaSteppingAlgorithm extends ShortestPathTreeAlgorithm {
+
+    // Minimum number of nodes relaxed by a single task.
+    private static final int MIN_NODES_PER_TASK = 256;
+
+    // Width of the buckets (not positive to use the default one).
+    private final float delta;
+
+    // Pool on which the relaxations are run.
+    private final ForkJoinPool pool;
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+
+        int[] values = new int[16];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Create a new algorithm with the default width of buckets, running on the
+     * common pool.
+     *
+     * @param data Input data for this algorithm.
+     */
+    public DeltaSteppingAlgorithm(ShortestPathTreeData data) {
+        this(data, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new algorithm with the given width of buckets, running on the given
+     * pool.
+     *
+     * @param data Input data for this algorithm.
+     * @param delta Width of the buckets, or a value that is not positive to use the
+     *        average cost of the allowed arcs.
+     * @param pool Pool on which the relaxations are run.
+     */
+    public DeltaSteppingAlgorithm(ShortestPathTreeData data, float delta, ForkJoinPool pool) {
+        super(data);
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    /**
+     * @return Width of the buckets given to this algorithm (not positive if the
+     *         default one is used).
+     */
+    public float getDelta() {
+        return delta;
+    }
+
+    /**
+     * @param graph A graph.
+     * @param costs Costs of the arcs of the graph.
+     *
+     * @return Average cost of the allowed arcs of the graph, or 1 if there is no
+     *         such arc or all of them have a zero cost.
+     */
+    public static float getDefaultDelta(CompactGraph graph, ArcCostTable costs) {
+        double total = 0;
+        int count = 0;
+        for (int arc = 0; arc < graph.getFirstArc(graph.size()); ++arc) {
+            if (costs.isAllowed(arc)) {
+                total += costs.getCost(arc);
+                count += 1;
+            }
+        }
+        return total > 0 ? (float) (total / count) : 1;
+    }
+
+    /**
+     * @return Label made of the given distance and predecessor arc.
+     */
+    private static long pack(float distance, int arc) {
+        return ((long) Float.floatToRawIntBits(distance) << 32) | (arc & 0xffffffffL);
+    }
+
+    /**
+     * @return Distance of the given label.
+     */
+    private static float distanceOf(long label) {
+        return Float.intBitsToFloat((int) (label >>> 32));
+    }
+
+    /**
+     * State of a run, shared by the tasks of its phases.
+     */
+    private static final class Search {
+
+        final CompactGraph graph;
+        final ArcCostTable costs;
+        final float delta, maximumCost;
+
+        // Allowed arcs of each node v, light ones in [first(v), lightEnd[v]) and
+        // heavy ones in [lightEnd[v], heavyEnd[v]), first(v) being the index of
+        // the first arc of v in the graph.
+        final int[] arcs, lightEnd, heavyEnd;
+
+        // Distance and predecessor arc of each node.
+        final AtomicLongArray labels;
+
+        Search(CompactGraph graph, ArcCostTable costs, float delta, float maximumCost) {
+            this.graph = graph;
+            this.costs = costs;
+            this.delta = delta;
+            this.maximumCost = maximumCost;
+            this.arcs = new int[graph.getFirstArc(graph.size())];
+            this.lightEnd = new int[graph.size()];
+            this.heavyEnd = new int[graph.size()];
+            this.labels = new AtomicLongArray(graph.size());
+        }
+
+        /**
+         * Split the arcs of the nodes in [from, to) and initialize their labels.
+         */
+        void initialize(int from, int to) {
+            long unreached = pack(Float.POSITIVE_INFINITY, -1);
+            for (int node = from; node < to; ++node) {
+                labels.set(node, unreached);
+                int light = graph.getFirstArc(node), last = graph.getFirstArc(node + 1);
+                for (int arc = light; arc < last; ++arc) {
+                    if (costs.isAllowed(arc) && costs.getCost(arc) < delta) {
+                        arcs[light++] = arc;
+                    }
+                }
+                int heavy = light;
+                for (int arc = graph.getFirstArc(node); arc < last; ++arc) {
+                    if (costs.isAllowed(arc) && costs.getCost(arc) >= delta) {
+                        arcs[heavy++] = arc;
+                    }
+                }
+                lightEnd[node] = light;
+                heavyEnd[node] = heavy;
+            }
+        }
+
+        float getDistance(int node) {
+            return distanceOf(labels.get(node));
+        }
+
+        /**
+         * @return Index of the bucket of the given distance.
+         */
+        int getBucket(float distance) {
+            return (int) Math.min(distance / (double) delta, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Relax the light or heavy arcs of the given nodes.
+         *
+         * @return Nodes whose distance has been improved (possibly several times).
+         */
+        IntList relax(int[] nodes, int from, int to, boolean light) {
+            IntList improved = new IntList();
+            for (int i = from; i < to; ++i) {
+                int node = nodes[i];
+                float distance = getDistance(node);
+                int first = light ? graph.getFirstArc(node) : lightEnd[node];
+                int last = light ? lightEnd[node] : heavyEnd[node];
+                for (int j = first; j < last; ++j) {
+                    int arc = arcs[j];
+                    float newDistance = distance + costs.getCost(arc);
+                    if (newDistance <= maximumCost
+                            && relax(graph.getArcDestination(arc), newDistance, arc)) {
+                        improved.add(graph.getArcDestination(arc));
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /**
+         * Lower the distance of the given node if the given one is smaller.
+         *
+         * @return true if the distance has been lowered.
+         */
+        boolean relax(int node, float distance, int arc) {
+            long label = pack(distance, arc);
+            long current = labels.get(node);
+            while (distance < distanceOf(current)) {
+                if (labels.compareAndSet(node, current, label)) {
+                    return true;
+                }
+                current = labels.get(node);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return Number of tasks to split the given number of nodes between.
+     */
+    private int getTaskCount(int count) {
+        return Math.max(1, Math.min(4 * pool.getParallelism(),
+                (count + MIN_NODES_PER_TASK - 1) / MIN_NODES_PER_TASK));
+    }
+
+    /**
+     * Relax the light or heavy arcs of the given nodes in parallel.
+     *
+     * @return Nodes whose distance has been improved, one list per task.
+     */
+    private IntList[] relaxInParallel(final Search search, final IntList nodes,
+            final boolean light) {
+        final int nbTasks = getTaskCount(nodes.size);
+        final IntList[] improved = new IntList[nbTasks];
+        if (nbTasks == 1) {
+            improved[0] = search.relax(nodes.values, 0, nodes.size, light);
+            return improved;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int index = task;
+            final int from = (int) ((long) nodes.size * task / nbTasks);
+            final int to = (int) ((long) nodes.size * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> {
+                improved[index] = search.relax(nodes.values, from, to, light);
+            }));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+        return improved;
+    }
+
+    @Override
+    protected ShortestPathTreeSolution doRun() {
+        final ShortestPathTreeData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable costs = ArcCostTable.of(data.getGraph(), data.getArcInspector());
+        final boolean observed = !getObservers().isEmpty();
+        final int nbNodes = graph.size();
+
+        final Search search = new Search(graph, costs,
+                delta > 0 ? delta : getDefaultDelta(graph, costs), data.getMaximumCost());
+        final int nbTasks = getTaskCount(nbNodes);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) nbNodes * task / nbTasks);
+            final int to = (int) ((long) nbNodes * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> search.initialize(from, to)));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+
+        // Non-empty buckets, by index. Nodes can appear in several buckets (or
+        // several times in a bucket), only the entry of their current bucket is
+        // used.
+        final TreeMap<Integer, IntList> buckets = new TreeMap<>();
+
+        // Nodes of the current phase and of the current bucket, deduplicated with
+        // stamps.
+        final IntList frontier = new IntList(), settled = new IntList();
+        final int[] frontierStamps = new int[nbNodes], settledStamps = new int[nbNodes];
+        int frontierStamp = 0, settledStamp = 0;
+
+        final boolean[] notified = observed ? new boolean[nbNodes] : null;
+
+        final int origin = data.getOrigin().getId();
+        search.relax(origin, 0, -1);
+        IntList first = new IntList();
+        first.add(origin);
+        buckets.put(0, first);
+
+        notifyOriginProcessed(data.getOrigin());
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Integer, IntList> entry = buckets.pollFirstEntry();
+            final int index = entry.getKey();
+            settled.size = 0;
+            settledStamp += 1;
+
+            // Light arcs, until the bucket stays empty.
+            IntList bucket = entry.getValue();
+            while (bucket != null) {
+                frontier.size = 0;
+                frontierStamp += 1;
+                for (int i = 0; i < bucket.size; ++i) {
+                    int node = bucket.values[i];
+                    if (frontierStamps[node] == frontierStamp
+                            || search.getBucket(search.getDistance(node)) != index) {
+                        continue;
+                    }
+                    frontierStamps[node] = frontierStamp;
+                    frontier.add(node);
+                    if (settledStamps[node] != settledStamp) {
+                        settledStamps[node] = settledStamp;
+                        settled.add(node);
+                    }
+                }
+                enqueue(search, buckets, relaxInParallel(search, frontier, true), notified);
+                bucket = buckets.remove(index);
+            }
+
+            if (observed) {
+                for (int i = 0; i < settled.size; ++i) {
+                    notifyNodeMarked(graph.getNode(settled.values[i]));
+                }
+            }
+
+            // Heavy arcs, once for all the nodes of the bucket.
+            enqueue(search, buckets, relaxInParallel(search, settled, false), notified);
+        }
+
+        final float[] distances = new float[nbNodes];
+        final int[] predecessorArcs = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            long label = search.labels.get(node);
+            distances[node] = distanceOf(label);
+            predecessorArcs[node] = (int) label;
+        }
+        return new ShortestPathTreeSolution(data, Status.OPTIMAL, distances, predecessorArcs);
+    }
+
+    /**
+     * Add the given improved nodes to the buckets of their current distance.
+     */
+    private void enqueue(Search search, TreeMap<Integer, IntList> buckets, IntList[] improved,
+            boolean[] notified) {
+        for (IntList nodes: improved) {
+            for (int i = 0; i < nodes.size; ++i) {
+                int node = nodes.values[i];
+                int index = search.getBucket(search.getDistance(node));
+                IntList bucket = buckets.get(index);
+                if (bucket == null) {
+                    bucket = new IntList();
+                    buckets.put(index, bucket);
+                }
+                bucket.add(node);
+                if (notified != null && !notified[node]) {
+                    notified[node] = true;
+                    notifyNodeReached(search.graph.getNode(node));
+                }
+            }
+        }
+    }
+
+}
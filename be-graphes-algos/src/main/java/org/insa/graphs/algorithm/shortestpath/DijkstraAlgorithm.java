@@ -2,13 +2,12 @@ package org.insa.graphs.algorithm.shortestpath;
 import java.util.ArrayList;
 import java.util.Collections;
 
-import java.util.List;
-
 import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcCostTable;
 import org.insa.graphs.algorithm.AbstractSolution.Status;
-import org.insa.graphs.algorithm.utils.BinaryHeap;
+import org.insa.graphs.algorithm.utils.DaryHeap;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
 import org.insa.graphs.model.*;
-import org.insa.graphs.algorithm.utils.ElementNotFoundException;
 
 
 public class DijkstraAlgorithm extends ShortestPathAlgorithm {
@@ -25,23 +24,114 @@ public class DijkstraAlgorithm extends ShortestPathAlgorithm {
         return new Label(courant);
     }
 
+    /*permet aux sous-classes d'ignorer des arcs autorises (ex : arc flags) */
+    protected boolean isArcUsable(int arc){
+        return true;
+    }
+
+    /*permet aux sous-classes de ne pas parcourir les arcs d'un sommet marque (ex : reach) */
+    protected boolean isNodePruned(int sommet, float cout_realise){
+        return false;
+    }
+
+    /*cout estime converti dans l'unite du mode (100 km/h pour le temps) */
+    private float estimation(ShortestPathData data, Node courant){
+        if(data.getMode()==AbstractInputData.Mode.LENGTH){
+            return calcul_cout_estime(courant, data.getDestination());
+        }
+        return (float)(calcul_cout_estime(courant, data.getDestination())* 3600.0 / (100 * 1000.0));
+    }
+
+    /*version sans labels : distances, arcs peres et marques dans un SearchWorkspace
+     *reutilise d'une requete a l'autre, rien n'est alloue par sommet atteint */
+    private ShortestPathSolution doRunSansLabels(ShortestPathData data) {
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable couts = data.getCostTable();
+        final int destination = data.getDestination().getId();
+        SearchWorkspace espace = SearchWorkspace.acquire(graph.size());
+        try {
+            IntFloatHeap tas = espace.getQueue();
+            int origine = data.getOrigin().getId();
+            espace.setLabel(origine, 0, -1);
+            tas.insert(origine, 0);
+
+            notifyOriginProcessed(data.getOrigin());
+
+            boolean fini = false;
+            while (!tas.isEmpty() && !fini) {
+                int sommet = tas.deleteMin();
+                espace.settle(sommet);
+                notifyNodeMarked(graph.getNode(sommet));
+                fini = sommet == destination;
+                if (!fini && isNodePruned(sommet, espace.getDistance(sommet))) {
+                    continue;
+                }
+                int fin = graph.getFirstArc(sommet + 1);
+                for (int arc = graph.getFirstArc(sommet); arc < fin; ++arc) {
+                    if (!couts.isAllowed(arc) || !isArcUsable(arc)) {
+                        continue;
+                    }
+                    int successor = graph.getArcDestination(arc);
+                    if (espace.isSettled(successor)) {
+                        continue;
+                    }
+                    if (!espace.isReached(successor)) {
+                        notifyNodeReached(graph.getNode(successor));
+                    }
+                    float cout = espace.getDistance(sommet) + couts.getCost(arc);
+                    if (cout < espace.getDistance(successor)) {
+                        espace.setLabel(successor, cout, arc);
+                        tas.insertOrDecreaseKey(successor,
+                                cout + estimation(data, graph.getNode(successor)));
+                    }
+                }
+            }
+
+            /*la destination n'est pas atteinte */
+            if (!fini) {
+                return new ShortestPathSolution(data, Status.INFEASIBLE);
+            }
+            notifyDestinationReached(data.getDestination());
+            ArrayList<Arc> arcs = new ArrayList<>();
+            for (int arc = espace.getParent(destination); arc != -1;
+                    arc = espace.getParent(graph.getArcOrigin(arc))) {
+                arcs.add(graph.getArc(arc));
+            }
+            Collections.reverse(arcs);
+            return new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
+        }
+        finally {
+            espace.release();
+        }
+    }
+
     @Override
     protected ShortestPathSolution doRun() {
         final ShortestPathData data = getInputData();
+        if (getQueueType() == QueueType.PRIMITIVE_HEAP) {
+            return doRunSansLabels(data);
+        }
         ShortestPathSolution solution = null;
 
 		//Declaration de la taille du graphe, les labels des nodes et le tas qu'on va utiliser 
         boolean fini =false;
-        int tailleGraphe = data.getGraph().size();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        /*couts et arcs autorises, compiles une seule fois par filtre */
+        final ArcCostTable couts = data.getCostTable();
+        int tailleGraphe = graph.size();
         Label Tab[]= new Label[tailleGraphe];
-        BinaryHeap<Label> Tas = new BinaryHeap<Label>();    
+        /*arc pere de chaque sommet (indice dans le graphe compact), sans objet Arc */
+        int peres[] = new int[tailleGraphe];
+        /*tas 4-aire indexe par le numero du sommet : decreaseKey en O(log n) */
+        DaryHeap<Label> Tas = new DaryHeap<Label>(DaryHeap.DEFAULT_ARITY,
+                (label) -> label.getSommet_courant().getId(), tailleGraphe);
         
         /*on definit le depart */
         Label Deb = makeLabel(data.getOrigin());
         Tab[Deb.getSommet_courant().getId()] = Deb;
         Deb.settotalcost(0);
         Deb.setCout_realise(0);
-        Tas.insert(Deb); 
+        Tas.insert(Deb);
         Deb.InTas();
 
         notifyOriginProcessed(data.getOrigin());
@@ -54,46 +144,35 @@ public class DijkstraAlgorithm extends ShortestPathAlgorithm {
                 fini=true;
             } 
             
-            /*on parcourt les successors de ce node pour les actualiser*/
-            List<Arc> arcliste= courant.getSommet_courant().getSuccessors();
-            for (int i=0;i<arcliste.size();i++){
-                if(data.isAllowed(arcliste.get(i))){
-                Node successor = (arcliste.get(i).getDestination());
-                Label successorLabel= Tab[successor.getId()];
+            /*on parcourt les successors de ce node (arcs du graphe compact) pour les actualiser*/
+            int sommet = courant.getSommet_courant().getId();
+            if (!fini && isNodePruned(sommet, courant.getCout_realise())){
+                continue;
+            }
+            for (int arc = graph.getFirstArc(sommet), fin = graph.getFirstArc(sommet + 1); arc < fin; ++arc){
+                if(couts.isAllowed(arc) && isArcUsable(arc)){
+                int successor = graph.getArcDestination(arc);
+                Label successorLabel= Tab[successor];
                 
                     /*si ce node n'est pas encore dans le tableau, on le rajout */
                     if (successorLabel==null){
-                        notifyNodeReached(arcliste.get(i).getDestination());
-                        successorLabel= makeLabel(successor);
-                        Tab[successor.getId()]= successorLabel; 
+                        successorLabel= makeLabel(graph.getNode(successor));
+                        notifyNodeReached(successorLabel.getSommet_courant());
+                        Tab[successor]= successorLabel; 
                     }  
                     
                     /*si le successor n'est pas marque */
                     if(!successorLabel.isMarque()){
                         /*le cas ou le cout a ete mis a jour */
-                        double a;
-                        if(data.getMode()== AbstractInputData.Mode.LENGTH){
-                            a =(double)arcliste.get(i).getLength();
-                        }else{
-                            a =arcliste.get(i).getMinimumTravelTime();
-                        }
+                        double a = couts.getCost(arc);
 
                         if(successorLabel.getCout_realise()>(float)a+courant.getCout_realise()
                         ||successorLabel.getCout_realise()==Float.POSITIVE_INFINITY){
-                            if(successorLabel.isInTas()){
-                                try{Tas.remove(successorLabel);}catch(ElementNotFoundException e){}
-                                
-                            }else{
-                                successorLabel.InTas();
-                            }
+                            successorLabel.InTas();
                             successorLabel.setCout_realise((float)a+courant.getCout_realise());
-                            if(data.getMode()==AbstractInputData.Mode.LENGTH){
-                                successorLabel.settotalcost((float)a+courant.getCout_realise()+calcul_cout_estime(successorLabel.getSommet_courant(), data.getDestination()));
-                            }else{
-                                successorLabel.settotalcost((float)a+courant.getCout_realise()+(float)(calcul_cout_estime(successorLabel.getSommet_courant(), data.getDestination())* 3600.0 / (100 * 1000.0)));
-                            }
-                            successorLabel.setPere(arcliste.get(i));
-                            Tas.insert(successorLabel);  
+                            successorLabel.settotalcost((float)a+courant.getCout_realise()+estimation(data, successorLabel.getSommet_courant()));
+                            peres[successor] = arc;
+                            Tas.insertOrDecreaseKey(successorLabel);
                         } 
                     }
                 }
@@ -108,13 +187,12 @@ public class DijkstraAlgorithm extends ShortestPathAlgorithm {
         }else{
             notifyDestinationReached(data.getDestination());
             ArrayList<Arc> arcs= new ArrayList<>();
-            Arc arc=Tab[data.getDestination().getId()].getPere();
-            while(arc!=null){
-                arcs.add(arc);
-                arc=Tab[arc.getOrigin().getId()].getPere(); 
-            } 
+            for (int sommet = data.getDestination().getId(); sommet != data.getOrigin().getId();
+                    sommet = graph.getArcOrigin(peres[sommet])) {
+                arcs.add(graph.getArc(peres[sommet]));
+            }
             Collections.reverse(arcs);
-            solution = new ShortestPathSolution(data, Status.OPTIMAL, new Path(data.getGraph(), arcs));
+            solution = new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
         } 
 
         return solution;
@@ -0,0 +1,54 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Shortest-path queries with the {@link HubLabels} of the graph: the cost of the
+ * path is found by merging the forward label of the origin with the backward
+ * label of the destination, and the path is then rebuilt from the labels and
+ * the {@link ContractionHierarchy} they were computed from.
+ * </p>
+ *
+ * <p>
+ * Labels are retrieved with
+ * {@link HubLabels#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)},
+ * and the hierarchy with
+ * {@link HubLabels#getHierarchy(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)}:
+ * labels loaded from a file must be loaded along with their hierarchy, queries
+ * fail otherwise rather than computing a new hierarchy.
+ * </p>
+ *
+ */
+public class HubLabelAlgorithm extends ShortestPathAlgorithm {
+
+    public HubLabelAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        final ShortestPathData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final HubLabels labels = HubLabels.of(data.getGraph(), data.getArcInspector());
+        final ContractionHierarchy hierarchy = labels.getHierarchy(data.getGraph(),
+                data.getArcInspector());
+
+        notifyOriginProcessed(data.getOrigin());
+
+        ArrayList<Arc> arcs = new ArrayList<>();
+        if (!labels.unpack(hierarchy, data.getOrigin().getId(), data.getDestination().getId(),
+                (arc) -> arcs.add(graph.getArc(arc)))) {
+            return new ShortestPathSolution(data, Status.INFEASIBLE);
+        }
+
+        notifyDestinationReached(data.getDestination());
+
+        return new ShortestPathSolution(data, Status.OPTIMAL, createPath(arcs));
+    }
+
+}
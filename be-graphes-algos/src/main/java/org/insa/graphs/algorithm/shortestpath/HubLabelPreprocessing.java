@@ -0,0 +1,307 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * <p>
+ * Computation of {@link HubLabels} from a {@link ContractionHierarchy}.
+ * </p>
+ *
+ * <p>
+ * The forward label of a node is the node itself merged with the forward labels
+ * of the destinations of its upward edges, shifted by the cost of the edges
+ * (and similarly with downward edges for backward labels). Entries whose cost
+ * is larger than the distance given by the labels computed so far are then
+ * pruned. Labels are computed by height in the hierarchy (the height of a node
+ * is one more than the height of its highest neighbor of higher rank), so the
+ * labels of a node only depend on labels of smaller height, and all the labels
+ * of a given height are computed in parallel.
+ * </p>
+ *
+ */
+final class HubLabelPreprocessing {
+
+    // Index of the forward and backward labels in the arrays below.
+    private static final int FORWARD = 0, BACKWARD = 1;
+
+    // Minimum number of nodes processed by a single task.
+    private static final int MIN_NODES_PER_TASK = 64;
+
+    // Hierarchy of the labels, and pool on which labels are computed.
+    private final ContractionHierarchy hierarchy;
+    private final ForkJoinPool pool;
+    private final int nbNodes;
+
+    // Node of each rank.
+    private final int[] nodes;
+
+    // Forward and backward label of each node.
+    private final Label[][] labels;
+
+    /**
+     * Decoded label: hubs (sorted ranks), costs and edges (-1 for the node itself).
+     */
+    private static class Label {
+        final int[] hubs;
+        final float[] costs;
+        final int[] edges;
+
+        Label(int[] hubs, float[] costs, int[] edges) {
+            this.hubs = hubs;
+            this.costs = costs;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * Create a new preprocessing of the given hierarchy.
+     *
+     * @param hierarchy Hierarchy to compute labels from.
+     * @param pool Pool on which labels are computed.
+     */
+    HubLabelPreprocessing(ContractionHierarchy hierarchy, ForkJoinPool pool) {
+        this.hierarchy = hierarchy;
+        this.pool = pool;
+        this.nbNodes = hierarchy.size();
+        this.nodes = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            nodes[hierarchy.getRank(node)] = node;
+        }
+        this.labels = new Label[2][nbNodes];
+    }
+
+    /**
+     * @return Distance between the nodes of the given forward and backward labels,
+     *         infinite if they have no common hub.
+     */
+    private static float getDistance(Label forward, Label backward) {
+        float distance = Float.POSITIVE_INFINITY;
+        for (int i = 0, j = 0; i < forward.hubs.length && j < backward.hubs.length;) {
+            if (forward.hubs[i] < backward.hubs[j]) {
+                ++i;
+            }
+            else if (forward.hubs[i] > backward.hubs[j]) {
+                ++j;
+            }
+            else {
+                distance = Math.min(forward.costs[i++] + backward.costs[j++], distance);
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Compute the label of the given node in the given direction.
+     */
+    private Label computeLabel(int direction, int node) {
+        int first, last;
+        if (direction == FORWARD) {
+            first = hierarchy.getFirstUpwardEdge(node);
+            last = hierarchy.getFirstUpwardEdge(node + 1);
+        }
+        else {
+            first = hierarchy.getFirstDownwardEdge(node);
+            last = hierarchy.getFirstDownwardEdge(node + 1);
+        }
+
+        // Candidate entries: the node itself and the shifted labels of its neighbors.
+        int nbCandidates = 1;
+        for (int edge = first; edge < last; ++edge) {
+            nbCandidates += labels[direction][getNeighbor(direction, edge)].hubs.length;
+        }
+        int[] hubs = new int[nbCandidates], edges = new int[nbCandidates];
+        float[] costs = new float[nbCandidates];
+        hubs[0] = hierarchy.getRank(node);
+        edges[0] = -1;
+        int count = 1;
+        for (int edge = first; edge < last; ++edge) {
+            Label label = labels[direction][getNeighbor(direction, edge)];
+            for (int i = 0; i < label.hubs.length; ++i, ++count) {
+                hubs[count] = label.hubs[i];
+                costs[count] = label.costs[i] + hierarchy.getEdgeCost(edge);
+                edges[count] = edge;
+            }
+        }
+
+        // Keep the cheapest entry of each hub, sorted by hub.
+        long[] keys = new long[nbCandidates];
+        for (int i = 0; i < nbCandidates; ++i) {
+            keys[i] = ((long) hubs[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] mergedHubs = new int[nbCandidates], mergedEdges = new int[nbCandidates];
+        float[] mergedCosts = new float[nbCandidates];
+        int nbMerged = 0;
+        for (int i = 0; i < nbCandidates; ++i) {
+            int candidate = (int) keys[i];
+            if (nbMerged > 0 && mergedHubs[nbMerged - 1] == hubs[candidate]) {
+                if (costs[candidate] < mergedCosts[nbMerged - 1]) {
+                    mergedCosts[nbMerged - 1] = costs[candidate];
+                    mergedEdges[nbMerged - 1] = edges[candidate];
+                }
+                continue;
+            }
+            mergedHubs[nbMerged] = hubs[candidate];
+            mergedCosts[nbMerged] = costs[candidate];
+            mergedEdges[nbMerged++] = edges[candidate];
+        }
+        Label merged = new Label(Arrays.copyOf(mergedHubs, nbMerged),
+                Arrays.copyOf(mergedCosts, nbMerged), Arrays.copyOf(mergedEdges, nbMerged));
+
+        // Prune entries that are not shortest paths.
+        int nbKept = 0;
+        for (int i = 0; i < nbMerged; ++i) {
+            if (mergedEdges[i] != -1) {
+                Label other = labels[1 - direction][nodes[mergedHubs[i]]];
+                float distance = direction == FORWARD ? getDistance(merged, other)
+                        : getDistance(other, merged);
+                if (distance < mergedCosts[i]) {
+                    continue;
+                }
+            }
+            mergedHubs[nbKept] = mergedHubs[i];
+            mergedCosts[nbKept] = mergedCosts[i];
+            mergedEdges[nbKept++] = mergedEdges[i];
+        }
+        return new Label(Arrays.copyOf(mergedHubs, nbKept), Arrays.copyOf(mergedCosts, nbKept),
+                Arrays.copyOf(mergedEdges, nbKept));
+    }
+
+    /**
+     * @return Extremity of the given edge of higher rank, for the given direction.
+     */
+    private int getNeighbor(int direction, int edge) {
+        return direction == FORWARD ? hierarchy.getEdgeDestination(edge)
+                : hierarchy.getEdgeOrigin(edge);
+    }
+
+    /**
+     * @return Nodes grouped by height, the nodes of height h being
+     *         [first[h], first[h + 1]) where first is the second array.
+     */
+    private int[][] groupByHeight() {
+        int[] heights = new int[nbNodes];
+        int maxHeight = 0;
+        for (int rank = nbNodes - 1; rank >= 0; --rank) {
+            int node = nodes[rank], height = 0;
+            for (int edge = hierarchy.getFirstUpwardEdge(node);
+                    edge < hierarchy.getFirstUpwardEdge(node + 1); ++edge) {
+                height = Math.max(heights[hierarchy.getEdgeDestination(edge)] + 1, height);
+            }
+            for (int edge = hierarchy.getFirstDownwardEdge(node);
+                    edge < hierarchy.getFirstDownwardEdge(node + 1); ++edge) {
+                height = Math.max(heights[hierarchy.getEdgeOrigin(edge)] + 1, height);
+            }
+            heights[node] = height;
+            maxHeight = Math.max(height, maxHeight);
+        }
+
+        int[] first = new int[maxHeight + 2];
+        for (int node = 0; node < nbNodes; ++node) {
+            first[heights[node] + 1]++;
+        }
+        for (int height = 0; height <= maxHeight; ++height) {
+            first[height + 1] += first[height];
+        }
+        int[] grouped = new int[nbNodes], next = Arrays.copyOf(first, maxHeight + 1);
+        for (int node = 0; node < nbNodes; ++node) {
+            grouped[next[heights[node]]++] = node;
+        }
+        return new int[][] { grouped, first };
+    }
+
+    /**
+     * Compute the labels.
+     *
+     * @param mapId Id of the map of the hierarchy.
+     * @param inspectorName Name of the inspector of the hierarchy.
+     *
+     * @return The hub labels.
+     */
+    HubLabels run(String mapId, String inspectorName) {
+        int[][] groups = groupByHeight();
+        final int[] grouped = groups[0], first = groups[1];
+        for (int height = 0; height + 1 < first.length; ++height) {
+            final int from = first[height], count = first[height + 1] - from;
+            int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                    (count + MIN_NODES_PER_TASK - 1) / MIN_NODES_PER_TASK));
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+            for (int task = 0; task < nbTasks; ++task) {
+                final int start = from + (int) ((long) count * task / nbTasks);
+                final int end = from + (int) ((long) count * (task + 1) / nbTasks);
+                tasks.add(pool.submit(() -> {
+                    for (int i = start; i < end; ++i) {
+                        labels[FORWARD][grouped[i]] = computeLabel(FORWARD, grouped[i]);
+                        labels[BACKWARD][grouped[i]] = computeLabel(BACKWARD, grouped[i]);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task: tasks) {
+                task.join();
+            }
+        }
+        return encode(mapId, inspectorName);
+    }
+
+    /**
+     * @return Number of bytes of the given value as a variable-length integer.
+     */
+    private static int getVarIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            ++size;
+        }
+        return size;
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Encode the computed labels.
+     */
+    private HubLabels encode(String mapId, String inspectorName) {
+        int[][] firsts = new int[2][nbNodes + 1];
+        long size = 0;
+        for (int direction = FORWARD; direction <= BACKWARD; ++direction) {
+            for (int node = 0; node < nbNodes; ++node) {
+                firsts[direction][node] = Math.toIntExact(size);
+                Label label = labels[direction][node];
+                for (int i = 0, previous = 0; i < label.hubs.length; previous = label.hubs[i++]) {
+                    size += getVarIntSize(label.hubs[i] - previous) + 4
+                            + getVarIntSize(label.edges[i] + 1);
+                }
+            }
+            firsts[direction][nbNodes] = Math.toIntExact(size);
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(size));
+        for (int direction = FORWARD; direction <= BACKWARD; ++direction) {
+            for (int node = 0; node < nbNodes; ++node) {
+                Label label = labels[direction][node];
+                for (int i = 0, previous = 0; i < label.hubs.length; previous = label.hubs[i++]) {
+                    putVarInt(data, label.hubs[i] - previous);
+                    data.putFloat(label.costs[i]);
+                    putVarInt(data, label.edges[i] + 1);
+                }
+            }
+        }
+        data.flip();
+
+        return new HubLabels(mapId, inspectorName, nbNodes, hierarchy,
+                hierarchy.getEdgeCount(), IntBuffer.wrap(firsts[FORWARD]),
+                IntBuffer.wrap(firsts[BACKWARD]), data);
+    }
+
+}
@@ -0,0 +1,482 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+
+/**
+ * <p>
+ * Hub labels of a graph for a given arc inspector, computed from a
+ * {@link ContractionHierarchy}.
+ * </p>
+ *
+ * <p>
+ * The forward label of a node <i>v</i> contains hubs <i>h</i> with the cost of
+ * the shortest path from <i>v</i> to <i>h</i>, and its backward label hubs with
+ * the cost from <i>h</i> to <i>v</i>. Every shortest path from <i>s</i> to
+ * <i>t</i> goes through a hub of both the forward label of <i>s</i> and the
+ * backward label of <i>t</i>, so the distance from <i>s</i> to <i>t</i> is
+ * the minimum of the sums over the common hubs. Hubs are identified by their
+ * rank in the hierarchy and labels are sorted by hub, so a query is a single
+ * merge of two labels (see {@link #getDistance(int, int)}).
+ * </p>
+ *
+ * <p>
+ * Each entry of a label also stores the edge of the hierarchy leading to the
+ * next node of the path towards its hub, so that paths can be rebuilt with the
+ * hierarchy used to compute the labels (see
+ * {@link #unpack(ContractionHierarchy, int, int, IntConsumer)}).
+ * </p>
+ *
+ * <p>
+ * Labels are stored compressed: each entry is the difference between its hub
+ * and the hub of the previous entry (variable-length integer), the cost (float)
+ * and the edge plus one (variable-length integer, 0 for the hub itself). The
+ * file starts with a header (magic number, version, id of the map, name of the
+ * inspector, number of nodes, number of edges of the hierarchy and size of the
+ * labels), followed by the offset of the forward and of the backward label of
+ * each node, and the labels. It is memory-mapped when it is loaded back.
+ * </p>
+ *
+ */
+public final class HubLabels {
+
+    // Magic number and version of label files.
+    private static final int MAGIC_NUMBER = 0x48554c42;
+    private static final int VERSION = 1;
+
+    // Id of the map and name of the inspector of these labels.
+    private final String mapId, inspectorName;
+
+    // Number of nodes, and number of edges of the hierarchy of these labels.
+    private final int nbNodes, nbHierarchyEdges;
+
+    // Hierarchy these labels were computed from (null if they were read from a
+    // file).
+    private final ContractionHierarchy hierarchy;
+
+    // Forward label of node v is [firstForward[v], firstForward[v + 1]) in data,
+    // and similarly for backward labels.
+    private final IntBuffer firstForward, firstBackward;
+
+    // Encoded labels.
+    private final ByteBuffer data;
+
+    /**
+     * Cursor reading the entries of a label.
+     */
+    private final class Cursor {
+
+        // Position of the next entry, and end of the label.
+        int position, end;
+
+        // Hub, cost and edge of the current entry.
+        int hub = 0;
+        float cost;
+        int edge;
+
+        Cursor(IntBuffer first, int node) {
+            this.position = first.get(node);
+            this.end = first.get(node + 1);
+        }
+
+        /**
+         * Move to the next entry.
+         *
+         * @return false if there is no next entry.
+         */
+        boolean next() {
+            if (position == end) {
+                return false;
+            }
+            hub += readVarInt();
+            cost = data.getFloat(position);
+            position += 4;
+            edge = readVarInt() - 1;
+            return true;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = data.get(position++);
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create new labels.
+     */
+    HubLabels(String mapId, String inspectorName, int nbNodes,
+            ContractionHierarchy hierarchy, int nbHierarchyEdges, IntBuffer firstForward,
+            IntBuffer firstBackward, ByteBuffer data) {
+        this.mapId = mapId;
+        this.inspectorName = inspectorName;
+        this.nbNodes = nbNodes;
+        this.hierarchy = hierarchy;
+        this.nbHierarchyEdges = nbHierarchyEdges;
+        this.firstForward = firstForward;
+        this.firstBackward = firstBackward;
+        this.data = data;
+    }
+
+    /**
+     * Compute the hub labels of the given hierarchy.
+     *
+     * @param graph Graph of the hierarchy.
+     * @param inspector Inspector of the hierarchy.
+     * @param hierarchy Contraction hierarchy of the graph for the inspector.
+     * @param pool Pool on which labels are computed.
+     *
+     * @return New hub labels.
+     */
+    public static HubLabels compute(Graph graph, ArcInspector inspector,
+            ContractionHierarchy hierarchy, ForkJoinPool pool) {
+        return new HubLabelPreprocessing(hierarchy, pool).run(graph.getMapId(),
+                inspector.toString());
+    }
+
+    /**
+     * Retrieve the hub labels of the given inspector for the given graph. If no
+     * labels have been loaded for them (see {@link #load(Graph, ArcInspector, File)}),
+     * they are computed on the common pool from the hierarchy returned by
+     * {@link ContractionHierarchy#of(Graph, ArcInspector)}, and cached on the
+     * graph.
+     *
+     * @param graph Graph whose labels should be retrieved.
+     * @param inspector Inspector of the labels.
+     *
+     * @return Hub labels of the given inspector for the given graph.
+     */
+    public static HubLabels of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, HubLabels.class,
+                (g) -> compute(g, inspector, ContractionHierarchy.of(g, inspector),
+                        ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Load the hub labels of the given inspector for the given graph from the
+     * given file, and cache them on the graph so that
+     * {@link #of(Graph, ArcInspector)} returns them. If labels are already cached,
+     * they are returned instead. The hierarchy the labels were computed from must
+     * also be loaded (see
+     * {@link ContractionHierarchy#load(Graph, ArcInspector, File)}) to rebuild
+     * paths from the labels.
+     *
+     * @param graph Graph of the labels.
+     * @param inspector Inspector of the labels.
+     * @param file File to load the labels from.
+     *
+     * @return Hub labels of the given inspector for the given graph.
+     *
+     * @throws IOException if the file cannot be read, or does not correspond to
+     *         the given graph and inspector.
+     */
+    public static HubLabels load(Graph graph, ArcInspector inspector, File file)
+            throws IOException {
+        HubLabels labels = read(file);
+        if (!labels.mapId.equals(graph.getMapId()) || labels.size() != graph.size()) {
+            throw new BadFormatException(
+                    "Label file " + file + " does not match map " + graph.getMapId() + ".");
+        }
+        if (!labels.inspectorName.equals(inspector.toString())) {
+            throw new BadFormatException(
+                    "Label file " + file + " does not match filter " + inspector + ".");
+        }
+        return graph.getCachedData(inspector, HubLabels.class, (g) -> labels);
+    }
+
+    /**
+     * @param graphFile File of a graph.
+     * @param inspector An inspector.
+     *
+     * @return Default file of the hub labels of the given graph for the given
+     *         inspector, in the same folder as the graph.
+     */
+    public static File getDefaultFile(File graphFile, ArcInspector inspector) {
+        return PreprocessingFiles.getDefaultFile(graphFile, inspector, "labels");
+    }
+
+    /**
+     * Read hub labels from the given file. The file is memory-mapped.
+     *
+     * @param file File to read.
+     *
+     * @return The hub labels in the file.
+     *
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static HubLabels read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+            PreprocessingFiles.checkHeader(buffer, MAGIC_NUMBER, VERSION);
+            String mapId = PreprocessingFiles.readUTF(buffer);
+            String inspectorName = PreprocessingFiles.readUTF(buffer);
+            int nbNodes = buffer.getInt(), nbHierarchyEdges = buffer.getInt(),
+                    dataSize = buffer.getInt();
+            if (nbNodes < 0 || dataSize < 0
+                    || buffer.remaining() != 8L * (nbNodes + 1L) + dataSize) {
+                throw new BadFormatException("Truncated label file.");
+            }
+            IntBuffer firstForward = buffer.slice().asIntBuffer();
+            firstForward.limit(nbNodes + 1);
+            buffer.position(buffer.position() + 4 * (nbNodes + 1));
+            IntBuffer firstBackward = buffer.slice().asIntBuffer();
+            firstBackward.limit(nbNodes + 1);
+            buffer.position(buffer.position() + 4 * (nbNodes + 1));
+
+            // Backward labels follow the forward labels, so the offsets of both
+            // labels must go from 0 to the size of the labels without decreasing.
+            int previous = 0;
+            for (IntBuffer first: new IntBuffer[] { firstForward, firstBackward }) {
+                for (int node = 0; node <= nbNodes; ++node) {
+                    if (first.get(node) < previous) {
+                        throw new BadFormatException("Malformed label file.");
+                    }
+                    previous = first.get(node);
+                }
+            }
+            if (firstForward.get(0) != 0 || firstForward.get(nbNodes) != firstBackward.get(0)
+                    || firstBackward.get(nbNodes) != dataSize) {
+                throw new BadFormatException("Malformed label file.");
+            }
+            return new HubLabels(mapId, inspectorName, nbNodes, null, nbHierarchyEdges,
+                    firstForward.slice(), firstBackward.slice(), buffer.slice());
+        }
+        catch (BufferUnderflowException e) {
+            throw new BadFormatException("Truncated label file.");
+        }
+    }
+
+    /**
+     * Write these labels to the given file.
+     *
+     * @param file File to write.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC_NUMBER);
+        header.writeInt(VERSION);
+        header.writeUTF(mapId);
+        header.writeUTF(inspectorName);
+        header.writeInt(nbNodes);
+        header.writeInt(nbHierarchyEdges);
+        header.writeInt(data.limit());
+        header.close();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            for (IntBuffer first: new IntBuffer[] { firstForward, firstBackward }) {
+                ByteBuffer buffer = ByteBuffer.allocate(4 * (nbNodes + 1));
+                buffer.asIntBuffer().put(first.duplicate().rewind());
+                channel.write(buffer);
+            }
+            ByteBuffer labels = data.duplicate();
+            labels.rewind();
+            while (labels.hasRemaining()) {
+                channel.write(labels);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the hierarchy these labels were computed from, used to rebuild
+     * paths. For labels read from a file, this is the hierarchy loaded for the
+     * given graph and inspector, which is not computed again if missing since the
+     * labels are only valid for the hierarchy they were computed from.
+     *
+     * @param graph Graph of these labels.
+     * @param inspector Inspector of these labels.
+     *
+     * @return Hierarchy of these labels.
+     *
+     * @throws IllegalStateException if these labels were read from a file and no
+     *         hierarchy is loaded for the given graph and inspector.
+     */
+    public ContractionHierarchy getHierarchy(Graph graph, ArcInspector inspector) {
+        if (hierarchy != null) {
+            return hierarchy;
+        }
+        ContractionHierarchy loaded = graph.getCachedDataIfPresent(inspector,
+                ContractionHierarchy.class);
+        if (loaded == null) {
+            throw new IllegalStateException("Hub labels of " + graph.getMapId() + " for "
+                    + inspector + " were loaded without their contraction hierarchy.");
+        }
+        return loaded;
+    }
+
+    /**
+     * @return Number of nodes of the labelled graph.
+     */
+    public int size() {
+        return nbNodes;
+    }
+
+    /**
+     * @return Size of the encoded labels, in bytes.
+     */
+    public int getDataSize() {
+        return data.limit();
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Number of hubs in the forward label of the node.
+     */
+    public int getForwardLabelSize(int node) {
+        return getLabelSize(firstForward, node);
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Number of hubs in the backward label of the node.
+     */
+    public int getBackwardLabelSize(int node) {
+        return getLabelSize(firstBackward, node);
+    }
+
+    private int getLabelSize(IntBuffer first, int node) {
+        Cursor cursor = new Cursor(first, node);
+        int size = 0;
+        while (cursor.next()) {
+            ++size;
+        }
+        return size;
+    }
+
+    /**
+     * Find the common hub of the forward label of the origin and the backward
+     * label of the destination that minimizes the cost of the path.
+     *
+     * @return The hub, and the cost in the 32 upper bits (-1 if there is no common
+     *         hub).
+     */
+    private long findHub(int origin, int destination) {
+        Cursor forward = new Cursor(firstForward, origin);
+        Cursor backward = new Cursor(firstBackward, destination);
+        float bestCost = Float.POSITIVE_INFINITY;
+        int bestHub = -1;
+        boolean hasForward = forward.next(), hasBackward = backward.next();
+        while (hasForward && hasBackward) {
+            if (forward.hub < backward.hub) {
+                hasForward = forward.next();
+            }
+            else if (forward.hub > backward.hub) {
+                hasBackward = backward.next();
+            }
+            else {
+                if (forward.cost + backward.cost < bestCost) {
+                    bestCost = forward.cost + backward.cost;
+                    bestHub = forward.hub;
+                }
+                hasForward = forward.next();
+                hasBackward = backward.next();
+            }
+        }
+        if (bestHub == -1) {
+            return -1;
+        }
+        return ((long) Float.floatToIntBits(bestCost) << 32) | bestHub;
+    }
+
+    /**
+     * @param origin ID of the origin.
+     * @param destination ID of the destination.
+     *
+     * @return Cost of the shortest path from the origin to the destination, or
+     *         infinity if there is no path.
+     */
+    public float getDistance(int origin, int destination) {
+        long hub = findHub(origin, destination);
+        return hub == -1 ? Float.POSITIVE_INFINITY : Float.intBitsToFloat((int) (hub >>> 32));
+    }
+
+    /**
+     * @return Edge of the entry of the given hub in the given label.
+     */
+    private int findEdge(IntBuffer first, int node, int hub) {
+        Cursor cursor = new Cursor(first, node);
+        while (cursor.next()) {
+            if (cursor.hub == hub) {
+                return cursor.edge;
+            }
+        }
+        throw new IllegalStateException("Hub " + hub + " not found in label of " + node + ".");
+    }
+
+    /**
+     * Unpack the shortest path from the origin to the destination into arcs of the
+     * graph.
+     *
+     * @param hierarchy Hierarchy used to compute these labels.
+     * @param origin ID of the origin.
+     * @param destination ID of the destination.
+     * @param action Action called on the index of each arc of the path, from the
+     *        origin to the destination.
+     *
+     * @return false if there is no path from the origin to the destination.
+     *
+     * @throws IllegalArgumentException if the hierarchy is not the one used to
+     *         compute these labels.
+     */
+    public boolean unpack(ContractionHierarchy hierarchy, int origin, int destination,
+            IntConsumer action) {
+        if (hierarchy.size() != nbNodes || hierarchy.getEdgeCount() != nbHierarchyEdges) {
+            throw new IllegalArgumentException("hierarchy does not match labels");
+        }
+        long found = findHub(origin, destination);
+        if (found == -1) {
+            return false;
+        }
+        final int hub = (int) found;
+
+        // Edges from the origin up to the hub.
+        for (int node = origin, edge = findEdge(firstForward, node, hub); edge != -1;
+                node = hierarchy.getEdgeDestination(edge),
+                edge = findEdge(firstForward, node, hub)) {
+            hierarchy.unpack(edge, action);
+        }
+
+        // Edges from the destination up to the hub, unpacked in reverse order.
+        int[] edges = new int[16];
+        int nbEdges = 0;
+        for (int node = destination, edge = findEdge(firstBackward, node, hub); edge != -1;
+                node = hierarchy.getEdgeOrigin(edge), edge = findEdge(firstBackward, node, hub)) {
+            if (nbEdges == edges.length) {
+                edges = Arrays.copyOf(edges, 2 * nbEdges);
+            }
+            edges[nbEdges++] = edge;
+        }
+        for (int i = nbEdges - 1; i >= 0; --i) {
+            hierarchy.unpack(edges[i], action);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,283 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Computation of a {@link LandmarkTable}.
+ * </p>
+ *
+ * <p>
+ * Landmarks are selected one after the other, since each selection depends on
+ * the previous landmarks, but only needs the distances from these landmarks.
+ * The distances to each landmark are computed on the pool as soon as the
+ * landmark is selected, and the searches from the landmarks needed by the
+ * selection also run on the pool, concurrently with the searches of the other
+ * landmarks.
+ * </p>
+ *
+ */
+final class LandmarkPreprocessing {
+
+    // Seed of the random generator used to pick roots.
+    private static final long SEED = 0x4c4e444dL;
+
+    // Graph to preprocess and costs of its arcs.
+    private final Graph graph;
+    private final CompactGraph compact;
+    private final ArcInspector inspector;
+    private final ArcCostTable costs;
+
+    // Pool on which searches run.
+    private final ForkJoinPool pool;
+
+    /**
+     * Result of a search: distance of each node (infinite if not reached), and, for
+     * a search from a root, the predecessor arc of each node and the nodes in the
+     * order they were marked.
+     */
+    private static class Search {
+        float[] distances;
+        int[] predecessorArcs;
+        int[] order;
+        int nbMarked;
+    }
+
+    /**
+     * Create a new preprocessing of the given graph.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param pool Pool on which the searches run.
+     */
+    LandmarkPreprocessing(Graph graph, ArcInspector inspector, ForkJoinPool pool) {
+        this.graph = graph;
+        this.compact = graph.getCompactGraph();
+        this.inspector = inspector;
+        this.costs = ArcCostTable.of(graph, inspector);
+        this.pool = pool;
+    }
+
+    /**
+     * Run a Dijkstra search from (or to) the given node on the whole graph.
+     *
+     * @param root Node to start from.
+     * @param forward true to follow the arcs, false to follow them backward (i.e.
+     *        compute distances to the root).
+     * @param withTree true to also compute the shortest-path tree and the order of
+     *        the nodes.
+     *
+     * @return Result of the search.
+     */
+    private Search search(int root, boolean forward, boolean withTree) {
+        final int nbNodes = compact.size();
+        Search search = new Search();
+        search.distances = new float[nbNodes];
+        Arrays.fill(search.distances, Float.POSITIVE_INFINITY);
+        if (withTree) {
+            search.predecessorArcs = new int[nbNodes];
+            Arrays.fill(search.predecessorArcs, -1);
+            search.order = new int[nbNodes];
+        }
+
+        final float[] distances = search.distances;
+        IntFloatHeap queue = new IntFloatHeap(nbNodes);
+        distances[root] = 0;
+        queue.insert(root, 0);
+        while (!queue.isEmpty()) {
+            int node = queue.deleteMin();
+            if (withTree) {
+                search.order[search.nbMarked++] = node;
+            }
+            int first = forward ? compact.getFirstArc(node) : compact.getFirstInArc(node);
+            int last = forward ? compact.getFirstArc(node + 1) : compact.getFirstInArc(node + 1);
+            for (int position = first; position < last; ++position) {
+                int arc = forward ? position : compact.getInArc(position);
+                if (!costs.isAllowed(arc)) {
+                    continue;
+                }
+                int successor = forward ? compact.getArcDestination(arc)
+                        : compact.getArcOrigin(arc);
+                float distance = distances[node] + costs.getCost(arc);
+                if (distance < distances[successor]) {
+                    distances[successor] = distance;
+                    queue.insertOrDecreaseKey(successor, distance);
+                    if (withTree) {
+                        search.predecessorArcs[successor] = arc;
+                    }
+                }
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Select the next landmark with the farthest strategy: the node whose
+     * distance to the closest landmark is maximal, among the nodes reached by the
+     * landmarks. The first landmark is the node farthest from a random root.
+     *
+     * @param from Distances from the previous landmarks.
+     * @param random Random generator.
+     *
+     * @return The next landmark, or -1 if all the reachable nodes are landmarks.
+     */
+    private int selectFarthest(List<float[]> from, Random random) {
+        final int nbNodes = compact.size();
+        if (from.isEmpty()) {
+            from = List.of(search(random.nextInt(nbNodes), true, false).distances);
+        }
+        int best = -1;
+        float bestDistance = 0;
+        for (int node = 0; node < nbNodes; ++node) {
+            float distance = Float.POSITIVE_INFINITY;
+            for (float[] distances: from) {
+                distance = Math.min(distances[node], distance);
+            }
+            if (distance < Float.POSITIVE_INFINITY && distance > bestDistance) {
+                best = node;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Select the next landmark with the avoid strategy: in the shortest-path tree
+     * of a random root, each node is weighted by the difference between its
+     * distance from the root and the lower bound given by the previous landmarks,
+     * the size of a node is the weight of its subtree (or 0 if the subtree contains
+     * a landmark), and the landmark is the leaf reached by following the largest
+     * subtrees from the largest one.
+     *
+     * @param root Root of the tree.
+     * @param tree Shortest-path tree of the root.
+     * @param from Distances from the previous landmarks.
+     * @param landmarks Previous landmarks.
+     *
+     * @return The next landmark, or -1 if all the subtrees contain a landmark.
+     */
+    private int selectAvoid(int root, Search tree, List<float[]> from, List<Integer> landmarks) {
+        final int nbNodes = compact.size();
+        double[] size = new double[nbNodes];
+        boolean[] covered = new boolean[nbNodes];
+        int[] bestChild = new int[nbNodes];
+        Arrays.fill(bestChild, -1);
+        for (int landmark: landmarks) {
+            covered[landmark] = true;
+        }
+
+        // Sizes of the subtrees, computed from the leaves.
+        int best = -1;
+        for (int i = tree.nbMarked - 1; i >= 0; --i) {
+            int node = tree.order[i];
+            double bound = 0;
+            for (float[] distances: from) {
+                if (distances[node] < Float.POSITIVE_INFINITY
+                        && distances[root] < Float.POSITIVE_INFINITY) {
+                    bound = Math.max(distances[node] - distances[root], bound);
+                }
+            }
+            size[node] = covered[node] ? 0 : size[node] + tree.distances[node] - bound;
+            if (best == -1 || size[node] > size[best]) {
+                best = node;
+            }
+            int arc = tree.predecessorArcs[node];
+            if (arc != -1) {
+                int parent = compact.getArcOrigin(arc);
+                covered[parent] |= covered[node];
+                size[parent] += size[node];
+                if (bestChild[parent] == -1 || size[node] > size[bestChild[parent]]) {
+                    bestChild[parent] = node;
+                }
+            }
+        }
+        if (best == -1 || size[best] <= 0) {
+            return -1;
+        }
+        while (bestChild[best] != -1) {
+            best = bestChild[best];
+        }
+        return best;
+    }
+
+    /**
+     * Start the computation of the shortest-path tree of the given root on the
+     * pool.
+     */
+    private ForkJoinTask<Search> submitTree(int root) {
+        return pool.submit(() -> search(root, true, true));
+    }
+
+    /**
+     * Select the landmarks and compute the distances from and to them.
+     *
+     * @param nbLandmarks Number of landmarks to select.
+     * @param selection Strategy used to select landmarks.
+     *
+     * @return The landmark table.
+     */
+    LandmarkTable run(int nbLandmarks, LandmarkTable.Selection selection) {
+        final int nbNodes = compact.size();
+        Random random = new Random(SEED);
+
+        List<Integer> landmarks = new ArrayList<>();
+        List<float[]> from = new ArrayList<>();
+        List<ForkJoinTask<float[]>> to = new ArrayList<>();
+        final boolean avoid = selection == LandmarkTable.Selection.AVOID;
+        int root = random.nextInt(nbNodes);
+        ForkJoinTask<Search> tree = avoid ? submitTree(root) : null;
+        while (landmarks.size() < Math.min(nbLandmarks, nbNodes)) {
+            int landmark = -1;
+            if (avoid) {
+                landmark = selectAvoid(root, tree.join(), from, landmarks);
+            }
+            if (landmark == -1) {
+                landmark = selectFarthest(from, random);
+            }
+            if (landmark == -1 || landmarks.contains(landmark)) {
+                break;
+            }
+            landmarks.add(landmark);
+
+            // Distances to the landmark are not needed for the selection, and the
+            // tree of the next selection does not depend on the landmarks.
+            final int node = landmark;
+            to.add(pool.submit(() -> search(node, false, false).distances));
+            ForkJoinTask<float[]> fromLandmark = pool.submit(() -> search(node, true, false)
+                    .distances);
+            if (avoid) {
+                root = random.nextInt(nbNodes);
+                tree = submitTree(root);
+            }
+            from.add(fromLandmark.join());
+        }
+
+        // Interleave the distances: node by node, then landmark by landmark.
+        final int nbSelected = landmarks.size();
+        float[] distances = new float[2 * nbNodes * nbSelected];
+        for (int k = 0; k < nbSelected; ++k) {
+            float[] fromLandmark = from.get(k), toLandmark = to.get(k).join();
+            for (int node = 0; node < nbNodes; ++node) {
+                distances[2 * (node * nbSelected + k)] = fromLandmark[node];
+                distances[2 * (node * nbSelected + k) + 1] = toLandmark[node];
+            }
+        }
+
+        return new LandmarkTable(graph.getMapId(), inspector.toString(),
+                landmarks.stream().mapToInt(Integer::intValue).toArray(), nbNodes,
+                FloatBuffer.wrap(distances));
+    }
+
+}
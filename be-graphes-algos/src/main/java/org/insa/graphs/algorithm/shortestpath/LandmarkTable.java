@@ -0,0 +1,324 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+
+/**
+ * <p>
+ * Distances from and to a few landmarks for every node of a graph, for a given
+ * arc inspector, used by {@link ALTAlgorithm} to compute lower bounds with the
+ * triangle inequality: for any landmark <i>L</i>,
+ * <i>d(v, t) &ge; d(L, t) - d(L, v)</i> and <i>d(v, t) &ge; d(v, L) - d(t,
+ * L)</i>.
+ * </p>
+ *
+ * <p>
+ * Tables are computed by {@link #compute(Graph, ArcInspector, int, Selection, ForkJoinPool)}
+ * and can be saved to a binary file next to the graph file (see
+ * {@link #getDefaultFile(File, ArcInspector)}), which is memory-mapped when it
+ * is loaded back. The distances of a node to all the landmarks are stored
+ * contiguously, so computing a bound only reads a few consecutive floats.
+ * </p>
+ *
+ * <p>
+ * The file starts with a header (magic number, version, id of the map, name of
+ * the inspector, number of nodes and of landmarks, and the landmarks), followed
+ * by, for each node, the distance from and to each landmark as big-endian
+ * floats (infinite if there is no path).
+ * </p>
+ *
+ */
+public final class LandmarkTable {
+
+    /**
+     * Strategy used to select landmarks.
+     */
+    public enum Selection {
+
+        /**
+         * Each landmark is the node farthest from the previous landmarks.
+         */
+        FARTHEST,
+
+        /**
+         * Each landmark is a leaf of the largest subtree of a shortest-path tree
+         * whose nodes have bad lower bounds with the previous landmarks.
+         */
+        AVOID
+    }
+
+    // Default number of landmarks and selection strategy.
+    public static final int DEFAULT_LANDMARK_COUNT = 16;
+    public static final Selection DEFAULT_SELECTION = Selection.AVOID;
+
+    // Magic number and version of landmark files.
+    private static final int MAGIC_NUMBER = 0x4c4e444d;
+    private static final int VERSION = 1;
+
+    // Id of the map and name of the inspector of this table.
+    private final String mapId, inspectorName;
+
+    // Landmarks.
+    private final int[] landmarks;
+
+    // Number of nodes.
+    private final int nbNodes;
+
+    // Distances from and to the landmarks: the distance from landmark k to node v
+    // is at 2 * (v * K + k), the distance from v to k right after.
+    private final FloatBuffer distances;
+
+    /**
+     * Create a new table.
+     *
+     * @param mapId Id of the map.
+     * @param inspectorName Name of the inspector.
+     * @param landmarks Landmarks.
+     * @param nbNodes Number of nodes of the graph.
+     * @param distances Distances from and to the landmarks.
+     */
+    LandmarkTable(String mapId, String inspectorName, int[] landmarks, int nbNodes,
+            FloatBuffer distances) {
+        this.mapId = mapId;
+        this.inspectorName = inspectorName;
+        this.landmarks = landmarks;
+        this.nbNodes = nbNodes;
+        this.distances = distances;
+    }
+
+    /**
+     * Compute the landmark table of the given graph for the given inspector.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param nbLandmarks Number of landmarks to select.
+     * @param selection Strategy used to select landmarks.
+     * @param pool Pool on which the searches from and to the landmarks run.
+     *
+     * @return A new landmark table.
+     */
+    public static LandmarkTable compute(Graph graph, ArcInspector inspector, int nbLandmarks,
+            Selection selection, ForkJoinPool pool) {
+        return new LandmarkPreprocessing(graph, inspector, pool).run(nbLandmarks, selection);
+    }
+
+    /**
+     * Retrieve the landmark table of the given inspector for the given graph. If
+     * no table has been loaded for them (see {@link #load(Graph, ArcInspector, File)}),
+     * a table is computed with the default parameters on the common pool, and
+     * cached on the graph.
+     *
+     * @param graph Graph whose table should be retrieved.
+     * @param inspector Inspector of the table.
+     *
+     * @return Landmark table of the given inspector for the given graph.
+     */
+    public static LandmarkTable of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, LandmarkTable.class,
+                (g) -> compute(g, inspector, DEFAULT_LANDMARK_COUNT, DEFAULT_SELECTION,
+                        ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Load the landmark table of the given inspector for the given graph from the
+     * given file, and cache it on the graph so that {@link #of(Graph, ArcInspector)}
+     * returns it. If a table is already cached, it is returned instead.
+     *
+     * @param graph Graph of the table.
+     * @param inspector Inspector of the table.
+     * @param file File to load the table from.
+     *
+     * @return Landmark table of the given inspector for the given graph.
+     *
+     * @throws IOException if the file cannot be read, or does not correspond to
+     *         the given graph and inspector.
+     */
+    public static LandmarkTable load(Graph graph, ArcInspector inspector, File file)
+            throws IOException {
+        LandmarkTable table = read(file);
+        if (!table.mapId.equals(graph.getMapId()) || table.nbNodes != graph.size()) {
+            throw new BadFormatException("Landmark file " + file + " does not match map "
+                    + graph.getMapId() + ".");
+        }
+        if (!table.inspectorName.equals(inspector.toString())) {
+            throw new BadFormatException("Landmark file " + file + " does not match filter "
+                    + inspector + ".");
+        }
+        return graph.getCachedData(inspector, LandmarkTable.class, (g) -> table);
+    }
+
+    /**
+     * @param graphFile File of a graph.
+     * @param inspector An inspector.
+     *
+     * @return Default file of the landmark table of the given graph for the given
+     *         inspector, in the same folder as the graph.
+     */
+    public static File getDefaultFile(File graphFile, ArcInspector inspector) {
+        return PreprocessingFiles.getDefaultFile(graphFile, inspector, "landmarks");
+    }
+
+    /**
+     * Read a landmark table from the given file. The distances are not copied: they
+     * are read from the mapped file when needed.
+     *
+     * @param file File to read.
+     *
+     * @return The landmark table in the file.
+     *
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static LandmarkTable read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+            PreprocessingFiles.checkHeader(buffer, MAGIC_NUMBER, VERSION);
+            String mapId = PreprocessingFiles.readUTF(buffer);
+            String inspectorName = PreprocessingFiles.readUTF(buffer);
+            int nbNodes = buffer.getInt();
+            int[] landmarks = new int[buffer.getInt()];
+            for (int k = 0; k < landmarks.length; ++k) {
+                landmarks[k] = buffer.getInt();
+            }
+            long size = 2L * nbNodes * landmarks.length;
+            if (nbNodes < 0 || buffer.remaining() != 4 * size) {
+                throw new BadFormatException("Truncated landmark file.");
+            }
+            return new LandmarkTable(mapId, inspectorName, landmarks, nbNodes,
+                    buffer.slice().asFloatBuffer());
+        }
+        catch (BufferUnderflowException e) {
+            throw new BadFormatException("Truncated landmark file.");
+        }
+    }
+
+    /**
+     * Write this table to the given file.
+     *
+     * @param file File to write.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC_NUMBER);
+        header.writeInt(VERSION);
+        header.writeUTF(mapId);
+        header.writeUTF(inspectorName);
+        header.writeInt(nbNodes);
+        header.writeInt(landmarks.length);
+        for (int landmark: landmarks) {
+            header.writeInt(landmark);
+        }
+        header.close();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (int i = 0; i < distances.limit(); ++i) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putFloat(distances.get(i));
+            }
+            buffer.flip();
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return Number of landmarks in this table.
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * @param k Index of a landmark.
+     *
+     * @return ID of the node of the given landmark.
+     */
+    public int getLandmark(int k) {
+        return landmarks[k];
+    }
+
+    /**
+     * @return Number of nodes of the graph of this table.
+     */
+    public int getNodeCount() {
+        return nbNodes;
+    }
+
+    /**
+     * @param k Index of a landmark.
+     * @param node ID of a node.
+     *
+     * @return Cost of the shortest path from the given landmark to the given node,
+     *         or {@link Float#POSITIVE_INFINITY} if there is none.
+     */
+    public float getDistanceFromLandmark(int k, int node) {
+        return distances.get(2 * (node * landmarks.length + k));
+    }
+
+    /**
+     * @param k Index of a landmark.
+     * @param node ID of a node.
+     *
+     * @return Cost of the shortest path from the given node to the given landmark,
+     *         or {@link Float#POSITIVE_INFINITY} if there is none.
+     */
+    public float getDistanceToLandmark(int k, int node) {
+        return distances.get(2 * (node * landmarks.length + k) + 1);
+    }
+
+    /**
+     * Compute a lower bound of the cost of the shortest path between the two
+     * given nodes. Landmarks that cannot reach or be reached from the nodes are
+     * ignored, so the bound is always finite, and it is consistent when used as
+     * a potential towards a fixed node.
+     *
+     * @param origin ID of the origin of the path.
+     * @param destination ID of the destination of the path.
+     *
+     * @return A lower bound of the cost of the shortest path from origin to
+     *         destination (at least 0).
+     */
+    public float getLowerBound(int origin, int destination) {
+        final int nbLandmarks = landmarks.length;
+        int from = 2 * origin * nbLandmarks, to = 2 * destination * nbLandmarks;
+        float bound = 0;
+        for (int k = 0; k < 2 * nbLandmarks; k += 2) {
+            // d(L, destination) - d(L, origin)
+            float fromOrigin = distances.get(from + k), fromDestination = distances.get(to + k);
+            if (fromOrigin < Float.POSITIVE_INFINITY
+                    && fromDestination < Float.POSITIVE_INFINITY) {
+                bound = Math.max(fromDestination - fromOrigin, bound);
+            }
+
+            // d(origin, L) - d(destination, L)
+            float toOrigin = distances.get(from + k + 1), toDestination = distances.get(to + k + 1);
+            if (toOrigin < Float.POSITIVE_INFINITY && toDestination < Float.POSITIVE_INFINITY) {
+                bound = Math.max(toOrigin - toDestination, bound);
+            }
+        }
+        return bound;
+    }
+
+}
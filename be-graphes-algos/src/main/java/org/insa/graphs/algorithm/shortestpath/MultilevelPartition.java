@@ -0,0 +1,361 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.Arrays;
+
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Multilevel partition of the nodes of a graph, used by the overlay graph of
+ * customizable route planning (see {@link OverlayMetric} and
+ * {@link CRPAlgorithm}).
+ * </p>
+ *
+ * <p>
+ * Level 0 is the finest level, and each cell of level <i>l + 1</i> is a union of
+ * cells of level <i>l</i>. Cells are computed by recursive bisection of the
+ * nodes along their longitude or latitude (whichever has the largest spread),
+ * until they contain at most the maximum number of nodes of their level.
+ * </p>
+ *
+ * <p>
+ * An arc whose extremities are in different cells of a level is a boundary arc
+ * of this level: its destination is an entry of its cell, and its origin is an
+ * exit of its cell. The partition does not depend on the arc inspector, all
+ * the arcs of the graph are considered, so it can be computed once and shared
+ * by all the metrics of the graph.
+ * </p>
+ *
+ */
+public final class MultilevelPartition {
+
+    // Default maximum number of nodes of a cell, for each level.
+    private static final int[] DEFAULT_CELL_SIZES = new int[] { 1 << 8, 1 << 12, 1 << 16 };
+
+    // Number of nodes.
+    private final int nbNodes;
+
+    // Cell of each node, for each level.
+    private final int[][] cells;
+
+    // Number of cells of each level.
+    private final int[] cellCounts;
+
+    // Entries of cell c of level l are entries[l][firstEntries[l][c]] to
+    // entries[l][firstEntries[l][c + 1] - 1], and similarly for exits.
+    private final int[][] firstEntries, entries, firstExits, exits;
+
+    // Index of each node in the entries (exits) of its cell, or -1.
+    private final int[][] entryIndices, exitIndices;
+
+    // Offset of the entries-by-exits matrix of each cell in the weights of a level.
+    private final int[][] firstWeights;
+
+    /**
+     * Create the partition of the given graph for the given cells.
+     */
+    private MultilevelPartition(CompactGraph graph, int[][] cells, int[] cellCounts) {
+        final int nbLevels = cells.length;
+        this.nbNodes = graph.size();
+        this.cells = cells;
+        this.cellCounts = cellCounts;
+        this.firstEntries = new int[nbLevels][];
+        this.entries = new int[nbLevels][];
+        this.firstExits = new int[nbLevels][];
+        this.exits = new int[nbLevels][];
+        this.entryIndices = new int[nbLevels][];
+        this.exitIndices = new int[nbLevels][];
+        this.firstWeights = new int[nbLevels][];
+
+        for (int level = 0; level < nbLevels; ++level) {
+            final int[] cell = cells[level];
+            boolean[] isEntry = new boolean[nbNodes], isExit = new boolean[nbNodes];
+            for (int arc = 0; arc < graph.getArcCount(); ++arc) {
+                int origin = graph.getArcOrigin(arc), destination = graph.getArcDestination(arc);
+                if (cell[origin] != cell[destination]) {
+                    isExit[origin] = true;
+                    isEntry[destination] = true;
+                }
+            }
+
+            entryIndices[level] = new int[nbNodes];
+            firstEntries[level] = new int[cellCounts[level] + 1];
+            entries[level] = group(cell, cellCounts[level], isEntry, firstEntries[level],
+                    entryIndices[level]);
+            exitIndices[level] = new int[nbNodes];
+            firstExits[level] = new int[cellCounts[level] + 1];
+            exits[level] = group(cell, cellCounts[level], isExit, firstExits[level],
+                    exitIndices[level]);
+
+            firstWeights[level] = new int[cellCounts[level] + 1];
+            for (int c = 0; c < cellCounts[level]; ++c) {
+                firstWeights[level][c + 1] = Math.addExact(firstWeights[level][c],
+                        Math.multiplyExact(getEntryCount(level, c), getExitCount(level, c)));
+            }
+        }
+    }
+
+    /**
+     * Group the selected nodes by cell.
+     *
+     * @param cell Cell of each node.
+     * @param nbCells Number of cells.
+     * @param selected Nodes to group.
+     * @param first Array filled with the index of the first node of each cell.
+     * @param indices Array filled with the index of each node in its cell, or -1.
+     *
+     * @return Selected nodes, grouped by cell and sorted by ID in each cell.
+     */
+    private static int[] group(int[] cell, int nbCells, boolean[] selected, int[] first,
+            int[] indices) {
+        Arrays.fill(indices, -1);
+        for (int node = 0; node < cell.length; ++node) {
+            if (selected[node]) {
+                first[cell[node] + 1]++;
+            }
+        }
+        for (int c = 0; c < nbCells; ++c) {
+            first[c + 1] += first[c];
+        }
+        int[] nodes = new int[first[nbCells]];
+        int[] next = Arrays.copyOf(first, nbCells);
+        for (int node = 0; node < cell.length; ++node) {
+            if (selected[node]) {
+                indices[node] = next[cell[node]] - first[cell[node]];
+                nodes[next[cell[node]]++] = node;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return Key of the given float, such that keys and floats have the same
+     *         order.
+     */
+    private static long sortKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /**
+     * Compute the partition of the given graph.
+     *
+     * @param graph Graph to partition.
+     * @param maxCellSizes Maximum number of nodes of a cell for each level, from
+     *        the finest to the coarsest level.
+     *
+     * @return A new partition of the graph.
+     *
+     * @throws IllegalArgumentException if the sizes are not positive and
+     *         increasing.
+     */
+    public static MultilevelPartition compute(Graph graph, int[] maxCellSizes) {
+        if (maxCellSizes.length == 0 || maxCellSizes[0] < 1) {
+            throw new IllegalArgumentException("invalid cell sizes");
+        }
+        for (int level = 1; level < maxCellSizes.length; ++level) {
+            if (maxCellSizes[level] <= maxCellSizes[level - 1]) {
+                throw new IllegalArgumentException("cell sizes must be increasing");
+            }
+        }
+
+        final CompactGraph compact = graph.getCompactGraph();
+        final int nbNodes = compact.size();
+        final int nbLevels = maxCellSizes.length;
+        int[][] cells = new int[nbLevels][nbNodes];
+        int[] cellCounts = new int[nbLevels];
+
+        // Ranges of nodes to split: start, end and next level to assign.
+        int[] nodes = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            nodes[node] = node;
+        }
+        long[] keys = new long[nbNodes];
+        int[] stack = new int[3 * 64];
+        int size = 0;
+        stack[size++] = 0;
+        stack[size++] = nbNodes;
+        stack[size++] = nbLevels - 1;
+        while (size > 0) {
+            int level = stack[--size], to = stack[--size], from = stack[--size];
+
+            // Assign a cell to the range for each level it fits in.
+            while (level >= 0 && to - from <= maxCellSizes[level]) {
+                int cell = cellCounts[level]++;
+                for (int i = from; i < to; ++i) {
+                    cells[level][nodes[i]] = cell;
+                }
+                --level;
+            }
+            if (level < 0) {
+                continue;
+            }
+
+            // Split the range at the median of the coordinate with the largest spread.
+            float minLongitude = Float.POSITIVE_INFINITY, maxLongitude = Float.NEGATIVE_INFINITY;
+            float minLatitude = Float.POSITIVE_INFINITY, maxLatitude = Float.NEGATIVE_INFINITY;
+            for (int i = from; i < to; ++i) {
+                minLongitude = Math.min(compact.getLongitude(nodes[i]), minLongitude);
+                maxLongitude = Math.max(compact.getLongitude(nodes[i]), maxLongitude);
+                minLatitude = Math.min(compact.getLatitude(nodes[i]), minLatitude);
+                maxLatitude = Math.max(compact.getLatitude(nodes[i]), maxLatitude);
+            }
+            boolean byLongitude = maxLongitude - minLongitude >= maxLatitude - minLatitude;
+            for (int i = from; i < to; ++i) {
+                float coordinate = byLongitude ? compact.getLongitude(nodes[i])
+                        : compact.getLatitude(nodes[i]);
+                keys[i] = (sortKey(coordinate) << 32) | nodes[i];
+            }
+            Arrays.sort(keys, from, to);
+            for (int i = from; i < to; ++i) {
+                nodes[i] = (int) keys[i];
+            }
+
+            if (size + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            int middle = (from + to) >>> 1;
+            stack[size++] = middle;
+            stack[size++] = to;
+            stack[size++] = level;
+            stack[size++] = from;
+            stack[size++] = middle;
+            stack[size++] = level;
+        }
+
+        return new MultilevelPartition(compact, cells, cellCounts);
+    }
+
+    /**
+     * Retrieve the partition of the given graph, computed with the default cell
+     * sizes on first use and cached on the graph.
+     *
+     * @param graph Graph whose partition should be retrieved.
+     *
+     * @return Partition of the given graph.
+     */
+    public static MultilevelPartition of(Graph graph) {
+        return graph.getCachedData(MultilevelPartition.class,
+                (g) -> compute(g, DEFAULT_CELL_SIZES));
+    }
+
+    /**
+     * @return Number of nodes of the partitioned graph.
+     */
+    public int size() {
+        return nbNodes;
+    }
+
+    /**
+     * @return Number of levels of this partition.
+     */
+    public int getLevelCount() {
+        return cells.length;
+    }
+
+    /**
+     * @param level A level.
+     *
+     * @return Number of cells of the level.
+     */
+    public int getCellCount(int level) {
+        return cellCounts[level];
+    }
+
+    /**
+     * @param level A level.
+     * @param node ID of a node.
+     *
+     * @return Cell of the node at the given level.
+     */
+    public int getCell(int level, int node) {
+        return cells[level][node];
+    }
+
+    /**
+     * @param level A level.
+     * @param cell A cell of the level.
+     *
+     * @return Number of entries of the cell.
+     */
+    public int getEntryCount(int level, int cell) {
+        return firstEntries[level][cell + 1] - firstEntries[level][cell];
+    }
+
+    /**
+     * @param level A level.
+     * @param cell A cell of the level.
+     * @param index Index of an entry of the cell.
+     *
+     * @return ID of the entry.
+     */
+    public int getEntry(int level, int cell, int index) {
+        return entries[level][firstEntries[level][cell] + index];
+    }
+
+    /**
+     * @param level A level.
+     * @param node ID of a node.
+     *
+     * @return Index of the node in the entries of its cell at the given level, or
+     *         -1 if the node is not an entry.
+     */
+    public int getEntryIndex(int level, int node) {
+        return entryIndices[level][node];
+    }
+
+    /**
+     * @param level A level.
+     * @param cell A cell of the level.
+     *
+     * @return Number of exits of the cell.
+     */
+    public int getExitCount(int level, int cell) {
+        return firstExits[level][cell + 1] - firstExits[level][cell];
+    }
+
+    /**
+     * @param level A level.
+     * @param cell A cell of the level.
+     * @param index Index of an exit of the cell.
+     *
+     * @return ID of the exit.
+     */
+    public int getExit(int level, int cell, int index) {
+        return exits[level][firstExits[level][cell] + index];
+    }
+
+    /**
+     * @param level A level.
+     * @param node ID of a node.
+     *
+     * @return Index of the node in the exits of its cell at the given level, or -1
+     *         if the node is not an exit.
+     */
+    public int getExitIndex(int level, int node) {
+        return exitIndices[level][node];
+    }
+
+    /**
+     * @param level A level.
+     *
+     * @return Number of weights of the level in a metric, i.e. the total size of
+     *         the entries-by-exits matrices of its cells.
+     */
+    public int getWeightCount(int level) {
+        return firstWeights[level][cellCounts[level]];
+    }
+
+    /**
+     * @param level A level.
+     * @param cell A cell of the level.
+     *
+     * @return Offset of the entries-by-exits matrix of the cell in the weights of
+     *         the level.
+     */
+    public int getWeightOffset(int level, int cell) {
+        return firstWeights[level][cell];
+    }
+
+}
@@ -0,0 +1,194 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Dijkstra search restricted to a cell of a {@link MultilevelPartition}, used
+ * to compute the weights of an {@link OverlayMetric} and to unpack them.
+ * </p>
+ *
+ * <p>
+ * In a cell of level 0, the search uses the allowed arcs of the graph between
+ * nodes of the cell. In a cell of level <i>l &gt; 0</i>, it uses the overlay of
+ * level <i>l - 1</i>: the weights from the entries to the exits of the
+ * sub-cells, and the boundary arcs of level <i>l - 1</i> that stay in the cell.
+ * </p>
+ *
+ */
+final class OverlayCellSearch {
+
+    // Graph, cost of its arcs and partition.
+    private final CompactGraph graph;
+    private final ArcCostTable costs;
+    private final MultilevelPartition partition;
+
+    // Weights of each level (only the levels below the searched one are used).
+    private final float[][] weights;
+
+    // Distance, predecessor node and predecessor arc (-1 for a weight) of each
+    // reached node.
+    private final float[] distances;
+    private final int[] predecessorNodes, predecessorArcs;
+
+    // Reached nodes.
+    private final int[] touched;
+    private int nbTouched = 0;
+
+    // Queue of the search.
+    private final IntFloatHeap queue;
+
+    /**
+     * Create a new search.
+     *
+     * @param graph Graph to search.
+     * @param costs Costs of the arcs of the graph.
+     * @param partition Partition of the graph.
+     * @param weights Weights of each level of the partition.
+     */
+    OverlayCellSearch(CompactGraph graph, ArcCostTable costs, MultilevelPartition partition,
+            float[][] weights) {
+        this.graph = graph;
+        this.costs = costs;
+        this.partition = partition;
+        this.weights = weights;
+        this.distances = new float[graph.size()];
+        Arrays.fill(this.distances, Float.POSITIVE_INFINITY);
+        this.predecessorNodes = new int[graph.size()];
+        this.predecessorArcs = new int[graph.size()];
+        this.touched = new int[graph.size()];
+        this.queue = new IntFloatHeap(graph.size());
+    }
+
+    /**
+     * Run a search from the given node in the given cell.
+     *
+     * @param level Level of the cell.
+     * @param cell Cell to search.
+     * @param source Node of the cell where the search starts.
+     * @param target Node where the search stops once marked, or -1 to search the
+     *        whole cell.
+     */
+    void run(int level, int cell, int source, int target) {
+        for (int i = 0; i < nbTouched; ++i) {
+            distances[touched[i]] = Float.POSITIVE_INFINITY;
+        }
+        nbTouched = 0;
+        queue.clear();
+
+        distances[source] = 0;
+        predecessorNodes[source] = -1;
+        touched[nbTouched++] = source;
+        queue.insert(source, 0);
+        while (!queue.isEmpty()) {
+            int node = queue.deleteMin();
+            if (node == target) {
+                break;
+            }
+            if (level == 0) {
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                        ++arc) {
+                    int successor = graph.getArcDestination(arc);
+                    if (partition.getCell(0, successor) == cell && costs.isAllowed(arc)) {
+                        relax(node, successor, costs.getCost(arc), arc);
+                    }
+                }
+                continue;
+            }
+
+            // Weights of the sub-cell, from the node to its exits.
+            final int subLevel = level - 1, subCell = partition.getCell(subLevel, node);
+            int entry = partition.getEntryIndex(subLevel, node);
+            if (entry >= 0) {
+                int nbExits = partition.getExitCount(subLevel, subCell);
+                int offset = partition.getWeightOffset(subLevel, subCell) + entry * nbExits;
+                for (int exit = 0; exit < nbExits; ++exit) {
+                    relax(node, partition.getExit(subLevel, subCell, exit),
+                            weights[subLevel][offset + exit], -1);
+                }
+            }
+
+            // Boundary arcs of the sub-cell that stay in the cell.
+            if (partition.getExitIndex(subLevel, node) >= 0) {
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                        ++arc) {
+                    int successor = graph.getArcDestination(arc);
+                    if (partition.getCell(subLevel, successor) != subCell
+                            && partition.getCell(level, successor) == cell
+                            && costs.isAllowed(arc)) {
+                        relax(node, successor, costs.getCost(arc), arc);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Relax the edge from the given node to its successor.
+     */
+    private void relax(int node, int successor, float cost, int arc) {
+        float distance = distances[node] + cost;
+        if (distance < distances[successor]) {
+            if (distances[successor] == Float.POSITIVE_INFINITY) {
+                touched[nbTouched++] = successor;
+            }
+            distances[successor] = distance;
+            predecessorNodes[successor] = node;
+            predecessorArcs[successor] = arc;
+            queue.insertOrDecreaseKey(successor, distance);
+        }
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Distance of the node in the last search (infinite if not reached).
+     */
+    float getDistance(int node) {
+        return distances[node];
+    }
+
+    /**
+     * Unpack the weight from the given entry to the given exit of a cell into arcs
+     * of the graph.
+     *
+     * @param level Level of the cell.
+     * @param cell Cell of the weight.
+     * @param entry ID of the entry.
+     * @param exit ID of the exit, which must be reachable from the entry.
+     * @param action Action called on the index of each arc, from the entry to the
+     *        exit.
+     */
+    void unpack(int level, int cell, int entry, int exit, IntConsumer action) {
+        run(level, cell, entry, exit);
+
+        // Nodes and arcs of the path, from the entry to the exit.
+        int length = 0;
+        for (int node = exit; node != entry; node = predecessorNodes[node]) {
+            ++length;
+        }
+        int[] nodes = new int[length + 1], arcs = new int[length];
+        for (int node = exit, i = length; i >= 0; node = predecessorNodes[node], --i) {
+            nodes[i] = node;
+            if (i > 0) {
+                arcs[i - 1] = predecessorArcs[node];
+            }
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (arcs[i] != -1) {
+                action.accept(arcs[i]);
+            }
+            else {
+                unpack(level - 1, partition.getCell(level - 1, nodes[i]), nodes[i],
+                        nodes[i + 1], action);
+            }
+        }
+    }
+
+}
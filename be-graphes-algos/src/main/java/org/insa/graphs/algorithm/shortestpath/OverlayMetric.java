@@ -0,0 +1,160 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Weights of the overlay graph of a {@link MultilevelPartition} for a given arc
+ * inspector: for each cell, the cost of the shortest path inside the cell from
+ * each of its entries to each of its exits (infinite if there is none).
+ * </p>
+ *
+ * <p>
+ * This is the metric-dependent part of customizable route planning: the
+ * partition is computed once per graph, and a metric is customized for each
+ * inspector. Customization goes up the levels, each cell of a level being
+ * processed in parallel using the weights of the level below.
+ * </p>
+ *
+ */
+public final class OverlayMetric {
+
+    // Minimum number of cells processed by a single task.
+    private static final int MIN_CELLS_PER_TASK = 4;
+
+    // Partition of this metric.
+    private final MultilevelPartition partition;
+
+    // Weights of the cells of each level.
+    private final float[][] weights;
+
+    // Search of each thread used to unpack the weights.
+    private final ThreadLocal<OverlayCellSearch> searches = new ThreadLocal<>();
+
+    /**
+     * Create a new metric.
+     */
+    private OverlayMetric(MultilevelPartition partition, float[][] weights) {
+        this.partition = partition;
+        this.weights = weights;
+    }
+
+    /**
+     * Customize the given partition of the given graph for the given inspector.
+     *
+     * @param graph Graph of the partition.
+     * @param partition Partition to customize.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param pool Pool on which cells are customized.
+     *
+     * @return A new metric.
+     */
+    public static OverlayMetric customize(Graph graph, MultilevelPartition partition,
+            ArcInspector inspector, ForkJoinPool pool) {
+        final CompactGraph compact = graph.getCompactGraph();
+        final ArcCostTable costs = ArcCostTable.of(graph, inspector);
+        final int nbLevels = partition.getLevelCount();
+        final float[][] weights = new float[nbLevels][];
+        final ThreadLocal<OverlayCellSearch> searches = ThreadLocal
+                .withInitial(() -> new OverlayCellSearch(compact, costs, partition, weights));
+
+        for (int level = 0; level < nbLevels; ++level) {
+            final int currentLevel = level, nbCells = partition.getCellCount(level);
+            final float[] levelWeights = new float[partition.getWeightCount(level)];
+            weights[level] = levelWeights;
+
+            int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                    (nbCells + MIN_CELLS_PER_TASK - 1) / MIN_CELLS_PER_TASK));
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+            for (int task = 0; task < nbTasks; ++task) {
+                final int from = (int) ((long) nbCells * task / nbTasks);
+                final int to = (int) ((long) nbCells * (task + 1) / nbTasks);
+                tasks.add(pool.submit(() -> {
+                    OverlayCellSearch search = searches.get();
+                    for (int cell = from; cell < to; ++cell) {
+                        int nbEntries = partition.getEntryCount(currentLevel, cell);
+                        int nbExits = partition.getExitCount(currentLevel, cell);
+                        int offset = partition.getWeightOffset(currentLevel, cell);
+                        for (int entry = 0; entry < nbEntries; ++entry) {
+                            search.run(currentLevel, cell,
+                                    partition.getEntry(currentLevel, cell, entry), -1);
+                            for (int exit = 0; exit < nbExits; ++exit) {
+                                levelWeights[offset + entry * nbExits + exit] = search
+                                        .getDistance(partition.getExit(currentLevel, cell, exit));
+                            }
+                        }
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task: tasks) {
+                task.join();
+            }
+        }
+
+        return new OverlayMetric(partition, weights);
+    }
+
+    /**
+     * Retrieve the metric of the given inspector for the partition of the given
+     * graph (see {@link MultilevelPartition#of(Graph)}). The metric is customized
+     * on the common pool on first use, and cached on the graph.
+     *
+     * @param graph Graph whose metric should be retrieved.
+     * @param inspector Inspector of the metric.
+     *
+     * @return Metric of the given inspector for the given graph.
+     */
+    public static OverlayMetric of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, OverlayMetric.class,
+                (g) -> customize(g, MultilevelPartition.of(g), inspector,
+                        ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * @return Partition of this metric.
+     */
+    public MultilevelPartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * @param level A level of the partition.
+     * @param cell A cell of the level.
+     * @param entry Index of an entry of the cell.
+     * @param exit Index of an exit of the cell.
+     *
+     * @return Cost of the shortest path from the entry to the exit inside the cell,
+     *         or infinity if there is none.
+     */
+    public float getWeight(int level, int cell, int entry, int exit) {
+        return weights[level][partition.getWeightOffset(level, cell)
+                + entry * partition.getExitCount(level, cell) + exit];
+    }
+
+    /**
+     * Retrieve the search of the current thread to unpack the weights of this
+     * metric, created on first use.
+     *
+     * @param graph Graph of the partition.
+     * @param costs Costs of the arcs of the inspector of this metric.
+     *
+     * @return A search on the cells of the partition.
+     */
+    OverlayCellSearch getSearch(CompactGraph graph, ArcCostTable costs) {
+        OverlayCellSearch search = searches.get();
+        if (search == null) {
+            search = new OverlayCellSearch(graph, costs, partition, weights);
+            searches.set(search);
+        }
+        return search;
+    }
+
+}
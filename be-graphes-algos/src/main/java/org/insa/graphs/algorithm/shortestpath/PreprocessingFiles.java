@@ -0,0 +1,85 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.io.BadFormatException;
+import org.insa.graphs.model.io.BadMagicNumberException;
+import org.insa.graphs.model.io.BadVersionException;
+
+/**
+ * Helpers shared by the files storing the result of a preprocessing of a graph
+ * for a given arc inspector (e.g. {@link LandmarkTable}).
+ *
+ */
+final class PreprocessingFiles {
+
+    private PreprocessingFiles() {
+    }
+
+    /**
+     * @param graphFile File of a graph.
+     * @param inspector An inspector.
+     * @param extension Extension of the file, without the dot.
+     *
+     * @return Default file of the preprocessing of the given graph for the given
+     *         inspector, in the same folder as the graph.
+     */
+    static File getDefaultFile(File graphFile, ArcInspector inspector, String extension) {
+        String name = graphFile.getName();
+        if (name.lastIndexOf('.') > 0) {
+            name = name.substring(0, name.lastIndexOf('.'));
+        }
+        String suffix = inspector.toString().toLowerCase().replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-|-$", "");
+        return new File(graphFile.getAbsoluteFile().getParentFile(),
+                name + "." + suffix + "." + extension);
+    }
+
+    /**
+     * Read and check the magic number and the version at the current position of
+     * the given buffer.
+     *
+     * @param buffer Buffer to read from.
+     * @param magicNumber Expected magic number.
+     * @param version Expected version.
+     *
+     * @throws BadMagicNumberException if the magic number is not the expected one.
+     * @throws BadVersionException if the version is not the expected one.
+     */
+    static void checkHeader(ByteBuffer buffer, int magicNumber, int version)
+            throws IOException {
+        int actualMagicNumber = buffer.getInt();
+        if (actualMagicNumber != magicNumber) {
+            throw new BadMagicNumberException(actualMagicNumber, magicNumber);
+        }
+        int actualVersion = buffer.getInt();
+        if (actualVersion != version) {
+            throw new BadVersionException(actualVersion, version);
+        }
+    }
+
+    /**
+     * Read a string written by {@link java.io.DataOutput#writeUTF(String)}.
+     *
+     * @param buffer Buffer to read from.
+     *
+     * @return The string read.
+     *
+     * @throws IOException if the string is malformed or truncated.
+     */
+    static String readUTF(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 2
+                || buffer.remaining() < (buffer.getShort(buffer.position()) & 0xffff) + 2) {
+            throw new BadFormatException("Truncated string.");
+        }
+        byte[] bytes = new byte[(buffer.getShort(buffer.position()) & 0xffff) + 2];
+        buffer.get(bytes);
+        return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+}
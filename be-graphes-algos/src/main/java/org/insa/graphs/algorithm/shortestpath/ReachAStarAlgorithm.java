@@ -0,0 +1,30 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+/**
+ * A* that does not scan the arcs of the nodes whose reach cannot cover the
+ * remaining distance to the destination (see {@link ReachBounds}, retrieved
+ * with
+ * {@link ReachBounds#of(org.insa.graphs.model.Graph, org.insa.graphs.algorithm.ArcInspector)}).
+ *
+ */
+public class ReachAStarAlgorithm extends AStarAlgorithm {
+
+    // Pruning test of the current query.
+    private ReachPruning pruning;
+
+    public ReachAStarAlgorithm(ShortestPathData data) {
+        super(data);
+    }
+
+    @Override
+    protected boolean isNodePruned(int node, float distance) {
+        return pruning.isPruned(node, distance);
+    }
+
+    @Override
+    protected ShortestPathSolution doRun() {
+        pruning = new ReachPruning(getInputData());
+        return super.doRun();
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Upper bounds of the reach of the nodes of a graph for a given arc inspector.
+ * The reach of a node <i>v</i> is the maximum, over the shortest paths from
+ * <i>s</i> to <i>t</i> going through <i>v</i>, of <i>min(d(s, v), d(v, t))</i>.
+ * </p>
+ *
+ * <p>
+ * A search from <i>s</i> to <i>t</i> can thus skip the arcs of a node whose
+ * reach bound is smaller than both its distance from <i>s</i> and a lower bound
+ * of its distance to <i>t</i> (see {@link ReachDijkstraAlgorithm} and
+ * {@link ReachAStarAlgorithm}).
+ * </p>
+ *
+ * <p>
+ * Bounds are computed from partial shortest-path trees, grown from every node
+ * in parallel up to a horizon. Nodes whose reach may go beyond half the horizon,
+ * minus the cost of the most expensive arc, get an infinite bound, so larger
+ * horizons give more finite bounds, at a higher cost. With an infinite horizon,
+ * bounds are exact, up to ties between shortest paths.
+ * </p>
+ *
+ */
+public final class ReachBounds {
+
+    // Default horizon, as a number of average arc costs.
+    public static final int DEFAULT_HORIZON_FACTOR = 32;
+
+    // Bound of each node.
+    private final float[] reaches;
+
+    /**
+     * Create new bounds.
+     */
+    private ReachBounds(float[] reaches) {
+        this.reaches = reaches;
+    }
+
+    /**
+     * Compute the reach bounds of the given graph for the given inspector.
+     *
+     * @param graph Graph to preprocess.
+     * @param inspector Inspector providing the costs and permissions of the arcs.
+     * @param horizon Cost up to which trees are grown, may be infinite.
+     * @param pool Pool on which trees are grown.
+     *
+     * @return New reach bounds.
+     */
+    public static ReachBounds compute(Graph graph, ArcInspector inspector, float horizon,
+            ForkJoinPool pool) {
+        return new ReachBounds(new ReachPreprocessing(graph.getCompactGraph(),
+                ArcCostTable.of(graph, inspector), horizon, pool).run());
+    }
+
+    /**
+     * @param graph A graph.
+     * @param inspector An inspector.
+     *
+     * @return Default horizon for the given graph and inspector, i.e.
+     *         {@link #DEFAULT_HORIZON_FACTOR} times the average cost of the allowed
+     *         arcs.
+     */
+    public static float getDefaultHorizon(Graph graph, ArcInspector inspector) {
+        ArcCostTable costs = ArcCostTable.of(graph, inspector);
+        double total = 0;
+        for (int arc = 0; arc < costs.size(); ++arc) {
+            if (costs.isAllowed(arc)) {
+                total += costs.getCost(arc);
+            }
+        }
+        return costs.getAllowedCount() == 0 ? 0
+                : (float) (DEFAULT_HORIZON_FACTOR * total / costs.getAllowedCount());
+    }
+
+    /**
+     * Retrieve the reach bounds of the given inspector for the given graph,
+     * computed with the default horizon on the common pool on first use, and
+     * cached on the graph.
+     *
+     * @param graph Graph whose bounds should be retrieved.
+     * @param inspector Inspector of the bounds.
+     *
+     * @return Reach bounds of the given inspector for the given graph.
+     */
+    public static ReachBounds of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, ReachBounds.class,
+                (g) -> compute(g, inspector, getDefaultHorizon(g, inspector),
+                        ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * @return Number of nodes.
+     */
+    public int size() {
+        return reaches.length;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Upper bound of the reach of the node, may be infinite.
+     */
+    public float getReach(int node) {
+        return reaches[node];
+    }
+
+}
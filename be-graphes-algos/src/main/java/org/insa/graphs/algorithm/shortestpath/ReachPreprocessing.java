@@ -0,0 +1,241 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+
+/**
+ * <p>
+ * Computation of {@link ReachBounds} with partial shortest-path trees.
+ * </p>
+ *
+ * <p>
+ * A tree is grown from every node <i>s</i> up to the horizon <i>H</i>, and gives
+ * each of its nodes <i>v</i> the value <i>min(d(s, v), h(v) - d(s, v))</i>,
+ * where <i>h(v)</i> is the largest distance from <i>s</i> of a descendant of
+ * <i>v</i>. Descendants are taken in the shortest-path DAG (arcs whose cost
+ * matches the distances, up to rounding), so every shortest path is covered.
+ * Arcs of this DAG towards nodes settled first (zero-cost arcs) are followed
+ * until the heights no longer change, and self-loops are ignored.
+ * </p>
+ *
+ * <p>
+ * Let <i>E = H / 2 - M</i>, where <i>M</i> is the cost of the most expensive
+ * arc. A shortest path on which <i>v</i> has a reach of at least <i>E</i> has a
+ * sub-path of cost at most <i>2E + 2M = H</i> on which <i>v</i> still has a
+ * reach of at least <i>E</i>, and which is entirely within the tree of its
+ * origin. A shortest path on which <i>v</i> has a smaller reach has such a
+ * sub-path with the same reach. The maximum <i>R(v)</i> of the values given by
+ * all the trees is thus a bound of the reach of <i>v</i> if it is smaller than
+ * <i>E</i>, and the bound is infinite otherwise. With an infinite horizon,
+ * <i>R(v)</i> is always a bound.
+ * </p>
+ *
+ */
+final class ReachPreprocessing {
+
+    // Minimum number of trees grown by a single task.
+    private static final int MIN_SOURCES_PER_TASK = 16;
+
+    // Relative tolerance used to find the arcs of the shortest-path DAG.
+    private static final float TOLERANCE = 1e-5f;
+
+    // Graph, costs of its arcs and pool on which trees are grown.
+    private final CompactGraph graph;
+    private final ArcCostTable costs;
+    private final ForkJoinPool pool;
+
+    // Horizon of the trees, and value below which bounds found by the trees are
+    // kept (infinite without horizon).
+    private final float horizon, limit;
+
+    // Bound of each node, as the bits of a non-negative float (ordered as ints).
+    private final AtomicIntegerArray bounds;
+
+    /**
+     * Tree search of a thread.
+     */
+    private class TreeSearch {
+
+        // Distances (infinite if not reached) and index in the settled nodes (-1
+        // if not settled).
+        final float[] distances;
+        final int[] positions;
+
+        // Settled nodes, by increasing distance.
+        final int[] settled;
+        int nbSettled = 0;
+
+        // Reached nodes.
+        final int[] touched;
+        int nbTouched = 0;
+
+        // Largest distance of the descendants of each settled node.
+        final float[] heights;
+
+        // Queue of the search.
+        final IntFloatHeap queue;
+
+        TreeSearch() {
+            final int nbNodes = graph.size();
+            distances = new float[nbNodes];
+            Arrays.fill(distances, Float.POSITIVE_INFINITY);
+            positions = new int[nbNodes];
+            Arrays.fill(positions, -1);
+            settled = new int[nbNodes];
+            touched = new int[nbNodes];
+            heights = new float[nbNodes];
+            queue = new IntFloatHeap(nbNodes);
+        }
+
+        /**
+         * Grow the tree of the given node and update the bounds of its nodes.
+         */
+        void run(int source) {
+            for (int i = 0; i < nbTouched; ++i) {
+                distances[touched[i]] = Float.POSITIVE_INFINITY;
+                positions[touched[i]] = -1;
+            }
+            nbTouched = 0;
+            nbSettled = 0;
+            queue.clear();
+
+            distances[source] = 0;
+            touched[nbTouched++] = source;
+            queue.insert(source, 0);
+            while (!queue.isEmpty() && queue.findMinKey() <= horizon) {
+                int node = queue.deleteMin();
+                positions[node] = nbSettled;
+                settled[nbSettled++] = node;
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                        ++arc) {
+                    if (!costs.isAllowed(arc)) {
+                        continue;
+                    }
+                    int successor = graph.getArcDestination(arc);
+                    float distance = distances[node] + costs.getCost(arc);
+                    if (distance < distances[successor]) {
+                        if (distances[successor] == Float.POSITIVE_INFINITY) {
+                            touched[nbTouched++] = successor;
+                        }
+                        distances[successor] = distance;
+                        queue.insertOrDecreaseKey(successor, distance);
+                    }
+                }
+            }
+
+            // Heights, from the farthest node. Heights of the nodes settled first
+            // are not known yet on the first pass, so passes are repeated while
+            // such arcs change the heights.
+            for (int i = 0; i < nbSettled; ++i) {
+                heights[settled[i]] = distances[settled[i]];
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                boolean backward = false;
+                for (int i = nbSettled - 1; i >= 0; --i) {
+                    final int node = settled[i];
+                    float height = heights[node];
+                    for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                            ++arc) {
+                        if (!costs.isAllowed(arc)) {
+                            continue;
+                        }
+                        int successor = graph.getArcDestination(arc);
+                        if (successor == node || positions[successor] == -1) {
+                            continue;
+                        }
+                        if (distances[node] + costs.getCost(arc) <= distances[successor]
+                                * (1 + TOLERANCE)) {
+                            backward |= positions[successor] < i;
+                            height = Math.max(heights[successor], height);
+                        }
+                    }
+                    if (height > heights[node]) {
+                        heights[node] = height;
+                        changed = true;
+                    }
+                }
+                changed &= backward;
+            }
+
+            for (int i = 0; i < nbSettled; ++i) {
+                final int node = settled[i];
+                float bound = Math.min(distances[node], heights[node] - distances[node]);
+                final int bits = Float.floatToIntBits(bound);
+                if (bits > bounds.get(node)) {
+                    bounds.accumulateAndGet(node, bits, Math::max);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a new preprocessing.
+     *
+     * @param graph Graph to preprocess.
+     * @param costs Costs of the arcs of the graph.
+     * @param horizon Horizon of the trees (may be infinite).
+     * @param pool Pool on which trees are grown.
+     */
+    ReachPreprocessing(CompactGraph graph, ArcCostTable costs, float horizon,
+            ForkJoinPool pool) {
+        this.graph = graph;
+        this.costs = costs;
+        this.pool = pool;
+        this.horizon = horizon;
+        float maxCost = 0;
+        for (int arc = 0; arc < graph.getArcCount(); ++arc) {
+            if (costs.isAllowed(arc)) {
+                maxCost = Math.max(costs.getCost(arc), maxCost);
+            }
+        }
+        this.limit = Float.isInfinite(horizon) ? horizon
+                : (1 - TOLERANCE) * (horizon / 2 - maxCost);
+        this.bounds = new AtomicIntegerArray(graph.size());
+    }
+
+    /**
+     * Grow the trees of all the nodes.
+     *
+     * @return Reach bound of each node.
+     */
+    float[] run() {
+        final int nbNodes = graph.size();
+        final ThreadLocal<TreeSearch> searches = ThreadLocal.withInitial(TreeSearch::new);
+        int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                (nbNodes + MIN_SOURCES_PER_TASK - 1) / MIN_SOURCES_PER_TASK));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) nbNodes * task / nbTasks);
+            final int to = (int) ((long) nbNodes * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> {
+                TreeSearch search = searches.get();
+                for (int source = from; source < to; ++source) {
+                    search.run(source);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+
+        float[] reaches = new float[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            reaches[node] = Float.intBitsToFloat(bounds.get(node));
+            if (!(reaches[node] * (1 + TOLERANCE) < limit)) {
+                reaches[node] = Float.POSITIVE_INFINITY;
+            }
+        }
+        return reaches;
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Point;
+
+/**
+ * Pruning test shared by {@link ReachDijkstraAlgorithm} and
+ * {@link ReachAStarAlgorithm}: a node is pruned if its reach bound is smaller
+ * than both its distance from the origin and a lower bound of its distance to
+ * the destination (distance as the crow flies, converted as in
+ * {@link BidirectionalAStarAlgorithm}).
+ *
+ */
+final class ReachPruning {
+
+    // Relative tolerance on the comparisons, to absorb rounding errors.
+    private static final float TOLERANCE = 1e-5f;
+
+    // Bounds of the graph.
+    private final ReachBounds bounds;
+
+    // Graph of the search, position of the destination and lower bound of the cost
+    // of a meter.
+    private final CompactGraph graph;
+    private final Point destination;
+    private final double costPerMeter;
+
+    /**
+     * Create the pruning test of the given search.
+     *
+     * @param data Input data of the search.
+     */
+    ReachPruning(ShortestPathData data) {
+        this.bounds = ReachBounds.of(data.getGraph(), data.getArcInspector());
+        this.graph = data.getGraph().getCompactGraph();
+        this.destination = data.getDestination().getPoint();
+        this.costPerMeter = BidirectionalAStarAlgorithm.getCostPerMeter(data);
+    }
+
+    /**
+     * @param node ID of a marked node.
+     * @param distance Distance of the node from the origin.
+     *
+     * @return true if no shortest path towards the destination uses the node.
+     */
+    boolean isPruned(int node, float distance) {
+        float reach = bounds.getReach(node) * (1 + TOLERANCE);
+        if (reach >= distance) {
+            return false;
+        }
+        Point point = new Point(graph.getLongitude(node), graph.getLatitude(node));
+        return reach < Point.distance(point, destination) * costPerMeter;
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+
+/**
+ * <p>
+ * Arrays of a graph search (distance, parent and state of each node) and its
+ * queue, meant to be reused from one search to the next.
+ * </p>
+ *
+ * <p>
+ * Instead of being cleared, the arrays are invalidated by incrementing a
+ * version: a node whose stamp differs from the current version has not been
+ * reached by the current search. A reset is thus O(1), apart from the queue,
+ * which only clears the nodes inserted by the previous search.
+ * </p>
+ *
+ * <p>
+ * Workspaces are pooled per thread: {@link #acquire(int)} takes a workspace
+ * from the pool of the current thread (or creates one), and {@link #release()}
+ * gives it back once the search is over. A thread can hold several workspaces
+ * at the same time, e.g. for bidirectional searches.
+ * </p>
+ *
+ */
+public final class SearchWorkspace {
+
+    // Maximum number of workspaces kept by the pool of a thread.
+    private static final int MAX_POOLED_WORKSPACES = 4;
+
+    // States of the reached nodes.
+    private static final byte REACHED = 1, SETTLED = 2;
+
+    // Free workspaces of each thread.
+    private static final ThreadLocal<ArrayDeque<SearchWorkspace>> POOLS = ThreadLocal
+            .withInitial(ArrayDeque::new);
+
+    // Current version, and version at which each node has been reached.
+    private int version;
+    private final int[] stamps;
+
+    // Distance, parent and state of each node, valid if its stamp is the current
+    // version.
+    private final float[] distances;
+    private final int[] parents;
+    private final byte[] states;
+
+    // Queue of the search.
+    private final IntFloatHeap queue;
+
+    /**
+     * Create a new workspace for graphs of at most the given number of nodes.
+     *
+     * @param capacity Maximum number of nodes.
+     */
+    public SearchWorkspace(int capacity) {
+        this.version = 1;
+        this.stamps = new int[capacity];
+        this.distances = new float[capacity];
+        this.parents = new int[capacity];
+        this.states = new byte[capacity];
+        this.queue = new IntFloatHeap(capacity);
+    }
+
+    /**
+     * Take a workspace from the pool of the current thread, or create a new one if
+     * the pool has none large enough.
+     *
+     * @param nbNodes Number of nodes of the graph to search.
+     *
+     * @return An empty workspace for at least the given number of nodes.
+     */
+    public static SearchWorkspace acquire(int nbNodes) {
+        SearchWorkspace workspace = POOLS.get().poll();
+        if (workspace == null || workspace.getCapacity() < nbNodes) {
+            return new SearchWorkspace(nbNodes);
+        }
+        workspace.reset();
+        return workspace;
+    }
+
+    /**
+     * Give this workspace back to the pool of the current thread. The workspace
+     * must not be used afterwards.
+     */
+    public void release() {
+        ArrayDeque<SearchWorkspace> pool = POOLS.get();
+        if (pool.size() < MAX_POOLED_WORKSPACES) {
+            pool.push(this);
+        }
+    }
+
+    /**
+     * @return Maximum number of nodes of this workspace.
+     */
+    public int getCapacity() {
+        return stamps.length;
+    }
+
+    /**
+     * Forget all the nodes reached so far, and empty the queue.
+     */
+    public void reset() {
+        if (version == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            version = 0;
+        }
+        version += 1;
+        queue.clear();
+    }
+
+    /**
+     * @return Queue of this workspace.
+     */
+    public IntFloatHeap getQueue() {
+        return queue;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return true if the node has been reached since the last reset.
+     */
+    public boolean isReached(int node) {
+        return stamps[node] == version;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return true if the node has been settled since the last reset.
+     */
+    public boolean isSettled(int node) {
+        return stamps[node] == version && states[node] == SETTLED;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Distance of the node, or infinity if it has not been reached.
+     */
+    public float getDistance(int node) {
+        return stamps[node] == version ? distances[node] : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Parent of the node (meaning defined by the search), or -1 if it has
+     *         not been reached.
+     */
+    public int getParent(int node) {
+        return stamps[node] == version ? parents[node] : -1;
+    }
+
+    /**
+     * Set the distance and parent of the given node, marking it as reached if it
+     * was not.
+     *
+     * @param node ID of a node.
+     * @param distance New distance of the node.
+     * @param parent New parent of the node.
+     */
+    public void setLabel(int node, float distance, int parent) {
+        if (stamps[node] != version) {
+            stamps[node] = version;
+            states[node] = REACHED;
+        }
+        distances[node] = distance;
+        parents[node] = parent;
+    }
+
+    /**
+     * Mark the given reached node as settled.
+     *
+     * @param node ID of a reached node.
+     */
+    public void settle(int node) {
+        states[node] = SETTLED;
+    }
+
+}
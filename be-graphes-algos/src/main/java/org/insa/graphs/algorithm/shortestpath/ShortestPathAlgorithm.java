@@ -1,14 +1,58 @@
 package org.insa.graphs.algorithm.shortestpath;
 
+import java.util.List;
+
 import org.insa.graphs.algorithm.AbstractAlgorithm;
+import org.insa.graphs.algorithm.utils.DaryHeap;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.Arc;
 import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Path;
 
 public abstract class ShortestPathAlgorithm extends AbstractAlgorithm<ShortestPathObserver> {
 
+    /**
+     * Enum specifying the priority queue used by the algorithms that need one.
+     */
+    public enum QueueType {
+
+        /**
+         * Indexed heap of labels (see {@link DaryHeap}).
+         */
+        LABEL_HEAP,
+
+        /**
+         * Heap of node ids with float keys in primitive arrays (see
+         * {@link IntFloatHeap}), the labels being kept in a {@link SearchWorkspace}
+         * reused by the next queries of the thread.
+         */
+        PRIMITIVE_HEAP
+    }
+
+    // Priority queue used by the algorithm.
+    private QueueType queueType = QueueType.PRIMITIVE_HEAP;
+
     protected ShortestPathAlgorithm(ShortestPathData data) {
         super(data);
     }
 
+    /**
+     * @return Priority queue used by this algorithm.
+     */
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * Set the priority queue used by this algorithm. Algorithms that do not use a
+     * priority queue ignore this setting.
+     * 
+     * @param queueType Priority queue to use.
+     */
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
     @Override
     public ShortestPathSolution run() {
         return (ShortestPathSolution) super.run();
@@ -22,6 +66,20 @@ public abstract class ShortestPathAlgorithm extends AbstractAlgorithm<ShortestPa
         return (ShortestPathData) super.getInputData();
     }
 
+    /**
+     * Create the path of a solution from its arcs, which is the origin alone if
+     * there are no arcs (the destination being the origin).
+     *
+     * @param arcs Arcs of the path, from the origin to the destination.
+     *
+     * @return Path made of the given arcs.
+     */
+    protected Path createPath(List<Arc> arcs) {
+        ShortestPathData data = getInputData();
+        return arcs.isEmpty() ? new Path(data.getGraph(), data.getOrigin())
+                : new Path(data.getGraph(), arcs);
+    }
+
     /**
      * Notify all observers that the origin has been processed.
      * 
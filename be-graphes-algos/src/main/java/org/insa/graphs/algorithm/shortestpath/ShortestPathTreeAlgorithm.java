@@ -0,0 +1,131 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.Arrays;
+
+import org.insa.graphs.algorithm.AbstractAlgorithm;
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.utils.IntFloatHeap;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Node;
+
+/**
+ * <p>
+ * Dijkstra's algorithm from an origin to all the nodes of the graph, or to the
+ * nodes whose distance does not exceed the maximum cost of the input data.
+ * </p>
+ *
+ * <p>
+ * The solution is made of two arrays indexed by node, the distances and the
+ * predecessor arcs, from which the path to any node can be extracted
+ * afterwards. Apart from these arrays, a tree allocates nothing proportional to
+ * the graph: the queue is taken from a pooled {@link SearchWorkspace}, and the
+ * observers are only notified if there are any.
+ * </p>
+ *
+ */
+public class ShortestPathTreeAlgorithm extends AbstractAlgorithm<ShortestPathObserver> {
+
+    public ShortestPathTreeAlgorithm(ShortestPathTreeData data) {
+        super(data);
+    }
+
+    @Override
+    public ShortestPathTreeSolution run() {
+        return (ShortestPathTreeSolution) super.run();
+    }
+
+    @Override
+    public ShortestPathTreeData getInputData() {
+        return (ShortestPathTreeData) super.getInputData();
+    }
+
+    @Override
+    protected ShortestPathTreeSolution doRun() {
+        final ShortestPathTreeData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable costs = ArcCostTable.of(data.getGraph(), data.getArcInspector());
+        final float maximumCost = data.getMaximumCost();
+        final boolean observed = !getObservers().isEmpty();
+
+        final float[] distances = new float[graph.size()];
+        final int[] predecessorArcs = new int[graph.size()];
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(predecessorArcs, -1);
+
+        final SearchWorkspace workspace = SearchWorkspace.acquire(graph.size());
+        final IntFloatHeap queue = workspace.getQueue();
+        try {
+            final int origin = data.getOrigin().getId();
+            distances[origin] = 0;
+            queue.insert(origin, 0);
+
+            notifyOriginProcessed(data.getOrigin());
+
+            // Labels beyond the maximum cost are never set, so every node in the queue
+            // belongs to the tree.
+            while (!queue.isEmpty()) {
+                int node = queue.deleteMin();
+                if (observed) {
+                    notifyNodeMarked(graph.getNode(node));
+                }
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1); ++arc) {
+                    if (!costs.isAllowed(arc)) {
+                        continue;
+                    }
+                    int successor = graph.getArcDestination(arc);
+                    float distance = distances[node] + costs.getCost(arc);
+                    if (distance <= maximumCost && distance < distances[successor]) {
+                        if (observed && distances[successor] == Float.POSITIVE_INFINITY) {
+                            notifyNodeReached(graph.getNode(successor));
+                        }
+                        distances[successor] = distance;
+                        predecessorArcs[successor] = arc;
+                        queue.insertOrDecreaseKey(successor, distance);
+                    }
+                }
+            }
+
+            return new ShortestPathTreeSolution(data, Status.OPTIMAL, distances,
+                    predecessorArcs);
+        }
+        finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Notify all observers that the origin has been processed.
+     *
+     * @param node Origin.
+     */
+    public void notifyOriginProcessed(Node node) {
+        for (ShortestPathObserver obs: getObservers()) {
+            obs.notifyOriginProcessed(node);
+        }
+    }
+
+    /**
+     * Notify all observers that a node has been reached for the first time.
+     *
+     * @param node Node that has been reached.
+     */
+    public void notifyNodeReached(Node node) {
+        for (ShortestPathObserver obs: getObservers()) {
+            obs.notifyNodeReached(node);
+        }
+    }
+
+    /**
+     * Notify all observers that a node has been marked, i.e. its final value has
+     * been set.
+     *
+     * @param node Node that has been marked.
+     */
+    public void notifyNodeMarked(Node node) {
+        for (ShortestPathObserver obs: getObservers()) {
+            obs.notifyNodeMarked(node);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+
+public class ShortestPathTreeData extends AbstractInputData {
+
+    // Origin of the tree.
+    private final Node origin;
+
+    // Cost beyond which nodes are not added to the tree.
+    private final float maximumCost;
+
+    /**
+     * Create a new input data for a tree covering all the reachable nodes.
+     *
+     * @param graph Graph in which the tree should be computed.
+     * @param origin Origin (root) of the tree.
+     * @param arcInspector Filter for arcs (used to allow only a specific set of
+     *        arcs in the graph to be used).
+     */
+    public ShortestPathTreeData(Graph graph, Node origin, ArcInspector arcInspector) {
+        this(graph, origin, arcInspector, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Create a new input data for a tree covering the nodes whose distance from the
+     * origin does not exceed the given cost.
+     *
+     * @param graph Graph in which the tree should be computed.
+     * @param origin Origin (root) of the tree.
+     * @param arcInspector Filter for arcs (used to allow only a specific set of
+     *        arcs in the graph to be used).
+     * @param maximumCost Cost beyond which nodes are not added to the tree.
+     */
+    public ShortestPathTreeData(Graph graph, Node origin, ArcInspector arcInspector,
+            float maximumCost) {
+        super(graph, arcInspector);
+        this.origin = origin;
+        this.maximumCost = maximumCost;
+    }
+
+    /**
+     * @return Origin (root) of the tree.
+     */
+    public Node getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @return Cost beyond which nodes are not added to the tree (infinite if
+     *         none).
+     */
+    public float getMaximumCost() {
+        return maximumCost;
+    }
+
+    @Override
+    public String toString() {
+        return "Shortest-path tree from #" + origin.getId()
+                + (Float.isInfinite(maximumCost) ? "" : " up to " + maximumCost) + " ["
+                + this.arcInspector.toString().toLowerCase() + "]";
+    }
+}
@@ -0,0 +1,132 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.insa.graphs.algorithm.AbstractSolution;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Path;
+
+public class ShortestPathTreeSolution extends AbstractSolution {
+
+    // Distance of each node from the origin (infinite if not in the tree).
+    private final float[] distances;
+
+    // Arc from the parent of each node in the tree (-1 for the origin and nodes
+    // not in the tree).
+    private final int[] predecessorArcs;
+
+    /**
+     * Create a new shortest-path tree solution.
+     *
+     * @param data Original input data for this solution.
+     * @param status Status of the solution.
+     * @param distances Distance of each node from the origin.
+     * @param predecessorArcs Arc from the parent of each node.
+     */
+    public ShortestPathTreeSolution(ShortestPathTreeData data, Status status, float[] distances,
+            int[] predecessorArcs) {
+        super(data, status);
+        this.distances = distances;
+        this.predecessorArcs = predecessorArcs;
+    }
+
+    @Override
+    public ShortestPathTreeData getInputData() {
+        return (ShortestPathTreeData) super.getInputData();
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return true if the node is in the tree.
+     */
+    public boolean isReached(int node) {
+        return distances[node] != Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Cost of the shortest path from the origin to the node, or infinity if
+     *         the node is not in the tree.
+     */
+    public float getDistance(int node) {
+        return distances[node];
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Index of the last arc of the shortest path from the origin to the
+     *         node, or -1 for the origin and the nodes not in the tree.
+     */
+    public int getPredecessorArc(int node) {
+        return predecessorArcs[node];
+    }
+
+    /**
+     * @return Distance of each node, indexed by ID. The array is not copied and
+     *         should not be modified.
+     */
+    public float[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * @return Arc from the parent of each node, indexed by ID. The array is not
+     *         copied and should not be modified.
+     */
+    public int[] getPredecessorArcs() {
+        return predecessorArcs;
+    }
+
+    /**
+     * @return Number of nodes in the tree.
+     */
+    public int getReachedCount() {
+        int nbReached = 0;
+        for (float distance: distances) {
+            if (distance != Float.POSITIVE_INFINITY) {
+                nbReached += 1;
+            }
+        }
+        return nbReached;
+    }
+
+    /**
+     * Extract the shortest path from the origin to the given node from the tree.
+     *
+     * @param destination Destination of the path.
+     *
+     * @return Shortest path from the origin to the given node, or null if the node
+     *         is not in the tree.
+     */
+    public Path getPath(Node destination) {
+        if (!isReached(destination.getId())) {
+            return null;
+        }
+        ShortestPathTreeData data = getInputData();
+        CompactGraph graph = data.getGraph().getCompactGraph();
+        ArrayList<Arc> arcs = new ArrayList<>();
+        for (int arc = predecessorArcs[destination.getId()]; arc != -1;
+                arc = predecessorArcs[graph.getArcOrigin(arc)]) {
+            arcs.add(graph.getArc(arc));
+        }
+        if (arcs.isEmpty()) {
+            return new Path(data.getGraph(), data.getOrigin());
+        }
+        Collections.reverse(arcs);
+        return new Path(data.getGraph(), arcs);
+    }
+
+    @Override
+    public String toString() {
+        return "Reached " + getReachedCount() + " nodes from node #"
+                + getInputData().getOrigin().getId() + " in " + getSolvingTime().getSeconds()
+                + " seconds.";
+    }
+
+}
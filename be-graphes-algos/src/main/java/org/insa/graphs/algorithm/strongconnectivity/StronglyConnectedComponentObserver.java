@@ -0,0 +1,16 @@
+package org.insa.graphs.algorithm.strongconnectivity;
+
+import java.util.ArrayList;
+
+import org.insa.graphs.model.Node;
+
+public interface StronglyConnectedComponentObserver {
+
+    /**
+     * Notify that the algorithm has computed a new component.
+     *
+     * @param nodes List of nodes in the component.
+     */
+    public void notifyNewComponent(ArrayList<Node> nodes);
+
+}
@@ -0,0 +1,149 @@
+package org.insa.graphs.algorithm.strongconnectivity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.insa.graphs.algorithm.AbstractAlgorithm;
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Node;
+
+/**
+ * <p>
+ * Strongly-connected components of the allowed arcs of a graph, computed with
+ * Tarjan's algorithm.
+ * </p>
+ *
+ * <p>
+ * The depth-first search is iterative: the recursion stack is replaced by two
+ * arrays holding the node of each level and the next arc to follow from it, so
+ * that the algorithm does not depend on the size of the thread stack and works
+ * on graphs with millions of nodes. Apart from the arrays of the solution, it
+ * only allocates five ints per node.
+ * </p>
+ *
+ * <p>
+ * Components are numbered in the order they are completed, which is a reverse
+ * topological order of the graph of components: no allowed arc goes from a
+ * component to a component of greater number.
+ * </p>
+ *
+ */
+public class StronglyConnectedComponentsAlgorithm
+        extends AbstractAlgorithm<StronglyConnectedComponentObserver> {
+
+    /**
+     * @param data Input data for this algorithm.
+     */
+    public StronglyConnectedComponentsAlgorithm(StronglyConnectedComponentsData data) {
+        super(data);
+    }
+
+    @Override
+    public StronglyConnectedComponentsSolution run() {
+        return (StronglyConnectedComponentsSolution) super.run();
+    }
+
+    @Override
+    public StronglyConnectedComponentsData getInputData() {
+        return (StronglyConnectedComponentsData) super.getInputData();
+    }
+
+    /**
+     * Notify all observers that the algorithm has computed a new component.
+     *
+     * @param nodes List of nodes in the component.
+     */
+    protected void notifyNewComponent(ArrayList<Node> nodes) {
+        for (StronglyConnectedComponentObserver obs: getObservers()) {
+            obs.notifyNewComponent(nodes);
+        }
+    }
+
+    @Override
+    protected StronglyConnectedComponentsSolution doRun() {
+        final StronglyConnectedComponentsData data = getInputData();
+        final CompactGraph graph = data.getGraph().getCompactGraph();
+        final ArcCostTable costs = ArcCostTable.of(data.getGraph(), data.getArcInspector());
+        final boolean observed = !getObservers().isEmpty();
+        final int nbNodes = graph.size();
+
+        // Order of discovery of each node (-1 if not discovered), and smallest
+        // order reachable from its subtree through at most one back arc.
+        final int[] orders = new int[nbNodes], lowLinks = new int[nbNodes];
+        Arrays.fill(orders, -1);
+
+        // Component of each node (-1 until its component is completed), so that a
+        // discovered node is on the stack of Tarjan if and only if it has none.
+        final int[] componentIds = new int[nbNodes];
+        Arrays.fill(componentIds, -1);
+
+        // Stack of Tarjan, and stack of the search (node and next arc of each
+        // level).
+        final int[] stack = new int[nbNodes], searchNodes = new int[nbNodes],
+                nextArcs = new int[nbNodes];
+        int stackSize = 0, depth = 0, nbDiscovered = 0, nbComponents = 0;
+
+        for (int root = 0; root < nbNodes; ++root) {
+            if (orders[root] >= 0) {
+                continue;
+            }
+            orders[root] = lowLinks[root] = nbDiscovered++;
+            stack[stackSize++] = root;
+            searchNodes[depth] = root;
+            nextArcs[depth++] = graph.getFirstArc(root);
+
+            while (depth > 0) {
+                int node = searchNodes[depth - 1], arc = nextArcs[depth - 1];
+                if (arc < graph.getFirstArc(node + 1)) {
+                    nextArcs[depth - 1] = arc + 1;
+                    if (!costs.isAllowed(arc)) {
+                        continue;
+                    }
+                    int successor = graph.getArcDestination(arc);
+                    if (orders[successor] < 0) {
+                        orders[successor] = lowLinks[successor] = nbDiscovered++;
+                        stack[stackSize++] = successor;
+                        searchNodes[depth] = successor;
+                        nextArcs[depth++] = graph.getFirstArc(successor);
+                    }
+                    else if (componentIds[successor] < 0) {
+                        lowLinks[node] = Math.min(lowLinks[node], orders[successor]);
+                    }
+                    continue;
+                }
+
+                // All the arcs of the node have been followed.
+                depth -= 1;
+                if (lowLinks[node] == orders[node]) {
+                    ArrayList<Node> nodes = observed ? new ArrayList<>() : null;
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        componentIds[member] = nbComponents;
+                        if (observed) {
+                            nodes.add(graph.getNode(member));
+                        }
+                    } while (member != node);
+                    nbComponents += 1;
+                    if (observed) {
+                        notifyNewComponent(nodes);
+                    }
+                }
+                if (depth > 0) {
+                    int parent = searchNodes[depth - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                }
+            }
+        }
+
+        final int[] componentSizes = new int[nbComponents];
+        for (int component: componentIds) {
+            componentSizes[component] += 1;
+        }
+        return new StronglyConnectedComponentsSolution(data, Status.OPTIMAL, componentIds,
+                componentSizes);
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.insa.graphs.algorithm.strongconnectivity;
+
+import java.util.ArrayList;
+
+import org.insa.graphs.algorithm.AbstractSolution;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Node;
+
+public class StronglyConnectedComponentsSolution extends AbstractSolution {
+
+    // Component of each node, and size of each component.
+    private final int[] componentIds, componentSizes;
+
+    /**
+     * Create a new solution.
+     *
+     * @param data Original input data for this solution.
+     * @param status Status of the solution.
+     * @param componentIds Component of each node.
+     * @param componentSizes Number of nodes of each component.
+     */
+    protected StronglyConnectedComponentsSolution(StronglyConnectedComponentsData data,
+            Status status, int[] componentIds, int[] componentSizes) {
+        super(data, status);
+        this.componentIds = componentIds;
+        this.componentSizes = componentSizes;
+    }
+
+    @Override
+    public StronglyConnectedComponentsData getInputData() {
+        return (StronglyConnectedComponentsData) super.getInputData();
+    }
+
+    /**
+     * @return Number of components.
+     */
+    public int getComponentCount() {
+        return componentSizes.length;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Component of the given node.
+     */
+    public int getComponentId(int node) {
+        return componentIds[node];
+    }
+
+    /**
+     * @return Component of each node, indexed by ID. The array is not copied and
+     *         should not be modified.
+     */
+    public int[] getComponentIds() {
+        return componentIds;
+    }
+
+    /**
+     * @return Number of nodes of each component. The array is not copied and
+     *         should not be modified.
+     */
+    public int[] getComponentSizes() {
+        return componentSizes;
+    }
+
+    /**
+     * @return Component with the most nodes (the first one in case of tie), or -1
+     *         if the graph is empty.
+     */
+    public int getLargestComponent() {
+        int largest = -1;
+        for (int component = 0; component < componentSizes.length; ++component) {
+            if (largest < 0 || componentSizes[component] > componentSizes[largest]) {
+                largest = component;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @param component A component.
+     *
+     * @return Nodes of the given component, by increasing ID.
+     */
+    public ArrayList<Node> getComponent(int component) {
+        CompactGraph graph = getInputData().getGraph().getCompactGraph();
+        ArrayList<Node> nodes = new ArrayList<>(componentSizes[component]);
+        for (int node = 0; node < componentIds.length; ++node) {
+            if (componentIds[node] == component) {
+                nodes.add(graph.getNode(node));
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        int largest = getLargestComponent();
+        return "Found " + getComponentCount() + " components (largest with "
+                + (largest < 0 ? 0 : componentSizes[largest]) + " nodes) in "
+                + getSolvingTime().getSeconds() + " seconds.";
+    }
+
+}
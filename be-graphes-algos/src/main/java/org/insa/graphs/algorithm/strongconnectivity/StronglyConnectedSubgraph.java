@@ -0,0 +1,170 @@
+package org.insa.graphs.algorithm.strongconnectivity;
+
+import java.util.Arrays;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.RoadInformation;
+
+/**
+ * <p>
+ * Graph restricted to the largest strongly-connected component of another graph
+ * for an inspector, in which every node can reach every other node through the
+ * arcs allowed by the inspector. Searches between nodes of the subgraph are
+ * thus never infeasible, and searches from nodes of the original graph that
+ * can be left but never re-entered can be avoided.
+ * </p>
+ *
+ * <p>
+ * The subgraph contains the nodes of the component, numbered by increasing ID
+ * in the original graph, and the allowed arcs between them. Each arc becomes a
+ * one-way road of the subgraph, so that the reverse of an arc is only present if
+ * it is allowed too, but keeps the length, geometry and road information (apart
+ * from the one-way flag) of the original arc, so that the inspector gives it the
+ * same cost. The statistics of the original graph are kept since they remain
+ * valid bounds for the subgraph.
+ * </p>
+ *
+ */
+public final class StronglyConnectedSubgraph {
+
+    // Original graph, and subgraph.
+    private final Graph originalGraph, graph;
+
+    // ID in the original graph of each node of the subgraph, and ID in the
+    // subgraph of each node of the original graph (-1 if not in the subgraph).
+    private final int[] originalIds, subgraphIds;
+
+    private StronglyConnectedSubgraph(Graph originalGraph, ArcInspector inspector) {
+        this.originalGraph = originalGraph;
+        final CompactGraph original = originalGraph.getCompactGraph();
+        final ArcCostTable costs = ArcCostTable.of(originalGraph, inspector);
+        final StronglyConnectedComponentsSolution components =
+                new StronglyConnectedComponentsAlgorithm(
+                        new StronglyConnectedComponentsData(originalGraph, inspector)).run();
+        final int largest = components.getLargestComponent();
+
+        this.subgraphIds = new int[original.size()];
+        Arrays.fill(this.subgraphIds, -1);
+        this.originalIds = new int[largest < 0 ? 0 : components.getComponentSizes()[largest]];
+        int nbNodes = 0, nbArcs = 0;
+        for (int node = 0; node < original.size(); ++node) {
+            if (components.getComponentId(node) != largest) {
+                continue;
+            }
+            this.subgraphIds[node] = nbNodes;
+            this.originalIds[nbNodes++] = node;
+            for (int arc = original.getFirstArc(node); arc < original.getFirstArc(node + 1);
+                    ++arc) {
+                if (costs.isAllowed(arc)
+                        && components.getComponentId(original.getArcDestination(arc)) == largest) {
+                    nbArcs += 1;
+                }
+            }
+        }
+
+        RoadInformation[] descriptors = new RoadInformation[original.getDescriptorCount()];
+        for (int descriptor = 0; descriptor < descriptors.length; ++descriptor) {
+            RoadInformation information = original.getDescriptor(descriptor);
+            descriptors[descriptor] = new RoadInformation(information.getType(),
+                    information.getAccessRestrictions(), true, information.getMaximumSpeed(),
+                    information.getName());
+        }
+
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, nbArcs);
+        for (int node: originalIds) {
+            builder.addNode(original.getNode(node).getPoint());
+        }
+        builder.setDescriptors(descriptors);
+        for (int node: originalIds) {
+            for (int arc = original.getFirstArc(node); arc < original.getFirstArc(node + 1);
+                    ++arc) {
+                int destination = subgraphIds[original.getArcDestination(arc)];
+                if (costs.isAllowed(arc) && destination >= 0) {
+                    builder.addRoad(subgraphIds[node], destination, original.getArcLength(arc),
+                            original.getArcDescriptor(arc), original.getArc(arc).getPoints());
+                }
+            }
+        }
+        this.graph = new Graph("SCC/" + originalGraph.getMapId(), originalGraph.getMapName(),
+                builder.build(), originalGraph.getGraphInformation());
+    }
+
+    /**
+     * Retrieve the subgraph of the largest strongly-connected component of the
+     * given graph for the given inspector, building it on the first call.
+     *
+     * @param graph Original graph.
+     * @param inspector Inspector whose allowed arcs connect the nodes.
+     *
+     * @return Subgraph of the given graph for the given inspector.
+     */
+    public static StronglyConnectedSubgraph of(Graph graph, ArcInspector inspector) {
+        return graph.getCachedData(inspector, StronglyConnectedSubgraph.class,
+                (g) -> new StronglyConnectedSubgraph(g, inspector));
+    }
+
+    /**
+     * @return Original graph.
+     */
+    public Graph getOriginalGraph() {
+        return originalGraph;
+    }
+
+    /**
+     * @return Graph restricted to the largest strongly-connected component.
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return Number of nodes of the subgraph.
+     */
+    public int size() {
+        return originalIds.length;
+    }
+
+    /**
+     * @param node ID of a node of the subgraph.
+     *
+     * @return ID of the same node in the original graph.
+     */
+    public int getOriginalId(int node) {
+        return originalIds[node];
+    }
+
+    /**
+     * @param node ID of a node of the original graph.
+     *
+     * @return ID of the same node in the subgraph, or -1 if it is not in the
+     *         largest component.
+     */
+    public int getSubgraphId(int node) {
+        return subgraphIds[node];
+    }
+
+    /**
+     * @param node Node of the subgraph.
+     *
+     * @return Same node in the original graph.
+     */
+    public Node getOriginalNode(Node node) {
+        return originalGraph.get(originalIds[node.getId()]);
+    }
+
+    /**
+     * @param node Node of the original graph.
+     *
+     * @return Same node in the subgraph, or null if it is not in the largest
+     *         component.
+     */
+    public Node getSubgraphNode(Node node) {
+        int id = subgraphIds[node.getId()];
+        return id < 0 ? null : graph.get(id);
+    }
+
+}
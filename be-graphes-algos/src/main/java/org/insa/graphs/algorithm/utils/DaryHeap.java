@@ -0,0 +1,335 @@
+package org.insa.graphs.algorithm.utils;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>
+ * Implements an indexed d-ary heap containing elements of type E.
+ * </p>
+ *
+ * <p>
+ * Contrary to {@link BinaryHeap}, this heap keeps track of the position of each
+ * of its elements, so {@link #remove(Comparable)} and {@link #decreaseKey(Comparable)}
+ * run in <i>O(log n)</i> instead of searching the element in the whole heap.
+ * Elements are identified by reference, and positions are stored either:
+ * </p>
+ * <ul>
+ * <li>in an array indexed by an integer identifier of the elements (e.g. the id
+ * of the node of a label), when an indexer is given at construction, or</li>
+ * <li>in an {@link IdentityHashMap} otherwise.</li>
+ * </ul>
+ *
+ * <p>
+ * The arity of the heap (2, 4 or 8) is chosen at construction. Higher arities
+ * make the heap shallower, hence cheaper insertions and decrease-key operations,
+ * at the price of more comparisons when removing the minimum.
+ * </p>
+ *
+ * <p>
+ * Note that all comparisons are based on the compareTo method, hence E must
+ * implement Comparable.
+ * </p>
+ *
+ */
+public class DaryHeap<E extends Comparable<E>> implements PriorityQueue<E> {
+
+    // Default arity of the heap.
+    public static final int DEFAULT_ARITY = 4;
+
+    // log2 of the arity of the heap.
+    private final int logArity;
+
+    // Number of elements in heap.
+    private int currentSize;
+
+    // The heap array.
+    private E[] array;
+
+    // Identifier of the elements, or null if positions are stored in a map.
+    private final ToIntFunction<? super E> indexer;
+
+    // Position of each element in the heap array (-1 if not in the heap), indexed
+    // by the identifier of the elements.
+    private int[] positions;
+
+    // Position of each element in the heap array, when there is no indexer.
+    private final Map<E, Integer> positionMap;
+
+    /**
+     * Construct a new empty heap with the default arity.
+     */
+    public DaryHeap() {
+        this(DEFAULT_ARITY);
+    }
+
+    /**
+     * Construct a new empty heap with the given arity.
+     *
+     * @param arity Arity of the heap (2, 4 or 8).
+     *
+     * @throws IllegalArgumentException if the arity is not 2, 4 or 8.
+     */
+    public DaryHeap(int arity) {
+        this(arity, null, 0);
+    }
+
+    /**
+     * Construct a new empty heap with the given arity, storing the position of its
+     * elements in an array indexed by the given indexer.
+     *
+     * @param arity Arity of the heap (2, 4 or 8).
+     * @param indexer Function returning a unique identifier in [0, capacity) for
+     *        each element, or null to store positions in a map.
+     * @param capacity Number of identifiers.
+     *
+     * @throws IllegalArgumentException if the arity is not 2, 4 or 8.
+     */
+    @SuppressWarnings("unchecked")
+    public DaryHeap(int arity, ToIntFunction<? super E> indexer, int capacity) {
+        if (arity != 2 && arity != 4 && arity != 8) {
+            throw new IllegalArgumentException("Invalid arity: " + arity);
+        }
+        this.logArity = Integer.numberOfTrailingZeros(arity);
+        this.currentSize = 0;
+        this.array = (E[]) new Comparable<?>[Math.max(16, indexer == null ? 0 : capacity)];
+        this.indexer = indexer;
+        if (indexer != null) {
+            this.positions = new int[capacity];
+            Arrays.fill(this.positions, -1);
+            this.positionMap = null;
+        }
+        else {
+            this.positions = null;
+            this.positionMap = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Construct a copy of the given heap.
+     *
+     * @param heap Heap to copy.
+     */
+    public DaryHeap(DaryHeap<E> heap) {
+        this.logArity = heap.logArity;
+        this.currentSize = heap.currentSize;
+        this.array = Arrays.copyOf(heap.array, heap.array.length);
+        this.indexer = heap.indexer;
+        this.positions = heap.positions == null ? null : heap.positions.clone();
+        this.positionMap = heap.positionMap == null ? null
+                : new IdentityHashMap<>(heap.positionMap);
+    }
+
+    /**
+     * @return Arity of this heap.
+     */
+    public int getArity() {
+        return 1 << logArity;
+    }
+
+    /**
+     * @return Position of the given element in the heap array, or -1 if the
+     *         element is not in the heap.
+     */
+    private int indexOf(E x) {
+        int index;
+        if (indexer != null) {
+            int id = indexer.applyAsInt(x);
+            index = id >= 0 && id < positions.length ? positions[id] : -1;
+        }
+        else {
+            Integer position = positionMap.get(x);
+            index = position == null ? -1 : position;
+        }
+        return index >= 0 && array[index] == x ? index : -1;
+    }
+
+    /**
+     * Set an element at the given index and record its position.
+     *
+     * @param index Index at which the element should be set.
+     * @param value Element to set.
+     */
+    private void arraySet(int index, E value) {
+        array[index] = value;
+        if (indexer != null) {
+            positions[indexer.applyAsInt(value)] = index;
+        }
+        else {
+            positionMap.put(value, index);
+        }
+    }
+
+    /**
+     * Forget the position of the given element.
+     */
+    private void forget(E x) {
+        if (indexer != null) {
+            positions[indexer.applyAsInt(x)] = -1;
+        }
+        else {
+            positionMap.remove(x);
+        }
+    }
+
+    /**
+     * Internal method to percolate up in the heap.
+     *
+     * @param index Index at which the percolate begins.
+     * @param x Element to place.
+     */
+    private void percolateUp(int index, E x) {
+        while (index > 0) {
+            int parent = (index - 1) >>> logArity;
+            E value = array[parent];
+            if (x.compareTo(value) >= 0) {
+                break;
+            }
+            arraySet(index, value);
+            index = parent;
+        }
+        arraySet(index, x);
+    }
+
+    /**
+     * Internal method to percolate down in the heap.
+     *
+     * @param index Index at which the percolate begins.
+     * @param x Element to place.
+     */
+    private void percolateDown(int index, E x) {
+        while (true) {
+            int first = (index << logArity) + 1;
+            if (first >= currentSize) {
+                break;
+            }
+            int last = Math.min(first + (1 << logArity), currentSize);
+
+            // Find the smallest child.
+            int child = first;
+            E value = array[first];
+            for (int i = first + 1; i < last; ++i) {
+                if (array[i].compareTo(value) < 0) {
+                    child = i;
+                    value = array[i];
+                }
+            }
+            if (value.compareTo(x) >= 0) {
+                break;
+            }
+            arraySet(index, value);
+            index = child;
+        }
+        arraySet(index, x);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.currentSize == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.currentSize;
+    }
+
+    /**
+     * <p>
+     * <b>Complexity:</b> <i>O(1)</i>
+     * </p>
+     *
+     * @param x Item to look for.
+     *
+     * @return true if the given element is in this heap.
+     */
+    public boolean contains(E x) {
+        return indexOf(x) >= 0;
+    }
+
+    @Override
+    public void insert(E x) {
+        if (currentSize == array.length) {
+            array = Arrays.copyOf(array, 2 * currentSize);
+        }
+        percolateUp(currentSize++, x);
+    }
+
+    /**
+     * Restore the order of the heap after the key of the given element has been
+     * decreased.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Item whose key has been decreased.
+     *
+     * @throws ElementNotFoundException if the element is not in this heap.
+     */
+    public void decreaseKey(E x) throws ElementNotFoundException {
+        int index = indexOf(x);
+        if (index < 0) {
+            throw new ElementNotFoundException(x);
+        }
+        percolateUp(index, x);
+    }
+
+    /**
+     * Insert the given element if it is not in this heap, otherwise restore the
+     * order of the heap after its key has been decreased.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Item to insert or update.
+     */
+    public void insertOrDecreaseKey(E x) {
+        int index = indexOf(x);
+        if (index < 0) {
+            insert(x);
+        }
+        else {
+            percolateUp(index, x);
+        }
+    }
+
+    @Override
+    public void remove(E x) throws ElementNotFoundException {
+        int index = indexOf(x);
+        if (index < 0) {
+            throw new ElementNotFoundException(x);
+        }
+        forget(x);
+        E lastItem = array[--currentSize];
+        array[currentSize] = null;
+        if (index < currentSize) {
+            percolateUp(index, lastItem);
+            if (array[index] == lastItem) {
+                percolateDown(index, lastItem);
+            }
+        }
+    }
+
+    @Override
+    public E findMin() throws EmptyPriorityQueueException {
+        if (isEmpty())
+            throw new EmptyPriorityQueueException();
+        return this.array[0];
+    }
+
+    @Override
+    public E deleteMin() throws EmptyPriorityQueueException {
+        E minItem = findMin();
+        forget(minItem);
+        E lastItem = array[--currentSize];
+        array[currentSize] = null;
+        if (currentSize > 0) {
+            percolateDown(0, lastItem);
+        }
+        return minItem;
+    }
+
+}
@@ -0,0 +1,333 @@
+package org.insa.graphs.algorithm.utils;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Indexed 4-ary heap of node ids with float keys, stored in primitive arrays.
+ * </p>
+ *
+ * <p>
+ * This heap is a specialized version of {@link DaryHeap} for shortest-path
+ * searches: elements are integers in [0, capacity), keys are stored next to
+ * them in the heap so comparisons do not go through
+ * {@link Comparable#compareTo(Object)}, and the position of each element is
+ * kept in an array indexed by the element. All the arrays are allocated at
+ * construction, so the heap does not allocate anything afterwards.
+ * </p>
+ *
+ * <p>
+ * The heap can be reused for multiple searches: {@link #clear()} only resets
+ * the elements inserted since the previous call, so its cost does not depend on
+ * the capacity of the heap.
+ * </p>
+ *
+ */
+public class IntFloatHeap {
+
+    // log2 of the arity of the heap.
+    private static final int LOG_ARITY = 2;
+
+    // Special positions of elements that are not in the heap.
+    private static final int UNTOUCHED = -1, REMOVED = -2;
+
+    // Number of elements in heap.
+    private int currentSize;
+
+    // The heap arrays: elements and their keys.
+    private final int[] elements;
+    private final float[] keys;
+
+    // Position of each element in the heap arrays, UNTOUCHED if the element has not
+    // been inserted since the last clear, REMOVED if it has been removed since.
+    private final int[] positions;
+
+    // Elements inserted since the last clear.
+    private final int[] touched;
+    private int nbTouched;
+
+    /**
+     * Construct a new empty heap for elements in [0, capacity).
+     *
+     * @param capacity Number of elements (e.g. number of nodes of a graph).
+     */
+    public IntFloatHeap(int capacity) {
+        this.currentSize = 0;
+        this.elements = new int[capacity];
+        this.keys = new float[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, UNTOUCHED);
+        this.touched = new int[capacity];
+        this.nbTouched = 0;
+    }
+
+    /**
+     * @return Number of elements this heap can contain.
+     */
+    public int getCapacity() {
+        return positions.length;
+    }
+
+    /**
+     * @return true if the heap is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return this.currentSize == 0;
+    }
+
+    /**
+     * @return Current size (number of elements) of this heap.
+     */
+    public int size() {
+        return this.currentSize;
+    }
+
+    /**
+     * @param x Element to look for.
+     *
+     * @return true if the given element is in this heap.
+     */
+    public boolean contains(int x) {
+        return positions[x] >= 0;
+    }
+
+    /**
+     * @param x Element to look for.
+     *
+     * @return true if the given element has been inserted in this heap since the
+     *         last call to {@link #clear()}, even if it has been removed since.
+     */
+    public boolean wasInserted(int x) {
+        return positions[x] != UNTOUCHED;
+    }
+
+    /**
+     * @param x Element in this heap.
+     *
+     * @return Key of the given element.
+     *
+     * @throws ElementNotFoundException if the element is not in this heap.
+     */
+    public float getKey(int x) throws ElementNotFoundException {
+        if (positions[x] < 0) {
+            throw new ElementNotFoundException(x);
+        }
+        return keys[positions[x]];
+    }
+
+    /**
+     * Set an element and its key at the given index.
+     */
+    private void arraySet(int index, int x, float key) {
+        elements[index] = x;
+        keys[index] = key;
+        positions[x] = index;
+    }
+
+    /**
+     * Internal method to percolate up in the heap.
+     *
+     * @param index Index at which the percolate begins.
+     * @param x Element to place.
+     * @param key Key of the element.
+     */
+    private void percolateUp(int index, int x, float key) {
+        while (index > 0) {
+            int parent = (index - 1) >>> LOG_ARITY;
+            if (key >= keys[parent]) {
+                break;
+            }
+            arraySet(index, elements[parent], keys[parent]);
+            index = parent;
+        }
+        arraySet(index, x, key);
+    }
+
+    /**
+     * Internal method to percolate down in the heap.
+     *
+     * @param index Index at which the percolate begins.
+     * @param x Element to place.
+     * @param key Key of the element.
+     */
+    private void percolateDown(int index, int x, float key) {
+        while (true) {
+            int first = (index << LOG_ARITY) + 1;
+            if (first >= currentSize) {
+                break;
+            }
+            int last = Math.min(first + (1 << LOG_ARITY), currentSize);
+
+            // Find the smallest child.
+            int child = first;
+            for (int i = first + 1; i < last; ++i) {
+                if (keys[i] < keys[child]) {
+                    child = i;
+                }
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            arraySet(index, elements[child], keys[child]);
+            index = child;
+        }
+        arraySet(index, x, key);
+    }
+
+    /**
+     * Insert the given element into the heap.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Element to insert.
+     * @param key Key of the element.
+     *
+     * @throws IllegalArgumentException if the element is already in this heap.
+     */
+    public void insert(int x, float key) {
+        if (positions[x] >= 0) {
+            throw new IllegalArgumentException("Element already in heap: " + x);
+        }
+        if (positions[x] == UNTOUCHED) {
+            touched[nbTouched++] = x;
+        }
+        percolateUp(currentSize++, x, key);
+    }
+
+    /**
+     * Decrease the key of the given element.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Element whose key should be decreased.
+     * @param key New key of the element, must not be greater than its current key.
+     *
+     * @throws ElementNotFoundException if the element is not in this heap.
+     */
+    public void decreaseKey(int x, float key) throws ElementNotFoundException {
+        if (positions[x] < 0) {
+            throw new ElementNotFoundException(x);
+        }
+        percolateUp(positions[x], x, key);
+    }
+
+    /**
+     * Insert the given element if it is not in this heap, otherwise decrease its
+     * key.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Element to insert or update.
+     * @param key New key of the element.
+     */
+    public void insertOrDecreaseKey(int x, float key) {
+        if (positions[x] >= 0) {
+            percolateUp(positions[x], x, key);
+        }
+        else {
+            insert(x, key);
+        }
+    }
+
+    /**
+     * Remove the given element from the heap.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @param x Element to remove.
+     *
+     * @throws ElementNotFoundException if the element is not in this heap.
+     */
+    public void remove(int x) throws ElementNotFoundException {
+        int index = positions[x];
+        if (index < 0) {
+            throw new ElementNotFoundException(x);
+        }
+        positions[x] = REMOVED;
+        --currentSize;
+        if (index < currentSize) {
+            int last = elements[currentSize];
+            float lastKey = keys[currentSize];
+            percolateUp(index, last, lastKey);
+            if (positions[last] == index) {
+                percolateDown(index, last, lastKey);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * <b>Complexity:</b> <i>O(1)</i>
+     * </p>
+     *
+     * @return The element with the smallest key in the heap.
+     *
+     * @throws EmptyPriorityQueueException if this heap is empty.
+     */
+    public int findMin() throws EmptyPriorityQueueException {
+        if (isEmpty())
+            throw new EmptyPriorityQueueException();
+        return elements[0];
+    }
+
+    /**
+     * <p>
+     * <b>Complexity:</b> <i>O(1)</i>
+     * </p>
+     *
+     * @return The smallest key in the heap.
+     *
+     * @throws EmptyPriorityQueueException if this heap is empty.
+     */
+    public float findMinKey() throws EmptyPriorityQueueException {
+        if (isEmpty())
+            throw new EmptyPriorityQueueException();
+        return keys[0];
+    }
+
+    /**
+     * Remove and return the element with the smallest key from the heap.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(log n)</i>
+     * </p>
+     *
+     * @return The element with the smallest key in the heap.
+     *
+     * @throws EmptyPriorityQueueException if this heap is empty.
+     */
+    public int deleteMin() throws EmptyPriorityQueueException {
+        int min = findMin();
+        positions[min] = REMOVED;
+        if (--currentSize > 0) {
+            percolateDown(0, elements[currentSize], keys[currentSize]);
+        }
+        return min;
+    }
+
+    /**
+     * Remove all the elements from this heap, and forget the elements inserted
+     * since the last call to this method.
+     *
+     * <p>
+     * <b>Complexity:</b> <i>O(k)</i> where <i>k</i> is the number of elements
+     * inserted since the last call.
+     * </p>
+     */
+    public void clear() {
+        for (int i = 0; i < nbTouched; ++i) {
+            positions[touched[i]] = UNTOUCHED;
+        }
+        nbTouched = 0;
+        currentSize = 0;
+    }
+
+}
@@ -0,0 +1,178 @@
+package org.insa.graphs.algorithm.weakconnectivity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Node;
+
+/**
+ * <p>
+ * Weakly-connected components computed in parallel with a lock-free union-find
+ * over the arcs of the graph.
+ * </p>
+ *
+ * <p>
+ * Each node points to a parent of smaller ID, roots being their own parent.
+ * Tasks run on a pool each go through the outgoing arcs of a range of nodes and
+ * merge the sets of the origin and destination of each arc, by linking the root
+ * of greater ID to the other one with a compare-and-set, and halving the paths
+ * they follow. Since links always go to smaller IDs, the root of a component is
+ * its smallest node whatever the interleaving of the tasks, and components are
+ * numbered in the order of their root, as the ones of the breadth-first search
+ * of {@link WeaklyConnectedComponentsAlgorithm}.
+ * </p>
+ *
+ * <p>
+ * Apart from the arrays of the solution, the algorithm only allocates one int
+ * per node. The nodes of each component are only reported to the observers if
+ * there are any, once all the components have been computed.
+ * </p>
+ *
+ */
+public class UnionFindWeaklyConnectedComponentsAlgorithm
+        extends WeaklyConnectedComponentsAlgorithm {
+
+    // Minimum number of nodes processed by a single task.
+    private static final int MIN_NODES_PER_TASK = 4096;
+
+    // Pool on which the tasks are run.
+    private final ForkJoinPool pool;
+
+    /**
+     * Action run by a task on a range of nodes.
+     */
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Create a new algorithm running on the common pool.
+     *
+     * @param data Input data for this algorithm.
+     */
+    public UnionFindWeaklyConnectedComponentsAlgorithm(WeaklyConnectedComponentsData data) {
+        this(data, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new algorithm running on the given pool.
+     *
+     * @param data Input data for this algorithm.
+     * @param pool Pool on which the tasks are run.
+     */
+    public UnionFindWeaklyConnectedComponentsAlgorithm(WeaklyConnectedComponentsData data,
+            ForkJoinPool pool) {
+        super(data);
+        this.pool = pool;
+    }
+
+    /**
+     * @return Root of the set of the given node, halving the path to it.
+     */
+    private static int find(AtomicIntegerArray parents, int node) {
+        int parent = parents.get(node);
+        while (parent != node) {
+            int grandParent = parents.get(parent);
+            if (grandParent != parent) {
+                parents.compareAndSet(node, parent, grandParent);
+            }
+            node = grandParent;
+            parent = parents.get(node);
+        }
+        return node;
+    }
+
+    /**
+     * Merge the sets of the two given nodes.
+     */
+    private static void union(AtomicIntegerArray parents, int first, int second) {
+        while (true) {
+            first = find(parents, first);
+            second = find(parents, second);
+            if (first == second) {
+                return;
+            }
+            int child = Math.max(first, second), root = Math.min(first, second);
+            if (parents.compareAndSet(child, child, root)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Split the nodes between tasks run on the pool, and wait for them.
+     *
+     * @param nbNodes Number of nodes.
+     * @param action Action run by each task on its range [from, to) of nodes.
+     */
+    private void runInParallel(int nbNodes, RangeAction action) {
+        int nbTasks = Math.max(1, Math.min(4 * pool.getParallelism(),
+                (nbNodes + MIN_NODES_PER_TASK - 1) / MIN_NODES_PER_TASK));
+        if (nbTasks == 1) {
+            action.run(0, nbNodes);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(nbTasks);
+        for (int task = 0; task < nbTasks; ++task) {
+            final int from = (int) ((long) nbNodes * task / nbTasks);
+            final int to = (int) ((long) nbNodes * (task + 1) / nbTasks);
+            tasks.add(pool.submit(() -> action.run(from, to)));
+        }
+        for (ForkJoinTask<?> task: tasks) {
+            task.join();
+        }
+    }
+
+    @Override
+    protected WeaklyConnectedComponentsSolution doRun() {
+        final CompactGraph graph = getInputData().getGraph().getCompactGraph();
+        final int nbNodes = graph.size();
+
+        final AtomicIntegerArray parents = new AtomicIntegerArray(nbNodes);
+        runInParallel(nbNodes, (from, to) -> {
+            for (int node = from; node < to; ++node) {
+                parents.set(node, node);
+            }
+        });
+        runInParallel(nbNodes, (from, to) -> {
+            for (int node = from; node < to; ++node) {
+                for (int arc = graph.getFirstArc(node); arc < graph.getFirstArc(node + 1);
+                        ++arc) {
+                    union(parents, node, graph.getArcDestination(arc));
+                }
+            }
+        });
+
+        // Roots are the smallest nodes of their components, so the component of a
+        // root is numbered before the other nodes of its component are reached.
+        final int[] componentIds = new int[nbNodes];
+        int nbComponents = 0;
+        for (int node = 0; node < nbNodes; ++node) {
+            int root = find(parents, node);
+            componentIds[node] = root == node ? nbComponents++ : componentIds[root];
+        }
+        final int[] componentSizes = new int[nbComponents];
+        for (int component: componentIds) {
+            componentSizes[component] += 1;
+        }
+
+        WeaklyConnectedComponentsSolution solution = new WeaklyConnectedComponentsSolution(
+                getInputData(), Status.OPTIMAL, componentIds, componentSizes);
+        if (!getObservers().isEmpty()) {
+            for (ArrayList<Node> component: solution.getComponents()) {
+                notifyStartComponent(component.get(0));
+                for (Node node: component) {
+                    notifyNewNodeInComponent(node);
+                }
+                notifyEndComponent(component);
+            }
+        }
+        return solution;
+    }
+
+}
@@ -1,15 +1,10 @@
 package org.insa.graphs.algorithm.weakconnectivity;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
 
 import org.insa.graphs.algorithm.AbstractAlgorithm;
 import org.insa.graphs.algorithm.AbstractSolution.Status;
-import org.insa.graphs.model.Arc;
-import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.CompactGraph;
 import org.insa.graphs.model.Node;
 
 public class WeaklyConnectedComponentsAlgorithm
@@ -67,64 +62,50 @@ public class WeaklyConnectedComponentsAlgorithm
     }
 
     /**
-     * @return An adjacency list for the undirected graph equivalent to the stored
-     *         graph.
-     */
-    protected ArrayList<HashSet<Integer>> createUndirectedGraph() {
-        int nNodes = getInputData().getGraph().size();
-        ArrayList<HashSet<Integer>> res = new ArrayList<HashSet<Integer>>(nNodes);
-        for (int i = 0; i < nNodes; ++i) {
-            res.add(new HashSet<Integer>());
-        }
-
-        for (Node node: getInputData().getGraph().getNodes()) {
-            for (Arc arc: node.getSuccessors()) {
-                res.get(node.getId()).add(arc.getDestination().getId());
-                if (arc.getRoadInformation().isOneWay()) {
-                    res.get(arc.getDestination().getId()).add(node.getId());
-                }
-            }
-        }
-
-        return res;
-    }
-
-    /**
-     * Apply a breadth first search algorithm on the given undirected graph
-     * (adjacency list), starting at node cur, and marking nodes in marked.
+     * Apply a breadth first search algorithm on the undirected graph equivalent to
+     * the given compact graph (both outgoing and incoming arcs are followed),
+     * starting at node cur, and marking nodes in marked.
      * 
-     * @param marked
-     * @param cur
+     * @param graph Compact representation of the graph.
+     * @param marked Array of marked nodes, updated by this method.
+     * @param queue Array used as a queue (must have one cell per node).
+     * @param cur ID of the starting node.
      * 
-     * @return
+     * @return List of nodes in the component of the starting node.
      */
-    protected ArrayList<Node> bfs(ArrayList<HashSet<Integer>> ugraph, boolean[] marked, int cur) {
-        Graph graph = getInputData().getGraph();
+    protected ArrayList<Node> bfs(CompactGraph graph, boolean[] marked, int[] queue, int cur) {
         ArrayList<Node> component = new ArrayList<Node>();
 
-        // Using a queue because we are doing a BFS
-        Queue<Integer> queue = new LinkedList<Integer>();
-
         // Notify observers about the current component.
-        notifyStartComponent(graph.get(cur));
+        notifyStartComponent(graph.getNode(cur));
 
-        // Add original node and loop until the queue is empty.
-        queue.add(cur);
+        // Add original node and loop until the queue is empty. Each node enters the
+        // queue once, so the queue is a simple array.
+        int head = 0, tail = 0;
+        queue[tail++] = cur;
         marked[cur] = true;
-        while (!queue.isEmpty()) {
-            Node node = graph.get(queue.remove());
+        while (head < tail) {
+            int nodeId = queue[head++];
+            Node node = graph.getNode(nodeId);
             component.add(node);
 
             // Notify observers
             notifyNewNodeInComponent(node);
 
-            for (Integer destId: ugraph.get(node.getId())) {
-                Node dest = graph.get(destId);
-                if (!marked[dest.getId()]) {
-                    queue.add(destId);
+            for (int arc = graph.getFirstArc(nodeId); arc < graph.getFirstArc(nodeId + 1); ++arc) {
+                int destId = graph.getArcDestination(arc);
+                if (!marked[destId]) {
+                    queue[tail++] = destId;
                     marked[destId] = true;
                 }
             }
+            for (int k = graph.getFirstInArc(nodeId); k < graph.getFirstInArc(nodeId + 1); ++k) {
+                int origId = graph.getArcOrigin(graph.getInArc(k));
+                if (!marked[origId]) {
+                    queue[tail++] = origId;
+                    marked[origId] = true;
+                }
+            }
         }
 
         notifyEndComponent(component);
@@ -135,10 +116,9 @@ public class WeaklyConnectedComponentsAlgorithm
     @Override
     protected WeaklyConnectedComponentsSolution doRun() {
 
-        Graph graph = getInputData().getGraph();
-        ArrayList<HashSet<Integer>> ugraph = createUndirectedGraph();
+        CompactGraph graph = getInputData().getGraph().getCompactGraph();
         boolean[] marked = new boolean[graph.size()];
-        Arrays.fill(marked, false);
+        int[] queue = new int[graph.size()];
 
         ArrayList<ArrayList<Node>> components = new ArrayList<ArrayList<Node>>();
 
@@ -146,7 +126,7 @@ public class WeaklyConnectedComponentsAlgorithm
         int cur = 0;
         while (cur < marked.length) {
             // Apply BFS
-            components.add(this.bfs(ugraph, marked, cur));
+            components.add(this.bfs(graph, marked, queue, cur));
 
             // Find next non-marked
             for (; cur < marked.length && marked[cur]; ++cur)
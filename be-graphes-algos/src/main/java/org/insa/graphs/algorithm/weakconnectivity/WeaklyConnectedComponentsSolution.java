@@ -3,6 +3,7 @@ package org.insa.graphs.algorithm.weakconnectivity;
 import java.util.ArrayList;
 
 import org.insa.graphs.algorithm.AbstractSolution;
+import org.insa.graphs.model.CompactGraph;
 import org.insa.graphs.model.Node;
 
 public class WeaklyConnectedComponentsSolution extends AbstractSolution {
@@ -10,6 +11,10 @@ public class WeaklyConnectedComponentsSolution extends AbstractSolution {
     // Components
     private ArrayList<ArrayList<Node>> components;
 
+    // Component of each node, and size of each component (computed from the
+    // other representation when first requested).
+    private int[] componentIds, componentSizes;
+
     protected WeaklyConnectedComponentsSolution(WeaklyConnectedComponentsData data) {
         super(data);
     }
@@ -20,6 +25,23 @@ public class WeaklyConnectedComponentsSolution extends AbstractSolution {
         this.components = components;
     }
 
+    /**
+     * Create a new solution from the component of each node, the lists of nodes
+     * of the components being only created if requested.
+     *
+     * @param data Original input data for this solution.
+     * @param status Status of the solution.
+     * @param componentIds Component of each node, components being numbered from
+     *        0 in the order of their smallest node.
+     * @param componentSizes Number of nodes of each component.
+     */
+    protected WeaklyConnectedComponentsSolution(WeaklyConnectedComponentsData data, Status status,
+            int[] componentIds, int[] componentSizes) {
+        super(data, status);
+        this.componentIds = componentIds;
+        this.componentSizes = componentSizes;
+    }
+
     @Override
     public WeaklyConnectedComponentsData getInputData() {
         return (WeaklyConnectedComponentsData) super.getInputData();
@@ -29,9 +51,57 @@ public class WeaklyConnectedComponentsSolution extends AbstractSolution {
      * @return Components of the solution, if any.
      */
     public ArrayList<ArrayList<Node>> getComponents() {
+        if (components == null && componentIds != null) {
+            CompactGraph graph = getInputData().getGraph().getCompactGraph();
+            components = new ArrayList<>(componentSizes.length);
+            for (int size: componentSizes) {
+                components.add(new ArrayList<>(size));
+            }
+            for (int node = 0; node < componentIds.length; ++node) {
+                components.get(componentIds[node]).add(graph.getNode(node));
+            }
+        }
         return components;
     }
 
+    /**
+     * @return Component of each node, indexed by ID, the components being indices
+     *         in {@link #getComponents()}. The array is not copied and should not
+     *         be modified.
+     */
+    public int[] getComponentIds() {
+        if (componentIds == null && components != null) {
+            componentIds = new int[getInputData().getGraph().size()];
+            for (int component = 0; component < components.size(); ++component) {
+                for (Node node: components.get(component)) {
+                    componentIds[node.getId()] = component;
+                }
+            }
+        }
+        return componentIds;
+    }
+
+    /**
+     * @return Number of nodes of each component. The array is not copied and
+     *         should not be modified.
+     */
+    public int[] getComponentSizes() {
+        if (componentSizes == null && components != null) {
+            componentSizes = new int[components.size()];
+            for (int component = 0; component < components.size(); ++component) {
+                componentSizes[component] = components.get(component).size();
+            }
+        }
+        return componentSizes;
+    }
+
+    /**
+     * @return Number of components.
+     */
+    public int getComponentCount() {
+        return getComponentSizes().length;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -41,16 +111,17 @@ public class WeaklyConnectedComponentsSolution extends AbstractSolution {
     public String toString() {
         int nIsolated = 0;
         int nGt10 = 0;
-        for (ArrayList<Node> component: components) {
-            if (component.size() == 1) {
+        for (int size: getComponentSizes()) {
+            if (size == 1) {
                 nIsolated += 1;
             }
-            else if (component.size() > 10) {
+            else if (size > 10) {
                 nGt10 += 1;
             }
         }
-        return "Found " + components.size() + " components (" + nGt10 + " with more than 10 nodes, "
-                + nIsolated + " isolated nodes) in " + getSolvingTime().getSeconds() + " seconds.";
+        return "Found " + getComponentCount() + " components (" + nGt10
+                + " with more than 10 nodes, " + nIsolated + " isolated nodes) in "
+                + getSolvingTime().getSeconds() + " seconds.";
 
     }
 
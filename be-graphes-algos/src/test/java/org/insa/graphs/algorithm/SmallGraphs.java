@@ -0,0 +1,79 @@
+package org.insa.graphs.algorithm;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+import org.insa.graphs.model.RoadInformation.RoadType;
+
+/**
+ * Hand-built graphs for tests of edge cases, whose expected results can be
+ * written down directly.
+ */
+public final class SmallGraphs {
+
+    // Two-way road open to every mode.
+    public static final int TWO_WAY = 0;
+
+    // One-way road open to every mode.
+    public static final int ONE_WAY = 1;
+
+    // Two-way road closed to cars.
+    public static final int NO_CARS = 2;
+
+    // Indices of the "all roads allowed" and "only roads open for cars" length
+    // filters of the ArcInspectorFactory.
+    public static final int ALL_ROADS = 0, CAR_ROADS = 1;
+
+    private SmallGraphs() {
+    }
+
+    /**
+     * @return Road open to every mode but cars if noCars is true.
+     */
+    private static RoadInformation createRoad(boolean oneWay, boolean noCars) {
+        EnumMap<AccessMode, AccessRestriction> access = new EnumMap<>(AccessMode.class);
+        for (AccessMode mode: AccessMode.values()) {
+            access.put(mode, noCars && mode == AccessMode.MOTORCAR ? AccessRestriction.FORBIDDEN
+                    : AccessRestriction.ALLOWED);
+        }
+        return new RoadInformation(RoadType.UNCLASSIFIED, new AccessRestrictions(access),
+                oneWay, 36, "Road");
+    }
+
+    /**
+     * Create a graph whose nodes are on a line, less than a meter apart, so that the
+     * length of every road is at least the distance between its extremities.
+     *
+     * @param mapId Map id of the graph.
+     * @param nbNodes Number of nodes of the graph.
+     * @param roads Roads of the graph, as { origin, destination, length, type }
+     *        with type one of {@link #TWO_WAY}, {@link #ONE_WAY} or
+     *        {@link #NO_CARS}, and lengths of at least (destination - origin)
+     *        meters.
+     *
+     * @return A new graph.
+     */
+    public static Graph create(String mapId, int nbNodes, int[]... roads) {
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, roads.length);
+        Point[] points = new Point[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            points[node] = new Point(1.4f + node * 1e-5f, 43.5f);
+            builder.addNode(points[node]);
+        }
+        builder.setDescriptors(new RoadInformation[] { createRoad(false, false),
+                createRoad(true, false), createRoad(false, true) });
+        for (int[] road: roads) {
+            builder.addRoad(road[0], road[1], road[2], road[3],
+                    Arrays.asList(points[road[0]], points[road[1]]));
+        }
+        return new Graph(mapId, "", builder.build(), null);
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.insa.graphs.algorithm.distancematrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.algorithm.shortestpath.DijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithmTest;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathSolution;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Path;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DistanceMatrixAlgorithmTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Origins and destinations of the matrices.
+    private static List<Node> origins, destinations;
+
+    // Pool used by the algorithm.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 43);
+        Random random = new Random(11);
+        origins = new ArrayList<>();
+        destinations = new ArrayList<>();
+        for (int i = 0; i < 15; ++i) {
+            origins.add(graph.get(random.nextInt(graph.size())));
+        }
+        for (int i = 0; i < 12; ++i) {
+            destinations.add(graph.get(random.nextInt(graph.size())));
+        }
+        // Same node as origin and destination.
+        destinations.add(origins.get(0));
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return Cost of the given path for the given inspector.
+     */
+    private static double getCost(Path path, ArcInspector inspector) {
+        double cost = 0;
+        for (Arc arc: path.getArcs()) {
+            cost += inspector.getCost(arc);
+        }
+        return cost;
+    }
+
+    /**
+     * Check the given matrix against Dijkstra's algorithm.
+     */
+    private static void checkMatrix(DistanceMatrixSolution solution, float radius) {
+        ArcInspector inspector = solution.getInputData().getArcInspector();
+        for (int i = 0; i < origins.size(); ++i) {
+            for (int j = 0; j < destinations.size(); ++j) {
+                ShortestPathSolution expected = new DijkstraAlgorithm(new ShortestPathData(graph,
+                        origins.get(i), destinations.get(j), inspector)).run();
+                double cost = expected.isFeasible()
+                        ? ShortestPathAlgorithmTest.getCost(expected, inspector)
+                        : Double.POSITIVE_INFINITY;
+                float distance = solution.getDistance(i, j);
+                if (cost > radius * (1 + 1e-5)) {
+                    assertTrue(Float.isInfinite(distance));
+                    assertNull(solution.getPath(i, j));
+                }
+                else if (cost >= radius * (1 - 1e-5)) {
+                    // Too close to the radius to be decided.
+                    continue;
+                }
+                else {
+                    assertEquals(cost, distance, 1e-2);
+                    assertEquals(cost, getCost(solution.getPath(i, j), inspector), 1e-2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatrix() {
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            DistanceMatrixData data = new DistanceMatrixData(graph, origins, destinations,
+                    inspector);
+            DistanceMatrixSolution solution = new BucketDistanceMatrixAlgorithm(data, pool).run();
+            assertEquals(origins.size(), solution.getRowCount());
+            assertEquals(destinations.size(), solution.getColumnCount());
+            assertEquals(0, solution.getDistance(0, destinations.size() - 1), 0);
+            checkMatrix(solution, Float.POSITIVE_INFINITY);
+        }
+    }
+
+    @Test
+    public void testRadius() {
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            DistanceMatrixSolution full = new BucketDistanceMatrixAlgorithm(
+                    new DistanceMatrixData(graph, origins, destinations, inspector), pool).run();
+
+            // Median of the finite distances.
+            List<Float> finite = new ArrayList<>();
+            for (float distance: full.getDistances()) {
+                if (!Float.isInfinite(distance)) {
+                    finite.add(distance);
+                }
+            }
+            finite.sort(null);
+            float radius = finite.isEmpty() ? 0 : finite.get(finite.size() / 2);
+
+            checkMatrix(new BucketDistanceMatrixAlgorithm(
+                    new DistanceMatrixData(graph, origins, destinations, inspector, radius),
+                    pool).run(), radius);
+        }
+    }
+
+    @Test
+    public void testUnreachableAndFilteredPairs() {
+        // 0 - 1 is a road, 1 - 2 a road closed to cars, 0 -> 3 a one-way road,
+        // 3 - 2 a road, and 4 is isolated.
+        Graph small = SmallGraphs.create("small", 5, new int[] { 0, 1, 2, SmallGraphs.TWO_WAY },
+                new int[] { 1, 2, 3, SmallGraphs.NO_CARS },
+                new int[] { 0, 3, 4, SmallGraphs.ONE_WAY },
+                new int[] { 3, 2, 4, SmallGraphs.TWO_WAY });
+        List<Node> rows = Arrays.asList(small.get(0), small.get(2), small.get(4));
+        List<Node> columns = small.getNodes();
+        List<ArcInspector> inspectors = ArcInspectorFactory.getAllFilters();
+        final float inf = Float.POSITIVE_INFINITY;
+
+        DistanceMatrixSolution solution = new BucketDistanceMatrixAlgorithm(
+                new DistanceMatrixData(small, rows, columns,
+                        inspectors.get(SmallGraphs.ALL_ROADS)), pool).run();
+        assertArrayEquals(new float[] { 0, 2, 5, 4, inf, 5, 3, 0, 4, inf, inf, inf, inf, inf, 0 },
+                solution.getDistances(), 1e-6f);
+        assertEquals(2, solution.getPath(1, 3).size());
+        assertNull(solution.getPath(2, 0));
+
+        // Cars cannot take 1 - 2, so 2 cannot reach 0 or 1.
+        solution = new BucketDistanceMatrixAlgorithm(new DistanceMatrixData(small, rows, columns,
+                inspectors.get(SmallGraphs.CAR_ROADS)), pool).run();
+        assertArrayEquals(
+                new float[] { 0, 2, 8, 4, inf, inf, inf, 0, 4, inf, inf, inf, inf, inf, 0 },
+                solution.getDistances(), 1e-6f);
+        assertNull(solution.getPath(1, 0));
+        assertEquals(3, solution.getPath(0, 2).size());
+
+        // Pairs beyond the radius are unreachable, even if a path exists.
+        solution = new BucketDistanceMatrixAlgorithm(new DistanceMatrixData(small, rows, columns,
+                inspectors.get(SmallGraphs.ALL_ROADS), 4.5f), pool).run();
+        assertArrayEquals(
+                new float[] { 0, 2, inf, 4, inf, inf, 3, 0, 4, inf, inf, inf, inf, inf, 0 },
+                solution.getDistances(), 1e-6f);
+        assertNull(solution.getPath(0, 2));
+    }
+
+}
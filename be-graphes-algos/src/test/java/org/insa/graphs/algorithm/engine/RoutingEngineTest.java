@@ -0,0 +1,77 @@
+package org.insa.graphs.algorithm.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.insa.graphs.algorithm.shortestpath.BellmanFordAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.BidirectionalDijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.DijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithmTest;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathSolution;
+import org.insa.graphs.model.Graph;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RoutingEngineTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 53);
+    }
+
+    @Test
+    public void testSubmitAll() throws Exception {
+        List<ShortestPathData> batch = ShortestPathAlgorithmTest.createQueries(graph, 30, 3);
+        try (RoutingEngine engine = new RoutingEngine(graph, DijkstraAlgorithm.class, 4)) {
+            List<Future<ShortestPathSolution>> futures = engine.submitAll(batch);
+            assertEquals(batch.size(), futures.size());
+            for (int i = 0; i < batch.size(); ++i) {
+                ShortestPathSolution solution = futures.get(i).get();
+                assertTrue(solution.getInputData() == batch.get(i));
+                ShortestPathAlgorithmTest.assertSameSolution(
+                        new BellmanFordAlgorithm(batch.get(i)).run(), solution,
+                        batch.get(i).getArcInspector());
+            }
+        }
+    }
+
+    @Test
+    public void testStream() {
+        List<ShortestPathData> batch = ShortestPathAlgorithmTest.createQueries(graph, 30, 5);
+        Map<ShortestPathData, ShortestPathSolution> solutions = new IdentityHashMap<>();
+        try (RoutingEngine engine = new RoutingEngine(graph,
+                BidirectionalDijkstraAlgorithm.class, 4)) {
+            Iterator<ShortestPathSolution> iterator = engine.stream(batch);
+            while (iterator.hasNext()) {
+                ShortestPathSolution solution = iterator.next();
+                solutions.put(solution.getInputData(), solution);
+            }
+            assertFalse(iterator.hasNext());
+        }
+        assertEquals(batch.size(), solutions.size());
+        for (ShortestPathData data: batch) {
+            ShortestPathAlgorithmTest.assertSameSolution(new BellmanFordAlgorithm(data).run(),
+                    solutions.get(data), data.getArcInspector());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOtherGraph() {
+        Graph other = ShortestPathAlgorithmTest.createRandomGraph(10, 20, 1);
+        try (RoutingEngine engine = new RoutingEngine(graph, DijkstraAlgorithm.class, 1)) {
+            engine.submitAll(ShortestPathAlgorithmTest.createQueries(other, 1, 1));
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ArcFlagsTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for preprocessing.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 37);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testQueries() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 30, 23)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new ArcFlagsAlgorithm(data).run(), data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(2);
+        ArcFlags flags = ArcFlags.compute(graph, inspector, 8, pool);
+        assertEquals(8, flags.getRegionCount());
+        File file = File.createTempFile("flags-", ".arcflags");
+        try {
+            flags.write(file);
+            ArcFlags read = ArcFlags.read(file);
+            assertEquals(flags.getRegionCount(), read.getRegionCount());
+            for (int node = 0; node < graph.size(); ++node) {
+                assertEquals(flags.getRegion(node), read.getRegion(node));
+            }
+            for (int region = 0; region < flags.getRegionCount(); ++region) {
+                for (int arc = 0; arc < flags.getArcCount(); ++arc) {
+                    assertEquals(flags.isFlagged(arc, region), read.isFlagged(arc, region));
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testLoadOtherFilter() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("flags-", ".arcflags");
+        try {
+            ArcFlags.compute(graph, inspector, 4, pool).write(file);
+            ArcFlags.load(graph, ArcInspectorFactory.getAllFilters().get(1), file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("flags-", ".arcflags");
+        try {
+            ArcFlags.compute(graph, inspector, 4, pool).write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Cut in the header, in the map id, and in the flags.
+            for (int length: new int[] { 6, 14, bytes.length - 1 }) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                try {
+                    ArcFlags.read(file);
+                    fail("Truncated file of " + length + " bytes was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+}
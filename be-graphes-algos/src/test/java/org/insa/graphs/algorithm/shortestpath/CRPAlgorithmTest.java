@@ -0,0 +1,106 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CRPAlgorithmTest {
+
+    // Maximum cell sizes used by the tests, small enough to have several levels.
+    private static final int[] CELL_SIZES = new int[] { 8, 32, 128 };
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for customization.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(400, 1200, 29);
+        pool = new ForkJoinPool(4);
+
+        // Queries use the partition cached on the graph.
+        graph.getCachedData(MultilevelPartition.class,
+                (g) -> MultilevelPartition.compute(g, CELL_SIZES));
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPartition() {
+        MultilevelPartition partition = MultilevelPartition.compute(graph, CELL_SIZES);
+        assertEquals(CELL_SIZES.length, partition.getLevelCount());
+        for (int level = 0; level < partition.getLevelCount(); ++level) {
+            int[] sizes = new int[partition.getCellCount(level)];
+            for (int node = 0; node < graph.size(); ++node) {
+                sizes[partition.getCell(level, node)]++;
+
+                // Cells are nested.
+                if (level > 0) {
+                    for (int other = 0; other < node; ++other) {
+                        if (partition.getCell(level - 1, other) == partition.getCell(level - 1,
+                                node)) {
+                            assertEquals(partition.getCell(level, other),
+                                    partition.getCell(level, node));
+                        }
+                    }
+                }
+            }
+            for (int size: sizes) {
+                assertTrue(size > 0 && size <= CELL_SIZES[level]);
+            }
+        }
+    }
+
+    @Test
+    public void testWeights() {
+        MultilevelPartition partition = MultilevelPartition.of(graph);
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            OverlayMetric metric = OverlayMetric.customize(graph, partition, inspector, pool);
+            int level = partition.getLevelCount() - 1;
+            for (int cell = 0; cell < partition.getCellCount(level); ++cell) {
+                for (int entry = 0; entry < Math.min(4, partition.getEntryCount(level, cell));
+                        ++entry) {
+                    for (int exit = 0; exit < Math.min(4, partition.getExitCount(level, cell));
+                            ++exit) {
+                        // A weight is at least the cost of the shortest path in the graph.
+                        ShortestPathData data = new ShortestPathData(graph,
+                                graph.get(partition.getEntry(level, cell, entry)),
+                                graph.get(partition.getExit(level, cell, exit)), inspector);
+                        ShortestPathSolution solution = new DijkstraAlgorithm(data).run();
+                        float weight = metric.getWeight(level, cell, entry, exit);
+                        if (!solution.isFeasible()) {
+                            assertTrue(Float.isInfinite(weight));
+                        }
+                        else if (!data.getOrigin().equals(data.getDestination())) {
+                            assertTrue(weight >= ShortestPathAlgorithmTest.getCost(solution,
+                                    inspector) * (1 - 1e-5));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 30, 13)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected, new CRPAlgorithm(data).run(),
+                    data.getArcInspector());
+        }
+    }
+
+}
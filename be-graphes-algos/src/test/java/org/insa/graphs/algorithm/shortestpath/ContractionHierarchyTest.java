@@ -0,0 +1,199 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ContractionHierarchyTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for preprocessing.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(400, 1200, 23);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testHierarchy() {
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.compute(graph, inspector, pool);
+            assertEquals(graph.size(), hierarchy.size());
+            for (int node = 0; node < hierarchy.size(); ++node) {
+                for (int edge = hierarchy.getFirstUpwardEdge(node);
+                        edge < hierarchy.getFirstUpwardEdge(node + 1); ++edge) {
+                    assertEquals(node, hierarchy.getEdgeOrigin(edge));
+                    assertTrue(hierarchy.getRank(hierarchy.getEdgeDestination(edge)) > hierarchy
+                            .getRank(node));
+                }
+                for (int edge = hierarchy.getFirstDownwardEdge(node);
+                        edge < hierarchy.getFirstDownwardEdge(node + 1); ++edge) {
+                    assertEquals(node, hierarchy.getEdgeDestination(edge));
+                    assertTrue(hierarchy.getRank(hierarchy.getEdgeOrigin(edge)) > hierarchy
+                            .getRank(node));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 30, 7)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new ContractionHierarchyAlgorithm(data).run(), data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(2);
+        ContractionHierarchy hierarchy = ContractionHierarchy.compute(graph, inspector, pool);
+        File file = File.createTempFile("hierarchy-", ".ch");
+        try {
+            hierarchy.write(file);
+            ContractionHierarchy read = ContractionHierarchy.read(file);
+            assertEquals(hierarchy.size(), read.size());
+            assertEquals(hierarchy.getEdgeCount(), read.getEdgeCount());
+            assertEquals(hierarchy.getShortcutCount(), read.getShortcutCount());
+            for (int edge = 0; edge < hierarchy.getEdgeCount(); ++edge) {
+                assertEquals(hierarchy.getEdgeOrigin(edge), read.getEdgeOrigin(edge));
+                assertEquals(hierarchy.getEdgeDestination(edge), read.getEdgeDestination(edge));
+                assertEquals(hierarchy.getEdgeCost(edge), read.getEdgeCost(edge), 0);
+                assertEquals(hierarchy.getEdgeArc(edge), read.getEdgeArc(edge));
+            }
+
+            // Loaded hierarchies are used by the queries on the same graph.
+            Graph other = ShortestPathAlgorithmTest.createRandomGraph(400, 1200, 23);
+            ContractionHierarchy loaded = ContractionHierarchy.load(other, inspector, file);
+            assertTrue(loaded == ContractionHierarchy.of(other, inspector));
+            for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(other, 5, 11)) {
+                if (data.getArcInspector() == inspector) {
+                    ShortestPathAlgorithmTest.assertSameSolution(
+                            new BellmanFordAlgorithm(data).run(),
+                            new ContractionHierarchyAlgorithm(data).run(), inspector);
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testLoadOtherFilter() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("hierarchy-", ".ch");
+        try {
+            ContractionHierarchy.compute(graph, inspector, pool).write(file);
+            ContractionHierarchy.load(graph, ArcInspectorFactory.getAllFilters().get(1), file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFilteredShortcut() {
+        // The short way from 0 to 2 goes through a road closed to cars.
+        Graph square = SmallGraphs.create("square", 4,
+                new int[] { 0, 1, 1, SmallGraphs.TWO_WAY },
+                new int[] { 1, 2, 1, SmallGraphs.NO_CARS },
+                new int[] { 0, 3, 5, SmallGraphs.TWO_WAY },
+                new int[] { 3, 2, 5, SmallGraphs.ONE_WAY });
+        List<ArcInspector> inspectors = ArcInspectorFactory.getAllFilters();
+        ShortestPathSolution solution = new ContractionHierarchyAlgorithm(new ShortestPathData(
+                square, square.get(0), square.get(2), inspectors.get(SmallGraphs.ALL_ROADS)))
+                .run();
+        assertEquals(2, ShortestPathAlgorithmTest.getCost(solution,
+                inspectors.get(SmallGraphs.ALL_ROADS)), 1e-6);
+        solution = new ContractionHierarchyAlgorithm(new ShortestPathData(square,
+                square.get(0), square.get(2), inspectors.get(SmallGraphs.CAR_ROADS))).run();
+        assertEquals(10, ShortestPathAlgorithmTest.getCost(solution,
+                inspectors.get(SmallGraphs.CAR_ROADS)), 1e-6);
+        solution = new ContractionHierarchyAlgorithm(new ShortestPathData(square,
+                square.get(2), square.get(0), inspectors.get(SmallGraphs.CAR_ROADS))).run();
+        assertFalse(solution.isFeasible());
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("hierarchy-", ".ch");
+        try {
+            ContractionHierarchy.compute(graph, inspector, pool).write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Cut in the header, in the map id, and in the edges.
+            for (int length: new int[] { 6, 12, bytes.length - 1 }) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                try {
+                    ContractionHierarchy.read(file);
+                    fail("Truncated file of " + length + " bytes was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadBadCounts() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("hierarchy-", ".ch");
+        try {
+            ContractionHierarchy hierarchy = ContractionHierarchy.compute(graph, inspector, pool);
+            hierarchy.write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Numbers of nodes, upward and downward edges, right before the arrays.
+            int position = bytes.length - 12
+                    - 4 * (3 * hierarchy.size() + 2 + 6 * hierarchy.getEdgeCount());
+            for (int[] counts: new int[][] { { 0x55555556, 0, 0 },
+                    { hierarchy.size(), Integer.MAX_VALUE, Integer.MAX_VALUE },
+                    { Integer.MAX_VALUE, 1, 1 } }) {
+                ByteBuffer.wrap(bytes, position, 12).putInt(counts[0]).putInt(counts[1])
+                        .putInt(counts[2]);
+                Files.write(file.toPath(), bytes);
+                try {
+                    ContractionHierarchy.read(file);
+                    fail("File with counts " + Arrays.toString(counts) + " was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class HubLabelsTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for preprocessing.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(250, 750, 31);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDistances() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 30, 17)) {
+            ArcInspector inspector = data.getArcInspector();
+            HubLabels labels = HubLabels.of(graph, inspector);
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            float distance = labels.getDistance(data.getOrigin().getId(),
+                    data.getDestination().getId());
+            if (expected.isFeasible()) {
+                double cost = ShortestPathAlgorithmTest.getCost(expected, inspector);
+                assertEquals(cost, distance, cost * 1e-5);
+            }
+            else {
+                assertTrue(Float.isInfinite(distance));
+            }
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 30, 19)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new HubLabelAlgorithm(data).run(), data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(2);
+        ContractionHierarchy hierarchy = ContractionHierarchy.compute(graph, inspector, pool);
+        HubLabels labels = HubLabels.compute(graph, inspector, hierarchy, pool);
+        File file = File.createTempFile("labels-", ".labels");
+        try {
+            labels.write(file);
+            HubLabels read = HubLabels.read(file);
+            assertEquals(labels.size(), read.size());
+            assertEquals(labels.getDataSize(), read.getDataSize());
+            for (int origin = 0; origin < graph.size(); origin += 7) {
+                assertEquals(labels.getForwardLabelSize(origin), read.getForwardLabelSize(origin));
+                assertEquals(labels.getBackwardLabelSize(origin),
+                        read.getBackwardLabelSize(origin));
+                for (int destination = 0; destination < graph.size(); destination += 11) {
+                    assertEquals(labels.getDistance(origin, destination),
+                            read.getDistance(origin, destination), 0);
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testLoadOtherFilter() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("labels-", ".labels");
+        try {
+            HubLabels.compute(graph, inspector,
+                    ContractionHierarchy.compute(graph, inspector, pool), pool).write(file);
+            HubLabels.load(graph, ArcInspectorFactory.getAllFilters().get(1), file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("labels-", ".labels");
+        try {
+            HubLabels.compute(graph, inspector,
+                    ContractionHierarchy.compute(graph, inspector, pool), pool).write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Cut in the header, in the filter name, and in the labels.
+            for (int length: new int[] { 6, 24, bytes.length - 1 }) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                try {
+                    HubLabels.read(file);
+                    fail("Truncated file of " + length + " bytes was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadDecreasingOffsets() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("labels-", ".labels");
+        try {
+            HubLabels labels = HubLabels.compute(graph, inspector,
+                    ContractionHierarchy.compute(graph, inspector, pool), pool);
+            labels.write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Offset of the forward label of node 1, after the offset of node 0.
+            int position = bytes.length - labels.getDataSize() - 8 * (graph.size() + 1) + 4;
+            ByteBuffer.wrap(bytes, position, 4).putInt(labels.getDataSize() + 1);
+            Files.write(file.toPath(), bytes);
+            try {
+                HubLabels.read(file);
+                fail("File with decreasing offsets was read.");
+            }
+            catch (BadFormatException e) {
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadWithHierarchy() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(1);
+        ContractionHierarchy hierarchy = ContractionHierarchy.compute(graph, inspector, pool);
+        File labelFile = File.createTempFile("labels-", ".labels"),
+                hierarchyFile = File.createTempFile("hierarchy-", ".ch");
+        try {
+            HubLabels.compute(graph, inspector, hierarchy, pool).write(labelFile);
+            hierarchy.write(hierarchyFile);
+
+            Graph other = ShortestPathAlgorithmTest.createRandomGraph(250, 750, 31);
+            List<ShortestPathData> queries = new ArrayList<>();
+            for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(other, 5, 13)) {
+                if (data.getArcInspector() == inspector) {
+                    queries.add(data);
+                }
+            }
+
+            // Paths cannot be rebuilt from the labels alone...
+            HubLabels.load(other, inspector, labelFile);
+            try {
+                new HubLabelAlgorithm(queries.get(0)).run();
+                fail("Labels were used without their hierarchy.");
+            }
+            catch (IllegalStateException e) {
+            }
+
+            // ...but can once their hierarchy is loaded too.
+            ContractionHierarchy.load(other, inspector, hierarchyFile);
+            for (ShortestPathData data: queries) {
+                ShortestPathAlgorithmTest.assertSameSolution(new BellmanFordAlgorithm(data).run(),
+                        new HubLabelAlgorithm(data).run(), inspector);
+            }
+        }
+        finally {
+            labelFile.delete();
+            hierarchyFile.delete();
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.algorithm.shortestpath.LandmarkTable.Selection;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BadFormatException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LandmarkTableTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for preprocessing.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 17);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testLowerBounds() {
+        for (Selection selection: Selection.values()) {
+            for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 10, 3)) {
+                LandmarkTable table = LandmarkTable.compute(graph, data.getArcInspector(), 8,
+                        selection, pool);
+                assertTrue(table.getLandmarkCount() > 0);
+                assertEquals(graph.size(), table.getNodeCount());
+
+                ShortestPathSolution solution = new BellmanFordAlgorithm(data).run();
+                float bound = table.getLowerBound(data.getOrigin().getId(),
+                        data.getDestination().getId());
+                assertTrue(bound >= 0);
+                if (solution.isFeasible()) {
+                    double cost = ShortestPathAlgorithmTest.getCost(solution,
+                            data.getArcInspector());
+                    assertTrue(bound <= cost * (1 + 1e-5));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testALT() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 20, 5)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected, new ALTAlgorithm(data).run(),
+                    data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(2);
+        LandmarkTable table = LandmarkTable.compute(graph, inspector, 4, Selection.FARTHEST,
+                pool);
+        File file = File.createTempFile("landmarks-", ".landmarks");
+        try {
+            table.write(file);
+            LandmarkTable read = LandmarkTable.read(file);
+            assertEquals(table.getLandmarkCount(), read.getLandmarkCount());
+            for (int k = 0; k < table.getLandmarkCount(); ++k) {
+                assertEquals(table.getLandmark(k), read.getLandmark(k));
+                for (int node = 0; node < graph.size(); ++node) {
+                    assertEquals(table.getDistanceFromLandmark(k, node),
+                            read.getDistanceFromLandmark(k, node), 0);
+                    assertEquals(table.getDistanceToLandmark(k, node),
+                            read.getDistanceToLandmark(k, node), 0);
+                }
+            }
+
+            // Loaded tables are used by the queries on the same graph.
+            Graph other = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 17);
+            LandmarkTable loaded = LandmarkTable.load(other, inspector, file);
+            assertTrue(loaded == LandmarkTable.of(other, inspector));
+            for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(other, 5, 9)) {
+                if (data.getArcInspector() == inspector) {
+                    ShortestPathAlgorithmTest.assertSameSolution(
+                            new BellmanFordAlgorithm(data).run(), new ALTAlgorithm(data).run(),
+                            inspector);
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testLoadOtherFilter() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        File file = File.createTempFile("landmarks-", ".landmarks");
+        try {
+            LandmarkTable.compute(graph, inspector, 2, Selection.AVOID, pool).write(file);
+            LandmarkTable.load(graph, ArcInspectorFactory.getAllFilters().get(1), file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testLoadOtherMap() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(SmallGraphs.ALL_ROADS);
+        Graph line = SmallGraphs.create("line", 3, new int[] { 0, 1, 1, SmallGraphs.TWO_WAY },
+                new int[] { 1, 2, 1, SmallGraphs.TWO_WAY });
+        File file = File.createTempFile("landmarks-", ".landmarks");
+        try {
+            LandmarkTable.compute(line, inspector, 2, Selection.FARTHEST, pool).write(file);
+            LandmarkTable.load(graph, inspector, file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(SmallGraphs.ALL_ROADS);
+        File file = File.createTempFile("landmarks-", ".landmarks");
+        try {
+            LandmarkTable.compute(graph, inspector, 2, Selection.FARTHEST, pool).write(file);
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            // Cut in the header, and in the distances.
+            for (int length: new int[] { 6, bytes.length - 1 }) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                try {
+                    LandmarkTable.read(file);
+                    fail("Truncated file of " + length + " bytes was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+import org.insa.graphs.model.RoadInformation.RoadType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ReachBoundsTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    // Pool used for preprocessing.
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 41);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        pool.shutdown();
+    }
+
+    /**
+     * Create a graph of villages about a kilometer apart along a road, each made
+     * of a node of the road and of two dead-end streets going north and south.
+     */
+    private static Graph createVillages(int nbVillages, int streetLength) {
+        int nbNodes = nbVillages * (1 + 2 * streetLength);
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, nbNodes - 1);
+        EnumMap<AccessMode, AccessRestriction> access = new EnumMap<>(AccessMode.class);
+        for (AccessMode mode: AccessMode.values()) {
+            access.put(mode, AccessRestriction.ALLOWED);
+        }
+        builder.setDescriptors(new RoadInformation[] { new RoadInformation(
+                RoadType.UNCLASSIFIED, new AccessRestrictions(access), false, 50, "Road") });
+        Point[] points = new Point[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            int village = node / (1 + 2 * streetLength), index = node % (1 + 2 * streetLength);
+            int offset = index == 0 ? 0 : index <= streetLength ? index : streetLength - index;
+            points[node] = new Point(1.4f + village * 0.0125f, 43.5f + offset * 0.001f);
+            builder.addNode(points[node]);
+        }
+        for (int node = 1; node < nbNodes; ++node) {
+            int index = node % (1 + 2 * streetLength);
+            int previous = index == 0 ? node - 1 - 2 * streetLength
+                    : index == streetLength + 1 ? node - index : node - 1;
+            builder.addRoad(previous, node,
+                    (float) (1.1 * Point.distance(points[previous], points[node])), 0,
+                    Arrays.asList(points[previous], points[node]));
+        }
+        return new Graph("villages", "", builder.build(), null);
+    }
+
+    /**
+     * @return Number of nodes marked by the given algorithm.
+     */
+    private static int countMarked(ShortestPathAlgorithm algorithm) {
+        final int[] count = { 0 };
+        algorithm.addObserver(new ShortestPathObserver() {
+            @Override
+            public void notifyOriginProcessed(Node node) {
+            }
+
+            @Override
+            public void notifyNodeReached(Node node) {
+            }
+
+            @Override
+            public void notifyNodeMarked(Node node) {
+                count[0]++;
+            }
+
+            @Override
+            public void notifyDestinationReached(Node node) {
+            }
+        });
+        assertTrue(algorithm.run().isFeasible());
+        return count[0];
+    }
+
+    /**
+     * Check that the bounds cover the reach of the nodes of the shortest paths of
+     * the given queries.
+     */
+    private static void checkBounds(List<ShortestPathData> queries, float horizonFactor) {
+        for (ShortestPathData data: queries) {
+            Graph graph = data.getGraph();
+            ArcInspector inspector = data.getArcInspector();
+            float horizon = horizonFactor * ReachBounds.getDefaultHorizon(graph, inspector)
+                    / ReachBounds.DEFAULT_HORIZON_FACTOR;
+            ReachBounds bounds = ReachBounds.compute(graph, inspector, horizon, pool);
+            ShortestPathSolution solution = new BellmanFordAlgorithm(data).run();
+            if (!solution.isFeasible()) {
+                continue;
+            }
+            double total = ShortestPathAlgorithmTest.getCost(solution, inspector), cost = 0;
+            for (Arc arc: solution.getPath().getArcs()) {
+                cost += inspector.getCost(arc);
+                int node = arc.getDestination().getId();
+                assertTrue(bounds.getReach(node) >= Math.min(cost, total - cost) * (1 - 1e-5));
+            }
+        }
+    }
+
+    @Test
+    public void testExactBounds() {
+        checkBounds(ShortestPathAlgorithmTest.createQueries(graph, 10, 3),
+                Float.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testPartialBounds() {
+        checkBounds(ShortestPathAlgorithmTest.createQueries(graph, 10, 5), 2);
+        checkBounds(ShortestPathAlgorithmTest.createQueries(createVillages(20, 4), 10, 5),
+                ReachBounds.DEFAULT_HORIZON_FACTOR);
+    }
+
+    @Test
+    public void testQueries() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 20, 7)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new ReachDijkstraAlgorithm(data).run(), data.getArcInspector());
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new ReachAStarAlgorithm(data).run(), data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testPartialQueries() {
+        // Queries use the bounds cached on the graph.
+        Graph other = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 41);
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(other, 20, 9)) {
+            ArcInspector inspector = data.getArcInspector();
+            other.getCachedData(inspector, ReachBounds.class,
+                    (g) -> ReachBounds.compute(g, inspector,
+                            ReachBounds.getDefaultHorizon(g, inspector) / 8, pool));
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            ShortestPathAlgorithmTest.assertSameSolution(expected,
+                    new ReachDijkstraAlgorithm(data).run(), inspector);
+        }
+    }
+
+    @Test
+    public void testPrunedSearch() {
+        // The graph is much wider than the default horizon, but only the road has
+        // a large reach.
+        Graph villages = createVillages(20, 4);
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(0);
+        ReachBounds bounds = ReachBounds.of(villages, inspector);
+        int nbFinite = 0;
+        for (int node = 0; node < bounds.size(); ++node) {
+            nbFinite += Float.isInfinite(bounds.getReach(node)) ? 0 : 1;
+        }
+        assertTrue(nbFinite > bounds.size() * 3 / 4);
+
+        ShortestPathData data = new ShortestPathData(villages, villages.get(4),
+                villages.get(villages.size() - 1), inspector);
+        ShortestPathAlgorithmTest.assertSameSolution(new BellmanFordAlgorithm(data).run(),
+                new ReachDijkstraAlgorithm(data).run(), inspector);
+        assertTrue(countMarked(new ReachDijkstraAlgorithm(data)) < countMarked(
+                new DijkstraAlgorithm(data)) / 2);
+    }
+
+}
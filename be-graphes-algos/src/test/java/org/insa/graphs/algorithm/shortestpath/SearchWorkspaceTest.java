@@ -0,0 +1,59 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SearchWorkspaceTest {
+
+    @Test
+    public void testReset() {
+        SearchWorkspace workspace = new SearchWorkspace(10);
+        workspace.setLabel(3, 2.5f, 7);
+        workspace.settle(3);
+        workspace.setLabel(4, 1, 8);
+        workspace.getQueue().insert(4, 1);
+        assertTrue(workspace.isSettled(3));
+        assertFalse(workspace.isSettled(4));
+        assertEquals(2.5f, workspace.getDistance(3), 0);
+        assertEquals(8, workspace.getParent(4));
+
+        workspace.reset();
+        for (int node = 0; node < 10; ++node) {
+            assertFalse(workspace.isReached(node));
+            assertFalse(workspace.isSettled(node));
+            assertEquals(Float.POSITIVE_INFINITY, workspace.getDistance(node), 0);
+            assertEquals(-1, workspace.getParent(node));
+        }
+        assertTrue(workspace.getQueue().isEmpty());
+        assertFalse(workspace.getQueue().wasInserted(4));
+
+        // A node reached again is not settled anymore.
+        workspace.setLabel(3, 1, 2);
+        assertTrue(workspace.isReached(3));
+        assertFalse(workspace.isSettled(3));
+    }
+
+    @Test
+    public void testPool() {
+        SearchWorkspace first = SearchWorkspace.acquire(10);
+        SearchWorkspace second = SearchWorkspace.acquire(10);
+        assertNotSame(first, second);
+        first.setLabel(1, 1, -1);
+        first.release();
+
+        SearchWorkspace reused = SearchWorkspace.acquire(5);
+        assertSame(first, reused);
+        assertFalse(reused.isReached(1));
+
+        // Workspaces too small are not reused.
+        reused.release();
+        assertTrue(SearchWorkspace.acquire(20).getCapacity() >= 20);
+        second.release();
+    }
+
+}
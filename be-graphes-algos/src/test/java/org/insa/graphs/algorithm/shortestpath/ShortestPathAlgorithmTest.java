@@ -0,0 +1,202 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+import org.insa.graphs.algorithm.AbstractSolution.Status;
+import org.insa.graphs.algorithm.AlgorithmFactory;
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+import org.insa.graphs.model.RoadInformation.RoadType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ShortestPathAlgorithmTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    /**
+     * Create a random graph whose arcs are at least as long as the distance
+     * between their extremities, with speeds of at most 100 km/h.
+     *
+     * @param nbNodes Number of nodes of the graph.
+     * @param nbRoads Number of roads of the graph.
+     * @param seed Seed of the random generator.
+     *
+     * @return A new random graph.
+     */
+    public static Graph createRandomGraph(int nbNodes, int nbRoads, long seed) {
+        Random random = new Random(seed);
+        RoadInformation[] descriptors = new RoadInformation[10];
+        AccessRestriction[] restrictions = AccessRestriction.values();
+        for (int i = 0; i < descriptors.length; ++i) {
+            EnumMap<AccessMode, AccessRestriction> access = new EnumMap<>(AccessMode.class);
+            for (AccessMode mode: AccessMode.values()) {
+                access.put(mode, restrictions[random.nextInt(restrictions.length)]);
+            }
+            descriptors[i] = new RoadInformation(RoadType.UNCLASSIFIED,
+                    new AccessRestrictions(access), random.nextInt(3) == 0,
+                    10 + 5 * random.nextInt(19), "Road " + i);
+        }
+
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, nbRoads);
+        Point[] points = new Point[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            points[node] = new Point(1.4f + random.nextFloat() * 0.1f,
+                    43.5f + random.nextFloat() * 0.1f);
+            builder.addNode(points[node]);
+        }
+        builder.setDescriptors(descriptors);
+        for (int road = 0; road < nbRoads; ++road) {
+            int origin = random.nextInt(nbNodes), destination = random.nextInt(nbNodes);
+            float length = (float) (Point.distance(points[origin], points[destination])
+                    * (1 + random.nextFloat()));
+            builder.addRoad(origin, destination, length, random.nextInt(descriptors.length),
+                    Arrays.asList(points[origin], points[destination]));
+        }
+        return new Graph("random-" + seed, "", builder.build(), null);
+    }
+
+    /**
+     * @return Cost of the given path for the given inspector.
+     */
+    public static double getCost(ShortestPathSolution solution, ArcInspector inspector) {
+        double cost = 0;
+        for (Arc arc: solution.getPath().getArcs()) {
+            assertTrue(inspector.isAllowed(arc));
+            cost += inspector.getCost(arc);
+        }
+        return cost;
+    }
+
+    /**
+     * Check that the two solutions are both infeasible, or both optimal with the
+     * same cost.
+     */
+    public static void assertSameSolution(ShortestPathSolution expected,
+            ShortestPathSolution actual, ArcInspector inspector) {
+        assertEquals(expected.isFeasible(), actual.isFeasible());
+        if (expected.isFeasible()) {
+            assertEquals(Status.OPTIMAL, actual.getStatus());
+            assertTrue(actual.getPath().isValid());
+            assertEquals(expected.getInputData().getOrigin(), actual.getPath().getOrigin());
+            double cost = getCost(expected, inspector);
+            assertEquals(cost, getCost(actual, inspector), 1e-4 * cost);
+        }
+    }
+
+    /**
+     * @return Random queries for the given graph, for all the filters.
+     */
+    public static List<ShortestPathData> createQueries(Graph graph, int nbQueries, long seed) {
+        Random random = new Random(seed);
+        List<ShortestPathData> queries = new ArrayList<>();
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            for (int i = 0; i < nbQueries; ++i) {
+                queries.add(new ShortestPathData(graph, graph.get(random.nextInt(graph.size())),
+                        graph.get(random.nextInt(graph.size())), inspector));
+            }
+        }
+        return queries;
+    }
+
+    @BeforeClass
+    public static void initAll() {
+        graph = createRandomGraph(300, 900, 42);
+    }
+
+    @Test
+    public void testCostTable() {
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            ArcCostTable table = ArcCostTable.of(graph, inspector);
+            assertTrue(table == ArcCostTable.of(graph, inspector));
+            CompactGraph compact = graph.getCompactGraph();
+            assertEquals(compact.getArcCount(), table.size());
+            int nbAllowed = 0;
+            for (int arc = 0; arc < compact.getArcCount(); ++arc) {
+                Arc object = compact.getArc(arc);
+                assertEquals(inspector.isAllowed(object), table.isAllowed(arc));
+                if (table.isAllowed(arc)) {
+                    assertEquals(inspector.getCost(object), table.getCost(arc), 1e-3);
+                    nbAllowed++;
+                }
+                else {
+                    assertEquals(Float.POSITIVE_INFINITY, table.getCost(arc), 0);
+                }
+            }
+            assertEquals(nbAllowed, table.getAllowedCount());
+        }
+    }
+
+    @Test
+    public void testDijkstraAndAStar() {
+        for (ShortestPathData data: createQueries(graph, 20, 7)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            assertSameSolution(expected, new DijkstraAlgorithm(data).run(),
+                    data.getArcInspector());
+            assertSameSolution(expected, new AStarAlgorithm(data).run(), data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testBidirectional() {
+        for (ShortestPathData data: createQueries(graph, 20, 13)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            assertSameSolution(expected, new BidirectionalDijkstraAlgorithm(data).run(),
+                    data.getArcInspector());
+            assertSameSolution(expected, new BidirectionalAStarAlgorithm(data).run(),
+                    data.getArcInspector());
+        }
+    }
+
+    @Test
+    public void testQueueTypes() {
+        for (ShortestPathData data: createQueries(graph, 20, 11)) {
+            ShortestPathSolution expected = new BellmanFordAlgorithm(data).run();
+            for (ShortestPathAlgorithm.QueueType queueType: ShortestPathAlgorithm.QueueType
+                    .values()) {
+                for (ShortestPathAlgorithm algorithm: new ShortestPathAlgorithm[] {
+                        new DijkstraAlgorithm(data), new AStarAlgorithm(data) }) {
+                    algorithm.setQueueType(queueType);
+                    assertSameSolution(expected, algorithm.run(), data.getArcInspector());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameOriginAndDestination() throws Exception {
+        for (String name: AlgorithmFactory.getAlgorithmNames(ShortestPathAlgorithm.class)) {
+            for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+                for (int node = 0; node < graph.size(); node += 100) {
+                    ShortestPathData data = new ShortestPathData(graph, graph.get(node),
+                            graph.get(node), inspector);
+                    ShortestPathSolution solution = (ShortestPathSolution) AlgorithmFactory
+                            .createAlgorithm(AlgorithmFactory.getAlgorithmClass(
+                                    ShortestPathAlgorithm.class, name), data)
+                            .run();
+                    assertEquals(name, Status.OPTIMAL, solution.getStatus());
+                    assertTrue(name, solution.getPath().getArcs().isEmpty());
+                    assertEquals(name, graph.get(node), solution.getPath().getOrigin());
+                }
+            }
+        }
+    }
+
+}
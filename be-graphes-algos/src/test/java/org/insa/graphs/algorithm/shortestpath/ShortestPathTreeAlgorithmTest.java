@@ -0,0 +1,176 @@
+package org.insa.graphs.algorithm.shortestpath;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Path;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ShortestPathTreeAlgorithmTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(300, 900, 47);
+    }
+
+    @Test
+    public void testTree() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 20, 13)) {
+            ArcInspector inspector = data.getArcInspector();
+            ShortestPathTreeSolution tree = new ShortestPathTreeAlgorithm(
+                    new ShortestPathTreeData(graph, data.getOrigin(), inspector)).run();
+            ShortestPathSolution expected = new DijkstraAlgorithm(data).run();
+            int destination = data.getDestination().getId();
+            assertEquals(expected.isFeasible(), tree.isReached(destination));
+            assertEquals(0, tree.getDistance(data.getOrigin().getId()), 0);
+            if (!expected.isFeasible()) {
+                assertNull(tree.getPath(data.getDestination()));
+                continue;
+            }
+            double cost = ShortestPathAlgorithmTest.getCost(expected, inspector);
+            assertEquals(cost, tree.getDistance(destination), 1e-2);
+
+            Path path = tree.getPath(data.getDestination());
+            assertTrue(path.isValid());
+            assertEquals(data.getOrigin(), path.getOrigin());
+            assertEquals(data.getDestination(), path.getDestination());
+            double pathCost = 0;
+            for (Arc arc: path.getArcs()) {
+                pathCost += inspector.getCost(arc);
+            }
+            assertEquals(cost, pathCost, 1e-2);
+        }
+    }
+
+    @Test
+    public void testMaximumCost() {
+        for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 10, 17)) {
+            ShortestPathTreeSolution full = new ShortestPathTreeAlgorithm(
+                    new ShortestPathTreeData(graph, data.getOrigin(), data.getArcInspector()))
+                            .run();
+            float maximumCost = full.getDistance(data.getDestination().getId());
+            if (Float.isInfinite(maximumCost)) {
+                continue;
+            }
+            ShortestPathTreeSolution bounded = new ShortestPathTreeAlgorithm(
+                    new ShortestPathTreeData(graph, data.getOrigin(), data.getArcInspector(),
+                            maximumCost)).run();
+            for (int node = 0; node < graph.size(); ++node) {
+                if (full.getDistance(node) <= maximumCost) {
+                    assertEquals(full.getDistance(node), bounded.getDistance(node), 0);
+                }
+                else {
+                    assertFalse(bounded.isReached(node));
+                    assertEquals(-1, bounded.getPredecessorArc(node));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeltaStepping() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (ShortestPathData data: ShortestPathAlgorithmTest.createQueries(graph, 10, 19)) {
+                ArcInspector inspector = data.getArcInspector();
+                ShortestPathTreeSolution expected = new ShortestPathTreeAlgorithm(
+                        new ShortestPathTreeData(graph, data.getOrigin(), inspector)).run();
+                float maximumCost = expected.getDistance(data.getDestination().getId());
+                for (float delta: new float[] { 0, 1, 50, 1e6f }) {
+                    ShortestPathTreeSolution tree = new DeltaSteppingAlgorithm(
+                            new ShortestPathTreeData(graph, data.getOrigin(), inspector),
+                            delta, pool).run();
+                    assertArrayEquals(expected.getDistances(), tree.getDistances(), 0);
+                    for (int node = 0; node < graph.size(); ++node) {
+                        int arc = tree.getPredecessorArc(node);
+                        if (arc >= 0) {
+                            assertEquals(tree.getDistance(node),
+                                    tree.getDistance(graph.getCompactGraph().getArcOrigin(arc))
+                                            + inspector.getCost(graph.getCompactGraph()
+                                                    .getArc(arc)),
+                                    1e-2);
+                        }
+                    }
+                }
+                if (Float.isInfinite(maximumCost)) {
+                    continue;
+                }
+                ShortestPathTreeSolution bounded = new DeltaSteppingAlgorithm(
+                        new ShortestPathTreeData(graph, data.getOrigin(), inspector,
+                                maximumCost),
+                        0, pool).run();
+                for (int node = 0; node < graph.size(); ++node) {
+                    assertEquals(expected.getDistance(node) <= maximumCost,
+                            bounded.isReached(node));
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeltaSteppingSmallGraphs() {
+        // The direct road 0 - 1 is longer than the path through 2 and 3, 5 can only
+        // be reached from 1, and 4 is isolated.
+        Graph small = SmallGraphs.create("small", 6,
+                new int[] { 0, 1, 10, SmallGraphs.TWO_WAY },
+                new int[] { 0, 2, 2, SmallGraphs.TWO_WAY },
+                new int[] { 2, 3, 1, SmallGraphs.TWO_WAY },
+                new int[] { 3, 1, 2, SmallGraphs.TWO_WAY },
+                new int[] { 1, 5, 4, SmallGraphs.ONE_WAY });
+        Graph single = SmallGraphs.create("single", 1);
+        ArcInspector inspector = ArcInspectorFactory.getAllFilters().get(SmallGraphs.ALL_ROADS);
+        final float inf = Float.POSITIVE_INFINITY;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Deltas of 0 (default), smaller than every arc, and larger than the
+            // whole graph so that all nodes go through a single bucket.
+            for (float delta: new float[] { 0, 0.5f, 1e6f }) {
+                ShortestPathTreeSolution tree = new DeltaSteppingAlgorithm(
+                        new ShortestPathTreeData(small, small.get(0), inspector), delta, pool)
+                        .run();
+                assertArrayEquals(new float[] { 0, 5, 2, 3, inf, 9 }, tree.getDistances(), 0);
+                assertEquals(3, small.getCompactGraph().getArcOrigin(tree.getPredecessorArc(1)));
+                assertFalse(tree.isReached(4));
+                assertEquals(-1, tree.getPredecessorArc(0));
+
+                tree = new DeltaSteppingAlgorithm(
+                        new ShortestPathTreeData(small, small.get(5), inspector), delta, pool)
+                        .run();
+                assertEquals(1, tree.getReachedCount());
+
+                tree = new DeltaSteppingAlgorithm(
+                        new ShortestPathTreeData(small, small.get(0), inspector, 3), delta,
+                        pool).run();
+                assertArrayEquals(new float[] { 0, inf, 2, 3, inf, inf }, tree.getDistances(),
+                        0);
+
+                tree = new DeltaSteppingAlgorithm(
+                        new ShortestPathTreeData(single, single.get(0), inspector), delta, pool)
+                        .run();
+                assertArrayEquals(new float[] { 0 }, tree.getDistances(), 0);
+                assertEquals(-1, tree.getPredecessorArc(0));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+}
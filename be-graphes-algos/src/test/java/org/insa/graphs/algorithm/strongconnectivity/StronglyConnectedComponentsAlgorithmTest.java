@@ -0,0 +1,175 @@
+package org.insa.graphs.algorithm.strongconnectivity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.insa.graphs.algorithm.ArcCostTable;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.algorithm.shortestpath.DijkstraAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithmTest;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathSolution;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeSolution;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StronglyConnectedComponentsAlgorithmTest {
+
+    // Random graph used by the tests.
+    private static Graph graph;
+
+    @BeforeClass
+    public static void initAll() {
+        graph = ShortestPathAlgorithmTest.createRandomGraph(400, 700, 53);
+    }
+
+    @Test
+    public void testComponents() {
+        CompactGraph compact = graph.getCompactGraph();
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            StronglyConnectedComponentsSolution solution =
+                    new StronglyConnectedComponentsAlgorithm(
+                            new StronglyConnectedComponentsData(graph, inspector)).run();
+            ArcCostTable costs = ArcCostTable.of(graph, inspector);
+
+            // Two nodes are in the same component if and only if each one reaches
+            // the other.
+            ShortestPathTreeSolution[] trees = new ShortestPathTreeSolution[graph.size()];
+            for (int node = 0; node < graph.size(); ++node) {
+                trees[node] = new ShortestPathTreeAlgorithm(
+                        new ShortestPathTreeData(graph, graph.get(node), inspector)).run();
+            }
+            for (int first = 0; first < graph.size(); ++first) {
+                for (int second = 0; second < graph.size(); ++second) {
+                    assertEquals(
+                            trees[first].isReached(second) && trees[second].isReached(first),
+                            solution.getComponentId(first) == solution.getComponentId(second));
+                }
+            }
+
+            // Components are numbered in reverse topological order.
+            for (int arc = 0; arc < compact.getArcCount(); ++arc) {
+                if (costs.isAllowed(arc)) {
+                    assertTrue(solution.getComponentId(compact.getArcOrigin(arc)) >= solution
+                            .getComponentId(compact.getArcDestination(arc)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargestComponent() {
+        for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+            StronglyConnectedSubgraph subgraph = StronglyConnectedSubgraph.of(graph, inspector);
+            assertTrue(subgraph == StronglyConnectedSubgraph.of(graph, inspector));
+            Graph restricted = subgraph.getGraph();
+            assertEquals(subgraph.size(), restricted.size());
+
+            int nbInside = 0;
+            for (Node node: graph.getNodes()) {
+                Node inside = subgraph.getSubgraphNode(node);
+                if (inside == null) {
+                    assertEquals(-1, subgraph.getSubgraphId(node.getId()));
+                    continue;
+                }
+                nbInside += 1;
+                assertEquals(node, subgraph.getOriginalNode(inside));
+                assertEquals(node.getPoint(), inside.getPoint());
+            }
+            assertEquals(subgraph.size(), nbInside);
+
+            // Every node reaches every other node, at the same cost as in the
+            // original graph.
+            if (restricted.size() < 2) {
+                continue;
+            }
+            List<ShortestPathData> queries = ShortestPathAlgorithmTest.createQueries(restricted,
+                    30, 59);
+            for (ShortestPathData query: queries) {
+                if (query.getArcInspector() != inspector) {
+                    continue;
+                }
+                ShortestPathSolution solution = new DijkstraAlgorithm(query).run();
+                assertTrue(solution.isFeasible());
+                ShortestPathSolution expected = new DijkstraAlgorithm(new ShortestPathData(graph,
+                        subgraph.getOriginalNode(query.getOrigin()),
+                        subgraph.getOriginalNode(query.getDestination()), inspector)).run();
+                assertEquals(ShortestPathAlgorithmTest.getCost(expected, inspector),
+                        ShortestPathAlgorithmTest.getCost(solution, inspector), 1e-2);
+            }
+        }
+    }
+
+    /**
+     * @return IDs of the nodes of each component of the given solution.
+     */
+    private static Set<List<Integer>> getComponents(StronglyConnectedComponentsSolution solution) {
+        Set<List<Integer>> components = new HashSet<>();
+        for (int component = 0; component < solution.getComponentCount(); ++component) {
+            List<Integer> ids = new ArrayList<>();
+            for (Node node: solution.getComponent(component)) {
+                ids.add(node.getId());
+            }
+            components.add(ids);
+        }
+        return components;
+    }
+
+    @Test
+    public void testSmallGraphs() {
+        ArcInspector allRoads = ArcInspectorFactory.getAllFilters().get(SmallGraphs.ALL_ROADS);
+        ArcInspector carRoads = ArcInspectorFactory.getAllFilters().get(SmallGraphs.CAR_ROADS);
+
+        Graph single = SmallGraphs.create("single", 1);
+        StronglyConnectedComponentsSolution solution = new StronglyConnectedComponentsAlgorithm(
+                new StronglyConnectedComponentsData(single, allRoads)).run();
+        assertEquals(1, solution.getComponentCount());
+        assertEquals(0, solution.getLargestComponent());
+        StronglyConnectedSubgraph subgraph = StronglyConnectedSubgraph.of(single, allRoads);
+        assertEquals(1, subgraph.size());
+        assertEquals(0, subgraph.getOriginalId(0));
+
+        // One-way cycle 1 -> 2 -> 3 -> 1 with a one-way tail 3 -> 4, linked to 0 by a
+        // road closed to cars, and an isolated node 5.
+        Graph small = SmallGraphs.create("small", 6,
+                new int[] { 1, 2, 1, SmallGraphs.ONE_WAY },
+                new int[] { 2, 3, 1, SmallGraphs.ONE_WAY },
+                new int[] { 3, 1, 2, SmallGraphs.ONE_WAY },
+                new int[] { 3, 4, 1, SmallGraphs.ONE_WAY },
+                new int[] { 0, 1, 1, SmallGraphs.NO_CARS });
+        solution = new StronglyConnectedComponentsAlgorithm(
+                new StronglyConnectedComponentsData(small, allRoads)).run();
+        assertEquals(Set.of(List.of(0, 1, 2, 3), List.of(4), List.of(5)),
+                getComponents(solution));
+        assertEquals(solution.getComponentId(0), solution.getLargestComponent());
+        subgraph = StronglyConnectedSubgraph.of(small, allRoads);
+        assertEquals(4, subgraph.size());
+        assertEquals(5, subgraph.getGraph().getCompactGraph().getArcCount());
+        assertEquals(-1, subgraph.getSubgraphId(4));
+
+        solution = new StronglyConnectedComponentsAlgorithm(
+                new StronglyConnectedComponentsData(small, carRoads)).run();
+        assertEquals(Set.of(List.of(0), List.of(1, 2, 3), List.of(4), List.of(5)),
+                getComponents(solution));
+        assertEquals(solution.getComponentId(1), solution.getLargestComponent());
+        subgraph = StronglyConnectedSubgraph.of(small, carRoads);
+        assertEquals(3, subgraph.size());
+        assertEquals(3, subgraph.getGraph().getCompactGraph().getArcCount());
+        for (int node = 0; node < subgraph.size(); ++node) {
+            assertEquals(node + 1, subgraph.getOriginalId(node));
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.insa.graphs.algorithm.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DaryHeapTest extends PriorityQueueTest {
+
+    @Override
+    public PriorityQueue<MutableInteger> createQueue() {
+        return new DaryHeap<>();
+    }
+
+    @Override
+    public PriorityQueue<MutableInteger> createQueue(PriorityQueue<MutableInteger> queue) {
+        return new DaryHeap<>((DaryHeap<MutableInteger>) queue);
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        final int nbElements = parameters.data.length;
+        Random random = new Random(nbElements);
+        for (int arity: new int[] { 2, 4, 8 }) {
+            for (boolean indexed: new boolean[] { false, true }) {
+                // Elements are identified by their position in the parameters.
+                MutableInteger[] data = new MutableInteger[nbElements];
+                for (int i = 0; i < nbElements; ++i) {
+                    data[i] = new MutableInteger(parameters.data[i].get());
+                }
+                DaryHeap<MutableInteger> heap = new DaryHeap<>(arity,
+                        indexed ? (x) -> Arrays.asList(data).indexOf(x) : null, nbElements);
+                for (MutableInteger x: data) {
+                    heap.insert(x);
+                }
+                for (MutableInteger x: data) {
+                    assertTrue(heap.contains(x));
+                    x.set(x.get() - random.nextInt(100));
+                    heap.decreaseKey(x);
+                }
+                assertFalse(heap.contains(new MutableInteger(0)));
+
+                int[] expected = Arrays.stream(data).mapToInt(MutableInteger::get).sorted()
+                        .toArray();
+                for (int value: expected) {
+                    assertEquals(value, heap.deleteMin().get());
+                }
+                assertTrue(heap.isEmpty());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidArity() {
+        new DaryHeap<MutableInteger>(3);
+    }
+
+}
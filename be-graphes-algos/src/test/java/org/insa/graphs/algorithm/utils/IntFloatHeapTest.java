@@ -0,0 +1,84 @@
+package org.insa.graphs.algorithm.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntFloatHeapTest {
+
+    // Number of elements of the heaps.
+    private static final int CAPACITY = 500;
+
+    /**
+     * Check that the given heap contains exactly the elements whose key is not
+     * NaN in the given array, and remove them in increasing order of keys.
+     */
+    private static void assertDeleteInOrder(IntFloatHeap heap, float[] keys) {
+        float[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int nbElements = 0;
+        while (nbElements < sorted.length && !Float.isNaN(sorted[nbElements])) {
+            ++nbElements;
+        }
+        assertEquals(nbElements, heap.size());
+        for (int i = 0; i < nbElements; ++i) {
+            assertEquals(sorted[i], heap.findMinKey(), 0);
+            int element = heap.deleteMin();
+            assertEquals(sorted[i], keys[element], 0);
+            assertFalse(heap.contains(element));
+            assertTrue(heap.wasInserted(element));
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testInsertDecreaseRemove() {
+        Random random = new Random(CAPACITY);
+        IntFloatHeap heap = new IntFloatHeap(CAPACITY);
+        for (int round = 0; round < 3; ++round) {
+            float[] keys = new float[CAPACITY];
+            Arrays.fill(keys, Float.NaN);
+            for (int i = 0; i < CAPACITY / 2; ++i) {
+                int element = random.nextInt(CAPACITY);
+                float key = random.nextFloat() * 1000;
+                if (heap.contains(element)) {
+                    key = Math.min(key, heap.getKey(element));
+                }
+                heap.insertOrDecreaseKey(element, key);
+                keys[element] = key;
+                assertEquals(key, heap.getKey(element), 0);
+            }
+            for (int element = 0; element < CAPACITY; element += 7) {
+                if (heap.contains(element)) {
+                    heap.remove(element);
+                    keys[element] = Float.NaN;
+                }
+            }
+            assertDeleteInOrder(heap, keys);
+
+            heap.clear();
+            for (int element = 0; element < CAPACITY; ++element) {
+                assertFalse(heap.wasInserted(element));
+            }
+        }
+    }
+
+    @Test(expected = ElementNotFoundException.class)
+    public void testDecreaseKeyNotFound() {
+        IntFloatHeap heap = new IntFloatHeap(CAPACITY);
+        heap.insert(1, 1);
+        heap.deleteMin();
+        heap.decreaseKey(1, 0);
+    }
+
+    @Test(expected = EmptyPriorityQueueException.class)
+    public void testEmptyDeleteMin() {
+        new IntFloatHeap(CAPACITY).deleteMin();
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.insa.graphs.algorithm.weakconnectivity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.algorithm.SmallGraphs;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithmTest;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.junit.Test;
+
+public class WeaklyConnectedComponentsAlgorithmTest {
+
+    @Test
+    public void testUnionFind() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Sparse graphs have many components, the last one is large enough to
+            // be split between tasks.
+            for (int[] size: new int[][] { { 50, 30 }, { 300, 200 }, { 20000, 12000 } }) {
+                Graph graph = ShortestPathAlgorithmTest.createRandomGraph(size[0], size[1], 31);
+                WeaklyConnectedComponentsData data = new WeaklyConnectedComponentsData(graph);
+                WeaklyConnectedComponentsSolution expected = new WeaklyConnectedComponentsAlgorithm(
+                        data).run();
+                WeaklyConnectedComponentsSolution solution =
+                        new UnionFindWeaklyConnectedComponentsAlgorithm(data, pool).run();
+
+                assertEquals(expected.getComponentCount(), solution.getComponentCount());
+                assertArrayEquals(expected.getComponentIds(), solution.getComponentIds());
+                assertArrayEquals(expected.getComponentSizes(), solution.getComponentSizes());
+                for (int i = 0; i < expected.getComponentCount(); ++i) {
+                    ArrayList<Node> component = solution.getComponents().get(i);
+                    assertEquals(new HashSet<>(expected.getComponents().get(i)),
+                            new HashSet<>(component));
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Check that both algorithms find the given components on the given graph.
+     */
+    private static void assertComponents(Graph graph, int[] componentIds,
+            int[] componentSizes, ForkJoinPool pool) {
+        WeaklyConnectedComponentsData data = new WeaklyConnectedComponentsData(graph);
+        for (WeaklyConnectedComponentsSolution solution: new WeaklyConnectedComponentsSolution[] {
+                new WeaklyConnectedComponentsAlgorithm(data).run(),
+                new UnionFindWeaklyConnectedComponentsAlgorithm(data, pool).run() }) {
+            assertEquals(componentSizes.length, solution.getComponentCount());
+            assertArrayEquals(componentIds, solution.getComponentIds());
+            assertArrayEquals(componentSizes, solution.getComponentSizes());
+        }
+    }
+
+    @Test
+    public void testSmallGraphs() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertComponents(SmallGraphs.create("single", 1), new int[] { 0 }, new int[] { 1 },
+                    pool);
+
+            // 5 is only linked to 3 by a one-way road, 2 and 6 are isolated.
+            assertComponents(SmallGraphs.create("small", 7,
+                    new int[] { 0, 3, 1, SmallGraphs.TWO_WAY },
+                    new int[] { 5, 3, 2, SmallGraphs.ONE_WAY },
+                    new int[] { 1, 4, 3, SmallGraphs.NO_CARS }),
+                    new int[] { 0, 1, 2, 0, 1, 0, 3 }, new int[] { 3, 2, 1, 1 }, pool);
+
+            // A chain of one-way roads going down to 0, split between tasks, whose
+            // nodes only reach smaller nodes, followed by an isolated node.
+            final int nbNodes = 10000;
+            int[][] roads = new int[nbNodes - 2][];
+            for (int node = 1; node < nbNodes - 1; ++node) {
+                roads[node - 1] = new int[] { node, node - 1, 1, SmallGraphs.ONE_WAY };
+            }
+            int[] componentIds = new int[nbNodes];
+            componentIds[nbNodes - 1] = 1;
+            assertComponents(SmallGraphs.create("chain", nbNodes, roads), componentIds,
+                    new int[] { nbNodes - 1, 1 }, pool);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -33,8 +33,8 @@ import org.insa.graphs.gui.drawing.overlays.Overlay;
 import org.insa.graphs.gui.drawing.overlays.PathOverlay;
 import org.insa.graphs.gui.drawing.overlays.PointSetOverlay;
 import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
 import org.insa.graphs.model.Graph;
-import org.insa.graphs.model.Node;
 import org.insa.graphs.model.Path;
 import org.insa.graphs.model.Point;
 import org.insa.graphs.model.GraphStatistics.BoundingBox;
@@ -679,16 +679,40 @@ public class BasicDrawing extends JPanel implements Drawing {
         this.removeMouseMotionListener(zoomAndPanListener);
         this.removeMouseWheelListener(zoomAndPanListener);
 
-        for (Node node: graph.getNodes()) {
-            for (Arc arc: node.getSuccessors()) {
+        // Points of the current arc, reused between arcs.
+        CompactGraph compact = graph.getCompactGraph();
+        float[] longitudes = new float[16], latitudes = new float[16];
+        int[] xs = new int[16], ys = new int[16];
+
+        for (int node = 0; node < compact.size(); ++node) {
+            for (int arc = compact.getFirstArc(node); arc < compact.getFirstArc(node + 1); ++arc) {
                 // Draw arcs only if there are one-way arcs or if origin is lower than
                 // destination, avoid drawing two-ways arc twice.
-                if (arc.getRoadInformation().isOneWay()
-                        || arc.getOrigin().compareTo(arc.getDestination()) < 0) {
-                    drawArc(arc, palette, false);
+                if (!compact.getRoadInformation(arc).isOneWay()
+                        && node >= compact.getArcDestination(arc)) {
+                    continue;
+                }
+                int nbPoints = compact.getArcPointCount(arc);
+                if (nbPoints > longitudes.length) {
+                    longitudes = new float[nbPoints];
+                    latitudes = new float[nbPoints];
+                    xs = new int[nbPoints];
+                    ys = new int[nbPoints];
+                }
+                compact.getArcPoints(arc, longitudes, latitudes);
+                for (int i = 0; i < nbPoints; ++i) {
+                    xs[i] = projection.longitudeToPixelX(longitudes[i]);
+                    ys[i] = projection.latitudeToPixelY(latitudes[i]);
+                }
+                if (palette != null) {
+                    Arc arcObject = compact.getArc(arc);
+                    this.graphGraphics.setColor(palette.getColorForArc(arcObject));
+                    this.graphGraphics
+                            .setStroke(new BasicStroke(palette.getWidthForArc(arcObject)));
                 }
+                this.graphGraphics.drawPolyline(xs, ys, nbPoints);
             }
-            if (node.getId() % repaintModulo == 0) {
+            if (node % repaintModulo == 0) {
                 this.repaint();
             }
         }
@@ -14,6 +14,15 @@ import java.util.EnumSet;
  * </p>
  * 
  * <p>
+ * Restrictions are packed in a single {@code long}: the byte {@code m} of the
+ * value corresponds to the mode of ordinal {@code m}, and has a single bit set,
+ * the bit corresponding to the ordinal of its restriction. A query for a set of
+ * modes and restrictions can then be compiled into a mask (see
+ * {@link #getMask(EnumSet, EnumSet)}) and checked with a single bitwise
+ * operation (see {@link #isAllowedForAny(long)}).
+ * </p>
+ * 
+ * <p>
  * To each transport is associated at most one restriction per road (no
  * restriction corresponds to {@link AccessRestriction#UNKNOWN} but a road can
  * have different restrictions for different modes.
@@ -153,27 +162,90 @@ public class AccessRestrictions {
 
     }
 
-    // Map mode -> restriction
-    private final EnumMap<AccessMode, AccessRestriction> restrictions;
+    // All restrictions, by ordinal.
+    private static final AccessRestriction[] RESTRICTIONS = AccessRestriction.values();
+
+    // Packed restrictions: one byte per mode with the bit of its restriction set.
+    private final long bits;
 
     /**
      * Create new AccessRestrictions instances with unknown restrictions.
      */
     public AccessRestrictions() {
-        this.restrictions = new EnumMap<>(AccessMode.class);
-        for (AccessMode mode: AccessMode.values()) {
-            this.restrictions.put(mode, AccessRestriction.UNKNOWN);
-        }
+        this(new EnumMap<>(AccessMode.class));
     }
 
     /**
      * Create a new AccessRestrictions instances with the given restrictions.
      * 
      * @param restrictions Map of restrictions for this instance of
-     *        AccessRestrictions.
+     *        AccessRestrictions, missing modes have unknown restrictions.
      */
     public AccessRestrictions(EnumMap<AccessMode, AccessRestriction> restrictions) {
-        this.restrictions = restrictions;
+        long bits = 0;
+        for (AccessMode mode: AccessMode.values()) {
+            bits |= getMask(mode,
+                    restrictions.getOrDefault(mode, AccessRestriction.UNKNOWN));
+        }
+        this.bits = bits;
+    }
+
+    /**
+     * Create a new AccessRestrictions instances from packed restrictions.
+     * 
+     * @param bits Packed restrictions, as returned by {@link #getBits()}.
+     */
+    public AccessRestrictions(long bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * @param mode A transport mode.
+     * @param restriction A restriction.
+     * 
+     * @return Mask corresponding to the given restriction for the given mode.
+     */
+    public static long getMask(AccessMode mode, AccessRestriction restriction) {
+        return 1L << (8 * mode.ordinal() + restriction.ordinal());
+    }
+
+    /**
+     * @param modes Set of transport modes.
+     * @param restrictions Set of restrictions.
+     * 
+     * @return Mask corresponding to any of the given restrictions for any of the
+     *         given modes.
+     * 
+     * @see #isAllowedForAny(long)
+     */
+    public static long getMask(EnumSet<AccessMode> modes,
+            EnumSet<AccessRestriction> restrictions) {
+        long mask = 0;
+        for (AccessMode mode: modes) {
+            for (AccessRestriction restriction: restrictions) {
+                mask |= getMask(mode, restriction);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return Packed restrictions of this instance.
+     */
+    public long getBits() {
+        return bits;
+    }
+
+    /**
+     * Check if the restriction of at least one mode matches the given mask.
+     * 
+     * @param mask Mask, as returned by {@link #getMask(EnumSet, EnumSet)}.
+     * 
+     * @return {@code true} if the restriction of one of the modes of the mask is
+     *         one of the restrictions of the mask.
+     */
+    public boolean isAllowedForAny(long mask) {
+        return (bits & mask) != 0;
     }
 
     /**
@@ -184,7 +256,11 @@ public class AccessRestrictions {
      * @return Restriction for the given mode.
      */
     public AccessRestriction getRestrictionFor(AccessMode mode) {
-        return restrictions.getOrDefault(mode, AccessRestriction.UNKNOWN);
+        int restriction = (int) (bits >>> (8 * mode.ordinal())) & 0xff;
+        if (restriction == 0) {
+            return AccessRestriction.UNKNOWN;
+        }
+        return RESTRICTIONS[Integer.numberOfTrailingZeros(restriction)];
     }
 
     /**
@@ -198,7 +274,11 @@ public class AccessRestrictions {
      *         restrictions.
      */
     public boolean isAllowedForAny(AccessMode mode, EnumSet<AccessRestriction> restrictions) {
-        return restrictions.contains(getRestrictionFor(mode));
+        long mask = 0;
+        for (AccessRestriction restriction: restrictions) {
+            mask |= getMask(mode, restriction);
+        }
+        return isAllowedForAny(mask);
     }
 
     /**
@@ -212,7 +292,7 @@ public class AccessRestrictions {
      *         given restriction.
      */
     public boolean isAllowedFor(AccessMode mode, AccessRestriction restriction) {
-        return getRestrictionFor(mode).equals(restriction);
+        return isAllowedForAny(getMask(mode, restriction));
     }
 
     /**
@@ -227,10 +307,12 @@ public class AccessRestrictions {
      */
     public boolean areAllAllowedForAny(EnumSet<AccessMode> modes,
             EnumSet<AccessRestriction> restrictions) {
-        boolean allowed = true;
+        long mask = getMask(AccessMode.ALL, restrictions);
         for (AccessMode mode: modes) {
-            allowed = allowed && isAllowedForAny(mode, restrictions);
+            if ((bits & mask & (0xffL << (8 * mode.ordinal()))) == 0) {
+                return false;
+            }
         }
-        return allowed;
+        return true;
     }
 }
@@ -0,0 +1,76 @@
+package org.insa.graphs.model;
+
+import java.util.List;
+
+/**
+ * Implementation of Arc that is a view over an arc of a {@link CompactGraph}.
+ * This arc only holds a reference to the graph and the index of the arc, views
+ * are created on demand and two views of the same arc are equal.
+ *
+ */
+class ArcView extends Arc {
+
+    // Compact graph containing the arc.
+    private final CompactGraph graph;
+
+    // Index of the arc in the graph.
+    private final int index;
+
+    /**
+     * Create a new view over the arc with the given index.
+     *
+     * @param graph Compact graph containing the arc.
+     * @param index Index of the arc in the graph.
+     */
+    protected ArcView(CompactGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+    }
+
+    /**
+     * @return Index of this arc in its compact graph.
+     */
+    protected int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Node getOrigin() {
+        return graph.getNode(graph.getArcOrigin(index));
+    }
+
+    @Override
+    public Node getDestination() {
+        return graph.getNode(graph.getArcDestination(index));
+    }
+
+    @Override
+    public float getLength() {
+        return graph.getArcLength(index);
+    }
+
+    @Override
+    public RoadInformation getRoadInformation() {
+        return graph.getRoadInformation(index);
+    }
+
+    @Override
+    public List<Point> getPoints() {
+        return graph.getArcPoints(index);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof ArcView) {
+            ArcView view = (ArcView) other;
+            return graph == view.graph && index == view.index;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+}
@@ -0,0 +1,780 @@
+package org.insa.graphs.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * Immutable array-based representation of a {@link Graph} using the
+ * <b>compressed sparse row</b> (CSR) layout.
+ * </p>
+ *
+ * <p>
+ * Arcs are identified by an index in {@code [0, getArcCount())}. The outgoing
+ * arcs of node {@code v} are the arcs in
+ * {@code [getFirstArc(v), getFirstArc(v + 1))}, in the same order as
+ * {@link Node#getSuccessors()}. A reverse index lists, for each node, the
+ * indices of the arcs entering it:
+ * </p>
+ *
+ * <pre>
+ * for (int k = graph.getFirstInArc(v); k &lt; graph.getFirstInArc(v + 1); ++k) {
+ *     int arc = graph.getInArc(k); // arc from graph.getArcOrigin(arc) to v
+ * }
+ * </pre>
+ *
+ * <p>
+ * A compact graph is either built by a graph reader (see {@link Builder}), in
+ * which case the {@link Node} and {@link Arc} objects of the graph are
+ * lightweight views over the arrays of this class, or built from an existing
+ * object graph (see {@link Graph#getCompactGraph()}), in which case it only
+ * indexes the existing objects.
+ * </p>
+ *
+ */
+public final class CompactGraph {
+
+    // Number of nodes and arcs.
+    private final int nbNodes, nbArcs;
+
+    // Coordinates of the nodes (NaN for nodes without position).
+    private final float[] longitudes, latitudes;
+
+    // Forward index: outgoing arcs of v are [firstArc[v], firstArc[v + 1]).
+    private final int[] firstArc;
+
+    // Attributes of the arcs, indexed by arc.
+    private final int[] arcOrigin, arcDestination, arcDescriptor;
+    private final float[] arcLength;
+
+    // Reverse index: inArc[firstInArc[v] .. firstInArc[v + 1]) are the arcs
+    // entering v.
+    private final int[] firstInArc, inArc;
+
+    // Distinct road information, referenced by arcDescriptor.
+    private final RoadInformation[] descriptors;
+
+    // Geometry of the arcs: index of the road in geometries, or ~index if the arc
+    // travels the road backward. Null if the arcs are stored as objects.
+    private final int[] arcGeometry;
+    private final GeometryStore geometries;
+
+    // Nodes of the graph.
+    private final Node[] nodes;
+
+    // Arcs of the graph, or null if arcs are views created on demand.
+    private final Arc[] arcs;
+
+    /**
+     * Create a new compact graph from the given arrays, the reverse index is
+     * computed by this constructor.
+     */
+    private CompactGraph(Node[] nodes, int[] firstArc, int[] arcOrigin, int[] arcDestination,
+            float[] arcLength, int[] arcDescriptor, RoadInformation[] descriptors,
+            int[] arcGeometry, GeometryStore geometries, Arc[] arcs) {
+        this.nbNodes = nodes.length;
+        this.nbArcs = arcDestination.length;
+        this.nodes = nodes;
+        this.firstArc = firstArc;
+        this.arcOrigin = arcOrigin;
+        this.arcDestination = arcDestination;
+        this.arcLength = arcLength;
+        this.arcDescriptor = arcDescriptor;
+        this.descriptors = descriptors;
+        this.arcGeometry = arcGeometry;
+        this.geometries = geometries;
+        this.arcs = arcs;
+
+        this.longitudes = new float[nbNodes];
+        this.latitudes = new float[nbNodes];
+        for (int i = 0; i < nbNodes; ++i) {
+            Point point = nodes[i].getPoint();
+            this.longitudes[i] = point == null ? Float.NaN : point.getLongitude();
+            this.latitudes[i] = point == null ? Float.NaN : point.getLatitude();
+        }
+
+        // Counting sort of the arcs by destination (stable, so that arcs entering a
+        // node are sorted by index).
+        this.firstInArc = new int[nbNodes + 1];
+        for (int arc = 0; arc < nbArcs; ++arc) {
+            this.firstInArc[arcDestination[arc] + 1]++;
+        }
+        for (int node = 0; node < nbNodes; ++node) {
+            this.firstInArc[node + 1] += this.firstInArc[node];
+        }
+        this.inArc = new int[nbArcs];
+        int[] next = Arrays.copyOf(this.firstInArc, nbNodes);
+        for (int arc = 0; arc < nbArcs; ++arc) {
+            this.inArc[next[arcDestination[arc]]++] = arc;
+        }
+    }
+
+    /**
+     * Create a compact graph indexing the given nodes and their successors. The
+     * arcs of the resulting compact graph are the existing arcs.
+     *
+     * @param nodes Nodes of the graph, node {@code i} must have ID {@code i}.
+     *
+     * @return A new compact graph for the given nodes.
+     */
+    static CompactGraph fromNodes(List<Node> nodes) {
+        final int nbNodes = nodes.size();
+        int nbArcs = 0;
+        for (Node node: nodes) {
+            nbArcs += node.getNumberOfSuccessors();
+        }
+
+        int[] firstArc = new int[nbNodes + 1];
+        int[] arcOrigin = new int[nbArcs], arcDestination = new int[nbArcs],
+                arcDescriptor = new int[nbArcs];
+        float[] arcLength = new float[nbArcs];
+        Arc[] arcs = new Arc[nbArcs];
+
+        // Road information are shared between arcs, we index them by identity.
+        IdentityHashMap<RoadInformation, Integer> descriptorIds = new IdentityHashMap<>();
+        ArrayList<RoadInformation> descriptors = new ArrayList<>();
+
+        int arc = 0;
+        for (Node node: nodes) {
+            firstArc[node.getId()] = arc;
+            for (Arc successor: node.getSuccessors()) {
+                Integer descriptor = descriptorIds.get(successor.getRoadInformation());
+                if (descriptor == null) {
+                    descriptor = descriptors.size();
+                    descriptorIds.put(successor.getRoadInformation(), descriptor);
+                    descriptors.add(successor.getRoadInformation());
+                }
+                arcOrigin[arc] = node.getId();
+                arcDestination[arc] = successor.getDestination().getId();
+                arcLength[arc] = successor.getLength();
+                arcDescriptor[arc] = descriptor;
+                arcs[arc] = successor;
+                ++arc;
+            }
+        }
+        firstArc[nbNodes] = arc;
+
+        return new CompactGraph(nodes.toArray(new Node[nbNodes]), firstArc, arcOrigin,
+                arcDestination, arcLength, arcDescriptor,
+                descriptors.toArray(new RoadInformation[descriptors.size()]), null, null,
+                arcs);
+    }
+
+    /**
+     * @return Number of nodes in this graph.
+     */
+    public int size() {
+        return nbNodes;
+    }
+
+    /**
+     * @return Number of arcs in this graph.
+     */
+    public int getArcCount() {
+        return nbArcs;
+    }
+
+    /**
+     * @param node ID of a node, or {@link #size()}.
+     *
+     * @return Index of the first outgoing arc of the given node. The outgoing arcs
+     *         of the node end (exclusive) at {@code getFirstArc(node + 1)}.
+     */
+    public int getFirstArc(int node) {
+        return firstArc[node];
+    }
+
+    /**
+     * @param node ID of a node, or {@link #size()}.
+     *
+     * @return Position of the first incoming arc of the given node in the reverse
+     *         index. The incoming arcs of the node end (exclusive) at
+     *         {@code getFirstInArc(node + 1)}.
+     *
+     * @see #getInArc(int)
+     */
+    public int getFirstInArc(int node) {
+        return firstInArc[node];
+    }
+
+    /**
+     * @param position Position in the reverse index.
+     *
+     * @return Index of the arc at the given position of the reverse index.
+     */
+    public int getInArc(int position) {
+        return inArc[position];
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return ID of the origin of the given arc.
+     */
+    public int getArcOrigin(int arc) {
+        return arcOrigin[arc];
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return ID of the destination of the given arc.
+     */
+    public int getArcDestination(int arc) {
+        return arcDestination[arc];
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Length of the given arc, in meters.
+     */
+    public float getArcLength(int arc) {
+        return arcLength[arc];
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Minimum time required to travel the given arc, in seconds.
+     *
+     * @see Arc#getMinimumTravelTime()
+     */
+    public double getArcMinimumTravelTime(int arc) {
+        return arcLength[arc] * 3600.0
+                / (descriptors[arcDescriptor[arc]].getMaximumSpeed() * 1000.0);
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Index of the road information of the given arc.
+     *
+     * @see #getDescriptor(int)
+     */
+    public int getArcDescriptor(int arc) {
+        return arcDescriptor[arc];
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Road information of the given arc.
+     */
+    public RoadInformation getRoadInformation(int arc) {
+        return descriptors[arcDescriptor[arc]];
+    }
+
+    /**
+     * @return Number of distinct road information in this graph.
+     */
+    public int getDescriptorCount() {
+        return descriptors.length;
+    }
+
+    /**
+     * @param descriptor Index of a road information.
+     *
+     * @return Road information with the given index.
+     */
+    public RoadInformation getDescriptor(int descriptor) {
+        return descriptors[descriptor];
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Longitude of the given node (in degrees).
+     */
+    public float getLongitude(int node) {
+        return longitudes[node];
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Latitude of the given node (in degrees).
+     */
+    public float getLatitude(int node) {
+        return latitudes[node];
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Node with the given ID.
+     */
+    public Node getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Retrieve the arc object corresponding to the given index. If the arcs of
+     * this graph are views, a new view is created by each call.
+     *
+     * @param arc Index of an arc.
+     *
+     * @return Arc with the given index.
+     */
+    public Arc getArc(int arc) {
+        return arcs == null ? new ArcView(this, arc) : arcs[arc];
+    }
+
+    /**
+     * @return Nodes of this graph (unmodifiable).
+     */
+    List<Node> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    /**
+     * @return true if the nodes and arcs of this graph are views over this compact
+     *         graph, false if this compact graph indexes existing objects.
+     */
+    boolean isBacking() {
+        return arcs == null;
+    }
+
+    /**
+     * @param node ID of a node.
+     *
+     * @return Unmodifiable list of views over the outgoing arcs of the given node.
+     */
+    List<Arc> getSuccessors(int node) {
+        return new SuccessorList(firstArc[node], firstArc[node + 1]);
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Number of points of the given arc, including its origin and its
+     *         destination.
+     */
+    public int getArcPointCount(int arc) {
+        if (arcs != null) {
+            return arcs[arc].getPoints().size();
+        }
+        int geometry = arcGeometry[arc];
+        return geometries.getPointCount(geometry < 0 ? ~geometry : geometry) + 2;
+    }
+
+    /**
+     * <p>
+     * Retrieve the points of the given arc, from origin to destination, without
+     * creating any object. This is the preferred way to iterate the geometry of
+     * many arcs, e.g. for drawing, using arrays reused between calls:
+     * </p>
+     *
+     * <pre>
+     * int nbPoints = graph.getArcPointCount(arc);
+     * if (nbPoints &gt; longitudes.length) {
+     *     longitudes = new float[nbPoints];
+     *     latitudes = new float[nbPoints];
+     * }
+     * graph.getArcPoints(arc, longitudes, latitudes);
+     * </pre>
+     *
+     * @param arc Index of an arc.
+     * @param longitudes Array to fill with the longitudes of the points, must
+     *        contain at least {@link #getArcPointCount(int)} elements.
+     * @param latitudes Array to fill with the latitudes of the points, must contain
+     *        at least {@link #getArcPointCount(int)} elements.
+     *
+     * @return Number of points of the arc.
+     */
+    public int getArcPoints(int arc, float[] longitudes, float[] latitudes) {
+        if (arcs != null) {
+            List<Point> points = arcs[arc].getPoints();
+            for (int i = 0; i < points.size(); ++i) {
+                longitudes[i] = points.get(i).getLongitude();
+                latitudes[i] = points.get(i).getLatitude();
+            }
+            return points.size();
+        }
+
+        // Points are stored from the origin to the destination of the road, which
+        // is the destination of the arc if the arc travels the road backward.
+        int geometry = arcGeometry[arc];
+        boolean backward = geometry < 0;
+        int road = backward ? ~geometry : geometry;
+        int first = backward ? arcDestination[arc] : arcOrigin[arc],
+                last = backward ? arcOrigin[arc] : arcDestination[arc];
+        int nbPoints = geometries.getPointCount(road) + 2;
+        longitudes[0] = this.longitudes[first];
+        latitudes[0] = this.latitudes[first];
+        geometries.getPoints(road, this.longitudes[first], this.latitudes[first], longitudes,
+                latitudes, 1);
+        longitudes[nbPoints - 1] = this.longitudes[last];
+        latitudes[nbPoints - 1] = this.latitudes[last];
+        if (backward) {
+            for (int i = 0, j = nbPoints - 1; i < j; ++i, --j) {
+                float longitude = longitudes[i], latitude = latitudes[i];
+                longitudes[i] = longitudes[j];
+                latitudes[i] = latitudes[j];
+                longitudes[j] = longitude;
+                latitudes[j] = latitude;
+            }
+        }
+        return nbPoints;
+    }
+
+    /**
+     * @param arc Index of an arc.
+     *
+     * @return Unmodifiable view over the points of the given arc, from origin to
+     *         destination.
+     */
+    List<Point> getArcPoints(int arc) {
+        if (arcs != null) {
+            return arcs[arc].getPoints();
+        }
+        return new PointList(arc);
+    }
+
+    /**
+     * Create the transpose of this compact graph. The arcs entering node
+     * {@code v} in this graph are, in the same order, the arcs leaving {@code v}
+     * in the transpose graph.
+     *
+     * @return Transpose of this graph, backing new nodes.
+     */
+    CompactGraph transpose() {
+        Node[] trNodes = new Node[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            trNodes[node] = Node.createView(node, nodes[node].getPoint());
+        }
+        int[] trOrigin = new int[nbArcs], trDestination = new int[nbArcs],
+                trDescriptor = new int[nbArcs], trGeometry = new int[nbArcs];
+        float[] trLength = new float[nbArcs];
+        for (int position = 0; position < nbArcs; ++position) {
+            int arc = inArc[position];
+            trOrigin[position] = arcDestination[arc];
+            trDestination[position] = arcOrigin[arc];
+            trLength[position] = arcLength[arc];
+            trDescriptor[position] = arcDescriptor[arc];
+            trGeometry[position] = ~arcGeometry[arc];
+        }
+        return attach(new CompactGraph(trNodes, firstInArc.clone(), trOrigin, trDestination,
+                trLength, trDescriptor, descriptors, trGeometry, geometries, null));
+    }
+
+    /**
+     * Attach the nodes of the given compact graph to it.
+     */
+    private static CompactGraph attach(CompactGraph graph) {
+        for (Node node: graph.nodes) {
+            node.attach(graph);
+        }
+        return graph;
+    }
+
+    /**
+     * View over a range of arcs.
+     */
+    private class SuccessorList extends AbstractList<Arc> implements RandomAccess {
+
+        // Range of arcs.
+        private final int first, end;
+
+        SuccessorList(int first, int end) {
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        public Arc get(int index) {
+            if (index < 0 || index >= end - first) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return new ArcView(CompactGraph.this, first + index);
+        }
+
+        @Override
+        public int size() {
+            return end - first;
+        }
+
+    }
+
+    /**
+     * View over the points of an arc. Points are only decoded when the list is
+     * first accessed.
+     */
+    private class PointList extends AbstractList<Point> implements RandomAccess {
+
+        // Index of the arc.
+        private final int arc;
+
+        // Coordinates of the points, null until decoded.
+        private float[] pointLongitudes, pointLatitudes;
+
+        PointList(int arc) {
+            this.arc = arc;
+        }
+
+        @Override
+        public Point get(int index) {
+            if (pointLongitudes == null) {
+                int nbPoints = getArcPointCount(arc);
+                float[] longitudes = new float[nbPoints], latitudes = new float[nbPoints];
+                getArcPoints(arc, longitudes, latitudes);
+                pointLatitudes = latitudes;
+                pointLongitudes = longitudes;
+            }
+            return new Point(pointLongitudes[index], pointLatitudes[index]);
+        }
+
+        @Override
+        public int size() {
+            return pointLongitudes == null ? getArcPointCount(arc) : pointLongitudes.length;
+        }
+
+    }
+
+    /**
+     * <p>
+     * Builder for compact graphs, used by graph readers.
+     * </p>
+     *
+     * <p>
+     * Nodes must be added first (in order of ID), then road information must be
+     * set, and finally roads can be added. A one-way road adds a single arc from
+     * its origin to its destination, other roads also add the reverse arc, exactly
+     * like {@link Node#linkNodes(Node, Node, float, RoadInformation, ArrayList)}.
+     * </p>
+     *
+     * <p>
+     * The geometry of the roads is either given as a list of points for each road,
+     * which is packed in a {@link PackedGeometryStore}, or read from a
+     * {@link GeometryStore} set before adding roads, in which case roads reference
+     * their geometry by index in the store.
+     * </p>
+     *
+     */
+    public static final class Builder {
+
+        // Nodes added so far.
+        private final Node[] nodes;
+        private int nbNodes = 0;
+
+        // Road information.
+        private RoadInformation[] descriptors;
+
+        // Arcs added so far, in insertion order.
+        private int nbEntries = 0;
+        private int[] entryOrigin, entryDestination, entryDescriptor, entryGeometry;
+        private float[] entryLength;
+
+        // Geometry of the roads, and default store when roads are given with their
+        // points (null if another store is used).
+        private GeometryStore geometries;
+        private PackedGeometryStore packedGeometries;
+
+        // Index of each inserted arc in the final graph (computed by build()).
+        private int[] entryArc;
+
+        /**
+         * Create a new builder for a graph with the given number of nodes.
+         *
+         * @param nbNodes Number of nodes in the graph.
+         * @param nbRoads Expected number of roads in the graph (the builder grows
+         *        if more roads are added).
+         */
+        public Builder(int nbNodes, int nbRoads) {
+            this.nodes = new Node[nbNodes];
+            int capacity = Math.max(16, nbRoads * 2);
+            this.entryOrigin = new int[capacity];
+            this.entryDestination = new int[capacity];
+            this.entryDescriptor = new int[capacity];
+            this.entryGeometry = new int[capacity];
+            this.entryLength = new float[capacity];
+            this.packedGeometries = new PackedGeometryStore(nbRoads, nbRoads);
+            this.geometries = this.packedGeometries;
+        }
+
+        /**
+         * Add a new node at the given position, nodes are numbered in order of
+         * insertion.
+         *
+         * @param point Position of the node.
+         *
+         * @return The new node (which cannot be used to retrieve successors until
+         *         the graph is built).
+         */
+        public Node addNode(Point point) {
+            Node node = Node.createView(nbNodes, point);
+            nodes[nbNodes++] = node;
+            return node;
+        }
+
+        /**
+         * @param id ID of a node already added.
+         *
+         * @return Node with the given ID.
+         */
+        public Node getNode(int id) {
+            return nodes[id];
+        }
+
+        /**
+         * Set the road information of the graph, referenced by their index when
+         * adding roads.
+         *
+         * @param descriptors Road information of the graph.
+         */
+        public void setDescriptors(RoadInformation[] descriptors) {
+            this.descriptors = descriptors;
+        }
+
+        /**
+         * Set the store containing the geometry of the roads, which must be set
+         * before building the graph if roads are added with
+         * {@link #addRoad(int, int, float, int, int)}.
+         *
+         * @param geometries Store containing the geometry of the roads.
+         *
+         * @throws IllegalStateException if roads have been added with their list of
+         *         points.
+         */
+        public void setGeometryStore(GeometryStore geometries) {
+            if (packedGeometries == null || packedGeometries.size() > 0) {
+                throw new IllegalStateException("Geometry store cannot be changed.");
+            }
+            this.geometries = geometries;
+            this.packedGeometries = null;
+        }
+
+        /**
+         * Add a road between the two given nodes.
+         *
+         * @param origin ID of the origin of the road.
+         * @param destination ID of the destination of the road.
+         * @param length Length of the road (in meters).
+         * @param descriptor Index of the road information of the road.
+         * @param points Points of the road, from origin to destination.
+         *
+         * @return Insertion number of the arc from origin to destination.
+         *
+         * @throws IllegalStateException if a geometry store has been set.
+         *
+         * @see #getArcIndex(int)
+         */
+        public int addRoad(int origin, int destination, float length, int descriptor,
+                List<Point> points) {
+            if (packedGeometries == null) {
+                throw new IllegalStateException("Geometry must be read from the store.");
+            }
+            return addRoad(origin, destination, length, descriptor,
+                    packedGeometries.add(points));
+        }
+
+        /**
+         * Add a road between the two given nodes, whose geometry is stored in the
+         * geometry store of this builder.
+         *
+         * @param origin ID of the origin of the road.
+         * @param destination ID of the destination of the road.
+         * @param length Length of the road (in meters).
+         * @param descriptor Index of the road information of the road.
+         * @param geometry Index of the road in the geometry store.
+         *
+         * @return Insertion number of the arc from origin to destination.
+         *
+         * @see #setGeometryStore(GeometryStore)
+         * @see #getArcIndex(int)
+         */
+        public int addRoad(int origin, int destination, float length, int descriptor,
+                int geometry) {
+            int entry = addEntry(origin, destination, length, descriptor, geometry);
+            if (!descriptors[descriptor].isOneWay()) {
+                addEntry(destination, origin, length, descriptor, ~geometry);
+            }
+            return entry;
+        }
+
+        private int addEntry(int origin, int destination, float length, int descriptor,
+                int geometry) {
+            if (nbEntries == entryOrigin.length) {
+                int capacity = nbEntries + (nbEntries >> 1);
+                entryOrigin = Arrays.copyOf(entryOrigin, capacity);
+                entryDestination = Arrays.copyOf(entryDestination, capacity);
+                entryDescriptor = Arrays.copyOf(entryDescriptor, capacity);
+                entryGeometry = Arrays.copyOf(entryGeometry, capacity);
+                entryLength = Arrays.copyOf(entryLength, capacity);
+            }
+            entryOrigin[nbEntries] = origin;
+            entryDestination[nbEntries] = destination;
+            entryDescriptor[nbEntries] = descriptor;
+            entryGeometry[nbEntries] = geometry;
+            entryLength[nbEntries] = length;
+            return nbEntries++;
+        }
+
+        /**
+         * @param entry Insertion number of an arc, as returned by
+         *        {@link #addRoad(int, int, float, int, List)}.
+         *
+         * @return Index of the arc in the built graph.
+         *
+         * @throws IllegalStateException if the graph has not been built yet.
+         */
+        public int getArcIndex(int entry) {
+            if (entryArc == null) {
+                throw new IllegalStateException("Graph has not been built.");
+            }
+            return entryArc[entry];
+        }
+
+        /**
+         * Build the compact graph. The successors of each node are ordered by
+         * insertion.
+         *
+         * @return The compact graph containing the nodes and roads added to this
+         *         builder.
+         */
+        public CompactGraph build() {
+            if (nbNodes != nodes.length) {
+                throw new IllegalStateException(
+                        "Expected " + nodes.length + " nodes, found " + nbNodes + ".");
+            }
+
+            // Stable counting sort of the arcs by origin.
+            int[] firstArc = new int[nbNodes + 1];
+            for (int entry = 0; entry < nbEntries; ++entry) {
+                firstArc[entryOrigin[entry] + 1]++;
+            }
+            for (int node = 0; node < nbNodes; ++node) {
+                firstArc[node + 1] += firstArc[node];
+            }
+            int[] next = Arrays.copyOf(firstArc, nbNodes);
+
+            int[] arcOrigin = new int[nbEntries], arcDestination = new int[nbEntries],
+                    arcDescriptor = new int[nbEntries], arcGeometry = new int[nbEntries];
+            float[] arcLength = new float[nbEntries];
+            entryArc = new int[nbEntries];
+            for (int entry = 0; entry < nbEntries; ++entry) {
+                int arc = next[entryOrigin[entry]]++;
+                arcOrigin[arc] = entryOrigin[entry];
+                arcDestination[arc] = entryDestination[entry];
+                arcDescriptor[arc] = entryDescriptor[entry];
+                arcGeometry[arc] = entryGeometry[entry];
+                arcLength[arc] = entryLength[entry];
+                entryArc[entry] = arc;
+            }
+
+            if (packedGeometries != null) {
+                packedGeometries.trimToSize();
+            }
+
+            return attach(new CompactGraph(nodes, firstArc, arcOrigin, arcDestination,
+                    arcLength, arcDescriptor, descriptors, arcGeometry, geometries, null));
+        }
+
+    }
+
+}
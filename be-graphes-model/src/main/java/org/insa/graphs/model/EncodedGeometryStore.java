@@ -0,0 +1,65 @@
+package org.insa.graphs.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Implementation of {@link GeometryStore} that decodes points on demand from a
+ * buffer using the encoding of binary graph files: for each road, an unsigned
+ * short number of segments followed by the longitude and latitude differences
+ * with the previous point, as shorts in 1/2e5 degree.
+ * </p>
+ *
+ * <p>
+ * The buffer can be a memory-mapped file, in which case no geometry is held in
+ * the heap, or a compact copy of the encoded geometry. The buffer is only
+ * accessed through absolute reads so it can be shared between threads.
+ * </p>
+ *
+ */
+public final class EncodedGeometryStore implements GeometryStore {
+
+    // Buffer containing the encoded geometry.
+    private final ByteBuffer buffer;
+
+    // Position of the encoded geometry of each road in the buffer.
+    private final int[] offsets;
+
+    /**
+     * Create a new store reading from the given buffer.
+     *
+     * @param buffer Buffer containing the encoded geometry.
+     * @param offsets Position of the encoded geometry of each road in the buffer,
+     *        i.e. the position of its number of segments.
+     */
+    public EncodedGeometryStore(ByteBuffer buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length;
+    }
+
+    @Override
+    public int getPointCount(int road) {
+        return buffer.getShort(offsets[road]) & 0xffff;
+    }
+
+    @Override
+    public void getPoints(int road, float longitude, float latitude, float[] longitudes,
+            float[] latitudes, int offset) {
+        int position = offsets[road];
+        int nbSegments = buffer.getShort(position) & 0xffff;
+        position += 2;
+        for (int seg = 0; seg < nbSegments; ++seg) {
+            longitude += buffer.getShort(position) / 2.0e5f;
+            latitude += buffer.getShort(position + 2) / 2.0e5f;
+            longitudes[offset + seg] = longitude;
+            latitudes[offset + seg] = latitude;
+            position += 4;
+        }
+    }
+
+}
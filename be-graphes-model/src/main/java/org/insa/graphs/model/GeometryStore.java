@@ -0,0 +1,44 @@
+package org.insa.graphs.model;
+
+/**
+ * <p>
+ * Storage for the geometry of the roads of a {@link CompactGraph}, i.e. the
+ * intermediate points between the origin and the destination of each road.
+ * </p>
+ *
+ * <p>
+ * Roads are identified by their insertion number in the
+ * {@link CompactGraph.Builder}. Implementations are free to keep points in
+ * memory or to decode them on demand, but must be safe for concurrent reads.
+ * </p>
+ *
+ */
+public interface GeometryStore {
+
+    /**
+     * @return Number of roads in this store.
+     */
+    public int size();
+
+    /**
+     * @param road Index of a road.
+     *
+     * @return Number of intermediate points of the given road, i.e. without its
+     *         origin and destination.
+     */
+    public int getPointCount(int road);
+
+    /**
+     * Retrieve the intermediate points of the given road.
+     *
+     * @param road Index of a road.
+     * @param longitude Longitude of the origin of the road.
+     * @param latitude Latitude of the origin of the road.
+     * @param longitudes Array to fill with the longitudes of the points.
+     * @param latitudes Array to fill with the latitudes of the points.
+     * @param offset Position of the first point in the arrays.
+     */
+    public void getPoints(int road, float longitude, float latitude, float[] longitudes,
+            float[] latitudes, int offset);
+
+}
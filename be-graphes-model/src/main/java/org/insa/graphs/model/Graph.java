@@ -3,6 +3,13 @@ package org.insa.graphs.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 
 /**
  * <p>
@@ -13,6 +20,12 @@ import java.util.List;
  * This class acts as a object-oriented <b>adjacency list</b> for a graph, i.e.,
  * it holds a list of nodes and each node holds a list of its successors.
  * </p>
+ * 
+ * <p>
+ * Each graph also has an array-based representation, see
+ * {@link #getCompactGraph()}, that algorithms should prefer when iterating over
+ * large number of arcs.
+ * </p>
  *
  */
 public final class Graph {
@@ -29,6 +42,17 @@ public final class Graph {
     // Graph information of this graph.
     private final GraphStatistics graphStatistics;
 
+    // Compact representation of this graph (built on first access if null).
+    private volatile CompactGraph compactGraph;
+
+    // Data derived from this graph and cached, e.g. by algorithms.
+    private final ConcurrentHashMap<Object, CachedValue<Object>> cache = new ConcurrentHashMap<>();
+
+    // Data derived from this graph and another object, cached for each object as
+    // long as it is reachable (access synchronized on the map).
+    private final Map<Object, ConcurrentHashMap<Object, CachedValue<Object>>> sourceCaches =
+            new WeakHashMap<>();
+
     /**
      * Create a new graph with the given ID, name, nodes and information.
      * 
@@ -44,6 +68,24 @@ public final class Graph {
         this.graphStatistics = graphStatistics;
     }
 
+    /**
+     * Create a new graph with the given ID, name and information, whose nodes are
+     * backed by the given compact graph.
+     * 
+     * @param mapId ID of the map corresponding to this graph.
+     * @param mapName Name of the map corresponding to this graph.
+     * @param compactGraph Compact representation of this graph.
+     * @param graphStatistics Information for this graph.
+     */
+    public Graph(String mapId, String mapName, CompactGraph compactGraph,
+            GraphStatistics graphStatistics) {
+        this.mapId = mapId;
+        this.mapName = mapName;
+        this.nodes = compactGraph.getNodes();
+        this.graphStatistics = graphStatistics;
+        this.compactGraph = compactGraph;
+    }
+
     /**
      * @return The GraphStatistics instance associated with this graph.
      */
@@ -94,10 +136,193 @@ public final class Graph {
         return mapName;
     }
 
+    /**
+     * Retrieve the compact (CSR) representation of this graph. For graphs created
+     * from a list of nodes, the compact graph is built on the first call and
+     * indexes the existing arcs, so the graph must not be modified afterwards.
+     * 
+     * Complexity: O(1), except for the first call on graphs created from a list of
+     * nodes.
+     * 
+     * @return Compact representation of this graph.
+     */
+    public CompactGraph getCompactGraph() {
+        CompactGraph compact = this.compactGraph;
+        if (compact == null) {
+            synchronized (this) {
+                compact = this.compactGraph;
+                if (compact == null) {
+                    compact = CompactGraph.fromNodes(nodes);
+                    this.compactGraph = compact;
+                }
+            }
+        }
+        return compact;
+    }
+
+    /**
+     * Value of the cache, computed by the first thread requesting it while the
+     * other ones wait for the result.
+     */
+    private static final class CachedValue<T> extends FutureTask<T> {
+
+        // Thread computing the value (null once computed).
+        private volatile Thread owner = Thread.currentThread();
+
+        CachedValue(Callable<T> factory) {
+            super(factory);
+        }
+
+        @Override
+        protected void done() {
+            owner = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Retrieve the data associated with the given key for this graph, computing it
+     * on the first call. This can be used by algorithms to keep data derived from
+     * the graph (e.g. arrays of arc costs) as long as the graph is alive.
+     * </p>
+     * 
+     * <p>
+     * The data is computed outside of any lock by the first thread requesting it,
+     * other threads requesting the same key wait for the result, so the factory
+     * can retrieve other cached data of this graph (e.g. a preprocessing step can
+     * use the costs of the arcs). If the factory throws an exception, it is thrown
+     * to all the waiting threads and the data is computed again on the next call.
+     * </p>
+     * 
+     * @param key Key of the data, compared with {@link Object#equals(Object)}.
+     * @param factory Function computing the data from this graph, called at most
+     *        once per key unless it fails.
+     * 
+     * @return Data associated with the given key.
+     * 
+     * @throws IllegalStateException if the factory requests its own key, or the
+     *         current thread is interrupted while waiting for another one.
+     */
+    public <T> T getCachedData(Object key, Function<Graph, T> factory) {
+        return getCachedData(cache, key, factory);
+    }
+
+    /**
+     * <p>
+     * Retrieve the data associated with the given key for this graph and the given
+     * source object, computing it on the first call, as
+     * {@link #getCachedData(Object, Function)}.
+     * </p>
+     * 
+     * <p>
+     * The data is kept as long as the source is reachable, and dropped afterwards,
+     * so that data derived from objects created on demand (e.g. arc inspectors)
+     * does not accumulate for the lifetime of the graph. The data must not keep a
+     * reference to its source.
+     * </p>
+     * 
+     * @param source Object the data is derived from, compared with
+     *        {@link Object#equals(Object)}.
+     * @param key Key of the data for the given source.
+     * @param factory Function computing the data from this graph, called at most
+     *        once per source and key unless it fails.
+     * 
+     * @return Data associated with the given source and key.
+     * 
+     * @throws IllegalStateException if the factory requests its own key, or the
+     *         current thread is interrupted while waiting for another one.
+     */
+    public <T> T getCachedData(Object source, Object key, Function<Graph, T> factory) {
+        ConcurrentHashMap<Object, CachedValue<Object>> sourceCache;
+        synchronized (sourceCaches) {
+            sourceCache = sourceCaches.computeIfAbsent(source, (s) -> new ConcurrentHashMap<>());
+        }
+        return getCachedData(sourceCache, key, factory);
+    }
+
+    /**
+     * Retrieve the data associated with the given key for this graph and the given
+     * source object if it has been cached (see
+     * {@link #getCachedData(Object, Object, Function)}), without computing it
+     * otherwise. If the data is being computed, wait for it.
+     * 
+     * @param source Object the data is derived from.
+     * @param key Key of the data for the given source.
+     * 
+     * @return Data associated with the given source and key, or null if there is
+     *         none.
+     * 
+     * @throws IllegalStateException if the current thread is computing the data,
+     *         or is interrupted while waiting for it. If the computation fails,
+     *         the exception of the factory is thrown.
+     */
+    public <T> T getCachedDataIfPresent(Object source, Object key) {
+        ConcurrentHashMap<Object, CachedValue<Object>> sourceCache;
+        synchronized (sourceCaches) {
+            sourceCache = sourceCaches.get(source);
+        }
+        CachedValue<Object> value = sourceCache == null ? null : sourceCache.get(key);
+        if (value == null) {
+            return null;
+        }
+        return getValue(sourceCache, key, value);
+    }
+
+    /**
+     * Retrieve the data associated with the given key in the given map of cached
+     * values, computing it on the first call.
+     */
+    private <T> T getCachedData(ConcurrentHashMap<Object, CachedValue<Object>> values, Object key,
+            Function<Graph, T> factory) {
+        CachedValue<Object> value = values.get(key);
+        if (value == null) {
+            CachedValue<Object> created = new CachedValue<>(() -> factory.apply(this));
+            value = values.putIfAbsent(key, created);
+            if (value == null) {
+                value = created;
+                created.run();
+            }
+        }
+        return getValue(values, key, value);
+    }
+
+    /**
+     * Wait for the given value associated with the given key in the given map of
+     * cached values, removing it from the map if its computation failed.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T getValue(ConcurrentHashMap<Object, CachedValue<Object>> values,
+            Object key, CachedValue<Object> value) {
+        if (!value.isDone() && value.owner == Thread.currentThread()) {
+            throw new IllegalStateException("Recursive computation of cached data " + key + ".");
+        }
+        try {
+            return (T) value.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key + ".", e);
+        }
+        catch (ExecutionException e) {
+            values.remove(key, value);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     /**
      * @return Transpose graph of this graph.
      */
     public Graph transpose() {
+        CompactGraph compact = this.compactGraph;
+        if (compact != null && compact.isBacking()) {
+            return new Graph("R/" + mapId, mapName, compact.transpose(), graphStatistics);
+        }
         ArrayList<Node> trNodes = new ArrayList<>(nodes.size());
         for (Node node: nodes) {
             trNodes.add(new Node(node.getId(), node.getPoint()));
@@ -11,7 +11,8 @@ import java.util.List;
  * 
  * <p>
  * This class holds information regarding nodes in the graph together with the
- * successors associated to the nodes.
+ * successors associated to the nodes. Nodes of graphs read from files are views
+ * over a {@link CompactGraph}, their successors are created on demand.
  * </p>
  * 
  * <p>
@@ -37,7 +38,8 @@ public final class Node implements Comparable<Node> {
      * @param destination Destination of the arc.
      * @param length Length of the arc.
      * @param roadInformation Information corresponding to the arc.
-     * @param points Points for the arc.
+     * @param points Points for the arc, from origin to destination (this list is
+     *        not modified).
      * 
      * @return The newly created forward arc (origin to destination).
      */
@@ -55,8 +57,9 @@ public final class Node implements Comparable<Node> {
                 d2o = new ArcBackward(arc);
             }
             else {
-                Collections.reverse(points);
-                d2o = new ArcForward(destination, origin, length, roadInformation, points);
+                ArrayList<Point> reversed = new ArrayList<>(points);
+                Collections.reverse(reversed);
+                d2o = new ArcForward(destination, origin, length, roadInformation, reversed);
                 arc = new ArcBackward(d2o);
             }
             origin.addSuccessor(arc);
@@ -71,9 +74,12 @@ public final class Node implements Comparable<Node> {
     // Point of this graph.
     private final Point point;
 
-    // Successors.
+    // Successors, or null if this node is backed by a compact graph.
     private final ArrayList<Arc> successors;
 
+    // Compact graph backing this node, if any.
+    private CompactGraph compactGraph;
+
     /**
      * Create a new Node with the given ID corresponding to the given Point with an
      * empty list of successors.
@@ -87,12 +93,55 @@ public final class Node implements Comparable<Node> {
         this.successors = new ArrayList<Arc>();
     }
 
+    /**
+     * Create a node whose successors are stored in a compact graph.
+     * 
+     * @param id ID of the node.
+     * @param point Position of the node.
+     * @param compactGraph Compact graph backing this node (may be attached later).
+     */
+    private Node(int id, Point point, CompactGraph compactGraph) {
+        this.id = id;
+        this.point = point;
+        this.successors = null;
+        this.compactGraph = compactGraph;
+    }
+
+    /**
+     * Create a new node whose successors will be retrieved from a compact graph,
+     * see {@link #attach(CompactGraph)}.
+     * 
+     * @param id ID of the node.
+     * @param point Position of the node.
+     * 
+     * @return A new node not yet attached to a compact graph.
+     */
+    static Node createView(int id, Point point) {
+        return new Node(id, point, null);
+    }
+
+    /**
+     * Attach this node to the compact graph storing its successors.
+     * 
+     * @param compactGraph Compact graph backing this node.
+     */
+    void attach(CompactGraph compactGraph) {
+        this.compactGraph = compactGraph;
+    }
+
     /**
      * Add a successor to this node.
      * 
      * @param arc Arc to the successor.
+     * 
+     * @throws UnsupportedOperationException if this node is backed by a compact
+     *         graph (which is immutable).
      */
     protected void addSuccessor(Arc arc) {
+        if (successors == null) {
+            throw new UnsupportedOperationException(
+                    "Cannot add successors to a node of a compact graph.");
+        }
         successors.add(arc);
     }
 
@@ -107,6 +156,9 @@ public final class Node implements Comparable<Node> {
      * @return Number of successors of this node.
      */
     public int getNumberOfSuccessors() {
+        if (this.successors == null) {
+            return compactGraph.getFirstArc(id + 1) - compactGraph.getFirstArc(id);
+        }
         return this.successors.size();
     }
 
@@ -114,7 +166,7 @@ public final class Node implements Comparable<Node> {
      * @return true if this node has at least one successor.
      */
     public boolean hasSuccessors() {
-        return !this.successors.isEmpty();
+        return getNumberOfSuccessors() > 0;
     }
 
     /**
@@ -123,6 +175,9 @@ public final class Node implements Comparable<Node> {
      * @see Collections#unmodifiableList(List)
      */
     public List<Arc> getSuccessors() {
+        if (this.successors == null) {
+            return compactGraph.getSuccessors(id);
+        }
         return Collections.unmodifiableList(this.successors);
     }
 
@@ -0,0 +1,220 @@
+package org.insa.graphs.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Implementation of {@link GeometryStore} keeping the intermediate points of all
+ * the roads in a few primitive arrays.
+ * </p>
+ *
+ * <p>
+ * Points are delta-encoded as in binary graph files: each point is stored as the
+ * difference of longitude and latitude with the previous point, as two shorts in
+ * 1/2e5 degree, so each point only uses 4 bytes. Points given as
+ * {@link Point} that cannot be encoded exactly this way (e.g. two consecutive
+ * points far away from each other) are stored as raw coordinates in a separate
+ * table.
+ * </p>
+ *
+ */
+public final class PackedGeometryStore implements GeometryStore {
+
+    // Scale of the encoded differences.
+    private static final float SCALE = 2.0e5f;
+
+    // Number of roads.
+    private int nbRoads;
+
+    // Intermediate points of road r are [firstPoint[r], firstPoint[r + 1]).
+    private int[] firstPoint;
+
+    // Encoded differences, longitude and latitude interleaved.
+    private short[] deltas;
+
+    // Roads stored as raw coordinates (sorted), and their points: points of the
+    // k-th raw road are [rawFirstPoint[k], rawFirstPoint[k + 1]).
+    private int nbRawRoads = 0;
+    private int[] rawRoads = new int[0], rawFirstPoint = new int[1];
+    private float[] rawLongitudes = new float[0], rawLatitudes = new float[0];
+
+    /**
+     * Create a new empty store.
+     *
+     * @param nbRoads Expected number of roads.
+     * @param nbPoints Expected number of intermediate points.
+     */
+    public PackedGeometryStore(int nbRoads, int nbPoints) {
+        this.firstPoint = new int[Math.max(1, nbRoads) + 1];
+        this.deltas = new short[2 * Math.max(1, nbPoints)];
+    }
+
+    /**
+     * Create a new store from encoded differences.
+     *
+     * @param firstPoint Index of the first intermediate point of each road, plus the
+     *        total number of points (size is the number of roads + 1).
+     * @param deltas Encoded differences in 1/2e5 degree, longitude and latitude
+     *        interleaved (size is twice the number of points).
+     */
+    public PackedGeometryStore(int[] firstPoint, short[] deltas) {
+        this.nbRoads = firstPoint.length - 1;
+        this.firstPoint = firstPoint;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Add a road from its encoded differences.
+     *
+     * @param deltas Encoded differences in 1/2e5 degree, longitude and latitude
+     *        interleaved.
+     * @param offset Position of the first difference in the array.
+     * @param nbPoints Number of intermediate points of the road.
+     *
+     * @return Index of the new road.
+     */
+    public int add(short[] deltas, int offset, int nbPoints) {
+        int first = reserve(nbPoints);
+        System.arraycopy(deltas, offset, this.deltas, 2 * first, 2 * nbPoints);
+        return nbRoads - 1;
+    }
+
+    /**
+     * Add a road from its points.
+     *
+     * @param points Points of the road, from origin to destination.
+     *
+     * @return Index of the new road.
+     */
+    public int add(List<Point> points) {
+        final int nbPoints = Math.max(0, points.size() - 2);
+        short[] encoded = new short[2 * nbPoints];
+        if (nbPoints > 0 && encode(points, encoded)) {
+            return add(encoded, 0, nbPoints);
+        }
+
+        // Store raw coordinates.
+        reserve(0);
+        if (nbPoints > 0) {
+            if (nbRawRoads == rawRoads.length) {
+                rawRoads = Arrays.copyOf(rawRoads, 2 * nbRawRoads + 1);
+                rawFirstPoint = Arrays.copyOf(rawFirstPoint, 2 * nbRawRoads + 2);
+            }
+            int first = rawFirstPoint[nbRawRoads];
+            if (first + nbPoints > rawLongitudes.length) {
+                int capacity = Math.max(first + nbPoints, 2 * rawLongitudes.length);
+                rawLongitudes = Arrays.copyOf(rawLongitudes, capacity);
+                rawLatitudes = Arrays.copyOf(rawLatitudes, capacity);
+            }
+            for (int i = 0; i < nbPoints; ++i) {
+                rawLongitudes[first + i] = points.get(i + 1).getLongitude();
+                rawLatitudes[first + i] = points.get(i + 1).getLatitude();
+            }
+            rawRoads[nbRawRoads] = nbRoads - 1;
+            rawFirstPoint[++nbRawRoads] = first + nbPoints;
+        }
+        return nbRoads - 1;
+    }
+
+    /**
+     * Encode the intermediate points of the given road.
+     *
+     * @return true if all the points can be decoded exactly from the differences.
+     */
+    private static boolean encode(List<Point> points, short[] encoded) {
+        if (points.get(0) == null) {
+            return false;
+        }
+        float longitude = points.get(0).getLongitude(), latitude = points.get(0).getLatitude();
+        for (int i = 0; i < encoded.length / 2; ++i) {
+            Point point = points.get(i + 1);
+            long dlon = Math.round((point.getLongitude() - longitude) * (double) SCALE);
+            long dlat = Math.round((point.getLatitude() - latitude) * (double) SCALE);
+            if (dlon < Short.MIN_VALUE || dlon > Short.MAX_VALUE || dlat < Short.MIN_VALUE
+                    || dlat > Short.MAX_VALUE) {
+                return false;
+            }
+            encoded[2 * i] = (short) dlon;
+            encoded[2 * i + 1] = (short) dlat;
+            longitude += encoded[2 * i] / SCALE;
+            latitude += encoded[2 * i + 1] / SCALE;
+            if (longitude != point.getLongitude() || latitude != point.getLatitude()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a new road with the given number of encoded points.
+     *
+     * @return Index of the first point of the new road.
+     */
+    private int reserve(int nbPoints) {
+        if (nbRoads + 1 == firstPoint.length) {
+            firstPoint = Arrays.copyOf(firstPoint, 2 * firstPoint.length);
+        }
+        int first = firstPoint[nbRoads];
+        if (2 * (first + nbPoints) > deltas.length) {
+            deltas = Arrays.copyOf(deltas, Math.max(2 * (first + nbPoints), 2 * deltas.length));
+        }
+        firstPoint[++nbRoads] = first + nbPoints;
+        return first;
+    }
+
+    /**
+     * Release the unused capacity of this store.
+     */
+    public void trimToSize() {
+        firstPoint = Arrays.copyOf(firstPoint, nbRoads + 1);
+        deltas = Arrays.copyOf(deltas, 2 * firstPoint[nbRoads]);
+    }
+
+    /**
+     * @param road Index of a road.
+     *
+     * @return Position of the road in the table of raw roads, or a negative value
+     *         if the road is encoded.
+     */
+    private int findRawRoad(int road) {
+        if (nbRawRoads == 0 || firstPoint[road + 1] != firstPoint[road]) {
+            return -1;
+        }
+        return Arrays.binarySearch(rawRoads, 0, nbRawRoads, road);
+    }
+
+    @Override
+    public int size() {
+        return nbRoads;
+    }
+
+    @Override
+    public int getPointCount(int road) {
+        int raw = findRawRoad(road);
+        if (raw >= 0) {
+            return rawFirstPoint[raw + 1] - rawFirstPoint[raw];
+        }
+        return firstPoint[road + 1] - firstPoint[road];
+    }
+
+    @Override
+    public void getPoints(int road, float longitude, float latitude, float[] longitudes,
+            float[] latitudes, int offset) {
+        int raw = findRawRoad(road);
+        if (raw >= 0) {
+            int first = rawFirstPoint[raw], nbPoints = rawFirstPoint[raw + 1] - first;
+            System.arraycopy(rawLongitudes, first, longitudes, offset, nbPoints);
+            System.arraycopy(rawLatitudes, first, latitudes, offset, nbPoints);
+            return;
+        }
+        for (int point = firstPoint[road]; point < firstPoint[road + 1]; ++point) {
+            longitude += deltas[2 * point] / SCALE;
+            latitude += deltas[2 * point + 1] / SCALE;
+            longitudes[offset] = longitude;
+            latitudes[offset] = latitude;
+            ++offset;
+        }
+    }
+
+}
@@ -0,0 +1,352 @@
+package org.insa.graphs.model.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.EncodedGeometryStore;
+import org.insa.graphs.model.PackedGeometryStore;
+import org.insa.graphs.model.Point;
+
+/**
+ * <p>
+ * Decoder for the arc section of a binary graph, i.e. the successors of each
+ * node as a sequence of (destination, descriptor, length, segments) records.
+ * </p>
+ *
+ * <p>
+ * Since the number of successors of every node is known before the arc
+ * section, a first pass computes the offset of each node block in the buffer.
+ * Blocks can then be decoded independently, either sequentially or
+ * concurrently on a {@link ForkJoinPool}. Decoded roads are stored by their
+ * index in the file so that they can be added to a {@link CompactGraph.Builder}
+ * in the same order as a sequential read, whatever the number of threads.
+ * </p>
+ *
+ * <p>
+ * The segments of the roads are copied in a {@link PackedGeometryStore}, whose
+ * size is known after the first pass. When geometry is loaded lazily, the
+ * segments are not decoded, only their position in the buffer is kept, and the
+ * buffer is used as the {@link EncodedGeometryStore} of the graph. If the buffer
+ * holds more than the geometry in the heap (e.g. the whole arc section read from
+ * a stream), the encoded segments can be copied to a compact buffer instead so
+ * that the rest of the section is not kept alive by the graph.
+ * </p>
+ *
+ */
+final class ArcSectionDecoder {
+
+    // Minimum number of roads decoded by a single task.
+    private static final int MIN_ROADS_PER_TASK = 1 << 14;
+
+    // Version of the file.
+    private final int version;
+
+    // Keep the position of the segments instead of decoding them, and copy the
+    // encoded segments out of the buffer.
+    private final boolean lazyGeometry, copyGeometry;
+
+    // Buffer being decoded.
+    private ByteBuffer buffer;
+
+    // Position and number of successors of each node.
+    private final Point[] points;
+    private final int[] nbSuccessors;
+
+    // Index of the first road of each node (size nbNodes + 1).
+    private final int[] firstRoad;
+
+    // Offset of each node block in the buffer (size nbNodes + 1).
+    private final int[] offsets;
+
+    // Decoded roads.
+    private final int[] destinations;
+    private final int[] descriptors;
+    private final float[] lengths;
+    private final int[] geometryOffsets;
+
+    // Decoded segments: the segments of road r are [firstPoint[r], firstPoint[r +
+    // 1]) in deltas.
+    private final int[] firstPoint;
+    private short[] deltas;
+
+    // Maximum length found in the file (before correction).
+    private float maxLength = 0;
+
+    /**
+     * Create a new decoder for the arc section of a graph.
+     *
+     * @param version Version of the file.
+     * @param points Position of each node.
+     * @param nbSuccessors Number of successors of each node.
+     * @param lazyGeometry Keep the position of the segments of each road instead
+     *        of decoding them.
+     * @param copyGeometry Copy the encoded segments to a compact buffer when
+     *        geometry is loaded lazily, instead of keeping the decoded buffer.
+     */
+    ArcSectionDecoder(int version, Point[] points, int[] nbSuccessors,
+            boolean lazyGeometry, boolean copyGeometry) {
+        this.version = version;
+        this.lazyGeometry = lazyGeometry;
+        this.copyGeometry = copyGeometry;
+        this.points = points;
+        this.nbSuccessors = nbSuccessors;
+        this.firstRoad = new int[points.length + 1];
+        for (int node = 0; node < points.length; ++node) {
+            this.firstRoad[node + 1] = this.firstRoad[node] + nbSuccessors[node];
+        }
+        int nbRoads = this.firstRoad[points.length];
+        this.offsets = new int[points.length + 1];
+        this.destinations = new int[nbRoads];
+        this.descriptors = new int[nbRoads];
+        this.lengths = new float[nbRoads];
+        this.geometryOffsets = lazyGeometry ? new int[nbRoads] : null;
+        this.firstPoint = lazyGeometry ? null : new int[nbRoads + 1];
+    }
+
+    /**
+     * Decode the arc section starting at the current position of the given
+     * buffer. When this method returns, the position of the buffer is right after
+     * the last road of the section.
+     *
+     * @param buffer Buffer to read from.
+     * @param pool Pool used to decode node blocks concurrently, or null to decode
+     *        them on the current thread.
+     *
+     * @throws IOException if the section is malformed or if the decoding is
+     *         interrupted.
+     */
+    void decode(ByteBuffer buffer, ForkJoinPool pool) throws IOException {
+        this.buffer = buffer;
+        computeOffsets(buffer);
+
+        if (pool == null || pool.getParallelism() < 2 || getRoadCount() < 2 * MIN_ROADS_PER_TASK) {
+            // Ids out of range in a corrupt section make the arrays throw.
+            try {
+                this.maxLength = decodeBlock(buffer.duplicate(), 0, points.length);
+            }
+            catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                BadFormatException exception = new BadFormatException(
+                        "Malformed arc section: " + e);
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+        else {
+            // Split nodes in blocks of roughly the same number of roads.
+            int nbTasks = Math.min(4 * pool.getParallelism(), getRoadCount() / MIN_ROADS_PER_TASK);
+            List<Callable<Float>> tasks = new ArrayList<>(nbTasks);
+            int from = 0;
+            for (int task = 1; task <= nbTasks && from < points.length; ++task) {
+                long target = (long) getRoadCount() * task / nbTasks;
+                int to = from;
+                while (to < points.length && firstRoad[to] < target) {
+                    ++to;
+                }
+                final int fromNode = from, toNode = task == nbTasks ? points.length : to;
+                final ByteBuffer view = buffer.duplicate();
+                tasks.add(() -> decodeBlock(view, fromNode, toNode));
+                from = toNode;
+            }
+            try {
+                for (Future<Float> result: pool.invokeAll(tasks)) {
+                    this.maxLength = Math.max(result.get(), this.maxLength);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decoding arcs.");
+            }
+            catch (ExecutionException e) {
+                BadFormatException exception = new BadFormatException(
+                        "Malformed arc section: " + e.getCause());
+                exception.initCause(e.getCause());
+                throw exception;
+            }
+        }
+
+        buffer.position(offsets[points.length]);
+    }
+
+    /**
+     * First pass over the arc section: compute the offset of each node block by
+     * only reading the number of segments of each road.
+     *
+     * @param buffer Buffer to read from, positioned at the start of the section.
+     *
+     * @throws BadFormatException if the section is truncated.
+     */
+    private void computeOffsets(ByteBuffer buffer) throws BadFormatException {
+        // Size of a road without its segments: destination, descriptor, length and
+        // number of segments.
+        final int headerSize = 3 + 3 + (version < 8 ? 2 : 4) + 2;
+        int offset = buffer.position();
+        int nbPoints = 0;
+        try {
+            for (int node = 0; node < points.length; ++node) {
+                offsets[node] = offset;
+                for (int road = firstRoad[node]; road < firstRoad[node + 1]; ++road) {
+                    int nbSegments = buffer.getShort(offset + headerSize - 2) & 0xffff;
+                    if (lazyGeometry) {
+                        geometryOffsets[road] = offset + headerSize - 2;
+                    }
+                    else {
+                        firstPoint[road] = nbPoints;
+                        nbPoints += nbSegments;
+                    }
+                    offset += headerSize + 4 * nbSegments;
+                }
+            }
+        }
+        catch (IndexOutOfBoundsException e) {
+            throw new BadFormatException("Truncated arc section.");
+        }
+        if (offset > buffer.limit()) {
+            throw new BadFormatException("Truncated arc section.");
+        }
+        offsets[points.length] = offset;
+        if (!lazyGeometry) {
+            firstPoint[getRoadCount()] = nbPoints;
+            deltas = new short[2 * nbPoints];
+        }
+    }
+
+    /**
+     * Decode the roads of the given range of nodes.
+     *
+     * @param buffer Buffer to read from, its position is modified.
+     * @param fromNode First node of the block (inclusive).
+     * @param toNode Last node of the block (exclusive).
+     *
+     * @return Maximum length of the roads in the block.
+     *
+     * @throws BufferUnderflowException if the block is truncated.
+     * @throws IndexOutOfBoundsException if a destination is not a node.
+     */
+    private float decodeBlock(ByteBuffer buffer, int fromNode, int toNode) {
+        float maxLength = 0;
+        buffer.position(offsets[fromNode]);
+        for (int node = fromNode; node < toNode; ++node) {
+            for (int road = firstRoad[node]; road < firstRoad[node + 1]; ++road) {
+
+                // Read target node number and information number.
+                int destNode = MappedGraphReader.read24bits(buffer);
+                int descrNum = MappedGraphReader.read24bits(buffer);
+
+                // Length of the arc.
+                float length;
+                if (version < 8) {
+                    length = buffer.getShort() & 0xffff;
+                }
+                else {
+                    length = buffer.getInt() / 1000.0f;
+                }
+                maxLength = Math.max(length, maxLength);
+
+                length = Math.max(length, (float) Point.distance(points[node], points[destNode]));
+
+                destinations[road] = destNode;
+                descriptors[road] = descrNum;
+                lengths[road] = length;
+
+                // Segments of the road, only their position is kept if geometry is
+                // loaded lazily.
+                int nbSegments = buffer.getShort() & 0xffff;
+                if (lazyGeometry) {
+                    buffer.position(buffer.position() + 4 * nbSegments);
+                }
+                else {
+                    for (int k = 2 * firstPoint[road]; k < 2 * firstPoint[road + 1]; ++k) {
+                        deltas[k] = buffer.getShort();
+                    }
+                }
+            }
+        }
+        return maxLength;
+    }
+
+    /**
+     * @return Number of roads in the section.
+     */
+    int getRoadCount() {
+        return firstRoad[points.length];
+    }
+
+    /**
+     * @return Maximum length found in the section, before correction with the
+     *         distance between the extremities of the roads.
+     */
+    float getMaximumLength() {
+        return maxLength;
+    }
+
+    /**
+     * Add the decoded roads to the given builder, in the order of the file. If
+     * geometry is loaded lazily, the decoded buffer, or a compact copy of its
+     * encoded segments, is set as the geometry store of the builder.
+     *
+     * @param builder Builder to add the roads to.
+     * @param roads Array filled with the entry returned by
+     *        {@link CompactGraph.Builder#addRoad} for each road.
+     */
+    void addRoads(CompactGraph.Builder builder, int[] roads) {
+        if (lazyGeometry && copyGeometry) {
+            builder.setGeometryStore(copyEncodedGeometry());
+        }
+        else if (lazyGeometry) {
+            builder.setGeometryStore(new EncodedGeometryStore(buffer, geometryOffsets));
+        }
+        else {
+            builder.setGeometryStore(new PackedGeometryStore(firstPoint, deltas));
+            deltas = null;
+        }
+        for (int node = 0; node < points.length; ++node) {
+            for (int road = firstRoad[node]; road < firstRoad[node + 1]; ++road) {
+                roads[road] = builder.addRoad(node, destinations[road], lengths[road],
+                        descriptors[road], road);
+            }
+        }
+    }
+
+    /**
+     * Copy the number of segments and the segments of every road to a buffer
+     * holding only them, in the order of the file.
+     *
+     * @return Store reading from the copy.
+     */
+    private EncodedGeometryStore copyEncodedGeometry() {
+        final int nbRoads = getRoadCount();
+        int size = 0;
+        for (int road = 0; road < nbRoads; ++road) {
+            size += 2 + 4 * (buffer.getShort(geometryOffsets[road]) & 0xffff);
+        }
+        byte[] geometry = new byte[size];
+        int[] offsets = new int[nbRoads];
+        int offset = 0;
+        for (int road = 0; road < nbRoads; ++road) {
+            int length = 2 + 4 * (buffer.getShort(geometryOffsets[road]) & 0xffff);
+            buffer.get(geometryOffsets[road], geometry, offset, length);
+            offsets[road] = offset;
+            offset += length;
+        }
+        return new EncodedGeometryStore(ByteBuffer.wrap(geometry), offsets);
+    }
+
+    /**
+     * @param road Index of a road in the file.
+     *
+     * @return Descriptor index of the given road.
+     */
+    int getDescriptor(int road) {
+        return descriptors[road];
+    }
+
+}
@@ -2,15 +2,20 @@ package org.insa.graphs.model.io;
 
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.insa.graphs.model.AccessRestrictions;
 import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.EncodedGeometryStore;
 import org.insa.graphs.model.Graph;
 import org.insa.graphs.model.GraphStatistics;
 import org.insa.graphs.model.Node;
+import org.insa.graphs.model.PackedGeometryStore;
 import org.insa.graphs.model.Point;
 import org.insa.graphs.model.RoadInformation;
 import org.insa.graphs.model.AccessRestrictions.AccessMode;
@@ -19,14 +24,22 @@ import org.insa.graphs.model.GraphStatistics.BoundingBox;
 import org.insa.graphs.model.RoadInformation.RoadType;
 
 /**
+ * <p>
  * Implementation of {@link GraphReader} to read graph in binary format.
+ * </p>
+ *
+ * <p>
+ * When created with a {@link ForkJoinPool}, the reader loads the arc section in
+ * memory and decodes the successors of blocks of nodes concurrently. The
+ * resulting graph is identical to the one read sequentially.
+ * </p>
  *
  */
 public class BinaryGraphReader extends BinaryReader implements GraphReader {
 
     // Map version and magic number targeted for this reader.
-    private static final int VERSION = 5;
-    private static final int MAGIC_NUMBER = 0x208BC3B3;
+    protected static final int VERSION = 5;
+    protected static final int MAGIC_NUMBER = 0x208BC3B3;
 
     // Length of the map id field (in bytes)
     protected static final int MAP_ID_FIELD_LENGTH = 32;
@@ -34,6 +47,12 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
     // List of observers
     protected List<GraphReaderObserver> observers = new ArrayList<>();
 
+    // Pool used to decode arcs, or null to decode them while reading the stream.
+    private final ForkJoinPool pool;
+
+    // Keep the encoded geometry of the arcs and decode it on demand.
+    private boolean lazyGeometry = false;
+
     /**
      * Parse the given long value into a new instance of AccessRestrictions.
      * 
@@ -62,8 +81,8 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
                 AccessMode.SMALL_MOTORCYCLE, AccessMode.AGRICULTURAL, AccessMode.MOTORCYCLE,
                 AccessMode.MOTORCAR, AccessMode.HEAVY_GOODS, null, AccessMode.PUBLIC_TRANSPORT };
 
-        // fill maps...
-        EnumMap<AccessMode, AccessRestriction> restrictions = new EnumMap<>(AccessMode.class);
+        // fill packed restrictions...
+        long restrictions = 0;
         long copyAccess = access;
         for (AccessMode mode: allModes) {
             if (mode == null) {
@@ -71,10 +90,10 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
             }
             int value = (int) (copyAccess & 0xf);
             if (value < allRestrictions.length) {
-                restrictions.put(mode, allRestrictions[value]);
+                restrictions |= AccessRestrictions.getMask(mode, allRestrictions[value]);
             }
             else {
-                restrictions.put(mode, AccessRestriction.UNKNOWN);
+                restrictions |= AccessRestrictions.getMask(mode, AccessRestriction.UNKNOWN);
             }
             copyAccess = copyAccess >> 4;
         }
@@ -139,7 +158,20 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
      * @param dis Input stream to read from.
      */
     public BinaryGraphReader(DataInputStream dis) {
+        this(dis, null);
+    }
+
+    /**
+     * Create a new BinaryGraphReader that read from the given input stream and
+     * decodes the arcs concurrently using the given pool.
+     * 
+     * @param dis Input stream to read from.
+     * @param pool Pool used to decode the arcs, or null to decode them while
+     *        reading the stream.
+     */
+    public BinaryGraphReader(DataInputStream dis, ForkJoinPool pool) {
         super(MAGIC_NUMBER, VERSION, dis);
+        this.pool = pool;
     }
 
     @Override
@@ -147,6 +179,17 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
         observers.add(observer);
     }
 
+    /**
+     * Enable or disable lazy loading of the geometry of the arcs. When enabled, the
+     * intermediate points of the arcs are kept encoded in a compact buffer and
+     * {@link Arc#getPoints()} decodes them on each call.
+     * 
+     * @param lazyGeometry true to load geometry lazily.
+     */
+    public void setLazyGeometry(boolean lazyGeometry) {
+        this.lazyGeometry = lazyGeometry;
+    }
+
     @Override
     public Graph read() throws IOException {
 
@@ -176,8 +219,8 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
         int[] nbSuccessors = new int[nbNodes];
         int nbTotalSuccessors = 0;
 
-        // Construct an array list with initial capacity of nbNodes.
-        ArrayList<Node> nodes = new ArrayList<Node>(nbNodes);
+        // Position of each node.
+        Point[] points = new Point[nbNodes];
 
         // Read nodes.
         float minLongitude = Float.POSITIVE_INFINITY, minLatitude = Float.POSITIVE_INFINITY,
@@ -198,9 +241,13 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
             nbSuccessors[node] = dis.readUnsignedByte();
             nbTotalSuccessors += nbSuccessors[node];
 
-            // Create node.
-            final Node aNode = new Node(node, new Point(longitude, latitude));
-            nodes.add(aNode);
+            points[node] = new Point(longitude, latitude);
+        }
+
+        // Create nodes, stored in a compact graph.
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, nbTotalSuccessors);
+        for (int node = 0; node < nbNodes; ++node) {
+            final Node aNode = builder.addNode(points[node]);
             observers.forEach((observer) -> observer.notifyNewNodeRead(aNode));
         }
 
@@ -224,74 +271,134 @@ public class BinaryGraphReader extends BinaryReader implements GraphReader {
 
         // Check format.
         checkByteOrThrow(254);
+        builder.setDescriptors(descs);
 
         // Read successors and convert to arcs.
         float maxLength = 0;
         final int copyNbTotalSuccesors = nbTotalSuccessors; // Stupid Java...
         int nbOneWayRoad = 0;
         observers.forEach((observer) -> observer.notifyStartReadingArcs(copyNbTotalSuccesors));
-        for (int node = 0; node < nbNodes; ++node) {
-            for (int succ = 0; succ < nbSuccessors[node]; ++succ) {
-
-                // Read target node number.
-                int destNode = this.read24bits();
-
-                // Read information number.
-                int descrNum = this.read24bits();
-
-                // Length of the arc.
-                float length;
-                if (getCurrentVersion() < 8) {
-                    length = dis.readUnsignedShort();
-                }
-                else {
-                    length = dis.readInt() / 1000.0f;
+        int[] roads = new int[nbTotalSuccessors];
+        int nbRoads = 0;
+        if (pool != null) {
+            // Decode the remaining of the stream concurrently.
+            ByteBuffer buffer = ByteBuffer.wrap(dis.readAllBytes());
+            ArcSectionDecoder decoder = new ArcSectionDecoder(getCurrentVersion(), points,
+                    nbSuccessors, lazyGeometry, true);
+            decoder.decode(buffer, pool);
+            decoder.addRoads(builder, roads);
+            maxLength = decoder.getMaximumLength();
+            for (nbRoads = 0; nbRoads < decoder.getRoadCount(); ++nbRoads) {
+                if (descs[decoder.getDescriptor(nbRoads)].isOneWay()) {
+                    nbOneWayRoad++;
                 }
-                maxLength = Math.max(length, maxLength);
-
-                length = Math.max(length, (float) Point.distance(nodes.get(node).getPoint(),
-                        nodes.get(destNode).getPoint()));
-
-                // Number of segments.
-                int nbSegments = dis.readUnsignedShort();
-
-                // Chain of points corresponding to the segments.
-                ArrayList<Point> points = new ArrayList<Point>(nbSegments + 2);
-                points.add(nodes.get(node).getPoint());
-
-                for (int seg = 0; seg < nbSegments; ++seg) {
-                    Point lastPoint = points.get(points.size() - 1);
+            }
 
-                    float dlon = (dis.readShort()) / 2.0e5f;
-                    float dlat = (dis.readShort()) / 2.0e5f;
+            // Check format.
+            if (!buffer.hasRemaining() || (buffer.get() & 0xff) != 253) {
+                throw new BadFormatException();
+            }
+        }
+        else {
+            // Encoded geometry of the roads if geometry is loaded lazily, packed
+            // geometry otherwise.
+            int[] geometryOffsets = lazyGeometry ? new int[nbTotalSuccessors] : null;
+            byte[] geometry = new byte[lazyGeometry ? 2 * nbTotalSuccessors : 0];
+            int geometrySize = 0;
+            PackedGeometryStore packedGeometry = null;
+            short[] deltas = new short[0];
+            if (!lazyGeometry) {
+                packedGeometry = new PackedGeometryStore(nbTotalSuccessors, nbTotalSuccessors);
+                builder.setGeometryStore(packedGeometry);
+            }
 
-                    points.add(new Point(lastPoint.getLongitude() + dlon,
-                            lastPoint.getLatitude() + dlat));
+            for (int node = 0; node < nbNodes; ++node) {
+                for (int succ = 0; succ < nbSuccessors[node]; ++succ) {
+
+                    // Read target node number.
+                    int destNode = this.read24bits();
+
+                    // Read information number.
+                    int descrNum = this.read24bits();
+
+                    // Length of the arc.
+                    float length;
+                    if (getCurrentVersion() < 8) {
+                        length = dis.readUnsignedShort();
+                    }
+                    else {
+                        length = dis.readInt() / 1000.0f;
+                    }
+                    maxLength = Math.max(length, maxLength);
+
+                    length = Math.max(length,
+                            (float) Point.distance(points[node], points[destNode]));
+
+                    // Number of segments.
+                    int nbSegments = dis.readUnsignedShort();
+
+                    // Keep the encoded segments if geometry is loaded lazily, otherwise
+                    // add them to the packed geometry.
+                    int geometryIndex;
+                    if (lazyGeometry) {
+                        int size = 2 + 4 * nbSegments;
+                        if (geometrySize + size > geometry.length) {
+                            geometry = Arrays.copyOf(geometry,
+                                    Math.max(geometrySize + size, 2 * geometry.length));
+                        }
+                        geometry[geometrySize] = (byte) (nbSegments >> 8);
+                        geometry[geometrySize + 1] = (byte) nbSegments;
+                        dis.readFully(geometry, geometrySize + 2, 4 * nbSegments);
+                        geometryOffsets[nbRoads] = geometrySize;
+                        geometrySize += size;
+                        geometryIndex = nbRoads;
+                    }
+                    else {
+                        if (deltas.length < 2 * nbSegments) {
+                            deltas = new short[2 * nbSegments];
+                        }
+                        for (int k = 0; k < 2 * nbSegments; ++k) {
+                            deltas[k] = dis.readShort();
+                        }
+                        geometryIndex = packedGeometry.add(deltas, 0, nbSegments);
+                    }
+
+                    // Add the road (and its reverse arc if two-ways).
+                    roads[nbRoads] = builder.addRoad(node, destNode, length, descrNum,
+                            geometryIndex);
+                    nbRoads++;
+                    if (descs[descrNum].isOneWay()) {
+                        nbOneWayRoad++;
+                    }
                 }
+            }
 
-                points.add(nodes.get(destNode).getPoint());
+            // Check format.
+            checkByteOrThrow(253);
 
-                RoadInformation info = descs[descrNum];
-                Node orig = nodes.get(node);
-                Node dest = nodes.get(destNode);
+            if (lazyGeometry) {
+                builder.setGeometryStore(new EncodedGeometryStore(
+                        ByteBuffer.wrap(Arrays.copyOf(geometry, geometrySize)), geometryOffsets));
+            }
+            else {
+                packedGeometry.trimToSize();
+            }
+        }
 
-                // Add successor to initial arc.
-                Arc arc = Node.linkNodes(orig, dest, length, info, points);
-                if (info.isOneWay()) {
-                    nbOneWayRoad++;
-                }
+        // Build the compact graph and notify observers about the arcs read.
+        CompactGraph compactGraph = builder.build();
+        if (!observers.isEmpty()) {
+            for (int road = 0; road < nbRoads; ++road) {
+                final Arc arc = compactGraph.getArc(builder.getArcIndex(roads[road]));
                 observers.forEach((observer) -> observer.notifyNewArcRead(arc));
             }
         }
 
-        // Check format.
-        checkByteOrThrow(253);
-
         observers.forEach((observer) -> observer.notifyEndReading());
 
         this.dis.close();
 
-        return new Graph(mapId, mapName, nodes,
+        return new Graph(mapId, mapName, compactGraph,
                 new GraphStatistics(
                         new BoundingBox(new Point(minLongitude, maxLatitude),
                                 new Point(maxLongitude, minLatitude)),
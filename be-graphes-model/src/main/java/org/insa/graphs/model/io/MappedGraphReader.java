@@ -0,0 +1,356 @@
+package org.insa.graphs.model.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.GraphStatistics;
+import org.insa.graphs.model.GraphStatistics.BoundingBox;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+
+/**
+ * <p>
+ * Implementation of {@link GraphReader} to read graph in binary format from a
+ * memory-mapped file.
+ * </p>
+ *
+ * <p>
+ * This reader accepts the same files (version 5 and above) as
+ * {@link BinaryGraphReader} and produces an identical graph, but decodes nodes,
+ * descriptors and arcs directly from the mapped file instead of going through a
+ * stream. The time spent and the number of bytes read by the last call to
+ * {@link #read()} are available to monitor load throughput.
+ * </p>
+ *
+ */
+public class MappedGraphReader implements GraphReader {
+
+    // Channel of the file to read.
+    private final FileChannel channel;
+
+    // Pool used to decode arcs, or null to decode them on the calling thread.
+    private final ForkJoinPool pool;
+
+    // Decode the geometry of the arcs from the mapped file on demand.
+    private boolean lazyGeometry = false;
+
+    // List of observers
+    protected List<GraphReaderObserver> observers = new ArrayList<>();
+
+    // Statistics of the last read.
+    private long bytesRead = 0;
+    private Duration readingTime = Duration.ZERO;
+
+    /**
+     * Create a new MappedGraphReader that reads from the given file.
+     *
+     * @param file File to read from.
+     *
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedGraphReader(File file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Create a new MappedGraphReader that reads from the given file and decodes
+     * the arcs concurrently using the given pool.
+     *
+     * @param file File to read from.
+     * @param pool Pool used to decode the arcs, or null to decode them on the
+     *        calling thread.
+     *
+     * @throws IOException if the file cannot be opened.
+     */
+    public MappedGraphReader(File file, ForkJoinPool pool) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.pool = pool;
+    }
+
+    @Override
+    public void addObserver(GraphReaderObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Enable or disable lazy loading of the geometry of the arcs. When enabled, the
+     * intermediate points of the arcs are not read, the graph keeps a reference to
+     * the mapped file and {@link Arc#getPoints()} decodes them on each call.
+     *
+     * @param lazyGeometry true to load geometry lazily.
+     */
+    public void setLazyGeometry(boolean lazyGeometry) {
+        this.lazyGeometry = lazyGeometry;
+    }
+
+    /**
+     * @return Number of bytes decoded by the last call to {@link #read()}.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return Time spent by the last call to {@link #read()}.
+     */
+    public Duration getReadingTime() {
+        return readingTime;
+    }
+
+    /**
+     * @return Throughput of the last call to {@link #read()}, in bytes per second.
+     */
+    public double getThroughput() {
+        double seconds = readingTime.toNanos() / 1e9;
+        return seconds > 0 ? bytesRead / seconds : 0;
+    }
+
+    @Override
+    public Graph read() throws IOException {
+        Instant start = Instant.now();
+
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be mapped (" + size + " bytes).");
+        }
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+
+        // Reads past the end of a truncated file, and ids or counts out of range in
+        // a corrupt one, make the buffer or the arrays throw.
+        try {
+            return read(buffer, start);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException
+                | NegativeArraySizeException e) {
+            BadFormatException exception = new BadFormatException(
+                    "Truncated or malformed file: " + e);
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Decode the graph from the given buffer.
+     *
+     * @param buffer Buffer over the whole file.
+     * @param start Instant at which the reading started.
+     *
+     * @return The graph read from the buffer.
+     *
+     * @throws IOException if the content of the buffer is not a valid graph.
+     */
+    private Graph read(ByteBuffer buffer, Instant start) throws IOException {
+
+        // Read and check magic number and file version.
+        int magicNumber = buffer.getInt();
+        if (magicNumber != BinaryGraphReader.MAGIC_NUMBER) {
+            throw new BadMagicNumberException(magicNumber, BinaryGraphReader.MAGIC_NUMBER);
+        }
+        final int version = buffer.getInt();
+        if (version < BinaryGraphReader.VERSION) {
+            throw new BadVersionException(version, BinaryGraphReader.VERSION);
+        }
+
+        // Read map id.
+        String mapId;
+        String mapName = "";
+
+        if (version < 6) {
+            mapId = "0x" + Integer.toHexString(buffer.getInt());
+        }
+        else {
+            byte[] bytes = new byte[BinaryGraphReader.MAP_ID_FIELD_LENGTH];
+            buffer.get(bytes);
+            mapId = new String(bytes, StandardCharsets.UTF_8).trim();
+            mapName = readUTF(buffer);
+        }
+
+        observers.forEach((observer) -> observer.notifyStartReading(mapId));
+
+        // Number of descriptors and nodes.
+        int nbDesc = buffer.getInt();
+        int nbNodes = buffer.getInt();
+
+        // Number of successors for each nodes.
+        int[] nbSuccessors = new int[nbNodes];
+        int nbTotalSuccessors = 0;
+
+        // Position of each node.
+        Point[] points = new Point[nbNodes];
+
+        // Read nodes.
+        float minLongitude = Float.POSITIVE_INFINITY, minLatitude = Float.POSITIVE_INFINITY,
+                maxLongitude = Float.NEGATIVE_INFINITY, maxLatitude = Float.NEGATIVE_INFINITY;
+        observers.forEach((observer) -> observer.notifyStartReadingNodes(nbNodes));
+        for (int node = 0; node < nbNodes; ++node) {
+            float longitude = ((float) buffer.getInt()) / 1E6f;
+            float latitude = ((float) buffer.getInt()) / 1E6f;
+
+            minLongitude = Math.min(longitude, minLongitude);
+            minLatitude = Math.min(latitude, minLatitude);
+            maxLongitude = Math.max(longitude, maxLongitude);
+            maxLatitude = Math.max(latitude, maxLatitude);
+
+            nbSuccessors[node] = buffer.get() & 0xff;
+            nbTotalSuccessors += nbSuccessors[node];
+
+            points[node] = new Point(longitude, latitude);
+        }
+
+        CompactGraph.Builder builder = new CompactGraph.Builder(nbNodes, nbTotalSuccessors);
+        for (int node = 0; node < nbNodes; ++node) {
+            final Node aNode = builder.addNode(points[node]);
+            observers.forEach((observer) -> observer.notifyNewNodeRead(aNode));
+        }
+
+        // Check format.
+        checkByteOrThrow(buffer, 255);
+
+        // Read descriptors.
+        RoadInformation[] descs = new RoadInformation[nbDesc];
+        observers.forEach((observer) -> observer.notifyStartReadingDescriptors(nbDesc));
+        int maxSpeed = 0;
+        for (int descr = 0; descr < nbDesc; ++descr) {
+            final RoadInformation roadinf = readRoadInformation(buffer, version);
+            descs[descr] = roadinf;
+            observers.forEach((observer) -> observer.notifyNewDescriptorRead(roadinf));
+            maxSpeed = Math.max(roadinf.getMaximumSpeed(), maxSpeed);
+        }
+
+        // Check format.
+        checkByteOrThrow(buffer, 254);
+        builder.setDescriptors(descs);
+
+        // Read successors and convert to arcs.
+        final int copyNbTotalSuccesors = nbTotalSuccessors;
+        observers.forEach((observer) -> observer.notifyStartReadingArcs(copyNbTotalSuccesors));
+        ArcSectionDecoder decoder = new ArcSectionDecoder(version, points, nbSuccessors,
+                lazyGeometry, false);
+        decoder.decode(buffer, pool);
+        int nbRoads = decoder.getRoadCount();
+        int[] roads = new int[nbRoads];
+        decoder.addRoads(builder, roads);
+        float maxLength = decoder.getMaximumLength();
+        int nbOneWayRoad = 0;
+        for (int road = 0; road < nbRoads; ++road) {
+            if (descs[decoder.getDescriptor(road)].isOneWay()) {
+                nbOneWayRoad++;
+            }
+        }
+
+        // Check format.
+        checkByteOrThrow(buffer, 253);
+
+        CompactGraph compactGraph = builder.build();
+        if (!observers.isEmpty()) {
+            for (int road = 0; road < nbRoads; ++road) {
+                final Arc arc = compactGraph.getArc(builder.getArcIndex(roads[road]));
+                observers.forEach((observer) -> observer.notifyNewArcRead(arc));
+            }
+        }
+
+        observers.forEach((observer) -> observer.notifyEndReading());
+
+        this.bytesRead = buffer.position();
+        this.readingTime = Duration.between(start, Instant.now());
+
+        return new Graph(mapId, mapName, compactGraph,
+                new GraphStatistics(
+                        new BoundingBox(new Point(minLongitude, maxLatitude),
+                                new Point(maxLongitude, minLatitude)),
+                        nbOneWayRoad, nbTotalSuccessors - nbOneWayRoad, maxSpeed, maxLength));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read the next road information from the given buffer.
+     *
+     * @param buffer Buffer to read from.
+     * @param version Version of the file.
+     *
+     * @return The next RoadInformation in the buffer.
+     *
+     * @throws IOException if the name of the road is malformed.
+     */
+    private static RoadInformation readRoadInformation(ByteBuffer buffer, int version)
+            throws IOException {
+        char type = (char) (buffer.get() & 0xff);
+        int x = buffer.get() & 0xff;
+        AccessRestrictions access = new AccessRestrictions();
+        if (version >= 7) {
+            access = BinaryGraphReader.toAccessInformation(buffer.getLong());
+        }
+        else if (version >= 6) {
+            buffer.getShort();
+        }
+        return new RoadInformation(BinaryGraphReader.toRoadType(type), access, (x & 0x80) > 0,
+                (x & 0x7F) * 5, readUTF(buffer));
+    }
+
+    /**
+     * Check if the next byte in the buffer correspond to the given byte.
+     *
+     * @param buffer Buffer to read from.
+     * @param b Byte to check.
+     *
+     * @throws BadFormatException if the byte read is not the expected one.
+     */
+    private static void checkByteOrThrow(ByteBuffer buffer, int b) throws BadFormatException {
+        if ((buffer.get() & 0xff) != b) {
+            throw new BadFormatException();
+        }
+    }
+
+    /**
+     * Read 24 bits in BigEndian order from the buffer.
+     *
+     * @param buffer Buffer to read from.
+     *
+     * @return Integer value read from the next 24 bits of the buffer.
+     */
+    static int read24bits(ByteBuffer buffer) {
+        int x = buffer.getShort() & 0xffff;
+        return (x << 8) | (buffer.get() & 0xff);
+    }
+
+    /**
+     * Read a string in modified UTF-8 format, as written by
+     * {@link java.io.DataOutput#writeUTF(String)}, from the buffer.
+     *
+     * @param buffer Buffer to read from.
+     *
+     * @return The string read.
+     *
+     * @throws IOException if the string is malformed.
+     */
+    static String readUTF(ByteBuffer buffer) throws IOException {
+        int length = buffer.getShort(buffer.position()) & 0xffff;
+        byte[] bytes = new byte[length + 2];
+        buffer.get(bytes);
+        return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.insa.graphes.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
+import org.junit.Test;
+
+public class AccessRestrictionsTest {
+
+    // Restrictions of roads that are not closed.
+    private static final EnumSet<AccessRestriction> NOT_CLOSED = EnumSet
+            .complementOf(EnumSet.of(AccessRestriction.FORBIDDEN, AccessRestriction.PRIVATE));
+
+    private static AccessRestrictions create() {
+        EnumMap<AccessMode, AccessRestriction> map = new EnumMap<>(AccessMode.class);
+        map.put(AccessMode.FOOT, AccessRestriction.ALLOWED);
+        map.put(AccessMode.BICYCLE, AccessRestriction.PRIVATE);
+        map.put(AccessMode.MOTORCAR, AccessRestriction.FORBIDDEN);
+        map.put(AccessMode.PUBLIC_TRANSPORT, AccessRestriction.DESTINATION);
+        return new AccessRestrictions(map);
+    }
+
+    @Test
+    public void testGetRestrictionFor() {
+        AccessRestrictions access = create();
+        assertEquals(AccessRestriction.ALLOWED, access.getRestrictionFor(AccessMode.FOOT));
+        assertEquals(AccessRestriction.PRIVATE, access.getRestrictionFor(AccessMode.BICYCLE));
+        assertEquals(AccessRestriction.FORBIDDEN, access.getRestrictionFor(AccessMode.MOTORCAR));
+        assertEquals(AccessRestriction.DESTINATION,
+                access.getRestrictionFor(AccessMode.PUBLIC_TRANSPORT));
+        assertEquals(AccessRestriction.UNKNOWN, access.getRestrictionFor(AccessMode.HEAVY_GOODS));
+        for (AccessMode mode: AccessMode.values()) {
+            assertEquals(AccessRestriction.UNKNOWN,
+                    new AccessRestrictions().getRestrictionFor(mode));
+            assertEquals(access.getRestrictionFor(mode),
+                    new AccessRestrictions(access.getBits()).getRestrictionFor(mode));
+        }
+    }
+
+    @Test
+    public void testMasks() {
+        AccessRestrictions access = create();
+        for (AccessMode mode: AccessMode.values()) {
+            long mask = AccessRestrictions.getMask(EnumSet.of(mode), NOT_CLOSED);
+            assertEquals(access.isAllowedForAny(mode, NOT_CLOSED), access.isAllowedForAny(mask));
+            for (AccessRestriction restriction: AccessRestriction.values()) {
+                assertEquals(access.getRestrictionFor(mode) == restriction,
+                        access.isAllowedFor(mode, restriction));
+            }
+        }
+        assertTrue(access.isAllowedForAny(
+                AccessRestrictions.getMask(EnumSet.of(AccessMode.FOOT), NOT_CLOSED)));
+        assertFalse(access.isAllowedForAny(
+                AccessRestrictions.getMask(EnumSet.of(AccessMode.MOTORCAR), NOT_CLOSED)));
+        assertTrue(access.isAllowedForAny(AccessRestrictions
+                .getMask(EnumSet.of(AccessMode.MOTORCAR, AccessMode.FOOT), NOT_CLOSED)));
+    }
+
+    @Test
+    public void testAreAllAllowedForAny() {
+        AccessRestrictions access = create();
+        assertTrue(access.areAllAllowedForAny(
+                EnumSet.of(AccessMode.FOOT, AccessMode.PUBLIC_TRANSPORT, AccessMode.HEAVY_GOODS),
+                NOT_CLOSED));
+        assertFalse(access.areAllAllowedForAny(EnumSet.of(AccessMode.FOOT, AccessMode.BICYCLE),
+                NOT_CLOSED));
+        assertTrue(access.areAllAllowedForAny(EnumSet.noneOf(AccessMode.class), NOT_CLOSED));
+    }
+
+}
@@ -0,0 +1,217 @@
+package org.insa.graphes.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.PackedGeometryStore;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+import org.insa.graphs.model.RoadInformation.RoadType;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CompactGraphTest {
+
+    // Roads of the test graph: origin, destination, one-way (1) or not (0).
+    private static final int[][] ROADS = { { 0, 1, 0 }, { 0, 2, 0 }, { 0, 4, 1 }, { 1, 2, 0 },
+            { 2, 3, 1 }, { 2, 3, 1 }, { 2, 3, 1 }, { 3, 0, 0 }, { 3, 4, 1 }, { 4, 0, 1 } };
+
+    // Same graph, as objects and backed by a compact graph.
+    private static Graph objectGraph, compactGraph;
+
+    @BeforeClass
+    public static void initAll() throws IOException {
+        RoadInformation[] descriptors = new RoadInformation[] {
+                new RoadInformation(RoadType.UNCLASSIFIED, null, false, 36, null),
+                new RoadInformation(RoadType.UNCLASSIFIED, null, true, 72, null) };
+
+        Node[] nodes = new Node[5];
+        CompactGraph.Builder builder = new CompactGraph.Builder(nodes.length, ROADS.length);
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = new Node(i, new Point(i, 2 * i));
+            builder.addNode(new Point(i, 2 * i));
+        }
+        builder.setDescriptors(descriptors);
+
+        for (int i = 0; i < ROADS.length; ++i) {
+            int[] road = ROADS[i];
+            ArrayList<Point> points = new ArrayList<>(Arrays.asList(nodes[road[0]].getPoint(),
+                    new Point(i, i), nodes[road[1]].getPoint()));
+            Node.linkNodes(nodes[road[0]], nodes[road[1]], 10 + i, descriptors[road[2]],
+                    new ArrayList<>(points));
+            builder.addRoad(road[0], road[1], 10 + i, road[2], points);
+        }
+
+        objectGraph = new Graph("ID", "", Arrays.asList(nodes), null);
+        compactGraph = new Graph("ID", "", builder.build(), null);
+    }
+
+    private static void assertSameArc(Arc expected, Arc actual) {
+        assertEquals(expected.getOrigin().getId(), actual.getOrigin().getId());
+        assertEquals(expected.getDestination().getId(), actual.getDestination().getId());
+        assertEquals(expected.getLength(), actual.getLength(), 1e-6);
+        assertSame(expected.getRoadInformation(), actual.getRoadInformation());
+        List<Point> expectedPoints = expected.getPoints(), actualPoints = actual.getPoints();
+        assertEquals(expectedPoints.size(), actualPoints.size());
+        for (int i = 0; i < expectedPoints.size(); ++i) {
+            assertEquals(expectedPoints.get(i).getLongitude(),
+                    actualPoints.get(i).getLongitude(), 1e-6);
+            assertEquals(expectedPoints.get(i).getLatitude(), actualPoints.get(i).getLatitude(),
+                    1e-6);
+        }
+    }
+
+    @Test
+    public void testSuccessors() {
+        assertEquals(objectGraph.size(), compactGraph.size());
+        for (int i = 0; i < objectGraph.size(); ++i) {
+            List<Arc> expected = objectGraph.get(i).getSuccessors(),
+                    actual = compactGraph.get(i).getSuccessors();
+            assertEquals(expected.size(), compactGraph.get(i).getNumberOfSuccessors());
+            assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); ++j) {
+                assertSameArc(expected.get(j), actual.get(j));
+                assertSame(compactGraph.get(i), actual.get(j).getOrigin());
+            }
+        }
+    }
+
+    @Test
+    public void testArcIndex() {
+        for (Graph graph: new Graph[] { objectGraph, compactGraph }) {
+            CompactGraph compact = graph.getCompactGraph();
+            assertEquals(14, compact.getArcCount());
+            for (Node node: graph.getNodes()) {
+                List<Arc> successors = node.getSuccessors();
+                assertEquals(successors.size(), compact.getFirstArc(node.getId() + 1)
+                        - compact.getFirstArc(node.getId()));
+                for (int j = 0; j < successors.size(); ++j) {
+                    int arc = compact.getFirstArc(node.getId()) + j;
+                    assertEquals(successors.get(j), compact.getArc(arc));
+                    assertEquals(node.getId(), compact.getArcOrigin(arc));
+                    assertEquals(successors.get(j).getDestination().getId(),
+                            compact.getArcDestination(arc));
+                    assertSame(successors.get(j).getRoadInformation(),
+                            compact.getRoadInformation(arc));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReverseIndex() {
+        CompactGraph compact = compactGraph.getCompactGraph();
+        final int[] expNbPred = { 4, 2, 2, 4, 2 };
+        int total = 0;
+        for (int node = 0; node < compact.size(); ++node) {
+            assertEquals(expNbPred[node],
+                    compact.getFirstInArc(node + 1) - compact.getFirstInArc(node));
+            int previous = -1;
+            for (int k = compact.getFirstInArc(node); k < compact.getFirstInArc(node + 1); ++k) {
+                int arc = compact.getInArc(k);
+                assertEquals(node, compact.getArcDestination(arc));
+                assertTrue(arc > previous);
+                previous = arc;
+                total++;
+            }
+        }
+        assertEquals(compact.getArcCount(), total);
+    }
+
+    @Test
+    public void testArcPoints() {
+        CompactGraph compact = compactGraph.getCompactGraph();
+        float[] longitudes = new float[2], latitudes = new float[2];
+        for (Node node: objectGraph.getNodes()) {
+            List<Arc> successors = node.getSuccessors();
+            for (int j = 0; j < successors.size(); ++j) {
+                int arc = compact.getFirstArc(node.getId()) + j;
+                List<Point> expected = successors.get(j).getPoints();
+                assertEquals(expected.size(), compact.getArcPointCount(arc));
+                if (longitudes.length < expected.size()) {
+                    longitudes = new float[expected.size()];
+                    latitudes = new float[expected.size()];
+                }
+                assertEquals(expected.size(), compact.getArcPoints(arc, longitudes, latitudes));
+                for (int k = 0; k < expected.size(); ++k) {
+                    assertEquals(expected.get(k).getLongitude(), longitudes[k], 1e-6);
+                    assertEquals(expected.get(k).getLatitude(), latitudes[k], 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPackedGeometryStore() {
+        PackedGeometryStore store = new PackedGeometryStore(1, 1);
+        List<Point> encoded = Arrays.asList(new Point(1.5f, 43.5f), new Point(1.50001f, 43.5f),
+                new Point(1.50001f, 43.49999f), new Point(1.6f, 43.6f));
+        List<Point> raw = Arrays.asList(new Point(1.5f, 43.5f), new Point(3.1234567f, 40f),
+                new Point(2f, 41f));
+        assertEquals(0, store.add(encoded));
+        assertEquals(1, store.add(raw));
+        assertEquals(2, store.add(Arrays.asList(new Point(0, 0), new Point(1, 1))));
+        store.trimToSize();
+
+        assertEquals(3, store.size());
+        int[] expectedCounts = { 2, 1, 0 };
+        List<List<Point>> roads = Arrays.asList(encoded, raw);
+        for (int road = 0; road < roads.size(); ++road) {
+            List<Point> points = roads.get(road);
+            assertEquals(expectedCounts[road], store.getPointCount(road));
+            float[] longitudes = new float[points.size()], latitudes = new float[points.size()];
+            store.getPoints(road, points.get(0).getLongitude(), points.get(0).getLatitude(),
+                    longitudes, latitudes, 1);
+            for (int k = 1; k < points.size() - 1; ++k) {
+                assertEquals(points.get(k).getLongitude(), longitudes[k], 1e-5);
+                assertEquals(points.get(k).getLatitude(), latitudes[k], 1e-5);
+            }
+        }
+        assertEquals(0, store.getPointCount(2));
+    }
+
+    @Test
+    public void testLinkNodesKeepsPoints() {
+        Node origin = new Node(1, new Point(1, 1)), destination = new Node(0, new Point(0, 0));
+        ArrayList<Point> points = new ArrayList<>(
+                Arrays.asList(origin.getPoint(), new Point(0.5f, 0.2f), destination.getPoint()));
+        Arc arc = Node.linkNodes(origin, destination, 10,
+                new RoadInformation(RoadType.UNCLASSIFIED, null, false, 36, null),
+                points);
+        assertSame(origin.getPoint(), points.get(0));
+        assertEquals(origin.getPoint().getLongitude(), arc.getPoints().get(0).getLongitude(),
+                1e-6);
+        assertEquals(destination.getPoint().getLongitude(),
+                destination.getSuccessors().get(0).getPoints().get(0).getLongitude(), 1e-6);
+    }
+
+    @Test
+    public void testTranspose() {
+        Graph expected = objectGraph.transpose(), actual = compactGraph.transpose();
+        assertEquals(expected.getMapId(), actual.getMapId());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).getNumberOfSuccessors(),
+                    actual.get(i).getNumberOfSuccessors());
+            for (Arc arc: actual.get(i).getSuccessors()) {
+                assertSame(actual.get(i), arc.getOrigin());
+                assertSame(actual.get(arc.getDestination().getId()), arc.getDestination());
+                List<Point> points = arc.getPoints();
+                assertEquals(arc.getOrigin().getPoint().getLongitude(),
+                        points.get(0).getLongitude(), 1e-6);
+                assertEquals(arc.getDestination().getPoint().getLongitude(),
+                        points.get(points.size() - 1).getLongitude(), 1e-6);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,390 @@
+package org.insa.graphes.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.io.BadFormatException;
+import org.insa.graphs.model.io.BadMagicNumberException;
+import org.insa.graphs.model.io.BinaryGraphReader;
+import org.insa.graphs.model.io.GraphReader;
+import org.insa.graphs.model.io.MappedGraphReader;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class GraphReaderTest {
+
+    // Number of nodes and descriptors of the generated graphs.
+    private static final int NB_NODES = 200, NB_DESCRIPTORS = 12;
+
+    // Number of nodes of the graphs used to test parallel decoding.
+    private static final int NB_NODES_LARGE = 40000;
+
+    // Generated files, one per version, small and large.
+    private static File[] files, largeFiles;
+
+    // Pool used for parallel decoding.
+    private static ForkJoinPool pool;
+
+    @Parameters
+    public static Collection<Object> data() {
+        return Arrays.asList(new Object[] { 5, 6, 7, 8 });
+    }
+
+    @Parameter
+    public int version;
+
+    /**
+     * Write a random graph in binary format with the given version.
+     */
+    private static byte[] createGraphFile(int version, int nbNodes, long seed) throws IOException {
+        Random random = new Random(seed);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bytes);
+
+        dos.writeInt(0x208BC3B3);
+        dos.writeInt(version);
+        if (version < 6) {
+            dos.writeInt(0xCAFE);
+        }
+        else {
+            dos.write(Arrays.copyOf("test-map".getBytes("UTF-8"), 32));
+            dos.writeUTF("Test map");
+        }
+        dos.writeInt(NB_DESCRIPTORS);
+        dos.writeInt(nbNodes);
+
+        int[] nbSuccessors = new int[nbNodes];
+        for (int node = 0; node < nbNodes; ++node) {
+            nbSuccessors[node] = random.nextInt(4);
+            dos.writeInt(1400000 + random.nextInt(200000));
+            dos.writeInt(43500000 + random.nextInt(200000));
+            dos.writeByte(nbSuccessors[node]);
+        }
+        dos.writeByte(255);
+
+        for (int descr = 0; descr < NB_DESCRIPTORS; ++descr) {
+            dos.writeByte("abcdijnoprsz".charAt(descr));
+            dos.writeByte((descr % 3 == 0 ? 0x80 : 0) | (1 + random.nextInt(26)));
+            if (version >= 7) {
+                dos.writeLong(random.nextLong());
+            }
+            else if (version >= 6) {
+                dos.writeShort(0);
+            }
+            dos.writeUTF("Road #" + descr + " é");
+        }
+        dos.writeByte(254);
+
+        for (int node = 0; node < nbNodes; ++node) {
+            for (int succ = 0; succ < nbSuccessors[node]; ++succ) {
+                int dest = random.nextInt(nbNodes);
+                dos.writeShort(dest >> 8);
+                dos.writeByte(dest & 0xff);
+                int descr = random.nextInt(NB_DESCRIPTORS);
+                dos.writeShort(descr >> 8);
+                dos.writeByte(descr & 0xff);
+                if (version < 8) {
+                    dos.writeShort(random.nextInt(65536));
+                }
+                else {
+                    dos.writeInt(random.nextInt(50000000));
+                }
+                int nbSegments = random.nextInt(5);
+                dos.writeShort(nbSegments);
+                for (int seg = 0; seg < nbSegments; ++seg) {
+                    dos.writeShort(random.nextInt(65536) - 32768);
+                    dos.writeShort(random.nextInt(65536) - 32768);
+                }
+            }
+        }
+        dos.writeByte(253);
+        dos.close();
+        return bytes.toByteArray();
+    }
+
+    @BeforeClass
+    public static void initAll() throws IOException {
+        files = new File[9];
+        largeFiles = new File[9];
+        for (int version = 5; version <= 8; ++version) {
+            files[version] = File.createTempFile("graph-v" + version + "-", ".mapgr");
+            Files.write(files[version].toPath(), createGraphFile(version, NB_NODES, version));
+            largeFiles[version] = File.createTempFile("graph-large-v" + version + "-", ".mapgr");
+            Files.write(largeFiles[version].toPath(),
+                    createGraphFile(version, NB_NODES_LARGE, version));
+        }
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void clearAll() {
+        for (File[] array: new File[][] { files, largeFiles }) {
+            for (File file: array) {
+                if (file != null) {
+                    file.delete();
+                }
+            }
+        }
+        pool.shutdown();
+    }
+
+    private static Graph readWithStream(File file, ForkJoinPool pool) throws IOException {
+        try (GraphReader reader = new BinaryGraphReader(
+                new DataInputStream(new BufferedInputStream(new FileInputStream(file))), pool)) {
+            return reader.read();
+        }
+    }
+
+    private Graph readWithStream() throws IOException {
+        return readWithStream(files[version], null);
+    }
+
+    /**
+     * Check that the two graphs are identical (including the order of successors
+     * and the geometry of the arcs).
+     */
+    static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.getMapId(), actual.getMapId());
+        assertEquals(expected.getMapName(), actual.getMapName());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getGraphInformation().getArcCount(),
+                actual.getGraphInformation().getArcCount());
+        assertEquals(expected.getGraphInformation().getOneWayRoadCount(),
+                actual.getGraphInformation().getOneWayRoadCount());
+        assertEquals(expected.getGraphInformation().getMaximumSpeed(),
+                actual.getGraphInformation().getMaximumSpeed());
+        assertEquals(expected.getGraphInformation().getMaximumLength(),
+                actual.getGraphInformation().getMaximumLength(), 0);
+        for (int i = 0; i < expected.size(); ++i) {
+            Node expNode = expected.get(i), actNode = actual.get(i);
+            assertEquals(expNode.getPoint().getLongitude(), actNode.getPoint().getLongitude(), 0);
+            assertEquals(expNode.getPoint().getLatitude(), actNode.getPoint().getLatitude(), 0);
+            List<Arc> expArcs = expNode.getSuccessors(), actArcs = actNode.getSuccessors();
+            assertEquals(expArcs.size(), actArcs.size());
+            for (int j = 0; j < expArcs.size(); ++j) {
+                Arc expArc = expArcs.get(j), actArc = actArcs.get(j);
+                assertEquals(expArc.getDestination().getId(), actArc.getDestination().getId());
+                assertEquals(expArc.getLength(), actArc.getLength(), 0);
+                assertEquals(expArc.getRoadInformation().toString(),
+                        actArc.getRoadInformation().toString());
+                for (AccessMode mode: AccessMode.values()) {
+                    assertEquals(
+                            expArc.getRoadInformation().getAccessRestrictions()
+                                    .getRestrictionFor(mode),
+                            actArc.getRoadInformation().getAccessRestrictions()
+                                    .getRestrictionFor(mode));
+                }
+                List<Point> expPoints = expArc.getPoints(), actPoints = actArc.getPoints();
+                assertEquals(expPoints.size(), actPoints.size());
+                for (int k = 0; k < expPoints.size(); ++k) {
+                    assertEquals(expPoints.get(k).getLongitude(),
+                            actPoints.get(k).getLongitude(), 0);
+                    assertEquals(expPoints.get(k).getLatitude(),
+                            actPoints.get(k).getLatitude(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStreamReader() throws IOException {
+        Graph graph = readWithStream();
+        assertEquals(NB_NODES, graph.size());
+        int nbArcs = 0;
+        for (Node node: graph.getNodes()) {
+            nbArcs += node.getNumberOfSuccessors();
+        }
+        assertEquals(graph.getGraphInformation().getArcCount(), nbArcs);
+    }
+
+    @Test
+    public void testMappedReader() throws IOException {
+        Graph expected = readWithStream();
+        try (MappedGraphReader reader = new MappedGraphReader(files[version])) {
+            assertSameGraph(expected, reader.read());
+            assertEquals(files[version].length(), reader.getBytesRead());
+            assertTrue(reader.getThroughput() >= 0);
+        }
+    }
+
+    @Test
+    public void testParallelReaders() throws IOException {
+        Graph expected = readWithStream(largeFiles[version], null);
+        assertSameGraph(expected, readWithStream(largeFiles[version], pool));
+        try (MappedGraphReader reader = new MappedGraphReader(largeFiles[version], pool)) {
+            assertSameGraph(expected, reader.read());
+            assertEquals(largeFiles[version].length(), reader.getBytesRead());
+        }
+    }
+
+    @Test
+    public void testLazyGeometry() throws IOException {
+        for (File file: new File[] { files[version], largeFiles[version] }) {
+            Graph expected = readWithStream(file, null);
+            for (ForkJoinPool readerPool: new ForkJoinPool[] { null, pool }) {
+                try (BinaryGraphReader reader = new BinaryGraphReader(new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(file))), readerPool)) {
+                    reader.setLazyGeometry(true);
+                    assertSameGraph(expected, reader.read());
+                }
+                try (MappedGraphReader reader = new MappedGraphReader(file, readerPool)) {
+                    reader.setLazyGeometry(true);
+                    assertSameGraph(expected, reader.read());
+                }
+            }
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testParallelReaderTruncated() throws IOException {
+        File file = File.createTempFile("graph-truncated-", ".mapgr");
+        try {
+            byte[] bytes = Files.readAllBytes(largeFiles[version].toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 100));
+            readWithStream(file, pool);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMappedReaderTruncated() throws IOException {
+        File file = File.createTempFile("graph-truncated-", ".mapgr");
+        try {
+            byte[] bytes = Files.readAllBytes(files[version].toPath());
+            // Cut in the header, the nodes, the descriptors, the arcs and right
+            // before the final check byte.
+            for (int length: new int[] { 6, 60, 9 * NB_NODES, bytes.length / 2,
+                    bytes.length - 1 }) {
+                Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+                for (ForkJoinPool readerPool: new ForkJoinPool[] { null, pool }) {
+                    try (MappedGraphReader reader = new MappedGraphReader(file, readerPool)) {
+                        reader.read();
+                        fail("Truncated file of " + length + " bytes was read.");
+                    }
+                    catch (BadFormatException e) {
+                    }
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadFormatException.class)
+    public void testMappedReaderBadNodeCount() throws IOException {
+        File file = File.createTempFile("graph-bad-", ".mapgr");
+        try {
+            byte[] bytes = Files.readAllBytes(files[version].toPath());
+            // Negative number of nodes, right after the number of descriptors.
+            int position = version < 6 ? 16 : 8 + 32 + 2 + "Test map".length() + 4;
+            bytes[position] = (byte) 0x80;
+            Files.write(file.toPath(), bytes);
+            try (MappedGraphReader reader = new MappedGraphReader(file)) {
+                reader.read();
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadersBadDestination() throws IOException {
+        File file = File.createTempFile("graph-bad-", ".mapgr");
+        try {
+            byte[] bytes = Files.readAllBytes(files[version].toPath());
+            // Destination of the first arc, right after the nodes and descriptors,
+            // out of the range of the nodes.
+            int position = (version < 6 ? 12 : 8 + 32 + 2 + "Test map".length()) + 8
+                    + 9 * NB_NODES + 1;
+            for (int descr = 0; descr < NB_DESCRIPTORS; ++descr) {
+                position += 2 + (version >= 7 ? 8 : version >= 6 ? 2 : 0) + 2
+                        + ("Road #" + descr + " é").getBytes("UTF-8").length;
+            }
+            position += 1;
+            bytes[position] = bytes[position + 1] = bytes[position + 2] = (byte) 0xff;
+            Files.write(file.toPath(), bytes);
+            try {
+                readWithStream(file, pool);
+                fail("Arc with a bad destination was read.");
+            }
+            catch (BadFormatException e) {
+            }
+            for (ForkJoinPool readerPool: new ForkJoinPool[] { null, pool }) {
+                try (MappedGraphReader reader = new MappedGraphReader(file, readerPool)) {
+                    reader.read();
+                    fail("Arc with a bad destination was read.");
+                }
+                catch (BadFormatException e) {
+                }
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = BadMagicNumberException.class)
+    public void testMappedReaderBadMagicNumber() throws IOException {
+        File file = File.createTempFile("graph-bad-", ".mapgr");
+        try {
+            byte[] bytes = Files.readAllBytes(files[version].toPath());
+            bytes[0] = 0;
+            Files.write(file.toPath(), bytes);
+            try (MappedGraphReader reader = new MappedGraphReader(file)) {
+                reader.read();
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testArcsList() throws IOException {
+        // Successor lists are views, they must be consistent between calls.
+        Graph graph = readWithStream();
+        List<Arc> arcs = new ArrayList<>();
+        for (Node node: graph.getNodes()) {
+            arcs.addAll(node.getSuccessors());
+        }
+        int index = 0;
+        for (Node node: graph.getNodes()) {
+            for (Arc arc: node.getSuccessors()) {
+                assertEquals(arcs.get(index++), arc);
+                assertEquals(node, arc.getOrigin());
+            }
+        }
+    }
+
+}
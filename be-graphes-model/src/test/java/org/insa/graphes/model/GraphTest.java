@@ -1,11 +1,17 @@
 package org.insa.graphes.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.insa.graphs.model.Arc;
 import org.insa.graphs.model.Graph;
@@ -109,4 +115,86 @@ public class GraphTest {
         assertEquals(1, getArcsBetween(transpose.get(4), transpose.get(3)).size());
 
     }
+
+    @Test
+    public void testCachedData() {
+        Graph other = new Graph("cache", "", Arrays.asList(new Node(0, null)), null);
+
+        // A factory can retrieve other data of the same graph.
+        int value = other.getCachedData("outer",
+                (g) -> g.getCachedData("inner", (h) -> 20) + 1);
+        assertEquals(21, value);
+        assertEquals(Integer.valueOf(20), other.getCachedData("inner", (h) -> 0));
+        assertEquals(Integer.valueOf(21), other.getCachedData("outer", (h) -> 0));
+
+        // ...but not its own key.
+        try {
+            other.getCachedData("loop", (g) -> g.getCachedData("loop", (h) -> 0));
+            fail("Recursive computation should fail.");
+        }
+        catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        // A failed computation is not cached.
+        try {
+            other.getCachedData("failure", (g) -> {
+                throw new UnsupportedOperationException();
+            });
+            fail("Factory exception should be thrown.");
+        }
+        catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+        assertEquals(Integer.valueOf(3), other.getCachedData("failure", (g) -> 3));
+    }
+
+    @Test
+    public void testSourceCachedData() {
+        Graph other = new Graph("cache", "", Arrays.asList(new Node(0, null)), null);
+        Object source = new Object();
+        Object value = other.getCachedData(source, "key", (g) -> new Object());
+        assertSame(value, other.getCachedData(source, "key", (g) -> new Object()));
+        assertNotSame(value, other.getCachedData(new Object(), "key", (g) -> new Object()));
+
+        // The data is dropped once its source is no longer reachable.
+        WeakReference<Object> reference = new WeakReference<>(value);
+        source = null;
+        value = null;
+        for (int i = 0; i < 100 && reference.get() != null; ++i) {
+            System.gc();
+            other.getCachedData(new Object(), "key", (g) -> 0);
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testConcurrentCachedData() throws InterruptedException {
+        Graph other = new Graph("cache", "", Arrays.asList(new Node(0, null)), null);
+        AtomicInteger nbCalls = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        Object[] values = new Object[threads.length];
+        for (int i = 0; i < threads.length; ++i) {
+            final int index = i;
+            threads[i] = new Thread(() -> values[index] = other.getCachedData("key", (g) -> {
+                nbCalls.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Object();
+            }));
+            threads[i].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        assertEquals(1, nbCalls.get());
+        for (Object value: values) {
+            assertSame(values[0], value);
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+package org.insa.graphs.server;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>
+ * Executor of the exchanges of the server that bounds the number of requests
+ * admitted at the same time (running or waiting for a thread of the underlying
+ * executor).
+ * </p>
+ *
+ * <p>
+ * An exchange submitted when the bound is reached is not queued: it is run
+ * immediately in the thread of the caller (the dispatcher of the server) with
+ * {@link #isRejected()} set, so that its handler only answers
+ * <code>503 Service Unavailable</code> without doing any work.
+ * </p>
+ *
+ */
+final class AdmissionExecutor implements Executor {
+
+    // Whether the exchange run by the current thread has been rejected.
+    private static final ThreadLocal<Boolean> REJECTED = ThreadLocal
+            .withInitial(() -> Boolean.FALSE);
+
+    // Executor running the admitted exchanges.
+    private final Executor delegate;
+
+    // Number of requests that can still be admitted.
+    private final Semaphore permits;
+
+    /**
+     * Create a new executor.
+     *
+     * @param delegate Executor running the admitted exchanges.
+     * @param maxAdmitted Maximum number of requests admitted at the same time.
+     */
+    AdmissionExecutor(Executor delegate, int maxAdmitted) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxAdmitted);
+    }
+
+    /**
+     * @return true if the exchange run by the current thread has been rejected.
+     */
+    static boolean isRejected() {
+        return REJECTED.get();
+    }
+
+    @Override
+    public void execute(Runnable exchange) {
+        if (permits.tryAcquire()) {
+            try {
+                delegate.execute(() -> {
+                    try {
+                        exchange.run();
+                    }
+                    finally {
+                        permits.release();
+                    }
+                });
+                return;
+            }
+            catch (RejectedExecutionException e) {
+                permits.release();
+            }
+        }
+        REJECTED.set(Boolean.TRUE);
+        try {
+            exchange.run();
+        }
+        finally {
+            REJECTED.set(Boolean.FALSE);
+        }
+    }
+
+}
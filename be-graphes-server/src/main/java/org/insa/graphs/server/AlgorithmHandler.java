@@ -0,0 +1,164 @@
+package org.insa.graphs.server;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.insa.graphs.algorithm.AbstractAlgorithm;
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.AbstractSolution;
+import org.insa.graphs.algorithm.AlgorithmFactory;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Base class of the handlers running an algorithm selected by the
+ * <code>algorithm</code> parameter among the algorithms enabled for the
+ * handler, the first enabled one by default.
+ * </p>
+ *
+ * <p>
+ * Enabling an algorithm runs it once on every graph for every inspector, so that
+ * the data it derives from the graphs (costs, preprocessing) is cached before
+ * requests use it instead of being computed inside the first of them. The
+ * algorithms are run on the compute executor of the server, whose threads keep
+ * their search workspaces from one request to the next, rather than on the
+ * thread of the request.
+ * </p>
+ *
+ */
+abstract class AlgorithmHandler extends ServiceHandler {
+
+    // Base class of the algorithms of this handler.
+    private final Class<? extends AbstractAlgorithm<?>> baseAlgorithm;
+
+    // Executor running the algorithms.
+    private final ExecutorService compute;
+
+    // Names of the enabled algorithms, in the order they were enabled.
+    private final Set<String> enabled = new CopyOnWriteArraySet<>();
+
+    /**
+     * @param graphs Graphs of the server, by id.
+     * @param baseAlgorithm Base class of the algorithms of this handler.
+     * @param compute Executor running the algorithms.
+     */
+    AlgorithmHandler(Map<String, Graph> graphs,
+            Class<? extends AbstractAlgorithm<?>> baseAlgorithm, ExecutorService compute) {
+        super(graphs);
+        this.baseAlgorithm = baseAlgorithm;
+        this.compute = compute;
+    }
+
+    /**
+     * Create the input of a query used to warm up an algorithm on the given
+     * graph, which has at least one node.
+     *
+     * @param graph Graph of the query.
+     * @param inspector Inspector of the query.
+     *
+     * @return Input data of the query.
+     */
+    abstract AbstractInputData createWarmUpData(Graph graph, ArcInspector inspector);
+
+    /**
+     * Enable the algorithm registered under the given name, running it once on
+     * every graph for every inspector. Nothing is done if it is already enabled.
+     *
+     * @param name Name of the algorithm in the {@link AlgorithmFactory}.
+     *
+     * @throws IllegalArgumentException if no algorithm is registered under this
+     *         name for the base class of this handler.
+     */
+    void enableAlgorithm(String name) throws IllegalArgumentException {
+        Class<? extends AbstractAlgorithm<?>> algorithm = AlgorithmFactory
+                .getAlgorithmClass(baseAlgorithm, name);
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Unknown algorithm: " + name + ".");
+        }
+        if (enabled.contains(name)) {
+            return;
+        }
+        for (Graph graph: getGraphs().values()) {
+            if (graph.size() == 0) {
+                continue;
+            }
+            for (ArcInspector inspector: ArcInspectorFactory.getAllFilters()) {
+                createAlgorithm(algorithm, createWarmUpData(graph, inspector)).run();
+            }
+        }
+        enabled.add(name);
+    }
+
+    /**
+     * @return Names of the enabled algorithms, in the order they were enabled.
+     */
+    Set<String> getEnabledAlgorithms() {
+        return enabled;
+    }
+
+    /**
+     * Create a new instance of the given algorithm.
+     */
+    private static AbstractAlgorithm<?> createAlgorithm(
+            Class<? extends AbstractAlgorithm<?>> algorithm, AbstractInputData data) {
+        try {
+            return AlgorithmFactory.createAlgorithm(algorithm, data);
+        }
+        catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Run the enabled algorithm selected by the <code>algorithm</code> parameter
+     * of the given query on the compute executor, and wait for its solution.
+     *
+     * @param query Parameters of the request.
+     * @param data Input of the algorithm.
+     *
+     * @return Solution of the algorithm.
+     *
+     * @throws RequestException if the selected algorithm is not enabled, or the
+     *         request is interrupted.
+     */
+    AbstractSolution runAlgorithm(Query query, AbstractInputData data)
+            throws RequestException {
+        String name = query.get("algorithm");
+        if (name == null) {
+            if (enabled.isEmpty()) {
+                throw new RequestException(400, "No algorithm is enabled.");
+            }
+            name = enabled.iterator().next();
+        }
+        if (!enabled.contains(name)) {
+            throw new RequestException(400, "Algorithm not enabled: " + name + ".");
+        }
+        final AbstractAlgorithm<?> algorithm = createAlgorithm(
+                AlgorithmFactory.getAlgorithmClass(baseAlgorithm, name), data);
+        Future<? extends AbstractSolution> solution = compute.submit(() -> algorithm.run());
+        try {
+            return solution.get();
+        }
+        catch (InterruptedException e) {
+            solution.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RequestException(503, "Request interrupted.");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
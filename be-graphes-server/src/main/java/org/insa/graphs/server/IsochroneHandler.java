@@ -0,0 +1,89 @@
+package org.insa.graphs.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathTreeSolution;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Handler of <code>/isochrone</code>: nodes whose cost from <code>origin</code>
+ * does not exceed <code>maxCost</code>, computed with the given
+ * <code>algorithm</code> (name of an enabled {@link ShortestPathTreeAlgorithm}).
+ * </p>
+ *
+ * <p>
+ * The response contains the ids of these nodes and their costs, in the same
+ * order. In binary: the number of nodes as an int, their ids as ints, then
+ * their costs as floats.
+ * </p>
+ *
+ */
+final class IsochroneHandler extends AlgorithmHandler {
+
+    IsochroneHandler(Map<String, Graph> graphs, ExecutorService compute) {
+        super(graphs, ShortestPathTreeAlgorithm.class, compute);
+    }
+
+    @Override
+    AbstractInputData createWarmUpData(Graph graph, ArcInspector inspector) {
+        return new ShortestPathTreeData(graph, graph.get(0), inspector, 0);
+    }
+
+    @Override
+    Response handle(Query query) throws RequestException {
+        Graph graph = query.getGraph();
+        float maximumCost = query.getFloat("maxCost", Float.NaN);
+        if (!(maximumCost >= 0)) {
+            throw new RequestException(400, "Missing or negative parameter: maxCost.");
+        }
+        ShortestPathTreeData data = new ShortestPathTreeData(graph,
+                query.getNode(graph, "origin"), query.getInspector(), maximumCost);
+        ShortestPathTreeSolution solution = (ShortestPathTreeSolution) runAlgorithm(query,
+                data);
+
+        final int[] nodes = new int[solution.getReachedCount()];
+        final float[] costs = new float[nodes.length];
+        for (int node = 0, i = 0; node < graph.size(); ++node) {
+            if (solution.isReached(node)) {
+                nodes[i] = node;
+                costs[i++] = solution.getDistance(node);
+            }
+        }
+
+        return new Response() {
+
+            @Override
+            public void writeJson(StringBuilder json) {
+                json.append("{\"nodes\":[");
+                for (int i = 0; i < nodes.length; ++i) {
+                    json.append(i == 0 ? "" : ",").append(nodes[i]);
+                }
+                json.append("],\"costs\":[");
+                for (int i = 0; i < costs.length; ++i) {
+                    json.append(i == 0 ? "" : ",").append(Response.number(costs[i]));
+                }
+                json.append("]}");
+            }
+
+            @Override
+            public void writeBinary(DataOutputStream output) throws IOException {
+                output.writeInt(nodes.length);
+                for (int node: nodes) {
+                    output.writeInt(node);
+                }
+                for (float cost: costs) {
+                    output.writeFloat(cost);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.insa.graphs.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+
+/**
+ * <p>
+ * Handler of <code>/maps</code>: ids, names and sizes of the graphs of the
+ * server, inspectors (by index) and names of the algorithms enabled for the
+ * other handlers.
+ * </p>
+ *
+ * <p>
+ * In binary, only the graphs are written: their number as an int, then the id
+ * and name of each graph (as {@link DataOutputStream#writeUTF(String)}) and
+ * its number of nodes as an int.
+ * </p>
+ *
+ */
+final class MapsHandler extends ServiceHandler {
+
+    // Handlers whose enabled algorithms are listed.
+    private final AlgorithmHandler route, matrix, isochrone;
+
+    MapsHandler(Map<String, Graph> graphs, AlgorithmHandler route, AlgorithmHandler matrix,
+            AlgorithmHandler isochrone) {
+        super(graphs);
+        this.route = route;
+        this.matrix = matrix;
+        this.isochrone = isochrone;
+    }
+
+    /**
+     * Append the given names as a JSON array.
+     */
+    private static void writeNames(StringBuilder json, Iterable<String> names) {
+        json.append('[');
+        boolean first = true;
+        for (String name: names) {
+            json.append(first ? "" : ",").append(Response.quote(name));
+            first = false;
+        }
+        json.append(']');
+    }
+
+    @Override
+    Response handle(Query query) {
+        final Map<String, Graph> graphs = getGraphs();
+        return new Response() {
+
+            @Override
+            public void writeJson(StringBuilder json) {
+                json.append("{\"maps\":[");
+                boolean first = true;
+                for (Map.Entry<String, Graph> entry: graphs.entrySet()) {
+                    json.append(first ? "" : ",");
+                    json.append("{\"id\":").append(Response.quote(entry.getKey()));
+                    json.append(",\"name\":")
+                            .append(Response.quote(entry.getValue().getMapName()));
+                    json.append(",\"nodes\":").append(entry.getValue().size()).append('}');
+                    first = false;
+                }
+                json.append("],\"inspectors\":[");
+                List<ArcInspector> inspectors = ArcInspectorFactory.getAllFilters();
+                for (int i = 0; i < inspectors.size(); ++i) {
+                    json.append(i == 0 ? "" : ",")
+                            .append(Response.quote(inspectors.get(i).toString()));
+                }
+                json.append("],\"routeAlgorithms\":");
+                writeNames(json, route.getEnabledAlgorithms());
+                json.append(",\"matrixAlgorithms\":");
+                writeNames(json, matrix.getEnabledAlgorithms());
+                json.append(",\"isochroneAlgorithms\":");
+                writeNames(json, isochrone.getEnabledAlgorithms());
+                json.append('}');
+            }
+
+            @Override
+            public void writeBinary(DataOutputStream output) throws IOException {
+                output.writeInt(graphs.size());
+                for (Map.Entry<String, Graph> entry: graphs.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeUTF(entry.getValue().getMapName());
+                    output.writeInt(entry.getValue().size());
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.insa.graphs.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.distancematrix.DistanceMatrixAlgorithm;
+import org.insa.graphs.algorithm.distancematrix.DistanceMatrixData;
+import org.insa.graphs.algorithm.distancematrix.DistanceMatrixSolution;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+
+/**
+ * <p>
+ * Handler of <code>/matrix</code>: costs from each of the comma-separated
+ * <code>origins</code> to each of the <code>destinations</code>, up to an
+ * optional <code>radius</code>, with the given <code>algorithm</code> (name of an
+ * enabled {@link DistanceMatrixAlgorithm}). Requests whose matrix has more cells
+ * than the maximum of the server are refused.
+ * </p>
+ *
+ * <p>
+ * The response contains the costs row by row, null (infinity in binary) for
+ * the pairs that cannot be reached. In binary: the number of rows and of
+ * columns as ints, then the costs as floats.
+ * </p>
+ *
+ */
+final class MatrixHandler extends AlgorithmHandler {
+
+    // Default maximum number of cells of a matrix.
+    static final long DEFAULT_MAX_CELLS = 1_000_000;
+
+    // Maximum number of cells of a matrix.
+    private volatile long maxCells = DEFAULT_MAX_CELLS;
+
+    MatrixHandler(Map<String, Graph> graphs, ExecutorService compute) {
+        super(graphs, DistanceMatrixAlgorithm.class, compute);
+    }
+
+    /**
+     * @param maxCells Maximum number of cells (origins times destinations) of a
+     *        matrix.
+     */
+    void setMaxCells(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    @Override
+    AbstractInputData createWarmUpData(Graph graph, ArcInspector inspector) {
+        return new DistanceMatrixData(graph, List.of(graph.get(0)),
+                List.of(graph.get(graph.size() - 1)), inspector, Float.POSITIVE_INFINITY);
+    }
+
+    @Override
+    Response handle(Query query) throws RequestException {
+        Graph graph = query.getGraph();
+        List<Node> origins = query.getNodes(graph, "origins");
+        List<Node> destinations = query.getNodes(graph, "destinations");
+        if ((long) origins.size() * destinations.size() > maxCells) {
+            throw new RequestException(400, "Too many cells: " + origins.size() + " x "
+                    + destinations.size() + " (at most " + maxCells + ").");
+        }
+        DistanceMatrixData data = new DistanceMatrixData(graph, origins, destinations,
+                query.getInspector(), query.getFloat("radius", Float.POSITIVE_INFINITY));
+        final DistanceMatrixSolution solution = (DistanceMatrixSolution) runAlgorithm(query,
+                data);
+        final int nbRows = solution.getRowCount(), nbColumns = solution.getColumnCount();
+
+        return new Response() {
+
+            @Override
+            public void writeJson(StringBuilder json) {
+                json.append("{\"costs\":[");
+                for (int row = 0; row < nbRows; ++row) {
+                    json.append(row == 0 ? "[" : ",[");
+                    for (int column = 0; column < nbColumns; ++column) {
+                        json.append(column == 0 ? "" : ",")
+                                .append(Response.number(solution.getDistance(row, column)));
+                    }
+                    json.append(']');
+                }
+                json.append("]}");
+            }
+
+            @Override
+            public void writeBinary(DataOutputStream output) throws IOException {
+                output.writeInt(nbRows);
+                output.writeInt(nbColumns);
+                for (float distance: solution.getDistances()) {
+                    output.writeFloat(distance);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.insa.graphs.server;
+
+/**
+ * Exception thrown by the handlers when a request cannot be answered, carrying
+ * the HTTP status of the response.
+ *
+ */
+class RequestException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    // HTTP status of the response.
+    private final int status;
+
+    /**
+     * @param status HTTP status of the response.
+     * @param message Message sent to the client.
+     */
+    RequestException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * @return HTTP status of the response.
+     */
+    int getStatus() {
+        return status;
+    }
+
+}
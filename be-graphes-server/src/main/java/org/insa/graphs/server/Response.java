@@ -0,0 +1,67 @@
+package org.insa.graphs.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Body of a successful response, which can be encoded as JSON or in a compact
+ * binary format.
+ * </p>
+ *
+ * <p>
+ * Binary responses are written with a {@link DataOutputStream}, i.e. in
+ * big-endian order, infinite costs being encoded as IEEE infinities.
+ * </p>
+ *
+ */
+interface Response {
+
+    /**
+     * Append the JSON encoding of this response to the given builder.
+     *
+     * @param json Builder to append to.
+     */
+    void writeJson(StringBuilder json);
+
+    /**
+     * Write the binary encoding of this response to the given stream.
+     *
+     * @param output Stream to write to.
+     *
+     * @throws IOException if an error occurs while writing.
+     */
+    void writeBinary(DataOutputStream output) throws IOException;
+
+    /**
+     * @param value A string.
+     *
+     * @return JSON string literal of the given value.
+     */
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * @param value A cost.
+     *
+     * @return JSON number of the given value, or null if it is not finite.
+     */
+    static String number(double value) {
+        return Double.isFinite(value) ? Float.toString((float) value) : "null";
+    }
+
+}
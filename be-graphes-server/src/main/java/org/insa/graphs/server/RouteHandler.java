@@ -0,0 +1,103 @@
+package org.insa.graphs.server;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.insa.graphs.algorithm.AbstractInputData;
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathAlgorithm;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathData;
+import org.insa.graphs.algorithm.shortestpath.ShortestPathSolution;
+import org.insa.graphs.model.Arc;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Path;
+
+/**
+ * <p>
+ * Handler of <code>/route</code>: shortest path from <code>origin</code> to
+ * <code>destination</code> with the given <code>algorithm</code> (name of an
+ * enabled {@link ShortestPathAlgorithm}).
+ * </p>
+ *
+ * <p>
+ * The response contains whether a path exists, its cost for the inspector, its
+ * length in meters, its minimum travel time in seconds and its nodes. In
+ * binary: a byte (1 if a path exists), the cost and length as floats, the
+ * travel time as a double, then the number of nodes and their ids as ints.
+ * </p>
+ *
+ */
+final class RouteHandler extends AlgorithmHandler {
+
+    RouteHandler(Map<String, Graph> graphs, ExecutorService compute) {
+        super(graphs, ShortestPathAlgorithm.class, compute);
+    }
+
+    @Override
+    AbstractInputData createWarmUpData(Graph graph, ArcInspector inspector) {
+        return new ShortestPathData(graph, graph.get(0), graph.get(graph.size() - 1),
+                inspector);
+    }
+
+    @Override
+    Response handle(Query query) throws RequestException {
+        Graph graph = query.getGraph();
+        ArcInspector inspector = query.getInspector();
+        ShortestPathData data = new ShortestPathData(graph, query.getNode(graph, "origin"),
+                query.getNode(graph, "destination"), inspector);
+        ShortestPathSolution solution = (ShortestPathSolution) runAlgorithm(query, data);
+
+        final Path path = solution.isFeasible() ? solution.getPath() : null;
+        final int[] nodes;
+        double cost = 0, time = 0;
+        float length = 0;
+        if (path == null || path.isEmpty()) {
+            nodes = new int[0];
+        }
+        else {
+            nodes = new int[path.size()];
+            nodes[0] = path.getOrigin().getId();
+            int i = 1;
+            for (Arc arc: path.getArcs()) {
+                cost += inspector.getCost(arc);
+                length += arc.getLength();
+                time += arc.getMinimumTravelTime();
+                nodes[i++] = arc.getDestination().getId();
+            }
+        }
+        final float finalCost = path == null ? Float.POSITIVE_INFINITY : (float) cost;
+        final float finalLength = path == null ? Float.POSITIVE_INFINITY : length;
+        final double finalTime = path == null ? Double.POSITIVE_INFINITY : time;
+
+        return new Response() {
+
+            @Override
+            public void writeJson(StringBuilder json) {
+                json.append("{\"feasible\":").append(path != null);
+                json.append(",\"cost\":").append(Response.number(finalCost));
+                json.append(",\"length\":").append(Response.number(finalLength));
+                json.append(",\"travelTime\":").append(Response.number(finalTime));
+                json.append(",\"nodes\":[");
+                for (int i = 0; i < nodes.length; ++i) {
+                    json.append(i == 0 ? "" : ",").append(nodes[i]);
+                }
+                json.append("]}");
+            }
+
+            @Override
+            public void writeBinary(DataOutputStream output) throws IOException {
+                output.writeByte(path != null ? 1 : 0);
+                output.writeFloat(finalCost);
+                output.writeFloat(finalLength);
+                output.writeDouble(finalTime);
+                output.writeInt(nodes.length);
+                for (int node: nodes) {
+                    output.writeInt(node);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,287 @@
+package org.insa.graphs.server;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.io.BinaryGraphReader;
+import org.insa.graphs.model.io.GraphReader;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <p>
+ * Local HTTP service answering shortest-path (<code>/route</code>), distance
+ * matrix (<code>/matrix</code>) and isochrone (<code>/isochrone</code>) queries
+ * on graphs loaded once at startup, algorithms being selected by their name in
+ * the {@link org.insa.graphs.algorithm.AlgorithmFactory}. Only the algorithms
+ * enabled on the server can be used, and enabling an algorithm runs its
+ * preprocessing on every graph before it is listed by <code>/maps</code> with
+ * the loaded graphs. Dijkstra is enabled for routes and isochrones by default.
+ * </p>
+ *
+ * <p>
+ * Each request runs in its own virtual thread when the runtime provides them
+ * (Java 21 and above), or on a pool of one thread per processor otherwise, but
+ * the algorithms themselves run on a pool of one platform thread per processor,
+ * so that the search workspaces of these threads are reused by the following
+ * requests. The number of requests admitted at the same time is bounded:
+ * requests beyond this bound are answered immediately with
+ * <code>503 Service Unavailable</code> and a <code>Retry-After</code> header
+ * instead of being queued.
+ * </p>
+ *
+ */
+public class RoutingServer {
+
+    // Server, executor running its requests, and executor running the algorithms.
+    private final HttpServer server;
+    private final ExecutorService executor, compute;
+
+    // Handlers running the algorithms.
+    private final AlgorithmHandler route, isochrone;
+    private final MatrixHandler matrix;
+
+    /**
+     * Create a new server, which is not started.
+     *
+     * @param graphs Graphs of the server, by id.
+     * @param address Address to listen to (port 0 to pick a free port).
+     * @param maxQueued Number of requests admitted beyond the number of processors
+     *        before answering 503.
+     *
+     * @throws IOException if the server cannot be bound to the address.
+     */
+    public RoutingServer(Map<String, Graph> graphs, InetSocketAddress address, int maxQueued)
+            throws IOException {
+        Map<String, Graph> copy = Collections.unmodifiableMap(new LinkedHashMap<>(graphs));
+        this.server = HttpServer.create(address, 0);
+        this.executor = createExecutor();
+        this.compute = createThreadPool("routing-compute-");
+        this.server.setExecutor(new AdmissionExecutor(this.executor,
+                Runtime.getRuntime().availableProcessors() + maxQueued));
+        this.route = new RouteHandler(copy, this.compute);
+        this.matrix = new MatrixHandler(copy, this.compute);
+        this.isochrone = new IsochroneHandler(copy, this.compute);
+        this.server.createContext("/maps",
+                new MapsHandler(copy, this.route, this.matrix, this.isochrone));
+        this.server.createContext("/route", this.route);
+        this.server.createContext("/matrix", this.matrix);
+        this.server.createContext("/isochrone", this.isochrone);
+        this.route.enableAlgorithm("Dijkstra");
+        this.isochrone.enableAlgorithm("Dijkstra");
+    }
+
+    /**
+     * @param prefix Prefix of the names of the threads.
+     *
+     * @return Pool of daemon threads, one per processor.
+     */
+    private static ExecutorService createThreadPool(String prefix) {
+        final AtomicInteger nbThreads = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, prefix + nbThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * @return Executor starting a virtual thread per task if the runtime provides
+     *         them, or a pool of daemon threads, one per processor, otherwise.
+     */
+    static ExecutorService createExecutor() {
+        try {
+            // Looked up by reflection since the project is compiled for Java 17.
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return createThreadPool("routing-server-");
+        }
+    }
+
+    /**
+     * Enable the shortest-path algorithm registered under the given name for
+     * <code>/route</code>, running its preprocessing on every graph.
+     *
+     * @param name Name of a shortest-path algorithm.
+     *
+     * @throws IllegalArgumentException if no such algorithm is registered.
+     */
+    public void enableRouteAlgorithm(String name) throws IllegalArgumentException {
+        route.enableAlgorithm(name);
+    }
+
+    /**
+     * Enable the distance matrix algorithm registered under the given name for
+     * <code>/matrix</code>, running its preprocessing on every graph.
+     *
+     * @param name Name of a distance matrix algorithm.
+     *
+     * @throws IllegalArgumentException if no such algorithm is registered.
+     */
+    public void enableMatrixAlgorithm(String name) throws IllegalArgumentException {
+        matrix.enableAlgorithm(name);
+    }
+
+    /**
+     * Set the maximum number of cells (origins times destinations) of the
+     * matrices computed by <code>/matrix</code>, larger requests being answered
+     * with <code>400 Bad Request</code>.
+     *
+     * @param maxCells Maximum number of cells of a matrix.
+     */
+    public void setMaxMatrixCells(long maxCells) {
+        matrix.setMaxCells(maxCells);
+    }
+
+    /**
+     * Enable the shortest-path tree algorithm registered under the given name for
+     * <code>/isochrone</code>, running its preprocessing on every graph.
+     *
+     * @param name Name of a shortest-path tree algorithm.
+     *
+     * @throws IllegalArgumentException if no such algorithm is registered.
+     */
+    public void enableIsochroneAlgorithm(String name) throws IllegalArgumentException {
+        isochrone.enableAlgorithm(name);
+    }
+
+    /**
+     * @return Port on which this server listens.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Start this server.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop this server, waiting at most the given delay for the requests being
+     * answered.
+     *
+     * @param delay Maximum delay, in seconds.
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+        compute.shutdown();
+        try {
+            executor.awaitTermination(delay, TimeUnit.SECONDS);
+            compute.awaitTermination(delay, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the given graph file.
+     *
+     * @param file A graph file (.mapgr).
+     *
+     * @return The graph read from the file.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static Graph load(File file) throws IOException {
+        try (GraphReader reader = new BinaryGraphReader(new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file))))) {
+            return reader.read();
+        }
+    }
+
+    /**
+     * Start a server on the graphs given as arguments, identified by their map id
+     * (or their file name if it has none), enabling the algorithms given by name
+     * in addition to the default ones.
+     *
+     * <pre>
+     * RoutingServer [--port PORT] [--queue MAX_QUEUED] [--max-cells MAX_CELLS]
+     *         [--route ALGORITHM]... [--matrix ALGORITHM]... [--isochrone ALGORITHM]...
+     *         FILE.mapgr...
+     * </pre>
+     *
+     * @param args Command-line arguments.
+     *
+     * @throws IOException if a graph cannot be read or the server cannot start.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080, maxQueued = 64;
+        long maxCells = MatrixHandler.DEFAULT_MAX_CELLS;
+        Map<String, Graph> graphs = new LinkedHashMap<>();
+        List<String> routeAlgorithms = new ArrayList<>(),
+                matrixAlgorithms = new ArrayList<>(), isochroneAlgorithms = new ArrayList<>();
+        for (int i = 0; i < args.length; ++i) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            }
+            else if ("--queue".equals(args[i]) && i + 1 < args.length) {
+                maxQueued = Integer.parseInt(args[++i]);
+            }
+            else if ("--max-cells".equals(args[i]) && i + 1 < args.length) {
+                maxCells = Long.parseLong(args[++i]);
+            }
+            else if ("--route".equals(args[i]) && i + 1 < args.length) {
+                routeAlgorithms.add(args[++i]);
+            }
+            else if ("--matrix".equals(args[i]) && i + 1 < args.length) {
+                matrixAlgorithms.add(args[++i]);
+            }
+            else if ("--isochrone".equals(args[i]) && i + 1 < args.length) {
+                isochroneAlgorithms.add(args[++i]);
+            }
+            else {
+                File file = new File(args[i]);
+                Graph graph = load(file);
+                String id = graph.getMapId();
+                if (id == null || id.isEmpty()) {
+                    id = file.getName().replaceFirst("\\.mapgr$", "");
+                }
+                graphs.put(id, graph);
+                System.out.println("Loaded " + id + " (" + graph.size() + " nodes).");
+            }
+        }
+        if (graphs.isEmpty()) {
+            System.err.println("Usage: RoutingServer [--port PORT] [--queue MAX_QUEUED]"
+                    + " [--max-cells MAX_CELLS] [--route ALGORITHM]... [--matrix ALGORITHM]..."
+                    + " [--isochrone ALGORITHM]... FILE.mapgr...");
+            System.exit(1);
+        }
+        RoutingServer server = new RoutingServer(graphs, new InetSocketAddress(port),
+                maxQueued);
+        server.setMaxMatrixCells(maxCells);
+        for (String name: routeAlgorithms) {
+            server.enableRouteAlgorithm(name);
+        }
+        for (String name: matrixAlgorithms) {
+            server.enableMatrixAlgorithm(name);
+        }
+        for (String name: isochroneAlgorithms) {
+            server.enableIsochroneAlgorithm(name);
+        }
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + ".");
+    }
+
+}
@@ -0,0 +1,285 @@
+package org.insa.graphs.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.insa.graphs.algorithm.ArcInspector;
+import org.insa.graphs.algorithm.ArcInspectorFactory;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Node;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * <p>
+ * Base class of the handlers of the server: parses the parameters of the query
+ * string, calls {@link #handle(Query)}, and sends its response as JSON, or in
+ * binary if the <code>format=binary</code> parameter is given or the client
+ * accepts <code>application/octet-stream</code>.
+ * </p>
+ *
+ * <p>
+ * Responses always have a known length and the request body of admitted
+ * requests is drained, so that connections can be kept alive between requests.
+ * Rejected requests are answered without reading their body and close their
+ * connection. Errors are sent as a JSON object with an <code>error</code> field.
+ * Unexpected errors are logged by the server and only reported to the client as
+ * an internal error.
+ * </p>
+ *
+ */
+abstract class ServiceHandler implements HttpHandler {
+
+    // Content types of the responses.
+    private static final String JSON = "application/json; charset=utf-8",
+            BINARY = "application/octet-stream";
+
+    // Graphs of the server, by id.
+    private final Map<String, Graph> graphs;
+
+    /**
+     * Parameters of a request.
+     */
+    final class Query {
+
+        // Decoded parameters.
+        private final Map<String, String> parameters;
+
+        Query(Map<String, String> parameters) {
+            this.parameters = parameters;
+        }
+
+        /**
+         * @return Value of the given parameter, or null if it is not given.
+         */
+        String get(String name) {
+            return parameters.get(name);
+        }
+
+        /**
+         * @return Value of the given parameter, or the given default value.
+         */
+        String get(String name, String defaultValue) {
+            return parameters.getOrDefault(name, defaultValue);
+        }
+
+        /**
+         * @return Value of the given mandatory parameter.
+         */
+        String require(String name) throws RequestException {
+            String value = parameters.get(name);
+            if (value == null) {
+                throw new RequestException(400, "Missing parameter: " + name + ".");
+            }
+            return value;
+        }
+
+        /**
+         * @return Value of the given float parameter, or the given default value.
+         */
+        float getFloat(String name, float defaultValue) throws RequestException {
+            String value = parameters.get(name);
+            try {
+                return value == null ? defaultValue : Float.parseFloat(value);
+            }
+            catch (NumberFormatException e) {
+                throw new RequestException(400, "Invalid number for " + name + ": " + value);
+            }
+        }
+
+        /**
+         * @return Graph selected by the <code>map</code> parameter, which can be
+         *         omitted if the server has a single graph.
+         */
+        Graph getGraph() throws RequestException {
+            String id = parameters.get("map");
+            if (id == null && graphs.size() == 1) {
+                return graphs.values().iterator().next();
+            }
+            if (id == null) {
+                throw new RequestException(400, "Missing parameter: map.");
+            }
+            Graph graph = graphs.get(id);
+            if (graph == null) {
+                throw new RequestException(404, "Unknown map: " + id + ".");
+            }
+            return graph;
+        }
+
+        /**
+         * @return Inspector selected by the <code>inspector</code> parameter, index
+         *         in {@link ArcInspectorFactory#getAllFilters()} (0 by default).
+         */
+        ArcInspector getInspector() throws RequestException {
+            List<ArcInspector> inspectors = ArcInspectorFactory.getAllFilters();
+            String value = parameters.getOrDefault("inspector", "0");
+            try {
+                return inspectors.get(Integer.parseInt(value));
+            }
+            catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new RequestException(400, "Unknown inspector: " + value + ".");
+            }
+        }
+
+        /**
+         * @return Node of the given graph whose id is the given parameter.
+         */
+        Node getNode(Graph graph, String name) throws RequestException {
+            return parseNode(graph, name, require(name));
+        }
+
+        /**
+         * @return Nodes of the given graph whose ids are the comma-separated values
+         *         of the given parameter.
+         */
+        List<Node> getNodes(Graph graph, String name) throws RequestException {
+            List<Node> nodes = new ArrayList<>();
+            for (String value: require(name).split(",")) {
+                nodes.add(parseNode(graph, name, value.trim()));
+            }
+            return nodes;
+        }
+
+        private Node parseNode(Graph graph, String name, String value)
+                throws RequestException {
+            try {
+                return graph.get(Integer.parseInt(value));
+            }
+            catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new RequestException(400, "Invalid node for " + name + ": " + value);
+            }
+        }
+    }
+
+    /**
+     * @param graphs Graphs of the server, by id.
+     */
+    ServiceHandler(Map<String, Graph> graphs) {
+        this.graphs = graphs;
+    }
+
+    /**
+     * @return Graphs of the server, by id.
+     */
+    Map<String, Graph> getGraphs() {
+        return graphs;
+    }
+
+    /**
+     * Answer a request.
+     *
+     * @param query Parameters of the request.
+     *
+     * @return Response to send.
+     *
+     * @throws RequestException if the request cannot be answered.
+     */
+    abstract Response handle(Query query) throws RequestException;
+
+    /**
+     * @return Decoded parameters of the given query string.
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter: query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Send the given body with the given status and content type.
+     */
+    private static void send(HttpExchange exchange, int status, String contentType,
+            byte[] body) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", contentType);
+        if (status == 503) {
+            headers.set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Send an error with the given status and message.
+     */
+    private static void sendError(HttpExchange exchange, int status, String message)
+            throws IOException {
+        send(exchange, status, JSON,
+                ("{\"error\":" + Response.quote(message) + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (AdmissionExecutor.isRejected()) {
+                // The body is not read by the dispatcher, so the connection cannot
+                // be reused.
+                exchange.getResponseHeaders().set("Connection", "close");
+                sendError(exchange, 503, "Too many requests, retry later.");
+                return;
+            }
+            try (InputStream input = exchange.getRequestBody()) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET requests are supported.");
+                return;
+            }
+            Query query = new Query(parseQuery(exchange.getRequestURI().getRawQuery()));
+            Response response = handle(query);
+
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if ("binary".equals(query.get("format"))
+                    || (query.get("format") == null && accept != null && accept.contains(BINARY))) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream output = new DataOutputStream(bytes);
+                response.writeBinary(output);
+                output.flush();
+                send(exchange, 200, BINARY, bytes.toByteArray());
+            }
+            else {
+                StringBuilder json = new StringBuilder();
+                response.writeJson(json);
+                send(exchange, 200, JSON, json.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        catch (RequestException e) {
+            sendError(exchange, e.getStatus(), e.getMessage());
+        }
+        catch (RuntimeException e) {
+            // Details stay in the log of the server.
+            System.err.println("Error while answering " + exchange.getRequestURI() + ":");
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error.");
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+}
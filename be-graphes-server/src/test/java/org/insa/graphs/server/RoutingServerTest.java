@@ -0,0 +1,221 @@
+package org.insa.graphs.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.insa.graphs.model.AccessRestrictions;
+import org.insa.graphs.model.AccessRestrictions.AccessMode;
+import org.insa.graphs.model.AccessRestrictions.AccessRestriction;
+import org.insa.graphs.model.CompactGraph;
+import org.insa.graphs.model.Graph;
+import org.insa.graphs.model.Point;
+import org.insa.graphs.model.RoadInformation;
+import org.insa.graphs.model.RoadInformation.RoadType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RoutingServerTest {
+
+    // Server used by the tests, and its graph.
+    private static RoutingServer server;
+    private static Graph graph;
+
+    @BeforeClass
+    public static void initAll() throws IOException {
+        EnumMap<AccessMode, AccessRestriction> access = new EnumMap<>(AccessMode.class);
+        for (AccessMode mode: AccessMode.values()) {
+            access.put(mode, AccessRestriction.ALLOWED);
+        }
+        RoadInformation road = new RoadInformation(RoadType.UNCLASSIFIED,
+                new AccessRestrictions(access), true, 36, "Road");
+
+        // One-way line 0 - 1 - 2 - 3, each road being 100 meters long.
+        CompactGraph.Builder builder = new CompactGraph.Builder(4, 3);
+        Point[] points = new Point[4];
+        for (int node = 0; node < points.length; ++node) {
+            points[node] = new Point(1.4f + node * 0.001f, 43.5f);
+            builder.addNode(points[node]);
+        }
+        builder.setDescriptors(new RoadInformation[] { road });
+        for (int node = 0; node + 1 < points.length; ++node) {
+            builder.addRoad(node, node + 1, 100, 0,
+                    Arrays.asList(points[node], points[node + 1]));
+        }
+        graph = new Graph("line", "Line", builder.build(), null);
+
+        server = new RoutingServer(Collections.singletonMap("line", graph),
+                new InetSocketAddress("localhost", 0), 4);
+        server.enableMatrixAlgorithm("Buckets");
+        server.setMaxMatrixCells(4);
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopAll() {
+        server.stop(0);
+    }
+
+    /**
+     * @return Connection to the given path of the server.
+     */
+    private static HttpURLConnection open(String path) throws IOException {
+        return open(server, path);
+    }
+
+    /**
+     * @return Connection to the given path of the given server.
+     */
+    private static HttpURLConnection open(RoutingServer server, String path)
+            throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path)
+                .openConnection();
+    }
+
+    private static String read(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream stream = input) {
+            stream.transferTo(bytes);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRouteJson() throws IOException {
+        HttpURLConnection connection = open("/route?origin=0&destination=3");
+        assertEquals(200, connection.getResponseCode());
+        String json = read(connection.getInputStream());
+        assertTrue(json, json.startsWith("{\"feasible\":true,\"cost\":300.0,"));
+        assertTrue(json, json.endsWith("\"nodes\":[0,1,2,3]}"));
+
+        connection = open("/route?map=line&origin=3&destination=0");
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(read(connection.getInputStream()).startsWith("{\"feasible\":false,"));
+    }
+
+    @Test
+    public void testRouteBinary() throws IOException {
+        HttpURLConnection connection = open("/route?origin=1&destination=3");
+        connection.setRequestProperty("Accept", "application/octet-stream");
+        assertEquals(200, connection.getResponseCode());
+        try (DataInputStream input = new DataInputStream(connection.getInputStream())) {
+            assertEquals(1, input.readByte());
+            assertEquals(200, input.readFloat(), 1e-3);
+            input.readFloat();
+            input.readDouble();
+            assertEquals(3, input.readInt());
+            for (int node = 1; node <= 3; ++node) {
+                assertEquals(node, input.readInt());
+            }
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    public void testMatrixAndIsochrone() throws IOException {
+        HttpURLConnection connection = open("/matrix?origins=0,3&destinations=1,2");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("{\"costs\":[[100.0,200.0],[null,null]]}",
+                read(connection.getInputStream()));
+
+        connection = open("/isochrone?origin=1&maxCost=100");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("{\"nodes\":[1,2],\"costs\":[0.0,100.0]}",
+                read(connection.getInputStream()));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertEquals(404, open("/route?map=other&origin=0&destination=1").getResponseCode());
+        assertEquals(400, open("/route?origin=0").getResponseCode());
+        assertEquals(400, open("/route?origin=0&destination=9").getResponseCode());
+        assertEquals(400,
+                open("/route?origin=0&destination=1&algorithm=None").getResponseCode());
+        assertEquals(400,
+                open("/route?origin=0&destination=1&algorithm=A*").getResponseCode());
+        assertEquals(400, open("/isochrone?origin=0").getResponseCode());
+        assertEquals(400, open("/matrix?origins=0,1,2&destinations=2,3").getResponseCode());
+    }
+
+    @Test
+    public void testEnabledAlgorithms() throws IOException {
+        HttpURLConnection connection = open("/maps");
+        assertEquals(200, connection.getResponseCode());
+        String json = read(connection.getInputStream());
+        assertTrue(json, json.endsWith("\"routeAlgorithms\":[\"Dijkstra\"],"
+                + "\"matrixAlgorithms\":[\"Buckets\"],\"isochroneAlgorithms\":[\"Dijkstra\"]}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEnableUnknownAlgorithm() {
+        server.enableRouteAlgorithm("None");
+    }
+
+    @Test
+    public void testAdmission() {
+        final AtomicBoolean rejected = new AtomicBoolean();
+        AdmissionExecutor executor = new AdmissionExecutor((task) -> {
+            throw new AssertionError("No request should be admitted.");
+        }, 0);
+        executor.execute(() -> rejected.set(AdmissionExecutor.isRejected()));
+        assertTrue(rejected.get());
+        assertFalse(AdmissionExecutor.isRejected());
+
+        executor = new AdmissionExecutor(Runnable::run, 1);
+        executor.execute(() -> rejected.set(AdmissionExecutor.isRejected()));
+        assertFalse(rejected.get());
+    }
+
+    @Test
+    public void testRejected() throws IOException, InterruptedException {
+        RoutingServer full = new RoutingServer(Collections.singletonMap("line", graph),
+                new InetSocketAddress("localhost", 0), 1);
+        full.start();
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            // Requests whose body never comes keep their permit.
+            for (int i = 0; i <= Runtime.getRuntime().availableProcessors(); ++i) {
+                Socket socket = new Socket("localhost", full.getPort());
+                sockets.add(socket);
+                OutputStream output = socket.getOutputStream();
+                output.write(("GET /maps HTTP/1.1\r\nHost: localhost\r\n"
+                        + "Content-Length: 1\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                output.flush();
+            }
+
+            // Blocked requests may not have been dispatched yet.
+            HttpURLConnection connection = open(full, "/maps");
+            for (int i = 0; i < 100 && connection.getResponseCode() == 200; ++i) {
+                Thread.sleep(50);
+                connection = open(full, "/maps");
+            }
+            assertEquals(503, connection.getResponseCode());
+            assertEquals("1", connection.getHeaderField("Retry-After"));
+        }
+        finally {
+            for (Socket socket: sockets) {
+                socket.close();
+            }
+            full.stop(0);
+        }
+    }
+
+}